@@ -0,0 +1,74 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Plays the levels with bots on a device, the assets are needed for the collision boxes
+ * @author agent
+ */
+@RunWith(AndroidJUnit4.class)
+public class BotRunnerTest {
+
+    private static final String TAG = BotRunnerTest.class.getSimpleName();
+
+    private static final int DISPLAY_WIDTH = 1920;
+    private static final int DISPLAY_HEIGHT = 1080;
+
+    private BotRunner runner;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        runner = new BotRunner(context, DISPLAY_WIDTH, DISPLAY_HEIGHT);
+    }
+
+    @After
+    public void tearDown() {
+        runner.shutdown();
+    }
+
+    @Test
+    public void run_sameSeedSameOutcome() {
+        // the simulation is deterministic, so a change of the outcome means the physics changed
+        for (int level = 1; level <= 2; level++) {
+            BotReport a = runner.run(level, 64, session -> BotRunner.random(session));
+            BotReport b = runner.run(level, 64, session -> BotRunner.random(session));
+
+            assertEquals(64, a.getSessions());
+            assertEquals(a.getWins(), b.getWins());
+            assertEquals(a.getGameOvers(), b.getGameOvers());
+            assertEquals(a.getStuck(), b.getStuck());
+            assertEquals(a.getDeaths(), b.getDeaths());
+            assertEquals(a.getClearTicks(50), b.getClearTicks(50));
+        }
+    }
+
+    @Test
+    public void run_standingStillGetsStuck() {
+        BotReport report = runner.run(LevelLayout.createCrowded(10, 0, 0), 4, session -> BotRunner.scripted(0));
+        assertEquals(4, report.getStuck());
+        assertEquals(4 * (BotRunner.STUCK_TICKS + 1), report.getTicks(), 4 * GameSimulation.TICKS_PER_SECOND);
+    }
+
+    @Test
+    public void run_crowdedMap() {
+        LevelLayout layout = LevelLayout.createCrowded(100, 600, 400);
+        BotReport report = runner.run(layout, 16, session -> BotRunner.scripted(GameInput.RIGHT));
+        Log.d(TAG, report.toString());
+
+        // the floor has no gaps and the enemies are out of reach, so running right always wins
+        assertEquals(16, report.getWins());
+        assertTrue(report.getMeanTickNanos() > 0);
+    }
+}
@@ -0,0 +1,89 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import at.ac.tuwien.mmue_ll6.util.AllocationCounter;
+import at.ac.tuwien.mmue_ll6.util.DebugAllocationCounter;
+import at.ac.tuwien.mmue_ll6.util.JobScheduler;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fails if the steady state of the game loop allocates: update, snapshot and draw of a level on an offscreen canvas,
+ * counted with the allocation counters of the runtime like the game loop of a debug build
+ * @author agent
+ */
+@RunWith(AndroidJUnit4.class)
+public class GameRendererAllocationTest {
+
+    private static final int DISPLAY_WIDTH = 1920;
+    private static final int DISPLAY_HEIGHT = 1080;
+    private static final int WARM_UP_TICKS = 100;
+    private static final int TICKS = 500;
+
+    private final AllocationCounter counter = new DebugAllocationCounter();
+    private JobScheduler scheduler;
+    private Bitmap bitmap;
+
+    @Before
+    public void setUp() {
+        counter.start();
+        scheduler = new JobScheduler(0, 1, 1);
+        bitmap = Bitmap.createBitmap(DISPLAY_WIDTH, DISPLAY_HEIGHT, Bitmap.Config.ARGB_8888);
+    }
+
+    @After
+    public void tearDown() {
+        counter.stop();
+        scheduler.shutdown();
+        bitmap.recycle();
+    }
+
+    @Test
+    public void runningRight_doesNotAllocate() {
+        assertTicksDoNotAllocate(GameInput.RIGHT);
+    }
+
+    @Test
+    public void standingStill_doesNotAllocate() {
+        assertTicksDoNotAllocate(0);
+    }
+
+    private void assertTicksDoNotAllocate(int input) {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        for (int level = 1; level <= 2; level++) {
+            GameGraphic gameGraphic = new GameGraphic(context, level, DISPLAY_WIDTH, DISPLAY_HEIGHT);
+            GameSimulation simulation = new GameSimulation(gameGraphic, scheduler);
+            GameRenderer renderer = new GameRenderer(gameGraphic);
+            RenderSnapshot snapshot = new RenderSnapshot();
+            Canvas canvas = new Canvas(bitmap);
+
+            for (int i = 0; i < WARM_UP_TICKS; i++) {
+                tick(simulation, renderer, snapshot, canvas, input);
+            }
+            long bytes = 0;
+            for (int i = 0; i < TICKS && !simulation.isFinished(); i++) {
+                counter.begin();
+                tick(simulation, renderer, snapshot, canvas, input);
+                bytes += counter.end();
+            }
+            assertEquals("bytes allocated in level " + level, 0, bytes);
+        }
+    }
+
+    private static void tick(GameSimulation simulation, GameRenderer renderer, RenderSnapshot snapshot, Canvas canvas, int input) {
+        simulation.update(input);
+        simulation.writeSnapshot(snapshot, true);
+        renderer.draw(canvas, snapshot);
+    }
+}
@@ -0,0 +1,56 @@
+package at.ac.tuwien.mmue_ll6;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+
+import at.ac.tuwien.mmue_ll6.game.SoundBank;
+import at.ac.tuwien.mmue_ll6.persistence.AssetPackStorage;
+import at.ac.tuwien.mmue_ll6.persistence.LeaderboardCache;
+import at.ac.tuwien.mmue_ll6.persistence.ScoreRoomDatabase;
+import at.ac.tuwien.mmue_ll6.util.Concurrency;
+import at.ac.tuwien.mmue_ll6.util.Tracing;
+
+/**
+ * Application of the game, prepares app wide resources at startup
+ * @author agent
+ */
+public class GameApplication extends Application {
+
+    // a few seconds of the game loop
+    private static final int TRACE_EVENTS = 1 << 14;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // debug builds keep the last trace sections in memory, they are written when a game is paused or left
+        if (BuildConfig.DEBUG) {
+            Tracing.startRecording(TRACE_EVENTS);
+        }
+
+        // open the score database in the background, while the splash screen is shown
+        Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, null, () -> ScoreRoomDatabase.warmUp(this));
+        // and load the high scores, so the high score screen shows them immediately
+        LeaderboardCache.getInstance(this).preload(1, 2);
+        // map the asset pack, so the first level does not wait for it
+        Concurrency.executeAsync(Concurrency.Lane.ASSET, Concurrency.PRIORITY_HIGH, null, () -> AssetPackStorage.getPack(this));
+        // load the sound effects, so the first jump is not silent
+        SoundBank.getInstance(this);
+
+        // background work an activity waits for is dropped when the activity is gone
+        registerActivityLifecycleCallbacks(new ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityDestroyed(Activity activity) {
+                Concurrency.cancelAll(activity);
+            }
+
+            @Override public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+            @Override public void onActivityStarted(Activity activity) {}
+            @Override public void onActivityResumed(Activity activity) {}
+            @Override public void onActivityPaused(Activity activity) {}
+            @Override public void onActivityStopped(Activity activity) {}
+            @Override public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+        });
+    }
+}
@@ -9,6 +9,7 @@ import android.view.animation.AnimationUtils;
 import androidx.appcompat.app.AppCompatActivity;
 
 import at.ac.tuwien.mmue_ll6.R;
+import at.ac.tuwien.mmue_ll6.persistence.ReplayStorage;
 
 /**
  * Activity after the game, whether the player lost or won the game
@@ -16,6 +17,8 @@ import at.ac.tuwien.mmue_ll6.R;
  */
 public class AfterGameActivity extends AppCompatActivity {
 
+    private int level;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -23,6 +26,17 @@ public class AfterGameActivity extends AppCompatActivity {
 
         Animation travel = AnimationUtils.loadAnimation(this, R.anim.travel);
         findViewById(R.id.afterGameImagePlayer).startAnimation(travel);
+
+        // the last run can only be watched if it was recorded
+        level = getIntent().getIntExtra("level", 0);
+        findViewById(R.id.watchReplayButton).setVisibility(ReplayStorage.exists(this, level) ? View.VISIBLE : View.GONE);
+    }
+
+    public void watchReplayActivity(View v) {
+        Intent intent = new Intent(this, GameActivity.class);
+        intent.putExtra("level", level);
+        intent.putExtra("replay", true);
+        startActivity(intent);
     }
 
     public void selectGameActivity(View v) {
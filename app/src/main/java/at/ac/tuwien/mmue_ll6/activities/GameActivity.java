@@ -8,8 +8,14 @@ import android.preference.PreferenceManager;
 import android.util.Log;
 import android.view.WindowManager;
 
+import java.io.IOException;
+
 import at.ac.tuwien.mmue_ll6.game.GameSurfaceView;
 import at.ac.tuwien.mmue_ll6.R;
+import at.ac.tuwien.mmue_ll6.persistence.ReplayStorage;
+import at.ac.tuwien.mmue_ll6.persistence.ScoreWriteQueue;
+import at.ac.tuwien.mmue_ll6.persistence.SnapshotStorage;
+import at.ac.tuwien.mmue_ll6.util.Concurrency;
 
 /**
  * Activity for playing the game
@@ -17,12 +23,20 @@ import at.ac.tuwien.mmue_ll6.R;
  */
 public class GameActivity extends AppCompatActivity {
 
+    private static final String STATE_SNAPSHOT = "snapshot";
+
+    private GameSurfaceView gameSurfaceView;
+    private int level;
+    private boolean replay;
+    // state of the run when the activity was paused
+    private byte[] snapshot;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
         Bundle b = getIntent().getExtras();
-        int level = b.getInt("level"); // parameter from last activity
+        level = b.getInt("level"); // parameter from last activity
 
         SharedPreferences sharedPref = PreferenceManager.getDefaultSharedPreferences(this);
         boolean sound = sharedPref.getBoolean("sound", true);
@@ -30,11 +44,72 @@ public class GameActivity extends AppCompatActivity {
         Log.d("GameActivity", "onCreate sound: " + sound);
 
         setContentView(R.layout.activity_game); // set content view first
-        GameSurfaceView gameSurfaceView = this.findViewById(R.id.gameSurfaceView); // use id to set level
+        gameSurfaceView = this.findViewById(R.id.gameSurfaceView); // use id to set level
         gameSurfaceView.setLevel(level);
         gameSurfaceView.setSound(sound);
 
+        // watch the recorded last run of the level instead of playing
+        replay = b.getBoolean("replay");
+        if (replay) {
+            byte[] recording = ReplayStorage.read(this, level);
+            try {
+                if (recording != null) gameSurfaceView.setReplay(recording);
+            } catch (IOException e) {
+                Log.e("GameActivity", "onCreate replay: " + e.getMessage());
+            }
+        } else {
+            // continue an interrupted run, from the saved instance state or from the last pause before the process was killed
+            // a run which was left with back, won or lost was deleted, so the level starts from the beginning
+            byte[] state = savedInstanceState != null ? savedInstanceState.getByteArray(STATE_SNAPSHOT) : null;
+            if (state == null) {
+                state = SnapshotStorage.read(this, level);
+            }
+            try {
+                if (state != null) gameSurfaceView.setSnapshot(state);
+            } catch (IOException e) {
+                Log.e("GameActivity", "onCreate snapshot: " + e.getMessage());
+            }
+        }
+
         // Remove notification bar
         this.getWindow().setFlags(WindowManager.LayoutParams.FLAG_FULLSCREEN, WindowManager.LayoutParams.FLAG_FULLSCREEN);
     }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // the run is stopped and written in the background, so it can be continued if the app is killed
+        // a run which is left with back is not written, it is deleted in onBackPressed
+        snapshot = gameSurfaceView.pauseAndSnapshot();
+        if (snapshot != null && !isFinishing()) {
+            byte[] state = snapshot;
+            Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, null,
+                    () -> SnapshotStorage.write(getApplicationContext(), level, state));
+        }
+        // commit the score of a won run soon, the app can be killed in the background
+        ScoreWriteQueue.getInstance(this).flushSoon();
+        Concurrency.logMetrics();
+    }
+
+    /**
+     * leaving the run with back ends it, the level starts from the beginning next time
+     * home keeps the snapshot, the activity keeps no history but the run is continued after the process was killed
+     */
+    @Override
+    public void onBackPressed() {
+        // in the same lane and priority as the snapshot writes, so it comes after the write of an earlier pause
+        if (!replay) {
+            Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, null,
+                    () -> SnapshotStorage.delete(getApplicationContext(), level));
+        }
+        super.onBackPressed();
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (snapshot != null) {
+            outState.putByteArray(STATE_SNAPSHOT, snapshot);
+        }
+    }
 }
\ No newline at end of file
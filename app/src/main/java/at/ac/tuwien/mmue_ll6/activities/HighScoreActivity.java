@@ -2,14 +2,18 @@ package at.ac.tuwien.mmue_ll6.activities;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import android.content.Intent;
 import android.os.Bundle;
+import android.view.View;
 import android.widget.TextView;
 
+import java.util.HashMap;
 import java.util.List;
 
 import at.ac.tuwien.mmue_ll6.R;
+import at.ac.tuwien.mmue_ll6.persistence.LeaderboardCache;
 import at.ac.tuwien.mmue_ll6.persistence.Score;
-import at.ac.tuwien.mmue_ll6.persistence.ScoreRoomDatabase;
+import at.ac.tuwien.mmue_ll6.persistence.ScoreStatistics;
 import at.ac.tuwien.mmue_ll6.util.Concurrency;
 
 /**
@@ -21,10 +25,12 @@ public class HighScoreActivity extends AppCompatActivity {
     private TextView highscoreEasy;
     private TextView highscoreHard;
 
-    private interface OnScoreLoadedListener {
-        void onScoresLoaded(List<Score> scores, int level);
-    }
-    private final OnScoreLoadedListener onScoresLoadedListener = this::updateScoresTable;
+    // latest top scores and statistics per level
+    private final HashMap<Integer, List<Score>> topScores = new HashMap<>();
+    private final HashMap<Integer, ScoreStatistics> statistics = new HashMap<>();
+
+    // the cache calls back on the main thread, immediately if the scores are already loaded
+    private final LeaderboardCache.Listener leaderboardListener = this::updateScoresTable;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -34,29 +40,61 @@ public class HighScoreActivity extends AppCompatActivity {
         highscoreEasy = findViewById(R.id.highscoreTimesEasy);
         highscoreHard = findViewById(R.id.highscoreTimesHard);
 
-        // load scores for each level
-        Concurrency.executeAsync(() -> {
-            List<Score> scores = loadScores(1);
-            runOnUiThread(() -> onScoresLoadedListener.onScoresLoaded(scores, 1));
+        // statistics are read from the aggregate tables, which takes a few small queries
+        Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, this, () -> {
+            ScoreStatistics easy = ScoreStatistics.load(this, 1);
+            ScoreStatistics hard = ScoreStatistics.load(this, 2);
+            runOnUiThread(() -> {
+                onStatisticsLoaded(easy);
+                onStatisticsLoaded(hard);
+            });
         });
+    }
 
-        Concurrency.executeAsync(() -> {
-            List<Score> scores = loadScores(2);
-            runOnUiThread(() -> onScoresLoadedListener.onScoresLoaded(scores, 2));
-        });
+    @Override
+    protected void onStart() {
+        super.onStart();
+        LeaderboardCache.getInstance(this).addListener(leaderboardListener, 1, 2);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        LeaderboardCache.getInstance(this).removeListener(leaderboardListener);
     }
 
-    private List<Score> loadScores(int level) {
-        return ScoreRoomDatabase.getInstance(this).scoreDao().selectAllScores(level);
+    public void showEasyHistory(View v) {
+        startActivity(new Intent(this, ScoreHistoryActivity.class).putExtra("level", 1));
     }
 
-    private void updateScoresTable(List<Score> scores, int level) {
+    public void showHardHistory(View v) {
+        startActivity(new Intent(this, ScoreHistoryActivity.class).putExtra("level", 2));
+    }
+
+    private void onStatisticsLoaded(ScoreStatistics stats) {
+        statistics.put(stats.level, stats);
+        List<Score> scores = topScores.get(stats.level);
+        if (scores != null) {
+            updateScoresTable(stats.level, scores);
+        }
+    }
+
+    private void updateScoresTable(int level, List<Score> scores) {
+        topScores.put(level, scores);
         StringBuilder text = new StringBuilder();
         int ranking = 1;
         for (Score score : scores) {
             text.append(ranking).append(" : ").append(score.time).append("\n");
             ranking++;
         }
+
+        ScoreStatistics stats = statistics.get(level);
+        if (stats != null && stats.attempts > 0) {
+            text.append(getString(R.string.highscore_stats, stats.attempts, stats.averageTime, stats.trend)).append("\n");
+            if (stats.scoreCount > 0) {
+                text.append(getString(R.string.highscore_last, stats.lastTime, stats.lastPercentile)).append("\n");
+            }
+        }
         if (level == 1) {
             highscoreEasy.setText(text.toString());
         } else if (level == 2) {
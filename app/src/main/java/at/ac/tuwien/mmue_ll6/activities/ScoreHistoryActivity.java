@@ -0,0 +1,46 @@
+package at.ac.tuwien.mmue_ll6.activities;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import android.os.Bundle;
+import android.widget.TextView;
+
+import at.ac.tuwien.mmue_ll6.R;
+import at.ac.tuwien.mmue_ll6.persistence.ScorePager;
+import at.ac.tuwien.mmue_ll6.persistence.ScoreRoomDatabase;
+import at.ac.tuwien.mmue_ll6.persistence.ScoreStatistics;
+import at.ac.tuwien.mmue_ll6.util.Concurrency;
+
+/**
+ * Activity to browse all scores of a level, fastest first
+ * @author agent
+ */
+public class ScoreHistoryActivity extends AppCompatActivity {
+
+    private RecyclerView scoreList;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_score_history);
+
+        int level = getIntent().getIntExtra("level", 1);
+        TextView title = findViewById(R.id.scoreHistoryTitle);
+        title.setText(level == 1 ? R.string.highscore_easy : R.string.highscore_hard);
+
+        scoreList = findViewById(R.id.scoreHistoryList);
+        scoreList.setLayoutManager(new LinearLayoutManager(this));
+
+        // the number of scores comes from the statistics, the rows are loaded while scrolling
+        // a fast scroll far down seeks its page through the histogram of the statistics
+        ScoreRoomDatabase db = ScoreRoomDatabase.getInstance(this);
+        ScorePager pager = new ScorePager(db.scoreDao(), db.scoreStatsDao(), level);
+        Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, this, () -> {
+            int scoreCount = ScoreStatistics.load(this, level).scoreCount;
+            pager.loadPage(0);
+            runOnUiThread(() -> scoreList.setAdapter(new ScoreHistoryAdapter(pager, scoreCount, this)));
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package at.ac.tuwien.mmue_ll6.activities;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashSet;
+import java.util.List;
+
+import at.ac.tuwien.mmue_ll6.R;
+import at.ac.tuwien.mmue_ll6.persistence.Score;
+import at.ac.tuwien.mmue_ll6.persistence.ScorePager;
+import at.ac.tuwien.mmue_ll6.util.Concurrency;
+
+/**
+ * Adapter for the score history, rows of pages which are not in memory are loaded in the background
+ * @author agent
+ */
+class ScoreHistoryAdapter extends RecyclerView.Adapter<ScoreHistoryAdapter.ScoreViewHolder> {
+
+    static class ScoreViewHolder extends RecyclerView.ViewHolder {
+        final TextView text;
+
+        ScoreViewHolder(View view) {
+            super(view);
+            text = view.findViewById(R.id.scoreItemText);
+        }
+    }
+
+    private final ScorePager pager;
+    // number of rows, lowered when a page shows that the list ends earlier; only used on the main thread
+    private int itemCount;
+    private final Object owner;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // pages which are being loaded, only used on the main thread
+    private final HashSet<Integer> loadingPages = new HashSet<>();
+    // page of the row which was bound last, written on the main thread
+    private volatile int boundPage;
+
+    /**
+     * constructor for the adapter
+     * @param pager pager of the scores of the level
+     * @param scoreCount number of scores of the level
+     * @param owner the activity of the list, pages which are not loaded yet are dropped when it is destroyed
+     */
+    ScoreHistoryAdapter(ScorePager pager, int scoreCount, Object owner) {
+        this.pager = pager;
+        this.itemCount = scoreCount;
+        this.owner = owner;
+    }
+
+    @NonNull
+    @Override
+    public ScoreViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_score, parent, false);
+        return new ScoreViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ScoreViewHolder holder, int position) {
+        int page = position / ScorePager.PAGE_SIZE;
+        boundPage = page;
+        List<Score> scores = pager.getPage(page);
+        int index = position % ScorePager.PAGE_SIZE;
+
+        if (scores != null && index < scores.size()) {
+            holder.text.setText((position + 1) + " : " + scores.get(index).time);
+        } else {
+            holder.text.setText((position + 1) + " : …");
+            if (scores == null) {
+                loadPage(page);
+            } else {
+                // the list can't change while a row is bound
+                mainHandler.post(() -> clampToPage(page, scores));
+            }
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * load a page in the background and update its rows afterwards
+     * a fast scroll binds rows of many pages on the way, a page which is not next to the last bound row
+     * when its turn comes is dropped, so only the pages on the screen are read
+     */
+    private void loadPage(int page) {
+        if (!loadingPages.add(page)) return;
+        Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, owner, () -> {
+            if (!isNearBoundPage(page)) {
+                mainHandler.post(() -> {
+                    loadingPages.remove(page);
+                    // the list scrolled back to the page in the meantime
+                    if (isNearBoundPage(page)) loadPage(page);
+                });
+                return;
+            }
+            List<Score> scores = pager.loadPage(page);
+            mainHandler.post(() -> {
+                loadingPages.remove(page);
+                int start = page * ScorePager.PAGE_SIZE;
+                if (start < itemCount) {
+                    notifyItemRangeChanged(start, Math.min(ScorePager.PAGE_SIZE, itemCount - start));
+                }
+                clampToPage(page, scores);
+            });
+        });
+    }
+
+    /**
+     * a page has more rows than the screen, so the rows on the screen are on the last bound page and its neighbours
+     */
+    private boolean isNearBoundPage(int page) {
+        return Math.abs(page - boundPage) <= 1;
+    }
+
+    /**
+     * a page which is not full is the last one, remove the rows after it
+     * the number of scores comes from the statistics and can be higher than the number of rows in the score table,
+     * the rows after the end would show the placeholder forever
+     */
+    private void clampToPage(int page, List<Score> scores) {
+        if (scores.size() == ScorePager.PAGE_SIZE) return;
+        int end = page * ScorePager.PAGE_SIZE + scores.size();
+        if (end < itemCount) {
+            int removed = itemCount - end;
+            itemCount = end;
+            notifyItemRangeRemoved(end, removed);
+        }
+    }
+}
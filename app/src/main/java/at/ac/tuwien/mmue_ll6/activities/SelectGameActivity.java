@@ -6,7 +6,10 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.view.View;
 
+import java.util.TimeZone;
+
 import at.ac.tuwien.mmue_ll6.R;
+import at.ac.tuwien.mmue_ll6.game.LevelGenerator;
 
 /**
  * Activity for selecting the level (difficulty)
@@ -32,4 +35,11 @@ public class SelectGameActivity extends AppCompatActivity {
         startActivity(i);
     }
 
+    public void startDailyGameActivity(View v) {
+        Intent i = new Intent(this, GameActivity.class);
+        // the generated level of today
+        i.putExtra("level", LevelGenerator.getDailyLevel(System.currentTimeMillis(), TimeZone.getDefault()));
+        startActivity(i);
+    }
+
 }
\ No newline at end of file
@@ -11,24 +11,34 @@ import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.preference.PreferenceManager;
 import android.util.DisplayMetrics;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.RadioButton;
 import android.widget.TextView;
+import android.widget.Toast;
+
+import java.io.File;
+import java.io.IOException;
 
 import at.ac.tuwien.mmue_ll6.R;
+import at.ac.tuwien.mmue_ll6.persistence.ScoreBackup;
+import at.ac.tuwien.mmue_ll6.util.Concurrency;
 
 /**
  * Activity for settings (language settings)
  * @author Renate Zhang
  */
 public class SettingsActivity extends AppCompatActivity {
+    private static final String TAG = SettingsActivity.class.getSimpleName();
     private static final String SELECTED_LANGUAGE = "Locale.Helper.Selected.Language";
+    private static final String BACKUP_FILE = "backup.llbk";
 
     TextView messageView;
     RadioButton englishButton, germanButton;
     RadioButton soundButtonYes, soundButtonNo;
     Button saveButton;
+    Button exportButton, importButton;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -47,6 +57,8 @@ public class SettingsActivity extends AppCompatActivity {
         germanButton = findViewById(R.id.germanButton);
         soundButtonYes = findViewById(R.id.soundButtonYes);
         soundButtonNo = findViewById(R.id.soundButtonNo);
+        exportButton = findViewById(R.id.exportButton);
+        importButton = findViewById(R.id.importButton);
 
         // setting up on click listener event over the button
         // in order to change the language and sound with the help of the save button
@@ -100,6 +112,50 @@ public class SettingsActivity extends AppCompatActivity {
                 soundButtonYes.setChecked(false);
             }
         });
+
+        // backup
+        exportButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                runBackup(true);
+            }
+        });
+        importButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                runBackup(false);
+            }
+        });
+    }
+
+    // export or import the backup file in the background and show the result
+    private void runBackup(boolean export) {
+        Context context = getApplicationContext();
+        File directory = getExternalFilesDir(null);
+        File file = new File(directory != null ? directory : getFilesDir(), BACKUP_FILE);
+        exportButton.setEnabled(false);
+        importButton.setEnabled(false);
+
+        // not owned by the activity, a started import has to finish
+        Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_LOW, null, () -> {
+            String message;
+            try {
+                if (export) {
+                    message = context.getString(R.string.settings_export_done, ScoreBackup.export(context, file));
+                } else {
+                    message = context.getString(R.string.settings_import_done, ScoreBackup.importFrom(context, file));
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "runBackup: " + e.getMessage());
+                message = context.getString(R.string.settings_backup_failed);
+            }
+            String result = message;
+            runOnUiThread(() -> {
+                exportButton.setEnabled(true);
+                importButton.setEnabled(true);
+                Toast.makeText(context, result, Toast.LENGTH_LONG).show();
+            });
+        });
     }
 
     // the method is used to set the language at runtime
@@ -0,0 +1,161 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.TreeMap;
+
+/**
+ * Summary of many bot sessions on one level: wins, deaths, stuck runs and the cost of a tick
+ * positions are level coordinates, counted in buckets of BUCKET_WIDTH pixel
+ * @author agent
+ */
+public class BotReport {
+
+    public static final int BUCKET_WIDTH = 100;
+
+    /**
+     * outcome of one session, filled by the bot runner
+     */
+    public static class Session {
+        public int ticks;
+        public boolean gameWin;
+        public boolean gameOver;
+        // no progress for too long, or the session ran out of ticks
+        public boolean stuck;
+        public int stuckX;
+
+        // the player has three lives, the last death ends the run
+        public final int[] deathX = new int[4];
+        public int deathCount;
+
+        public long tickNanos;
+        public long maxTickNanos;
+
+        void addDeath(int x) {
+            if (deathCount < deathX.length) {
+                deathX[deathCount++] = x;
+            }
+        }
+
+        void addTick(long nanos) {
+            ticks++;
+            tickNanos += nanos;
+            maxTickNanos = Math.max(maxTickNanos, nanos);
+        }
+    }
+
+    private final int level;
+    private int sessions;
+    private int wins;
+    private int gameOvers;
+    private int stuck;
+    private final ArrayList<Integer> clearTicks = new ArrayList<>();
+    // bucket -> count
+    private final TreeMap<Integer, Integer> deaths = new TreeMap<>();
+    private final TreeMap<Integer, Integer> stuckPositions = new TreeMap<>();
+
+    private long ticks;
+    private long tickNanos;
+    private long maxTickNanos;
+    private long wallNanos;
+
+    public BotReport(int level) {
+        this.level = level;
+    }
+
+    /**
+     * add the outcome of a session, sessions are added in a fixed order so the report does not depend on threads
+     * @param session the session
+     */
+    public void add(Session session) {
+        sessions++;
+        if (session.gameWin) {
+            wins++;
+            clearTicks.add(session.ticks);
+        } else if (session.gameOver) {
+            gameOvers++;
+        } else if (session.stuck) {
+            stuck++;
+            count(stuckPositions, session.stuckX);
+        }
+        for (int i = 0; i < session.deathCount; i++) {
+            count(deaths, session.deathX[i]);
+        }
+        ticks += session.ticks;
+        tickNanos += session.tickNanos;
+        maxTickNanos = Math.max(maxTickNanos, session.maxTickNanos);
+    }
+
+    void setWallNanos(long wallNanos) {
+        this.wallNanos = wallNanos;
+    }
+
+    private static void count(TreeMap<Integer, Integer> buckets, int x) {
+        // rounded down, also left of the start
+        int bucket = (x >= 0 ? x : x - BUCKET_WIDTH + 1) / BUCKET_WIDTH * BUCKET_WIDTH;
+        Integer count = buckets.get(bucket);
+        buckets.put(bucket, count == null ? 1 : count + 1);
+    }
+
+    public int getLevel() { return level;}
+    public int getSessions() { return sessions;}
+    public int getWins() { return wins;}
+    public int getGameOvers() { return gameOvers;}
+    public int getStuck() { return stuck;}
+    public long getTicks() { return ticks;}
+    public long getMaxTickNanos() { return maxTickNanos;}
+    public long getWallNanos() { return wallNanos;}
+
+    /**
+     * @return left end of a bucket -> number of deaths in it
+     */
+    public TreeMap<Integer, Integer> getDeaths() { return deaths;}
+
+    /**
+     * @return left end of a bucket -> number of runs which got stuck in it
+     */
+    public TreeMap<Integer, Integer> getStuckPositions() { return stuckPositions;}
+
+    /**
+     * @return the bucket with the most deaths, -1 if nobody died
+     */
+    public int getDeadliestBucket() {
+        int bucket = -1;
+        int most = 0;
+        for (Integer key : deaths.keySet()) {
+            if (deaths.get(key) > most) {
+                most = deaths.get(key);
+                bucket = key;
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the clear time in ticks of the won runs at the percentile, -1 if no run was won
+     */
+    public int getClearTicks(int percentile) {
+        if (clearTicks.isEmpty()) return -1;
+        ArrayList<Integer> sorted = new ArrayList<>(clearTicks);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+
+    /**
+     * @return average cost of one simulation tick in nanoseconds
+     */
+    public long getMeanTickNanos() {
+        return ticks == 0 ? 0 : tickNanos / ticks;
+    }
+
+    @Override
+    public String toString() {
+        return "level " + level + ": " + sessions + " sessions, " + wins + " won, " + gameOvers + " lost, " + stuck + " stuck"
+                + ", clear ticks p50 " + getClearTicks(50) + " p90 " + getClearTicks(90)
+                + ", deaths " + deaths + ", stuck at " + stuckPositions
+                + ", tick mean " + getMeanTickNanos() / 1000.0 + " us max " + maxTickNanos / 1000.0 + " us"
+                + ", " + ticks + " ticks in " + wallNanos / 1_000_000 + " ms";
+    }
+}
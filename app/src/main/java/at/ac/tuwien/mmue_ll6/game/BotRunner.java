@@ -0,0 +1,208 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.Random;
+
+import at.ac.tuwien.mmue_ll6.util.JobScheduler;
+
+/**
+ * Plays many runs of a level without a surface, with scripted or random input, e.g. to balance a level,
+ * catch changes of the physics or measure the cost of a tick on a crowded map
+ * the sessions run in parallel on their own workers, every session has its own simulation with a serial
+ * job scheduler, so sessions never wait for each other; the report is merged in session order
+ * @author agent
+ */
+public class BotRunner {
+
+    private static final String TAG = BotRunner.class.getSimpleName();
+
+    // a session without progress for this long is stuck
+    public static final int STUCK_TICKS = 10 * GameSimulation.TICKS_PER_SECOND;
+    public static final int MAX_TICKS = 5 * 60 * GameSimulation.TICKS_PER_SECOND;
+
+    /**
+     * input of a bot, asked once per tick like the touch input
+     */
+    public interface Policy {
+        /**
+         * @param simulation the simulation before the tick
+         * @return the input bit mask of the tick, see GameInput
+         */
+        int next(GameSimulation simulation);
+    }
+
+    /**
+     * creates the policy of a session, every session gets its own policy
+     */
+    public interface PolicyFactory {
+        Policy create(int session);
+    }
+
+    private final Context context;
+    private final int displayWidth;
+    private final int displayHeight;
+    private final JobScheduler scheduler;
+
+    /**
+     * @param context to load the level assets
+     * @param displayWidth display size of the simulated runs
+     * @param displayHeight display size of the simulated runs
+     */
+    public BotRunner(Context context, int displayWidth, int displayHeight) {
+        this.context = context;
+        this.displayWidth = displayWidth;
+        this.displayHeight = displayHeight;
+        // one session per chunk, the calling thread runs sessions too
+        this.scheduler = new JobScheduler(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), 1, 1);
+    }
+
+    /**
+     * play a level
+     * @param level a hand-made or generated level
+     * @param sessions number of runs
+     * @param policies the input of the runs
+     * @return the summary of all runs
+     */
+    public BotReport run(int level, int sessions, PolicyFactory policies) {
+        return run(level, null, sessions, policies);
+    }
+
+    /**
+     * play a layout which is not one of the levels, e.g. LevelLayout.createCrowded()
+     * @param layout the map
+     * @param sessions number of runs
+     * @param policies the input of the runs
+     * @return the summary of all runs
+     */
+    public BotReport run(LevelLayout layout, int sessions, PolicyFactory policies) {
+        return run(layout.level, layout, sessions, policies);
+    }
+
+    private BotReport run(int level, LevelLayout layout, int sessions, PolicyFactory policies) {
+        long start = System.nanoTime();
+        BotReport.Session[] results = new BotReport.Session[sessions];
+        scheduler.parallelFor(sessions, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                GameGraphic gameGraphic = layout != null
+                        ? GameGraphic.createHeadless(context, layout, displayWidth, displayHeight)
+                        : GameGraphic.createHeadless(context, level, displayWidth, displayHeight);
+                // the workers of the runner already use all cores
+                GameSimulation simulation = new GameSimulation(gameGraphic,
+                        new JobScheduler(0, JobScheduler.DEFAULT_THRESHOLD, JobScheduler.DEFAULT_CHUNK_SIZE));
+                results[i] = play(simulation, policies.create(i));
+            }
+        });
+
+        BotReport report = new BotReport(level);
+        for (BotReport.Session result : results) {
+            report.add(result);
+        }
+        report.setWallNanos(System.nanoTime() - start);
+        Log.d(TAG, report.toString());
+        return report;
+    }
+
+    /**
+     * play one run until it ends, gets stuck or runs out of ticks
+     * @param simulation a new simulation
+     * @param policy the input
+     * @return the outcome of the run
+     */
+    static BotReport.Session play(GameSimulation simulation, Policy policy) {
+        BotReport.Session session = new BotReport.Session();
+        GameGraphic gameGraphic = simulation.getGameGraphic();
+        int furthestX = Integer.MIN_VALUE;
+        int lastProgress = 0;
+
+        while (!simulation.isFinished()) {
+            int x = gameGraphic.player.getRectTarget().left - simulation.getScrollOffset();
+            if (x > furthestX) {
+                furthestX = x;
+                lastProgress = session.ticks;
+            }
+            if (session.ticks - lastProgress >= STUCK_TICKS || session.ticks >= MAX_TICKS) {
+                session.stuck = true;
+                session.stuckX = x;
+                break;
+            }
+
+            int lives = gameGraphic.player.getNumberOfLives();
+            int input = policy.next(simulation);
+            long tickStart = System.nanoTime();
+            simulation.update(input);
+            session.addTick(System.nanoTime() - tickStart);
+
+            // the player is put back to the start when it dies, so the position before the tick is recorded
+            if (gameGraphic.player.getNumberOfLives() < lives || simulation.isGameOver()) {
+                session.addDeath(x);
+                // progress starts again after a respawn
+                furthestX = Integer.MIN_VALUE;
+            }
+        }
+        session.gameWin = simulation.isGameWin();
+        session.gameOver = simulation.isGameOver();
+        return session;
+    }
+
+    /**
+     * stop the workers of the runner
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * @param inputs input bit masks, repeated when they are used up
+     * @return a policy which plays the inputs in order
+     */
+    public static Policy scripted(int... inputs) {
+        return new Policy() {
+            private int index;
+
+            @Override
+            public int next(GameSimulation simulation) {
+                return inputs[index++ % inputs.length];
+            }
+        };
+    }
+
+    /**
+     * a player who mostly runs to the right and jumps now and then, holding each button for a random time
+     * there is only one finger on the screen, like with the touch input
+     * @param seed the same seed plays the same run
+     * @return the policy
+     */
+    public static Policy random(long seed) {
+        Random random = new Random(seed);
+        return new Policy() {
+            private int held;
+            private int remaining;
+
+            @Override
+            public int next(GameSimulation simulation) {
+                if (remaining > 0) {
+                    remaining--;
+                    return held;
+                }
+                int roll = random.nextInt(100);
+                if (roll < 55) {
+                    held = GameInput.RIGHT;
+                    remaining = 5 + random.nextInt(40);
+                } else if (roll < 85) {
+                    held = GameInput.JUMP;
+                    remaining = 2 + random.nextInt(GameSimulation.JUMP_TICKS + 12);
+                    return GameInput.JUMP | GameInput.JUMP_PRESSED;
+                } else if (roll < 90) {
+                    held = GameInput.LEFT;
+                    remaining = 5 + random.nextInt(20);
+                } else {
+                    held = 0;
+                    remaining = 5 + random.nextInt(20);
+                }
+                return held;
+            }
+        };
+    }
+}
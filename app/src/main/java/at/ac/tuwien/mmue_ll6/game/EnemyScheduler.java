@@ -0,0 +1,106 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import at.ac.tuwien.mmue_ll6.objects.DynamicObject;
+import at.ac.tuwien.mmue_ll6.objects.EnemyObject;
+import at.ac.tuwien.mmue_ll6.util.JobScheduler;
+
+/**
+ * Ticks the enemy state machines
+ * enemies near the camera think every frame, enemies far away are time-sliced:
+ * each of them only thinks every FAR_INTERVAL frames with the accumulated time, so the cost stays bounded
+ * @author agent
+ */
+class EnemyScheduler {
+
+    private static final int FAR_INTERVAL = 8;
+
+    private final JobScheduler jobScheduler;
+
+    // accumulated time per enemy, for time-sliced enemies
+    private double[] pendingTime = new double[0];
+
+    // state of the current tick, read by the job
+    private ArrayList<EnemyObject> enemies;
+    private int tick;
+    private double deltaTime;
+    private int playerX;
+    private int playerY;
+    private int nearLeft;
+    private int nearRight;
+
+    private final JobScheduler.RangeJob thinkJob = (chunk, from, to) -> {
+        for (int i = from; i < to; i++) {
+            EnemyObject enemy = enemies.get(i);
+            pendingTime[i] += deltaTime;
+
+            boolean near = enemy.getRectTarget().right >= nearLeft && enemy.getRectTarget().left <= nearRight;
+            if (near || i % FAR_INTERVAL == tick % FAR_INTERVAL) {
+                enemy.think(pendingTime[i], playerX, playerY);
+                pendingTime[i] = 0;
+            }
+        }
+    };
+
+    /**
+     * constructor for the enemy scheduler
+     * @param jobScheduler used to split crowded levels across workers
+     */
+    EnemyScheduler(JobScheduler jobScheduler) {
+        this.jobScheduler = jobScheduler;
+    }
+
+    /**
+     * write the time slicing state into a game state snapshot, so a restored run stays deterministic
+     * @param out the snapshot buffer
+     * @param enemyCount the number of enemies of the level
+     */
+    void writeState(ByteBuffer out, int enemyCount) {
+        out.putInt(tick);
+        for (int i = 0; i < enemyCount; i++) {
+            out.putDouble(i < pendingTime.length ? pendingTime[i] : 0);
+        }
+    }
+
+    /**
+     * restore the values written by writeState()
+     * @param in the snapshot buffer
+     * @param enemyCount the number of enemies of the level
+     */
+    void readState(ByteBuffer in, int enemyCount) {
+        tick = in.getInt();
+        if (pendingTime.length < enemyCount) {
+            pendingTime = new double[enemyCount];
+        }
+        for (int i = 0; i < enemyCount; i++) {
+            pendingTime[i] = in.getDouble();
+        }
+    }
+
+    /**
+     * let the enemies think for one frame
+     * @param enemies all enemies of the level
+     * @param deltaTime the delta time in seconds
+     * @param player the player, enemies react to its position
+     * @param displayWidth the visible area, enemies within one screen around it count as near
+     */
+    void update(ArrayList<EnemyObject> enemies, double deltaTime, DynamicObject player, int displayWidth) {
+        if (pendingTime.length < enemies.size()) {
+            double[] grown = new double[Math.max(enemies.size(), pendingTime.length * 2)];
+            System.arraycopy(pendingTime, 0, grown, 0, pendingTime.length);
+            pendingTime = grown;
+        }
+
+        this.enemies = enemies;
+        this.deltaTime = deltaTime;
+        this.playerX = (player.getRectTarget().left + player.getRectTarget().right) / 2;
+        this.playerY = player.getRectTarget().bottom;
+        this.nearLeft = -displayWidth;
+        this.nearRight = displayWidth * 2;
+        tick++;
+
+        jobScheduler.parallelFor(enemies.size(), thinkJob);
+    }
+}
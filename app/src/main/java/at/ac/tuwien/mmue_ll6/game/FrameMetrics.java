@@ -0,0 +1,100 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.util.Log;
+
+/**
+ * Collects timings of the game loop (update, render) and the particle system per frame
+ * and logs averages once per second, together with the allocations if they are counted
+ * @author agent
+ */
+public class FrameMetrics {
+
+    private static final String TAG = FrameMetrics.class.getSimpleName();
+    private static final long REPORT_PERIOD = 1_000_000_000L;
+
+    // last frame
+    private long updateNanos;
+    private long renderNanos;
+    private int particleCount;
+    private long particleNanos;
+    private long updateBytes;
+    private long renderBytes;
+
+    // sums for the current report period
+    private int frames;
+    private long updateSum;
+    private long renderSum;
+    private long particleSum;
+    private int maxParticles;
+    // frames which allocated, in the steady state there should be none
+    private int allocatingFrames;
+    private long allocatedSum;
+    private long periodStart = System.nanoTime();
+
+    /**
+     * record the timings of one frame
+     * @param updateNanos time spent in update in nanoseconds
+     * @param renderNanos time spent in render in nanoseconds
+     * @param particleCount number of alive particles
+     * @param particleNanos time spent updating and drawing particles in nanoseconds
+     */
+    public void record(long updateNanos, long renderNanos, int particleCount, long particleNanos) {
+        this.updateNanos = updateNanos;
+        this.renderNanos = renderNanos;
+        this.particleCount = particleCount;
+        this.particleNanos = particleNanos;
+
+        frames++;
+        updateSum += updateNanos;
+        renderSum += renderNanos;
+        particleSum += particleNanos;
+        maxParticles = Math.max(maxParticles, particleCount);
+
+        long now = System.nanoTime();
+        if (now - periodStart >= REPORT_PERIOD) {
+            report();
+            periodStart = now;
+        }
+    }
+
+    /**
+     * record the allocations of one frame, called before record() of the same frame
+     * @param updateBytes bytes allocated by the game loop in update
+     * @param renderBytes bytes allocated by the render thread in the last render
+     */
+    public void recordAllocations(long updateBytes, long renderBytes) {
+        this.updateBytes = updateBytes;
+        this.renderBytes = renderBytes;
+
+        if (updateBytes + renderBytes > 0) {
+            allocatingFrames++;
+            allocatedSum += updateBytes + renderBytes;
+        }
+    }
+
+    /**
+     * log the averages of the current period and start a new one
+     */
+    private void report() {
+        Log.d(TAG, "fps: " + frames
+                + " update: " + (updateSum / frames / 1000) + "us"
+                + " render: " + (renderSum / frames / 1000) + "us"
+                + " particles: " + maxParticles + " (" + (particleSum / frames / 1000) + "us)"
+                + " allocating frames: " + allocatingFrames + " (" + allocatedSum + "B)");
+
+        frames = 0;
+        updateSum = 0;
+        renderSum = 0;
+        particleSum = 0;
+        maxParticles = 0;
+        allocatingFrames = 0;
+        allocatedSum = 0;
+    }
+
+    public long getUpdateNanos() { return updateNanos;}
+    public long getRenderNanos() { return renderNanos;}
+    public int getParticleCount() { return particleCount;}
+    public long getParticleNanos() { return particleNanos;}
+    public long getUpdateBytes() { return updateBytes;}
+    public long getRenderBytes() { return renderBytes;}
+}
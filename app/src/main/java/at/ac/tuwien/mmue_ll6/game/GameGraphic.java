@@ -1,7 +1,8 @@
 package at.ac.tuwien.mmue_ll6.game;
 
 import android.content.Context;
-import android.graphics.BitmapFactory;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Point;
@@ -10,14 +11,23 @@ import android.util.Log;
 import android.view.Display;
 import android.view.WindowManager;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 
 import at.ac.tuwien.mmue_ll6.R;
 import at.ac.tuwien.mmue_ll6.objects.DynamicObject;
+import at.ac.tuwien.mmue_ll6.objects.EnemyObject;
+import at.ac.tuwien.mmue_ll6.objects.ParticleEmitter;
+import at.ac.tuwien.mmue_ll6.objects.ParticleSystem;
 import at.ac.tuwien.mmue_ll6.objects.SpriteObject;
 import at.ac.tuwien.mmue_ll6.objects.StaticObject;
+import at.ac.tuwien.mmue_ll6.persistence.AssetPackStorage;
+import at.ac.tuwien.mmue_ll6.util.AssetPack;
+import at.ac.tuwien.mmue_ll6.util.SpriteFrames;
+import at.ac.tuwien.mmue_ll6.util.Tracing;
 
 /**
  * Help class for GameSurfaceView to initialize graphic assets
@@ -30,6 +40,13 @@ public class GameGraphic {
     // general
     private final Context context;
     private final int level;
+    // positions of the objects of a hand-made level, null for a generated level
+    private final LevelLayout layout;
+    // only the objects which are part of the simulation, e.g. to check a run or for bots
+    private final boolean headless;
+
+    // bitmaps of the level objects, shared by all levels and the headless runs, bitmaps are only read
+    private static final HashMap<Integer, Bitmap> levelBitmaps = new HashMap<>();
 
     // information about display
     protected int displayHeight;
@@ -39,6 +56,8 @@ public class GameGraphic {
 
     // paint for timer
     protected Paint textPaint = new Paint();
+    // paint for the translucent ghost
+    protected Paint ghostPaint = new Paint();
 
     // assets
     protected StaticObject bg;
@@ -47,12 +66,22 @@ public class GameGraphic {
     // objects
     protected ArrayList<DynamicObject> platformObjects = new ArrayList<>();
     protected ArrayList<SpriteObject> spritesObjects = new ArrayList<>();
-    protected ArrayList<DynamicObject> enemyObjects = new ArrayList<>();
+    protected ArrayList<EnemyObject> enemyObjects = new ArrayList<>();
     protected HashMap<String, StaticObject> staticObjectsFixed = new HashMap<>();
     protected HashMap<String, StaticObject> staticObjectsVariable = new HashMap<>();
+    protected StaticObject[] hearts;
     protected DynamicObject player;
     protected DynamicObject goal;
 
+    // particles, null in a headless graphic
+    protected ParticleSystem particleSystem;
+    protected ArrayList<ParticleEmitter> emitters = new ArrayList<>();
+    protected ParticleEmitter playerEmitter;
+    protected ParticleEmitter deathEmitter;
+
+    // places the chunks of a generated level, null for the hand-made levels
+    protected LevelStream levelStream;
+
     /**
      * load the assets (character, background, etc) and initializing them with x and y coordinates
      * also getting the display sizes for the background
@@ -64,17 +93,173 @@ public class GameGraphic {
 
         this.context = context;
         this.level = level;
+        this.layout = loadLayout(context, level);
+        this.headless = false;
 
         // general
         setDisplaySize();
-        setTextPaint(); // text for high score
+        setObjects();
+    }
+
+    /**
+     * load the assets for a fixed display size, used to replay a run recorded on another display size
+     * @param context to load assets
+     * @param level to align right layout for assets
+     * @param displayWidth the display width without the action bar
+     * @param displayHeight the display height
+     */
+    GameGraphic(Context context, int level, int displayWidth, int displayHeight) {
+        this(context, level, loadLayout(context, level), displayWidth, displayHeight, false);
+    }
+
+    private GameGraphic(Context context, int level, LevelLayout layout, int displayWidth, int displayHeight, boolean headless) {
+        Log.d(TAG, "use level: " + level + " with size " + displayWidth + "x" + displayHeight);
+
+        this.context = context;
+        this.level = level;
+        this.layout = layout;
+        this.headless = headless;
+
+        this.displayWidth = displayWidth;
+        this.displayHeight = displayHeight;
+        this.padding = (int) (displayWidth * 0.02f);
+        setObjects();
+    }
+
+    /**
+     * create only the objects which are part of the simulation, without buttons, background, text and particles
+     * the bitmaps of the level objects are shared, so this is fast after the level was played once
+     * @param context to load assets
+     * @param level the level
+     * @param displayWidth the display width without the action bar
+     * @param displayHeight the display height
+     * @return the objects of the level
+     */
+    static GameGraphic createHeadless(Context context, int level, int displayWidth, int displayHeight) {
+        return new GameGraphic(context, level, loadLayout(context, level), displayWidth, displayHeight, true);
+    }
+
+    /**
+     * create only the objects which are part of the simulation (no particles) for a layout which is not one of the levels,
+     * e.g. a synthetic map for the bot runner
+     * @param context to load assets
+     * @param layout the positions of the objects
+     * @param displayWidth the display width without the action bar
+     * @param displayHeight the display height
+     * @return the objects of the layout
+     */
+    static GameGraphic createHeadless(Context context, LevelLayout layout, int displayWidth, int displayHeight) {
+        return new GameGraphic(context, layout.level, layout, displayWidth, displayHeight, true);
+    }
+
+    /**
+     * create all objects, including buttons, background and text, for a layout which is not one of the levels,
+     * e.g. a synthetic map to measure the cost of drawing a frame
+     * @param context to load assets
+     * @param layout the positions of the objects
+     * @param displayWidth the display width without the action bar
+     * @param displayHeight the display height
+     * @return the objects of the layout
+     */
+    static GameGraphic create(Context context, LevelLayout layout, int displayWidth, int displayHeight) {
+        return new GameGraphic(context, layout.level, layout, displayWidth, displayHeight, false);
+    }
+
+    /**
+     * @param context to find the asset pack
+     * @param level the level
+     * @return the layout of a hand-made level from the asset pack, null for a generated level
+     */
+    static LevelLayout loadLayout(Context context, int level) {
+        if (LevelGenerator.isGenerated(level)) return null;
+        try {
+            return LevelLayout.read(getPackEntry(context, AssetPack.getLevelName(level)));
+        } catch (IOException e) {
+            throw new IllegalStateException("level " + level + " in the asset pack is broken: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param context to find the asset pack
+     * @param name the drawable of the sprite sheet
+     * @return the frames of the sprite sheet from the asset pack
+     */
+    private static SpriteFrames loadSpriteFrames(Context context, String name) {
+        try {
+            return SpriteFrames.read(getPackEntry(context, AssetPack.getSpriteName(name)));
+        } catch (IOException e) {
+            throw new IllegalStateException("sprite " + name + " in the asset pack is broken: " + e.getMessage());
+        }
+    }
+
+    /**
+     * levels and sprite frames only exist in the asset pack, without them the build is broken
+     */
+    private static ByteBuffer getPackEntry(Context context, String name) {
+        AssetPack pack = AssetPackStorage.getPack(context);
+        ByteBuffer data = pack != null ? pack.get(name) : null;
+        if (data == null) throw new IllegalStateException(name + " is not in the asset pack");
+        return data;
+    }
+
+    public int getLevel() { return level;}
+    public int getDisplayWidth() { return displayWidth;}
+    public int getDisplayHeight() { return displayHeight;}
+
+    /**
+     * @return x coordinates of the checkpoints for the split times in level coordinates, ascending
+     */
+    public int[] getCheckpoints() {
+        if (LevelGenerator.isGenerated(level)) {
+            // the start of every chunk after the first one
+            int[] checkpoints = new int[LevelGenerator.DAILY_CHUNKS - 1];
+            for (int i = 0; i < checkpoints.length; i++) {
+                checkpoints[i] = LevelGenerator.getChunkStart(i + 1);
+            }
+            return checkpoints;
+        }
+        if (layout == null) return new int[0];
+
+        // every platform right of the start
+        int[] platforms = Arrays.copyOf(layout.platformX, layout.platformX.length);
+        Arrays.sort(platforms);
+        int[] checkpoints = new int[platforms.length];
+        int count = 0;
+        for (int x : platforms) {
+            if (x > layout.playerX && (count == 0 || x > checkpoints[count - 1])) {
+                checkpoints[count++] = x;
+            }
+        }
+        return Arrays.copyOf(checkpoints, count);
+    }
+
+    /**
+     * create all objects of the level, the display size has to be set before
+     */
+    private void setObjects() {
+        Tracing.begin("GameGraphic.setObjects");
+        if (!headless) {
+            setTextPaint(); // text for high score
+            ghostPaint.setAlpha(90);
+
+            setStaticObjectsFixed();
+            setStaticObjectsVariable();
+        }
 
         // objects
-        setStaticObjectsFixed();
-        setStaticObjectsVariable();
         setSpriteObjects();
         setDynamicObjects();
         setPlatforms();
+        if (LevelGenerator.isGenerated(level)) {
+            setGeneratedObjects();
+        }
+        if (!headless) {
+            setParticles(); // after sprites and dynamic objects, emitters are attached to them
+        }
+        if (levelStream != null) {
+            levelStream.start();
+        }
+        Tracing.end();
     }
 
     /**
@@ -108,32 +293,12 @@ public class GameGraphic {
      * generate platforms based on level
      */
     public void setPlatforms() {
+        if (layout == null) return;
 
-        if (this.level == 1) {
-            DynamicObject platform1 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 100, displayHeight - 150);
-            DynamicObject platform2 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 1100, displayHeight - 150);
-            DynamicObject platform3 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 2000, displayHeight - 300);
-            DynamicObject platform4 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 3000, displayHeight - 150);
-            DynamicObject platform5 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 3900, displayHeight - 300);
-            DynamicObject platform6 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 5000, displayHeight - 300);
-
-            // the order of array is the order of draw calls!
-            platformObjects = new ArrayList<>(Arrays.asList(platform1, platform2, platform3, platform4, platform5, platform6));
-        }
-
-        if (this.level == 2) {
-            DynamicObject platform1 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 200, displayHeight - 200);
-            DynamicObject platform2 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 1250, displayHeight - 500);
-            DynamicObject platform3 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 2300, displayHeight - 100);
-            DynamicObject platform4 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 2500, displayHeight - 750);
-            DynamicObject platform5 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 3600, displayHeight - 500);
-            DynamicObject platform6 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 3900, displayHeight - 100);
-            DynamicObject platform7 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 5000, displayHeight - 300);
-            DynamicObject platform8 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 6000, displayHeight - 600);
-            DynamicObject platform9 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.platform2), 7000, displayHeight - 400);
-
-            // the order of array is the order of draw calls!
-            platformObjects = new ArrayList<>(Arrays.asList(platform1, platform2, platform3, platform5, platform6, platform7, platform8, platform9));
+        Bitmap bitmap = decodeLevelBitmap(R.drawable.platform2);
+        // the order of array is the order of draw calls!
+        for (int i = 0; i < layout.platformX.length; i++) {
+            platformObjects.add(new DynamicObject(bitmap, layout.platformX[i], displayHeight - layout.platformY[i]));
         }
     }
 
@@ -142,16 +307,17 @@ public class GameGraphic {
      */
     public void setStaticObjectsFixed() {
         // buttons and hearts
-        StaticObject buttonLeft = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.arrowleft), displayWidth - 600,displayHeight - padding);
-        StaticObject buttonRight = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.arrowright), displayWidth - 300,displayHeight - padding);
-        StaticObject buttonUp = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.arrowup),  100, displayHeight - (int) padding);
-        StaticObject heart1 = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.heart), 100, padding + BitmapFactory.decodeResource(context.getResources(), R.drawable.heart).getHeight());
-        StaticObject heart2 = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.heart), 300, padding + BitmapFactory.decodeResource(context.getResources(), R.drawable.heart).getHeight());
-        StaticObject heart3 = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.heart), 500, padding + BitmapFactory.decodeResource(context.getResources(), R.drawable.heart).getHeight());
+        Bitmap heart = decodeBitmap(R.drawable.heart);
+        StaticObject buttonLeft = new StaticObject(decodeBitmap(R.drawable.arrowleft), displayWidth - 600,displayHeight - padding);
+        StaticObject buttonRight = new StaticObject(decodeBitmap(R.drawable.arrowright), displayWidth - 300,displayHeight - padding);
+        StaticObject buttonUp = new StaticObject(decodeBitmap(R.drawable.arrowup),  100, displayHeight - (int) padding);
+        StaticObject heart1 = new StaticObject(heart, 100, padding + heart.getHeight());
+        StaticObject heart2 = new StaticObject(heart, 300, padding + heart.getHeight());
+        StaticObject heart3 = new StaticObject(heart, 500, padding + heart.getHeight());
 
         // background
-        bg = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.background), 0, displayWidth, 0, displayHeight);
-        overlay = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.overlay), 0, displayWidth, 0, displayHeight);
+        bg = new StaticObject(decodeBitmap(R.drawable.background), 0, displayWidth, 0, displayHeight);
+        overlay = new StaticObject(decodeBitmap(R.drawable.overlay), 0, displayWidth, 0, displayHeight);
 
         staticObjectsFixed.put("buttonLeft", buttonLeft);
         staticObjectsFixed.put("buttonRight", buttonRight);
@@ -159,19 +325,29 @@ public class GameGraphic {
         staticObjectsFixed.put("heart1", heart1);
         staticObjectsFixed.put("heart2", heart2);
         staticObjectsFixed.put("heart3", heart3);
+
+        // hearts are drawn according to the number of lives
+        hearts = new StaticObject[]{heart1, heart2, heart3};
     }
 
     /**
      * generate static objects based on level, objects that appear only on action (pause/play, sound/mute, gameover/win/pause image)
      */
     public void setStaticObjectsVariable() {
-        StaticObject pauseButton = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.pause), displayWidth - 300, (int) (padding + BitmapFactory.decodeResource(context.getResources(), R.drawable.pause).getHeight()));
-        StaticObject playButton = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.play), displayWidth - 300, (int) (padding + BitmapFactory.decodeResource(context.getResources(), R.drawable.play).getHeight()));
-        StaticObject soundButton = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.sound), displayWidth - 600, (int) (padding + BitmapFactory.decodeResource(context.getResources(), R.drawable.sound).getHeight()));
-        StaticObject muteButton = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.mute), displayWidth - 600, (int) (padding + BitmapFactory.decodeResource(context.getResources(), R.drawable.mute).getHeight()));
-        StaticObject gameOverImage = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.gameover), displayWidth/2 - BitmapFactory.decodeResource(context.getResources(), R.drawable.gameover).getWidth()/2, displayHeight/2 + BitmapFactory.decodeResource(context.getResources(), R.drawable.gameover).getHeight()/2);
-        StaticObject gameWinImage = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.youwin), displayWidth/2 - BitmapFactory.decodeResource(context.getResources(), R.drawable.youwin).getWidth()/2, displayHeight/2 + BitmapFactory.decodeResource(context.getResources(), R.drawable.youwin).getHeight()/2);
-        StaticObject gamePauseImage = new StaticObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.paused), displayWidth/2 - BitmapFactory.decodeResource(context.getResources(), R.drawable.paused).getWidth()/2, displayHeight/2 + BitmapFactory.decodeResource(context.getResources(), R.drawable.paused).getHeight()/2);
+        Bitmap pause = decodeBitmap(R.drawable.pause);
+        Bitmap play = decodeBitmap(R.drawable.play);
+        Bitmap sound = decodeBitmap(R.drawable.sound);
+        Bitmap mute = decodeBitmap(R.drawable.mute);
+        Bitmap gameOver = decodeBitmap(R.drawable.gameover);
+        Bitmap gameWin = decodeBitmap(R.drawable.youwin);
+        Bitmap gamePause = decodeBitmap(R.drawable.paused);
+        StaticObject pauseButton = new StaticObject(pause, displayWidth - 300, padding + pause.getHeight());
+        StaticObject playButton = new StaticObject(play, displayWidth - 300, padding + play.getHeight());
+        StaticObject soundButton = new StaticObject(sound, displayWidth - 600, padding + sound.getHeight());
+        StaticObject muteButton = new StaticObject(mute, displayWidth - 600, padding + mute.getHeight());
+        StaticObject gameOverImage = new StaticObject(gameOver, displayWidth/2 - gameOver.getWidth()/2, displayHeight/2 + gameOver.getHeight()/2);
+        StaticObject gameWinImage = new StaticObject(gameWin, displayWidth/2 - gameWin.getWidth()/2, displayHeight/2 + gameWin.getHeight()/2);
+        StaticObject gamePauseImage = new StaticObject(gamePause, displayWidth/2 - gamePause.getWidth()/2, displayHeight/2 + gamePause.getHeight()/2);
 
         staticObjectsVariable.put("pauseButton", pauseButton);
         staticObjectsVariable.put("playButton", playButton);
@@ -183,28 +359,17 @@ public class GameGraphic {
     }
 
     /**
-     * generate dynamic objects based on level (player, goal, enemies)
+     * generate dynamic objects based on level (player, goal, enemies with their behavior)
      */
     public void setDynamicObjects() {
+        if (layout == null) return;
 
-        if (this.level == 1) {
-            player = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.player), 600, displayHeight - 300);
-            goal = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.goal), 5500, displayHeight - 700);
+        player = new DynamicObject(decodeLevelBitmap(R.drawable.player), layout.playerX, displayHeight - layout.playerY);
+        goal = new DynamicObject(decodeLevelBitmap(R.drawable.goal), layout.goalX, displayHeight - layout.goalY);
 
-            DynamicObject enemy = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.enemy), 900, displayHeight - 200);
-            enemyObjects.add(enemy);
-        }
-        if (this.level == 2) {
-            player = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.player), 600, displayHeight - 350);
-            goal = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.goal), 7000, displayHeight - 150);
-
-            DynamicObject enemy1 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.enemy), 1050, displayHeight - 300);
-            DynamicObject enemy2 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.enemy), 2700, displayHeight - 300);
-            DynamicObject enemy3 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.enemy), 5250, displayHeight - 450);
-            DynamicObject enemy4 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.enemy), 5500, displayHeight - 450);
-            DynamicObject enemy5 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.enemy), 6700, displayHeight - 250);
-            DynamicObject enemy6 = new DynamicObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.enemy), 8100, displayHeight - 400);
-            enemyObjects = new ArrayList<>(Arrays.asList(enemy1, enemy2, enemy3, enemy4, enemy5, enemy6));
+        Bitmap bitmap = decodeLevelBitmap(R.drawable.enemy);
+        for (int i = 0; i < layout.enemyX.length; i++) {
+            enemyObjects.add(new EnemyObject(bitmap, layout.enemyX[i], displayHeight - layout.enemyY[i], layout.enemyBehavior[i], layout.enemyRange[i]));
         }
     }
 
@@ -212,15 +377,106 @@ public class GameGraphic {
      * generate sprites objects based on level (fire sprite)
      */
     public void setSpriteObjects() {
+        if (layout == null) return;
+
+        Bitmap bitmap = decodeLevelBitmap(R.drawable.fire);
+        SpriteFrames frames = loadSpriteFrames(context, "fire");
+        for (int i = 0; i < layout.fireX.length; i++) {
+            spritesObjects.add(new SpriteObject(bitmap, frames, layout.fireX[i], displayHeight - layout.fireY[i]));
+        }
+    }
 
-        if (this.level == 1) {
-            SpriteObject fire1 = new SpriteObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.fire), 4, 100, displayHeight - 300);
-            spritesObjects = new ArrayList<>(Arrays.asList(fire1));
+    /**
+     * create the player and the reused objects of a generated level, the level stream moves them into place
+     * all objects of a kind share one bitmap
+     */
+    public void setGeneratedObjects() {
+        Bitmap playerBitmap = decodeLevelBitmap(R.drawable.player);
+        Bitmap platformBitmap = decodeLevelBitmap(R.drawable.platform2);
+        Bitmap enemyBitmap = decodeLevelBitmap(R.drawable.enemy);
+        Bitmap fireBitmap = decodeLevelBitmap(R.drawable.fire);
+        SpriteFrames fireFrames = loadSpriteFrames(context, "fire");
+        int parkY = LevelStream.getParkY(displayHeight);
+
+        player = new DynamicObject(playerBitmap, 600, displayHeight - 300);
+        goal = new DynamicObject(decodeLevelBitmap(R.drawable.goal), 0, parkY);
+
+        for (int block = 0; block < LevelStream.LIVE_CHUNKS; block++) {
+            for (int i = 0; i < LevelGenerator.MAX_PLATFORMS; i++) {
+                platformObjects.add(new DynamicObject(platformBitmap, 0, parkY));
+            }
+            for (int i = 0; i < LevelStream.ENEMIES; i++) {
+                enemyObjects.add(new EnemyObject(enemyBitmap, 0, parkY, LevelGenerator.ENEMY_BEHAVIORS[i], LevelGenerator.ENEMY_RANGES[i]));
+            }
+            for (int i = 0; i < LevelGenerator.MAX_FIRES; i++) {
+                spritesObjects.add(new SpriteObject(fireBitmap, fireFrames, 0, parkY));
+            }
         }
 
-        if (this.level == 2) {
-            SpriteObject fire = new SpriteObject(BitmapFactory.decodeResource(context.getResources(), R.drawable.fire), 4, 200, displayHeight - 350);
-            spritesObjects.add(fire);
+        JumpEnvelope envelope = new JumpEnvelope(playerBitmap.getWidth(), playerBitmap.getHeight(), displayHeight);
+        LevelGenerator generator = new LevelGenerator(level, LevelGenerator.DAILY_CHUNKS, envelope,
+                platformBitmap.getWidth(), platformBitmap.getHeight(), enemyBitmap.getWidth(), enemyBitmap.getHeight());
+        levelStream = new LevelStream(generator, this, !headless);
+    }
+
+    /**
+     * decode a bitmap of the level objects once for all levels
+     * @param id the drawable
+     * @return the shared bitmap
+     */
+    private Bitmap decodeLevelBitmap(int id) {
+        synchronized (levelBitmaps) {
+            Bitmap bitmap = levelBitmaps.get(id);
+            if (bitmap == null) {
+                bitmap = decodeBitmap(id);
+                levelBitmaps.put(id, bitmap);
+            }
+            return bitmap;
         }
     }
+
+    /**
+     * decode a bitmap scaled for the display from the asset pack, from the resources if it is not packed
+     * @param id the drawable
+     * @return the bitmap
+     */
+    private Bitmap decodeBitmap(int id) {
+        return AssetPackStorage.decodeBitmap(context, id);
+    }
+
+    /**
+     * create the particle bitmaps and attach emitters to the player, enemies and sprites
+     */
+    public void setParticles() {
+        particleSystem = new ParticleSystem(4096);
+        particleSystem.setBitmap(ParticleSystem.KIND_FIRE, createParticleBitmap(Color.rgb(255, 140, 30), 6));
+        particleSystem.setBitmap(ParticleSystem.KIND_DUST, createParticleBitmap(Color.rgb(220, 220, 220), 5));
+        particleSystem.setBitmap(ParticleSystem.KIND_DEATH, createParticleBitmap(Color.rgb(230, 40, 40), 8));
+        particleSystem.setBitmap(ParticleSystem.KIND_SPARK, createParticleBitmap(Color.rgb(170, 90, 255), 4));
+
+        // player emitters are only used for bursts (jump, death)
+        playerEmitter = new ParticleEmitter(particleSystem, ParticleSystem.KIND_DUST, 0, player);
+        deathEmitter = new ParticleEmitter(particleSystem, ParticleSystem.KIND_DEATH, 0, player);
+
+        for (SpriteObject s: spritesObjects) {
+            emitters.add(new ParticleEmitter(particleSystem, ParticleSystem.KIND_FIRE, 40, s));
+        }
+        for (DynamicObject e: enemyObjects) {
+            emitters.add(new ParticleEmitter(particleSystem, ParticleSystem.KIND_SPARK, 8, e));
+        }
+    }
+
+    /**
+     * help method to create a round particle bitmap
+     * @param color the color of the particle
+     * @param radius the radius in pixel
+     * @return the created bitmap
+     */
+    private Bitmap createParticleBitmap(int color, int radius) {
+        Bitmap bitmap = Bitmap.createBitmap(radius * 2, radius * 2, Bitmap.Config.ARGB_8888);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(color);
+        new Canvas(bitmap).drawCircle(radius, radius, radius, paint);
+        return bitmap;
+    }
 }
@@ -0,0 +1,51 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Input of the game as bit mask, written by the touch events and sampled once per tick by the game loop
+ * the simulation only sees the sampled mask, so recording the masks is enough to replay a run
+ * @author agent
+ */
+public class GameInput {
+
+    // buttons which are held down
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int JUMP = 1 << 2;
+    // the jump button was pressed since the last tick
+    public static final int JUMP_PRESSED = 1 << 3;
+
+    private volatile int held;
+    private final AtomicBoolean jumpPressed = new AtomicBoolean();
+
+    /**
+     * a button was pressed, called from the UI thread
+     * @param button LEFT, RIGHT or JUMP
+     */
+    public void press(int button) {
+        held = button;
+        if (button == JUMP) {
+            jumpPressed.set(true);
+        }
+    }
+
+    /**
+     * the finger was lifted, called from the UI thread
+     */
+    public void release() {
+        held = 0;
+    }
+
+    /**
+     * get the input for the next tick, called from the game loop
+     * @return the input bit mask
+     */
+    public int sample() {
+        int input = held;
+        if (jumpPressed.getAndSet(false)) {
+            input |= JUMP_PRESSED;
+        }
+        return input;
+    }
+}
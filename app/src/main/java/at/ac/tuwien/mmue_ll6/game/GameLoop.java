@@ -4,8 +4,20 @@ import android.graphics.Canvas;
 import android.util.Log;
 import android.view.SurfaceHolder;
 
+import java.util.concurrent.locks.LockSupport;
+
+import at.ac.tuwien.mmue_ll6.BuildConfig;
+import at.ac.tuwien.mmue_ll6.util.AllocationCounter;
+import at.ac.tuwien.mmue_ll6.util.DebugAllocationCounter;
+import at.ac.tuwien.mmue_ll6.util.Tracing;
+
 /**
  * The game loop for running and updating the game
+ * runs as a two stage pipeline: this thread updates the game and writes a render snapshot,
+ * a separate render thread draws the last completed snapshot, so update and draw overlap
+ * the game is updated in fixed ticks, so a run only depends on its input and can be replayed
+ * debug builds count the allocations of every update and render, the steady state must not allocate
+ * update and render are trace sections, a frame which takes longer than its period is marked in the trace
  * @author Renate Zhang
  */
 public class GameLoop implements Runnable {
@@ -14,18 +26,33 @@ public class GameLoop implements Runnable {
 
     private final SurfaceHolder surfaceHolder;
     private final GameSurfaceView gameSurfaceView;
-    private boolean running;
+    private volatile boolean running;
 
     private final static int  MAX_FPS = 50;
-    private final static int  MAX_FRAME_SKIPS = 5;
     private final static int  FRAME_PERIOD = 1000 / MAX_FPS;
+    private final static long TICK_NANOS = 1_000_000_000L / GameSimulation.TICKS_PER_SECOND;
+    // after a long hiccup the game slows down instead of running many ticks at once
+    private final static int  MAX_TICKS_PER_FRAME = 5;
 
-    public double deltaTime;
-    public double lastTime;
-    public double nowTime;
-    int framesSkipped;
+    public long lastTime;
+    public long accumulator;
     int sleepTime;
 
+    // render stage
+    private final SnapshotBuffer snapshotBuffer = new SnapshotBuffer();
+    private Thread renderThread;
+    private volatile boolean rendering;
+
+    // timings of the last frame
+    private final FrameMetrics frameMetrics = new FrameMetrics();
+    private long updateNanos;
+    private volatile long renderNanos;
+
+    // allocations of the last frame, the counters are per thread
+    private final AllocationCounter allocationCounter = BuildConfig.DEBUG ? new DebugAllocationCounter() : AllocationCounter.NONE;
+    private long updateBytes;
+    private volatile long renderBytes;
+
     /**
      * constructor for the class GameLoop
      * @param gameSurfaceView corresponding game view
@@ -44,8 +71,12 @@ public class GameLoop implements Runnable {
         return running;
     }
 
+    public FrameMetrics getFrameMetrics() {
+        return frameMetrics;
+    }
+
     /**
-     * run method, starts the timer and updates the game while running
+     * run method, starts the timer and the render thread and updates the game while running
      */
     @Override
     public void run() {
@@ -54,74 +85,145 @@ public class GameLoop implements Runnable {
         //one time updates before first frame update is called
         start();
         setRunning(true);
+        allocationCounter.start();
+        startRenderThread();
 
         while (running){
-            //Update game logic
+            //Update game logic and hand the result over to the render thread
+            long frameStart = System.nanoTime();
+            allocationCounter.begin();
+            Tracing.begin("GameLoop.update");
             update();
-            //Render assets
-            render();
+            publishSnapshot();
+            Tracing.end();
+            updateBytes = allocationCounter.end();
+            updateNanos = System.nanoTime() - frameStart;
+            if (updateNanos > FRAME_PERIOD * 1_000_000L || renderNanos > FRAME_PERIOD * 1_000_000L) {
+                Tracing.instant("slow frame");
+            }
+
+            frameMetrics.recordAllocations(updateBytes, renderBytes);
+            frameMetrics.record(updateNanos, renderNanos, gameSurfaceView.getParticleCount(), gameSurfaceView.getParticleNanos());
+
+            // the game loop stops when the game is won or lost
+            if (gameSurfaceView.isFinished()) {
+                setRunning(false);
+            }
+
+            //Sleep for the rest of the frame, no lock is held here
+            sleepTime = (int) (FRAME_PERIOD - updateNanos / 1_000_000);
+            if (sleepTime > 0 && running) {
+                try {
+                    Thread.sleep(sleepTime);
+                } catch (InterruptedException e) {
+                    Log.e("Error", e.getMessage());
+                }
+            }
         }
+
+        // last frame shows the pause, win or game over screen
+        publishSnapshot();
+        stopRenderThread();
+        allocationCounter.stop();
     }
 
     /**
-     * start the timer to calculate the deltaTime later
+     * start the timer, the first frame runs one tick
      */
     private void start() {
-        lastTime = System.currentTimeMillis();
+        lastTime = System.nanoTime() - TICK_NANOS;
+        accumulator = 0;
         sleepTime = 0;
     }
 
     /**
-     * updates the game logic in gameSurfaceView, and calculates the deltaTime
+     * runs as many ticks of the game logic in gameSurfaceView as real time has passed
      */
     private void update() {
-        // Calculate time delta for frame independence
-        calculateDeltaTime();
+        long nowTime = System.nanoTime();
+        accumulator += nowTime - lastTime;
+        lastTime = nowTime;
 
-        // this deltaTime is in milliseconds, but we pass the deltaTime in seconds
-        this.gameSurfaceView.update(deltaTime/1000);
+        int ticks = 0;
+        while (accumulator >= TICK_NANOS && ticks < MAX_TICKS_PER_FRAME && !gameSurfaceView.isFinished()) {
+            this.gameSurfaceView.update();
+            accumulator -= TICK_NANOS;
+            ticks++;
+        }
+        if (ticks == MAX_TICKS_PER_FRAME) {
+            // drop the rest of the backlog
+            accumulator = 0;
+        }
     }
 
     /**
-     * creates a locked canvas, which is drawn onto with the gameSurfaceView
-     * thread will sleep for frame independence
+     * writes the current game state into a free snapshot and wakes up the render thread
      */
-    private void render() {
-        Canvas canvas = null;
-        try {
-            // creates a canvas, which no other code can write onto until unlockCanvasAndPost() is called
-            canvas = surfaceHolder.lockCanvas();
-            synchronized (surfaceHolder){
-                if (canvas == null) return;
+    private void publishSnapshot() {
+        gameSurfaceView.writeSnapshot(snapshotBuffer.getWriteSnapshot(), running);
+        snapshotBuffer.publish();
+        LockSupport.unpark(renderThread);
+    }
 
-                gameSurfaceView.draw(canvas);
+    /**
+     * create and start the render thread
+     */
+    private void startRenderThread() {
+        rendering = true;
+        renderThread = new Thread(this::renderLoop, "RenderThread");
+        renderThread.start();
+    }
 
-                if (sleepTime > 0) {
-                    try {
-                        Thread.sleep(sleepTime);
-                    } catch (InterruptedException e) {
-                        Log.e("Error", e.getMessage());
-                    }
-                }
-                while (sleepTime < 0 && framesSkipped < MAX_FRAME_SKIPS) {
-                    sleepTime += FRAME_PERIOD;
-                    framesSkipped++;
-                }
+    /**
+     * let the render thread draw the last snapshot and wait until it is finished
+     */
+    private void stopRenderThread() {
+        rendering = false;
+        LockSupport.unpark(renderThread);
+        try {
+            renderThread.join();
+        } catch (InterruptedException e) {
+            Log.e("Error", e.getMessage());
+        }
+    }
+
+    /**
+     * loop of the render thread, draws every new snapshot and waits for the next one
+     */
+    private void renderLoop() {
+        while (true) {
+            // read the flag first, so the last snapshot published before stopping is still drawn
+            boolean last = !rendering;
+            if (snapshotBuffer.hasNewSnapshot()) {
+                render(snapshotBuffer.acquireLatest());
             }
-        } finally {
-            if (canvas != null) surfaceHolder.unlockCanvasAndPost(canvas);
+            if (last) break;
+            LockSupport.parkNanos(this, FRAME_PERIOD * 1_000_000L);
         }
     }
 
     /**
-     * calculate the time delta between the last frame and the current frame
+     * creates a locked canvas, which is drawn onto with the gameSurfaceView
+     * only the canvas is locked, the game loop keeps updating meanwhile
+     * @param snapshot the state which is drawn
      */
-    private void calculateDeltaTime() {
-        nowTime = System.currentTimeMillis();
-        deltaTime = nowTime-lastTime;
-        lastTime = nowTime;
+    private void render(RenderSnapshot snapshot) {
+        Canvas canvas = null;
+        Tracing.begin("GameLoop.render");
+        try {
+            // creates a canvas, which no other code can write onto until unlockCanvasAndPost() is called
+            canvas = surfaceHolder.lockCanvas();
+            if (canvas == null) return;
 
-        sleepTime = (int)(FRAME_PERIOD - deltaTime);
+            long renderStart = System.nanoTime();
+            allocationCounter.begin();
+            gameSurfaceView.draw(canvas, snapshot);
+            renderBytes = allocationCounter.end();
+            renderNanos = System.nanoTime() - renderStart;
+        } finally {
+            if (canvas != null) surfaceHolder.unlockCanvasAndPost(canvas);
+            Tracing.end();
+        }
     }
 
 }
@@ -0,0 +1,132 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.util.Objects;
+
+import at.ac.tuwien.mmue_ll6.objects.StaticObject;
+import at.ac.tuwien.mmue_ll6.util.TextBuffer;
+
+/**
+ * Draws the render snapshots of a level onto a canvas
+ * only the snapshot and the objects of GameGraphic which are not moved by the simulation are read,
+ * so it runs on the render thread; drawing a frame must not allocate, see GameRendererAllocationTest
+ * @author agent
+ */
+class GameRenderer {
+
+    private final GameGraphic gameGraphic;
+
+    // static objects, looked up once instead of every frame
+    private final StaticObject buttonLeft;
+    private final StaticObject buttonRight;
+    private final StaticObject buttonUp;
+    private final StaticObject soundButton;
+    private final StaticObject muteButton;
+    private final StaticObject pauseButton;
+    private final StaticObject playButton;
+    private final StaticObject gamePauseImage;
+    private final StaticObject gameWinImage;
+    private final StaticObject gameOverImage;
+
+    // the font does not change, so its height is measured once
+    private final float textHeight;
+    // the timer text is built in place instead of concatenating a String every frame
+    private final TextBuffer timeText = new TextBuffer(32);
+
+    /**
+     * constructor for the renderer
+     * @param gameGraphic the objects of the level, must not be headless
+     */
+    GameRenderer(GameGraphic gameGraphic) {
+        this.gameGraphic = gameGraphic;
+
+        buttonLeft = Objects.requireNonNull(gameGraphic.staticObjectsFixed.get("buttonLeft"));
+        buttonRight = Objects.requireNonNull(gameGraphic.staticObjectsFixed.get("buttonRight"));
+        buttonUp = Objects.requireNonNull(gameGraphic.staticObjectsFixed.get("buttonUp"));
+        soundButton = Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("soundButton"));
+        muteButton = Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("muteButton"));
+        pauseButton = Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("pauseButton"));
+        playButton = Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("playButton"));
+        gamePauseImage = Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("gamePauseImage"));
+        gameWinImage = Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("gameWinImage"));
+        gameOverImage = Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("gameOverImage"));
+
+        // font height
+        Paint.FontMetrics fm = gameGraphic.textPaint.getFontMetrics();
+        textHeight = fm.descent - fm.ascent;
+    }
+
+    /**
+     * draw a snapshot of the objects created in GameGraphic class on the canvas
+     * @param canvas which is drawn on
+     * @param snapshot the state which is drawn
+     */
+    void draw(Canvas canvas, RenderSnapshot snapshot) {
+        if (canvas == null) return;
+
+        gameGraphic.bg.draw(canvas); // has to drawn first, because it's in the back
+
+        // draw all platforms first
+        for (int i = 0; i < snapshot.platformCount; i++) {
+            gameGraphic.platformObjects.get(i).drawAt(canvas, snapshot.platformX[i], snapshot.platformY[i]);
+        }
+        // then all sprites
+        for (int i = 0; i < snapshot.spriteCount; i++) {
+            gameGraphic.spritesObjects.get(i).drawFrame(canvas, snapshot.spriteX[i], snapshot.spriteY[i], snapshot.spriteFrame[i]);
+        }
+        // the other dynamic objects
+        for (int i = 0; i < snapshot.enemyCount; i++) {
+            gameGraphic.enemyObjects.get(i).drawAt(canvas, snapshot.enemyX[i], snapshot.enemyY[i]);
+        }
+        gameGraphic.goal.drawAt(canvas, snapshot.goalX, snapshot.goalY);
+        if (snapshot.ghostVisible) {
+            gameGraphic.player.drawAt(canvas, snapshot.ghostX, snapshot.ghostY, gameGraphic.ghostPaint);
+        }
+        gameGraphic.player.drawAt(canvas, snapshot.playerX, snapshot.playerY);
+
+        // particles on top of the scene, but below the buttons
+        gameGraphic.particleSystem.draw(canvas, snapshot.particleX, snapshot.particleY,
+                snapshot.particleAlpha, snapshot.particleKind, snapshot.particleCount);
+
+        // and static objects (such as buttons) on top
+        buttonLeft.draw(canvas);
+        buttonRight.draw(canvas);
+        buttonUp.draw(canvas);
+        for (int i = 0; i < snapshot.lives && i < gameGraphic.hearts.length; i++) {
+            gameGraphic.hearts[i].draw(canvas);
+        }
+
+        timeText.clear().append("Time: ").append(snapshot.currentTime, 2);
+        canvas.drawText(timeText.getChars(), 0, timeText.length(),
+                gameGraphic.displayWidth * 0.4f, gameGraphic.padding + textHeight, gameGraphic.textPaint);
+
+        // draw sound icon depending if its activated or not
+        if (snapshot.sound) {
+            soundButton.draw(canvas);
+        } else {
+            muteButton.draw(canvas);
+        }
+
+        // draw pause image when the game is paused
+        if (!snapshot.paused) {
+            pauseButton.draw(canvas);
+        } else {
+            gameGraphic.overlay.draw(canvas);
+            playButton.draw(canvas);
+            gamePauseImage.draw(canvas);
+        }
+
+        // draw game win image when the game is won
+        if (snapshot.gameWin) {
+            gameGraphic.overlay.draw(canvas);
+            gameWinImage.draw(canvas);
+        }
+        // draw game over image when the game is over
+        if (snapshot.gameOver) {
+            gameGraphic.overlay.draw(canvas);
+            gameOverImage.draw(canvas);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.graphics.Rect;
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import at.ac.tuwien.mmue_ll6.objects.DynamicObject;
+import at.ac.tuwien.mmue_ll6.objects.SpriteObject;
+import at.ac.tuwien.mmue_ll6.util.JobScheduler;
+import at.ac.tuwien.mmue_ll6.util.Tracing;
+
+/**
+ * The game logic, advanced in fixed ticks
+ * the simulation only depends on the level and the input of each tick (no wall clock),
+ * so the same input always leads to the same run and can be replayed on screen or headless
+ * particles are only decoration and not part of the deterministic state
+ * @author agent
+ */
+public class GameSimulation {
+
+    private static final String TAG = GameSimulation.class.getSimpleName();
+
+    public static final int TICKS_PER_SECOND = 50;
+    public static final double TICK_SECONDS = 1.0 / TICKS_PER_SECOND;
+
+    // movement of the player in pixel/s, a jump moves up for JUMP_TICKS ticks
+    public static final int RUN_SPEED = 300;
+    public static final int FALL_SPEED = 300;
+    public static final int JUMP_SPEED = 2500;
+    public static final int JUMP_TICKS = 8;
+
+    /**
+     * callback for the end of a run, called on the thread running the simulation
+     */
+    public interface Listener {
+        void onGameWin(double time);
+        void onGameOver();
+    }
+
+    private GameGraphic gameGraphic;
+    private final double deltaTime = TICK_SECONDS;
+    private Listener listener;
+
+    // sum of all scroll movements
+    private int scrollOffset;
+
+    // check variables
+    private boolean isJumping = false;
+    private boolean isGameOver = false;
+    private boolean isGameWin = false;
+    private boolean isGoingRight = true;
+    private int jumpTimer;
+    private boolean canJump = true;
+
+    // ticks of the run and the split times at the checkpoints of the level
+    private final RunTimer runTimer;
+
+    // entity updates, split into chunks for crowded levels
+    // the jobs are created once, so running them does not allocate
+    private final JobScheduler jobScheduler;
+    private final EnemyScheduler enemyScheduler;
+    private double scrollDelta;
+    private long spriteTime;
+    private final JobScheduler.RangeJob scrollPlatformsJob = (chunk, from, to) -> {
+        for (int i = from; i < to; i++) {
+            gameGraphic.platformObjects.get(i).move(scrollDelta, 0);
+        }
+    };
+    private final JobScheduler.RangeJob scrollEnemiesJob = (chunk, from, to) -> {
+        for (int i = from; i < to; i++) {
+            gameGraphic.enemyObjects.get(i).move(scrollDelta, 0);
+        }
+    };
+    private final JobScheduler.RangeJob scrollSpritesJob = (chunk, from, to) -> {
+        for (int i = from; i < to; i++) {
+            gameGraphic.spritesObjects.get(i).move(scrollDelta, 0);
+        }
+    };
+    private final JobScheduler.RangeJob updateSpritesJob = (chunk, from, to) -> {
+        for (int i = from; i < to; i++) {
+            gameGraphic.spritesObjects.get(i).update(spriteTime);
+        }
+    };
+
+    /**
+     * constructor for the simulation
+     * @param gameGraphic the objects of the level, which are moved by the simulation
+     */
+    public GameSimulation(GameGraphic gameGraphic) {
+        this(gameGraphic, JobScheduler.getInstance());
+    }
+
+    /**
+     * constructor for a simulation with its own job scheduler, e.g. for many simulations running side by side
+     * @param gameGraphic the objects of the level, which are moved by the simulation
+     * @param jobScheduler runs the entity updates of this simulation
+     */
+    public GameSimulation(GameGraphic gameGraphic, JobScheduler jobScheduler) {
+        this.gameGraphic = gameGraphic;
+        this.jobScheduler = jobScheduler;
+        this.enemyScheduler = new EnemyScheduler(jobScheduler);
+        this.runTimer = new RunTimer(gameGraphic.getCheckpoints());
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public GameGraphic getGameGraphic() { return gameGraphic;}
+    public int getTick() { return runTimer.getTicks();}
+    public double getCurrentTime() { return runTimer.getSeconds();}
+    public RunTimer getRunTimer() { return runTimer;}
+    public boolean isGameWin() { return isGameWin;}
+    public boolean isGameOver() { return isGameOver;}
+
+    /**
+     * @return how far the scene was scrolled, add it to a level coordinate to get the screen coordinate
+     */
+    public int getScrollOffset() { return scrollOffset;}
+
+    /**
+     * @return true if the game is won or lost
+     */
+    public boolean isFinished() {
+        return isGameWin || isGameOver;
+    }
+
+    /**
+     * advances the game by one tick
+     * @param input the input bit mask of this tick, see GameInput
+     */
+    public void update(int input) {
+        if (isFinished()) return;
+
+        // the time is derived from the tick count, so it does not drift by adding up doubles
+        runTimer.tick();
+
+        boolean left = (input & GameInput.LEFT) != 0;
+        boolean right = (input & GameInput.RIGHT) != 0;
+        if (left) {
+            isGoingRight = false;
+        } else if (right) {
+            isGoingRight = true;
+        }
+        if ((input & GameInput.JUMP_PRESSED) != 0) {
+            jumpTimer = 0;
+        }
+        isJumping = (input & GameInput.JUMP) != 0;
+
+        // lose condition
+        // if the player touches the enemy or player falls from platforms
+        if (checkCollision(gameGraphic.enemyObjects, false) || (gameGraphic.player.getRectTarget().top > gameGraphic.displayHeight)) {
+            Log.d(TAG, "update: game lost");
+
+            if (gameGraphic.deathEmitter != null) gameGraphic.deathEmitter.burst(120);
+
+            if (gameGraphic.player.getNumberOfLives() != 0) {
+                gameGraphic.player.setToStart(500, 500);
+                gameGraphic.player.reduceLive();
+
+            } else {
+                isGameOver = true;
+                if (listener != null) listener.onGameOver();
+            }
+        }
+
+        // win condition
+        // if player touches the goal
+        if (!isGameOver && Rect.intersects(gameGraphic.player.getRectTarget(), gameGraphic.goal.getRectTarget())) {
+            Log.d(TAG, "update: game win");
+            isGameWin = true;
+            if (listener != null) listener.onGameWin(runTimer.getSeconds());
+        }
+
+        // gravity simulation
+        if (!isJumping && !checkCollision(gameGraphic.platformObjects, true)) {
+            if (isGoingRight) {
+                gameGraphic.player.move(+ RUN_SPEED * this.deltaTime,+FALL_SPEED * this.deltaTime);
+            } else {
+                gameGraphic.player.move(- RUN_SPEED * this.deltaTime,+FALL_SPEED * this.deltaTime);
+            }
+        }
+
+        spriteTime = (long) runTimer.getTicks() * 1000 / TICKS_PER_SECOND;
+        jobScheduler.parallelFor(gameGraphic.spritesObjects.size(), updateSpritesJob);
+
+        // enemy behavior
+        enemyScheduler.update(gameGraphic.enemyObjects, this.deltaTime, gameGraphic.player, gameGraphic.displayWidth);
+
+        // particles, an indexed loop does not create an iterator every tick, a headless level has none
+        if (gameGraphic.particleSystem != null) {
+            for (int i = 0; i < gameGraphic.emitters.size(); i++) {
+                gameGraphic.emitters.get(i).update(this.deltaTime);
+            }
+            gameGraphic.particleSystem.update(this.deltaTime);
+        }
+
+        // right button
+        if (right && gameGraphic.player.getX() < (gameGraphic.displayWidth / 2)) {
+            gameGraphic.player.move(+RUN_SPEED * this.deltaTime, 0); // velocity * dt
+        }
+
+        // left button
+        if (left && gameGraphic.player.getX() > gameGraphic.displayWidth * 0.1) {
+            gameGraphic.player.move(-RUN_SPEED * this.deltaTime, 0);
+        }
+
+        // up button
+        if (isJumping && jumpTimer < JUMP_TICKS && canJump) {
+            // jumpCounter controls the max time of jumping, so the character cant jump indefinitely
+            if (jumpTimer == 0 && gameGraphic.playerEmitter != null) {
+                gameGraphic.playerEmitter.burst(20); // dust when leaving the ground
+            }
+            jumpTimer++;
+
+            if (isGoingRight) {
+                gameGraphic.player.move(RUN_SPEED * deltaTime,-JUMP_SPEED * this.deltaTime);
+            } else {
+                gameGraphic.player.move(-RUN_SPEED * deltaTime,-JUMP_SPEED * this.deltaTime);
+            }
+        }
+
+        // move scene to the right
+        if (gameGraphic.player.getX() >= (gameGraphic.displayWidth / 2) && !left) {
+            scrollScene(-RUN_SPEED * this.deltaTime);
+        }
+
+        // move scene to the left
+        if (gameGraphic.player.getX() <= 250) {
+            scrollScene(+RUN_SPEED * this.deltaTime);
+        }
+
+        // generated levels place the next chunk before it scrolls into view
+        if (gameGraphic.levelStream != null) {
+            gameGraphic.levelStream.update(scrollOffset);
+        }
+
+        runTimer.pass(gameGraphic.player.getRectTarget().left - scrollOffset);
+    }
+
+    /**
+     * move all objects of the scene (including the player) horizontally
+     * @param deltaX how much the x coordinate should be moved
+     */
+    private void scrollScene(double deltaX) {
+        scrollOffset += deltaX;
+        gameGraphic.goal.move(deltaX, 0);
+        gameGraphic.player.move(deltaX, 0);
+
+        // the workers see scrollDelta, parallelFor synchronizes before running the jobs
+        scrollDelta = deltaX;
+        jobScheduler.parallelFor(gameGraphic.platformObjects.size(), scrollPlatformsJob);
+        jobScheduler.parallelFor(gameGraphic.spritesObjects.size(), scrollSpritesJob);
+        jobScheduler.parallelFor(gameGraphic.enemyObjects.size(), scrollEnemiesJob);
+
+        if (gameGraphic.particleSystem != null) {
+            gameGraphic.particleSystem.move(deltaX, 0);
+        }
+    }
+
+    /**
+     * write the state of the run into a game state snapshot, must not run while update() runs
+     * particles are decoration and not written
+     * @param out the snapshot buffer
+     */
+    void writeState(ByteBuffer out) {
+        runTimer.writeState(out);
+        out.putInt(jumpTimer);
+        out.put((byte) ((isGoingRight ? 1 : 0) | (canJump ? 2 : 0) | (isJumping ? 4 : 0)));
+        out.putInt(scrollOffset);
+
+        gameGraphic.player.writeState(out);
+        gameGraphic.goal.writeState(out);
+        out.putInt(gameGraphic.platformObjects.size());
+        for (DynamicObject platform : gameGraphic.platformObjects) {
+            platform.writeState(out);
+        }
+        out.putInt(gameGraphic.enemyObjects.size());
+        for (DynamicObject enemy : gameGraphic.enemyObjects) {
+            enemy.writeState(out);
+        }
+        out.putInt(gameGraphic.spritesObjects.size());
+        for (SpriteObject sprite : gameGraphic.spritesObjects) {
+            sprite.writeState(out);
+        }
+        enemyScheduler.writeState(out, gameGraphic.enemyObjects.size());
+        if (gameGraphic.levelStream != null) {
+            gameGraphic.levelStream.writeState(out);
+        }
+    }
+
+    /**
+     * restore a run written by writeState(), the objects of the level must be freshly created
+     * @param in the snapshot buffer
+     * @throws IOException if the snapshot belongs to another level layout
+     */
+    void readState(ByteBuffer in) throws IOException {
+        runTimer.readState(in);
+        jumpTimer = in.getInt();
+        int flags = in.get();
+        isGoingRight = (flags & 1) != 0;
+        canJump = (flags & 2) != 0;
+        isJumping = (flags & 4) != 0;
+        scrollOffset = in.getInt();
+
+        gameGraphic.player.readState(in);
+        gameGraphic.goal.readState(in);
+        readCount(in, gameGraphic.platformObjects.size());
+        for (DynamicObject platform : gameGraphic.platformObjects) {
+            platform.readState(in);
+        }
+        readCount(in, gameGraphic.enemyObjects.size());
+        for (DynamicObject enemy : gameGraphic.enemyObjects) {
+            enemy.readState(in);
+        }
+        readCount(in, gameGraphic.spritesObjects.size());
+        for (SpriteObject sprite : gameGraphic.spritesObjects) {
+            sprite.readState(in);
+        }
+        enemyScheduler.readState(in, gameGraphic.enemyObjects.size());
+        if (gameGraphic.levelStream != null) {
+            gameGraphic.levelStream.readState(in);
+        }
+    }
+
+    private static void readCount(ByteBuffer in, int expected) throws IOException {
+        int count = in.getInt();
+        if (count != expected) {
+            throw new IOException("snapshot has " + count + " objects, level has " + expected);
+        }
+    }
+
+    /**
+     * copy the current state of the game into a snapshot, which is then drawn by the render thread
+     * @param snapshot the snapshot which is written
+     * @param running if the game loop is still running, otherwise the game is paused or finished
+     */
+    public void writeSnapshot(RenderSnapshot snapshot, boolean running) {
+        snapshot.ensureCapacity(gameGraphic.platformObjects.size(), gameGraphic.enemyObjects.size(),
+                gameGraphic.spritesObjects.size(), gameGraphic.particleSystem != null ? gameGraphic.particleSystem.getCapacity() : 0);
+
+        snapshot.platformCount = gameGraphic.platformObjects.size();
+        for (int i = 0; i < snapshot.platformCount; i++) {
+            DynamicObject p = gameGraphic.platformObjects.get(i);
+            snapshot.platformX[i] = p.getRectTarget().left;
+            snapshot.platformY[i] = p.getRectTarget().top;
+        }
+        snapshot.enemyCount = gameGraphic.enemyObjects.size();
+        for (int i = 0; i < snapshot.enemyCount; i++) {
+            DynamicObject e = gameGraphic.enemyObjects.get(i);
+            snapshot.enemyX[i] = e.getRectTarget().left;
+            snapshot.enemyY[i] = e.getRectTarget().top;
+        }
+        snapshot.spriteCount = gameGraphic.spritesObjects.size();
+        for (int i = 0; i < snapshot.spriteCount; i++) {
+            SpriteObject s = gameGraphic.spritesObjects.get(i);
+            snapshot.spriteX[i] = s.getX();
+            snapshot.spriteY[i] = s.getY();
+            snapshot.spriteFrame[i] = s.getCurrentFrame();
+        }
+        snapshot.goalX = gameGraphic.goal.getRectTarget().left;
+        snapshot.goalY = gameGraphic.goal.getRectTarget().top;
+        snapshot.playerX = gameGraphic.player.getRectTarget().left;
+        snapshot.playerY = gameGraphic.player.getRectTarget().top;
+
+        snapshot.particleCount = gameGraphic.particleSystem == null ? 0 : gameGraphic.particleSystem.copyTo(
+                snapshot.particleX, snapshot.particleY, snapshot.particleAlpha, snapshot.particleKind);
+
+        snapshot.lives = gameGraphic.player.getNumberOfLives();
+        snapshot.currentTime = runTimer.getSeconds();
+        snapshot.gameWin = isGameWin;
+        snapshot.gameOver = isGameOver;
+        snapshot.paused = !running && !isGameWin && !isGameOver;
+    }
+
+    /**
+     * help method to check if the player is colliding against list of objects
+     * @param objectsList the list which is checked
+     * @param isPlatform if platforms are checked
+     * @return true if character is colliding
+     */
+    private boolean checkCollision(ArrayList<? extends DynamicObject> objectsList, boolean isPlatform) {
+        Tracing.begin(isPlatform ? "GameSimulation.collidePlatforms" : "GameSimulation.collideEnemies");
+        try {
+            for (int i = 0; i < objectsList.size(); i++) {
+
+                if (Rect.intersects(gameGraphic.player.getRectTarget(), objectsList.get(i).getRectTarget())) {
+                    if (isPlatform) {
+                        canJump = true;
+                    }
+                    return true;
+                }
+            }
+            if (isPlatform) {
+                canJump = false;
+            }
+            return false;
+        } finally {
+            Tracing.end();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Flat binary snapshot of a running game, to continue the run after the app was paused or killed
+ * it holds the simulation state (tick, player, lives, scroll position, entities) and the unfinished
+ * input and ghost recordings, so a continued run can still be saved with its replay
+ * <pre>
+ * header: magic (4 bytes), version (1 byte), level, display width, display height (ints)
+ * body:   simulation state, input recording, ghost trace
+ * </pre>
+ * @author agent
+ */
+public class GameStateSnapshot {
+
+    static final int MAGIC = 0x4C4C5353; // "LLSS"
+    static final int VERSION = 3;
+
+    private static final int HEADER_SIZE = 4 + 1 + 3 * 4;
+    // bytes per object of the level, rounded up
+    private static final int OBJECT_SIZE = 64;
+
+    public final int level;
+    public final int displayWidth;
+    public final int displayHeight;
+
+    private final ByteBuffer body;
+    private InputRecorder inputRecorder;
+    private GhostRecorder ghostRecorder;
+
+    private GameStateSnapshot(int level, int displayWidth, int displayHeight, ByteBuffer body) {
+        this.level = level;
+        this.displayWidth = displayWidth;
+        this.displayHeight = displayHeight;
+        this.body = body;
+    }
+
+    /**
+     * write the state of a run, must not run while the simulation is updated
+     * @param simulation the running simulation
+     * @param inputRecorder the recording of the run
+     * @param ghostRecorder the ghost trace of the run
+     * @return the snapshot
+     */
+    public static byte[] capture(GameSimulation simulation, InputRecorder inputRecorder, GhostRecorder ghostRecorder) {
+        GameGraphic graphic = simulation.getGameGraphic();
+        int objects = 2 + graphic.platformObjects.size() + graphic.enemyObjects.size() + graphic.spritesObjects.size();
+        int size = HEADER_SIZE + 64 + objects * OBJECT_SIZE + 4 * simulation.getRunTimer().getCheckpointCount()
+                + inputRecorder.getStateSize() + ghostRecorder.getStateSize();
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC);
+        out.put((byte) VERSION);
+        out.putInt(graphic.getLevel());
+        out.putInt(graphic.getDisplayWidth());
+        out.putInt(graphic.getDisplayHeight());
+        simulation.writeState(out);
+        inputRecorder.writeState(out);
+        ghostRecorder.writeState(out);
+
+        byte[] data = new byte[out.position()];
+        System.arraycopy(out.array(), 0, data, 0, data.length);
+        return data;
+    }
+
+    /**
+     * read the header of a snapshot, the level has to be created with its size before restore()
+     * @param data the snapshot
+     * @return the snapshot
+     * @throws IOException if the data is not a snapshot of this version
+     */
+    public static GameStateSnapshot read(byte[] data) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("not a game state snapshot");
+            }
+            int version = in.get();
+            if (version != VERSION) {
+                throw new IOException("unsupported snapshot version: " + version);
+            }
+            return new GameStateSnapshot(in.getInt(), in.getInt(), in.getInt(), in.slice());
+        } catch (BufferUnderflowException e) {
+            throw new IOException("snapshot too short");
+        }
+    }
+
+    /**
+     * continue the run in a simulation of a freshly created level
+     * @param simulation the simulation of the level of the snapshot
+     * @throws IOException if the snapshot does not fit the level
+     */
+    public void restore(GameSimulation simulation) throws IOException {
+        ByteBuffer in = body.duplicate();
+        try {
+            simulation.readState(in);
+            inputRecorder = new InputRecorder(in);
+            ghostRecorder = new GhostRecorder(in);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("broken snapshot");
+        }
+    }
+
+    /**
+     * @return the recording of the run, continued after restore()
+     */
+    public InputRecorder getInputRecorder() { return inputRecorder;}
+
+    /**
+     * @return the ghost trace of the run, continued after restore()
+     */
+    public GhostRecorder getGhostRecorder() { return ghostRecorder;}
+}
@@ -3,24 +3,27 @@ package at.ac.tuwien.mmue_ll6.game;
 import android.content.Context;
 import android.content.Intent;
 import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.Rect;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
-import java.util.ArrayList;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.Objects;
 
 import at.ac.tuwien.mmue_ll6.activities.AfterGameActivity;
-import at.ac.tuwien.mmue_ll6.objects.DynamicObject;
-import at.ac.tuwien.mmue_ll6.objects.SpriteObject;
-import at.ac.tuwien.mmue_ll6.objects.StaticObject;
+import at.ac.tuwien.mmue_ll6.persistence.GhostStorage;
+import at.ac.tuwien.mmue_ll6.persistence.ReplayStorage;
 import at.ac.tuwien.mmue_ll6.persistence.Score;
-import at.ac.tuwien.mmue_ll6.persistence.ScoreRoomDatabase;
+import at.ac.tuwien.mmue_ll6.persistence.ScoreStatistics;
+import at.ac.tuwien.mmue_ll6.persistence.ScoreWriteQueue;
+import at.ac.tuwien.mmue_ll6.persistence.SnapshotStorage;
+import at.ac.tuwien.mmue_ll6.persistence.TraceStorage;
 import at.ac.tuwien.mmue_ll6.util.Concurrency;
+import at.ac.tuwien.mmue_ll6.util.TraceRecorder;
+import at.ac.tuwien.mmue_ll6.util.Tracing;
 
 /**
  * The game view for loading assets and starting and ending the game
@@ -35,28 +38,37 @@ public class GameSurfaceView extends SurfaceView implements SurfaceHolder.Callba
     private Thread gameMainThread;
     private final Context context;
     private SurfaceHolder surfaceHolder;
-    private double deltaTime;
     private int level;
     private boolean sound;
 
-    // check variables
-    private boolean isJumping = false;
-    private boolean isGameOver = false;
-    private boolean isGameWin = false;
-    private boolean isGoingRight = true;
-    private int jumpTimer;
-    private boolean canJump = true;
-
-    // timer
-    private double currentTime = 0;
-
     // coordinates of touch
     int touchX;
     int touchY;
 
     // graphics and sound
     private GameGraphic gameGraphic;
-    private GameSound gameSound;
+    private GameRenderer gameRenderer;
+    private MusicStreamer musicStreamer;
+    private SoundBank soundBank;
+
+    // game logic, only advanced by the game loop
+    private GameSimulation gameSimulation;
+    private long runId;
+    private final GameInput gameInput = new GameInput();
+
+    // every run is recorded, a replay uses the recorded input instead of the touch input
+    private InputRecorder inputRecorder;
+    private InputReplayer inputReplayer;
+
+    // the best run of the level is shown as ghost, every run is traced to become the next ghost
+    private GhostRecorder ghostRecorder;
+    // opened on the IO lane, a ghost which arrives after closeGhost() is dropped by its generation
+    private volatile GhostPlayer ghostPlayer;
+    private int ghostGeneration;
+    private final Object ghostLock = new Object();
+
+    // run to continue, set before the surface is created
+    private GameStateSnapshot restoredState;
 
     /**
      * constructor for the class GameSurfaceView
@@ -79,11 +91,80 @@ public class GameSurfaceView extends SurfaceView implements SurfaceHolder.Callba
      * initialize game assets, such as sound and graphics
      */
     public void initializeGame() {
-        // initialize sounds
-        gameSound = new GameSound(context, sound);
+        // initialize sounds, the music is prepared and started in the background
+        musicStreamer = MusicStreamer.getInstance(context);
+        if (sound) {
+            musicStreamer.play(MusicStreamer.getTrack(level));
+        }
+        // the effects are loaded at app start, this only looks them up
+        soundBank = SoundBank.getInstance(context);
+
+        // initialize graphics, a replay or a continued run uses the display size it was started with
+        if (restoredState != null && !restoreRun()) {
+            restoredState = null;
+        }
+        if (restoredState == null) {
+            if (inputReplayer != null) {
+                gameGraphic = new GameGraphic(context, this.level, inputReplayer.getDisplayWidth(), inputReplayer.getDisplayHeight());
+            } else {
+                gameGraphic = new GameGraphic(context, this.level);
+                inputRecorder = new InputRecorder(this.level, gameGraphic.displayWidth, gameGraphic.displayHeight);
+            }
+            gameSimulation = new GameSimulation(gameGraphic);
+        }
+        gameRenderer = new GameRenderer(gameGraphic);
+
+        runId = System.nanoTime(); // a score is saved once per run
+        openGhost();
+        if (inputReplayer == null && restoredState == null) {
+            ghostRecorder = new GhostRecorder();
+            recordGhost();
+        }
+        restoredState = null;
+        gameSimulation.setListener(new GameSimulation.Listener() {
+            @Override
+            public void onGameWin(double time) {
+                if (inputReplayer != null) return;
+                byte[] recording = inputRecorder.finish();
+                int ticks = gameSimulation.getTick();
+                int[] splits = gameSimulation.getRunTimer().getSplits();
+                long run = runId;
+                // the trace is taken on the game thread, before the next run replaces the recorder
+                byte[] ghost = ghostRecorder.toByteArray(level, gameGraphic.displayHeight, ticks);
+                ScoreStatistics.recordAttempt(context, level);
+                forgetSnapshot();
+                Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_LOW, null,
+                        () -> ReplayStorage.write(context, level, recording));
+
+                // the score is only saved if the recording plays the same run
+                // verified on the IO lane with high priority, so a flush when the game is paused comes after it
+                Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, null, () -> {
+                    if (!ReplayRunner.verify(context, recording, ticks, splits)) {
+                        Log.w(TAG, "onGameWin: the recording does not play the same run, the score is not saved");
+                        return;
+                    }
+                    // Save score, the queue writes it in the background
+                    ScoreWriteQueue.getInstance(context).submit(run, new Score(time, level));
+
+                    // the run becomes the new ghost if it is faster
+                    Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_LOW, null, () -> {
+                        if (ticks < GhostPlayer.readTicks(GhostStorage.open(context, level))) {
+                            GhostStorage.write(context, level, ghost);
+                        }
+                    });
+                });
+            }
 
-        // initialize graphics
-        gameGraphic = new GameGraphic(context, this.level);
+            @Override
+            public void onGameOver() {
+                if (inputReplayer != null) return;
+                byte[] recording = inputRecorder.finish();
+                ScoreStatistics.recordAttempt(context, level);
+                forgetSnapshot();
+                Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_LOW, null,
+                        () -> ReplayStorage.write(context, level, recording));
+            }
+        });
     }
 
     public void setLevel(int level) {
@@ -96,14 +177,91 @@ public class GameSurfaceView extends SurfaceView implements SurfaceHolder.Callba
         this.sound = sound;
     }
 
+    /**
+     * replay a recorded run instead of playing, the level is taken from the recording
+     * @param recording the recorded input stream
+     * @throws IOException if the recording can't be read
+     */
+    public void setReplay(byte[] recording) throws IOException {
+        inputReplayer = new InputReplayer(recording);
+        setLevel(inputReplayer.getLevel());
+    }
+
+    /**
+     * continue a run which was interrupted, instead of starting the level from the beginning
+     * @param snapshot the state written by pauseAndSnapshot()
+     * @throws IOException if the snapshot can't be read
+     */
+    public void setSnapshot(byte[] snapshot) throws IOException {
+        restoredState = GameStateSnapshot.read(snapshot);
+        setLevel(restoredState.level);
+    }
+
+    /**
+     * @return true if a run from a snapshot is continued when the surface is created
+     */
+    boolean isRestoringRun() { return restoredState != null;}
+
+    /**
+     * delete the saved state of the finished run, in the same lane and priority as the snapshot writes
+     */
+    private void forgetSnapshot() {
+        Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, null, () -> SnapshotStorage.delete(context, level));
+    }
+
+    /**
+     * create the level with the size of the snapshot and continue the run
+     * only used after the process was killed, then there is no level in memory and its layout and bitmaps are loaded once,
+     * the snapshot overwrites the state of the objects; a surface which is created again keeps its running simulation
+     * @return false if the snapshot does not fit the level, the level is started from the beginning then
+     */
+    private boolean restoreRun() {
+        gameGraphic = new GameGraphic(context, this.level, restoredState.displayWidth, restoredState.displayHeight);
+        gameSimulation = new GameSimulation(gameGraphic);
+        try {
+            restoredState.restore(gameSimulation);
+        } catch (IOException e) {
+            Log.e(TAG, "restoreRun: " + e.getMessage());
+            return false;
+        }
+        inputRecorder = restoredState.getInputRecorder();
+        ghostRecorder = restoredState.getGhostRecorder();
+        Log.d(TAG, "restoreRun: continue at tick " + gameSimulation.getTick());
+        return true;
+    }
+
+    /**
+     * stop the game loop and capture the state of the run, called when the activity is paused
+     * the game stays paused until the surface is created again or the pause button is pressed
+     * @return the snapshot or null if there is no run to continue (not started, finished or a replay)
+     */
+    public byte[] pauseAndSnapshot() {
+        if (gameLoop != null && gameLoop.isRunning()) {
+            endGame();
+        }
+        if (gameSimulation == null || gameSimulation.isFinished() || inputReplayer != null) {
+            return null;
+        }
+        return GameStateSnapshot.capture(gameSimulation, inputRecorder, ghostRecorder);
+    }
+
     /**
      * surfaceView has been created, create game loop and start
+     * a surface which is created again (e.g. after the screen was off) continues the run
      * @param surfaceHolder needed for the game loop
      */
     @Override
     public void surfaceCreated(SurfaceHolder surfaceHolder) {
         this.surfaceHolder = surfaceHolder;
-        initializeGame();
+        if (gameSimulation == null) {
+            initializeGame();
+        } else {
+            openGhost();
+            if (sound) {
+                // the track of the level was paused with the surface, it is still prepared if it was not released yet
+                musicStreamer.resume();
+            }
+        }
         startGame(this.surfaceHolder);
     }
 
@@ -120,8 +278,9 @@ public class GameSurfaceView extends SurfaceView implements SurfaceHolder.Callba
     @Override
     public void surfaceDestroyed(SurfaceHolder surfaceHolder) {
         endGame();
-        gameSound.mediaPlayer.release();
-        gameSound.soundPool.release();
+        closeGhost();
+        musicStreamer.pause();
+        soundBank.stopAll();
     }
 
     /**
@@ -138,6 +297,7 @@ public class GameSurfaceView extends SurfaceView implements SurfaceHolder.Callba
 
     /**
      * ends the game and joins the game thread
+     * the recorded trace sections are written when the game is paused or left
      */
     private void endGame() {
         gameLoop.setRunning(false);
@@ -147,11 +307,17 @@ public class GameSurfaceView extends SurfaceView implements SurfaceHolder.Callba
         } catch (InterruptedException e) {
             Log.e("Error", e.getMessage());
         }
+
+        TraceRecorder recorder = Tracing.getRecorder();
+        if (recorder != null) {
+            TraceRecorder trace = recorder.copy();
+            Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_LOW, null, () -> TraceStorage.write(context, trace));
+        }
     }
 
     /**
      * a touch-event has been triggered, set pressed state to true or false
-     * can be pressed only once, unlike longTouchEvent() method
+     * the held button is handed to the game input, which is sampled once per tick
      * @param e the input motion event
      */
     @Override
@@ -159,7 +325,7 @@ public class GameSurfaceView extends SurfaceView implements SurfaceHolder.Callba
         Log.d(TAG, "onTouchEvent: " + e);
 
         if (e.getAction() == MotionEvent.ACTION_DOWN) {
-            setPressed(true); // needed for LongTouchEvent()
+            setPressed(true);
 
             touchX = (int) e.getX();
             touchY = (int) e.getY();
@@ -179,274 +345,179 @@ public class GameSurfaceView extends SurfaceView implements SurfaceHolder.Callba
                 Log.d(TAG, "onTouchEvent: sound");
                 sound = !sound;
                 if (sound) {
-                    gameSound.mediaPlayer.start();
+                    musicStreamer.play(MusicStreamer.getTrack(level));
                 } else {
-                    gameSound.mediaPlayer.pause();
+                    musicStreamer.pause();
                 }
             }
 
-            // up button
-            if (Objects.requireNonNull(gameGraphic.staticObjectsFixed.get("buttonUp")).getRectTarget().contains(touchX, touchY) && gameLoop.isRunning()) {
-                // jump motion is not handled here, but in longTouchEvent() for smoother movement
-                if (sound) {
-                    gameSound.playJumpSound();
+            // movement buttons, the movement itself is done by the simulation in the next tick
+            if (gameLoop.isRunning() && inputReplayer == null) {
+                if (Objects.requireNonNull(gameGraphic.staticObjectsFixed.get("buttonUp")).getRectTarget().contains(touchX, touchY)) {
+                    if (sound) {
+                        // only queued, the audio thread starts it
+                        soundBank.play(SoundBank.JUMP);
+                    }
+                    gameInput.press(GameInput.JUMP);
+                } else if (Objects.requireNonNull(gameGraphic.staticObjectsFixed.get("buttonRight")).getRectTarget().contains(touchX, touchY)) {
+                    gameInput.press(GameInput.RIGHT);
+                } else if (Objects.requireNonNull(gameGraphic.staticObjectsFixed.get("buttonLeft")).getRectTarget().contains(touchX, touchY)) {
+                    gameInput.press(GameInput.LEFT);
+                } else {
+                    gameInput.release();
                 }
-                isJumping = true;
-                jumpTimer = 0;
             }
         }
 
         if (e.getAction() == MotionEvent.ACTION_UP) {
             setPressed(false);
-            isJumping = false;
+            gameInput.release();
         }
 
         // if the game's over, touching on the screen sends you to AfterGameActivity
-        if (isGameOver || isGameWin){
+        if (isFinished()){
             if (e.getAction()==MotionEvent.ACTION_DOWN){
-                context.startActivity(new Intent(context, AfterGameActivity.class));
+                context.startActivity(new Intent(context, AfterGameActivity.class).putExtra("level", level));
             }
         }
         return true;
     }
 
     /**
-     * check if the buttons are pressed, if yes do the move according to button
-     * can be pressed permanently, unlike onTouchEvent() method
+     * advances the game by one tick, with the touch input or the input of the replay
      */
-    private void longTouchEvent() {
-        // check intersection here + gravity
-
-        // right button
-        if (checkButton("right") && gameGraphic.player.getX() < (gameGraphic.displayWidth / 2)) {
-            gameGraphic.player.move(+300 * this.deltaTime, 0); // velocity * dt
+    public void update() {
+        Tracing.begin("GameSurfaceView.update");
+        int input;
+        if (inputReplayer != null) {
+            input = inputReplayer.next();
+        } else {
+            input = gameInput.sample();
+            inputRecorder.record(input);
         }
+        gameSimulation.update(input);
 
-        // left button
-        if (checkButton("left") && gameGraphic.player.getX() > gameGraphic.displayWidth * 0.1) {
-            gameGraphic.player.move(-300 * this.deltaTime, 0);
+        if (ghostRecorder != null) {
+            recordGhost();
         }
-        // up button
-        if (isJumping && jumpTimer < 8 && canJump) {
-            // jumpCounter controls the max time of jumping, so the character cant jump indefinitely
-            jumpTimer++;
-
-            if (isGoingRight) {
-                gameGraphic.player.move(300 * deltaTime,-2500 * this.deltaTime);
-            } else {
-                gameGraphic.player.move(-300 * deltaTime,-2500 * this.deltaTime);
-            }
+        GhostPlayer ghost = ghostPlayer;
+        if (ghost != null) {
+            ghost.update(gameSimulation.getTick());
         }
+        Tracing.end();
     }
 
     /**
-     * updates the game logic
-     * @param deltaTime the delta time needed for frame independence
+     * add the position of the player in the level to the ghost trace
      */
-    public void update(double deltaTime) {
-        this.deltaTime = deltaTime;
-        currentTime += deltaTime;
-        currentTime = ((double)((int)(currentTime * 100.0))) / 100.0; //only two decimals
-
-        // lose condition
-        // if the player touches the enemy or player falls from platforms
-        if (checkCollision(gameGraphic.enemyObjects, false) || (gameGraphic.player.getRectTarget().top > gameGraphic.displayHeight)) {
-            Log.d(TAG, "update: game lost");
-
-            if (gameGraphic.player.getNumberOfLives() != 0) {
-                gameGraphic.player.setToStart(500, 500);
-                gameGraphic.staticObjectsFixed.remove("heart" + gameGraphic.player.getNumberOfLives());
-                gameGraphic.player.reduceLive();
-
-            } else {
-                isGameOver = true;
-                // don't call endGame() here! only if the you go back to the main screen
-            }
-        }
-
-        // win condition
-        // if player touches the goal
-        if (Rect.intersects(gameGraphic.player.getRectTarget(), gameGraphic.goal.getRectTarget())) {
-            Log.d(TAG, "update: game win");
-            isGameWin = true;
+    private void recordGhost() {
+        ghostRecorder.record(gameSimulation.getTick(),
+                gameGraphic.player.getRectTarget().left - gameSimulation.getScrollOffset(),
+                gameGraphic.player.getRectTarget().top);
+    }
 
-            // Save score
-            Concurrency.executeAsync(() -> saveScore(context, new Score(currentTime, level)));
+    /**
+     * open the ghost of the best run on the IO lane, the whole trace is read there,
+     * so the game thread only decodes it from memory and the ghost appears when it is loaded
+     */
+    private void openGhost() {
+        int ghostLevel = level;
+        int displayHeight = gameGraphic.displayHeight;
+        int generation;
+        synchronized (ghostLock) {
+            generation = ghostGeneration;
         }
-
-        // gravity simulation
-        if (!isJumping && !checkCollision(gameGraphic.platformObjects, true)) {
-            if (isGoingRight) {
-                gameGraphic.player.move(+ 300 * this.deltaTime,+300 * this.deltaTime);
-            } else {
-                gameGraphic.player.move(- 300 * this.deltaTime,+300 * this.deltaTime);
+        Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, null, () -> {
+            byte[] data = GhostStorage.read(context, ghostLevel);
+            if (data == null) return;
+            GhostPlayer player;
+            try {
+                player = new GhostPlayer(new ByteArrayInputStream(data), displayHeight);
+            } catch (IOException e) {
+                Log.e(TAG, "openGhost: " + e.getMessage());
+                return;
             }
-        }
+            synchronized (ghostLock) {
+                if (generation == ghostGeneration) {
+                    ghostPlayer = player;
+                    return;
+                }
+            }
+            // the ghost was closed while it was loaded
+            closeGhost(player);
+        });
+    }
 
-        for (SpriteObject s: gameGraphic.spritesObjects) {
-            s.update(System.currentTimeMillis());
+    private void closeGhost() {
+        GhostPlayer player;
+        synchronized (ghostLock) {
+            ghostGeneration++;
+            player = ghostPlayer;
+            ghostPlayer = null;
         }
-
-        // if button is pressed, move character
-        if (isPressed()) {
-            longTouchEvent();
+        if (player != null) {
+            closeGhost(player);
         }
+    }
 
-        // move scene to the right
-        if (gameGraphic.player.getX() >= (gameGraphic.displayWidth / 2)
-                && !(checkButton("left"))) {
-            gameGraphic.goal.move(-300 * this.deltaTime, 0);
-            gameGraphic.player.move(-300 * this.deltaTime, 0);
-            for (DynamicObject p: gameGraphic.platformObjects) {
-                p.move(-300 * this.deltaTime, 0);
-            }
-            for (SpriteObject s: gameGraphic.spritesObjects) {
-                s.move(-300 * this.deltaTime, 0);
-            }
-            for (DynamicObject e: gameGraphic.enemyObjects) {
-                e.move(-300 * this.deltaTime, 0);
-            }
+    private static void closeGhost(GhostPlayer player) {
+        try {
+            player.close();
+        } catch (IOException e) {
+            Log.e(TAG, "closeGhost: " + e.getMessage());
         }
+    }
 
-        // move scene to the left
-        if (gameGraphic.player.getX() <= 250) {
-            gameGraphic.goal.move(+300 * this.deltaTime, 0);
-            gameGraphic.player.move(+300 * this.deltaTime, 0);
-            for (DynamicObject p: gameGraphic.platformObjects) {
-                p.move(+300 * this.deltaTime, 0);
-            }
-            for (DynamicObject e: gameGraphic.enemyObjects) {
-                e.move(+300 * this.deltaTime, 0);
-            }
-            for (SpriteObject s: gameGraphic.spritesObjects) {
-                s.move(+300 * this.deltaTime, 0);
-            }
+    /**
+     * copy the current state of the game into a snapshot, which is then drawn by the render thread
+     * @param snapshot the snapshot which is written
+     * @param running if the game loop is still running, otherwise the game is paused or finished
+     */
+    public void writeSnapshot(RenderSnapshot snapshot, boolean running) {
+        gameSimulation.writeSnapshot(snapshot, running);
+        snapshot.sound = sound;
+
+        GhostPlayer ghost = ghostPlayer;
+        snapshot.ghostVisible = ghost != null && ghost.isVisible();
+        if (snapshot.ghostVisible) {
+            snapshot.ghostX = ghost.getX() + gameSimulation.getScrollOffset();
+            snapshot.ghostY = ghost.getY();
         }
     }
 
     /**
-     * draw the objects created in GameGraphic class on the canvas
+     * draw a snapshot of the objects created in GameGraphic class on the canvas
+     * called from the render thread, so only the snapshot and immutable objects are read
      * @param canvas which is drawn on
+     * @param snapshot the state which is drawn
      */
-    @Override
-    public void draw(Canvas canvas) {
-        super.draw(canvas);
-
-        if (canvas != null) {
-            gameGraphic.bg.draw(canvas); // has to drawn first, because it's in the back
-
-            // draw all platforms first
-            for (DynamicObject p: gameGraphic.platformObjects) {
-                p.draw(canvas);
-            }
-            // then all sprites
-            for (SpriteObject s: gameGraphic.spritesObjects) {
-                s.draw(canvas);
-            }
-            // the other dynamic objects
-            for (DynamicObject d: gameGraphic.enemyObjects) {
-                d.draw(canvas);
-            }
-            gameGraphic.goal.draw(canvas);
-            gameGraphic.player.draw(canvas);
-
-            // and static objects (such as buttons) on top
-            for (StaticObject s: gameGraphic.staticObjectsFixed.values()) {
-                s.draw(canvas);
-            }
-
-            // font height
-            Paint.FontMetrics fm = gameGraphic.textPaint.getFontMetrics();
-            float height = fm.descent - fm.ascent;
-
-            canvas.drawText("Time: " + currentTime, gameGraphic.displayWidth* 0.4f, gameGraphic.padding + height, gameGraphic.textPaint);
-
-            // draw sound icon depending if its activated or not
-            if (sound) {
-                Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("soundButton")).draw(canvas);
-            } else {
-                Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("muteButton")).draw(canvas);
-            }
-
-            // draw pause image when the game is paused
-            if (gameLoop.isRunning()){
-                Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("pauseButton")).draw(canvas);
-            } else {
-                gameGraphic.overlay.draw(canvas);
-                Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("playButton")).draw(canvas);
-                Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("gamePauseImage")).draw(canvas);
-            }
-
-            // draw game win image when the game is won
-            if (isGameWin){
-                gameGraphic.overlay.draw(canvas);
-                Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("gameWinImage")).draw(canvas);
-                gameLoop.setRunning(false);
-            }
-            // draw game over image when the game is over
-            if (isGameOver){
-                gameGraphic.overlay.draw(canvas);
-                Objects.requireNonNull(gameGraphic.staticObjectsVariable.get("gameOverImage")).draw(canvas);
-                gameLoop.setRunning(false);
-            }
-        }
+    public void draw(Canvas canvas, RenderSnapshot snapshot) {
+        Tracing.begin("GameSurfaceView.draw");
+        gameRenderer.draw(canvas, snapshot);
+        Tracing.end();
     }
 
     /**
-     * save score to the database
-     * @param context to find database
-     * @param score the saved score
+     * @return true if the game is won or lost, the game loop stops afterwards
      */
-    public static void saveScore(Context context, Score score) {
-        ScoreRoomDatabase.getInstance(context).scoreDao().insert(score);
+    public boolean isFinished() {
+        // a replay of an unfinished run stops at the end of the recording
+        return gameSimulation.isFinished() || (inputReplayer != null && inputReplayer.isFinished());
     }
 
-
     /**
-     * help method to check which button is pressed
-     * @param button the specified direction
-     * @return if input button is pressed
+     * get the particle count and the time spent on particles in the last frame, used for the frame metrics
+     * @return number of alive particles
      */
-    public boolean checkButton(String button) {
-        boolean result = false;
-        switch (button) {
-            case "right":
-                if (Objects.requireNonNull(gameGraphic.staticObjectsFixed.get("buttonRight")).getRectTarget().contains(touchX, touchY)) {
-                    isGoingRight = true;
-                    result = true;
-                }
-                break;
-            case "left":
-                if (Objects.requireNonNull(gameGraphic.staticObjectsFixed.get("buttonLeft")).getRectTarget().contains(touchX, touchY)) {
-                    isGoingRight = false;
-                    result = true;
-                }
-                break;
-        }
-        return result;
+    public int getParticleCount() {
+        return gameGraphic.particleSystem.getCount();
     }
 
     /**
-     * help method to check if the player is colliding against list of objects
-     * @param objectsList the list which is checked
-     * @param isPlatform if platforms are checked
-     * @return true if character is colliding
+     * @return time spent updating and drawing particles in the last frame in nanoseconds
      */
-    public boolean checkCollision(ArrayList<DynamicObject> objectsList, boolean isPlatform) {
-
-        for (DynamicObject o: objectsList) {
-
-            if (Rect.intersects(gameGraphic.player.getRectTarget(), o.getRectTarget())) {
-                if (isPlatform) {
-                    canJump = true;
-                }
-                return true;
-            }
-        }
-        if (isPlatform) {
-            canJump = false;
-        }
-        return false;
+    public long getParticleNanos() {
+        return gameGraphic.particleSystem.getLastUpdateNanos() + gameGraphic.particleSystem.getLastDrawNanos();
     }
 
 }
@@ -0,0 +1,150 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Plays back a ghost trace written by the GhostRecorder
+ * the trace is streamed: only the two samples around the current tick are decoded,
+ * the next one is read from the stream every SAMPLE_INTERVAL ticks
+ * @author agent
+ */
+public class GhostPlayer implements Closeable {
+
+    private final InputStream body;
+    private final int ticks;
+    private final int sampleInterval;
+    private final int sampleCount;
+    private final int offsetY;
+
+    // samples before and after the current tick
+    private int fromX, fromY;
+    private int toX, toY;
+    private int toSample;
+    private boolean broken;
+
+    // interpolated position
+    private int x;
+    private int y;
+    private boolean visible;
+
+    /**
+     * constructor for the ghost player, reads the header and the first samples
+     * @param in the stream of the trace, closed by close()
+     * @param displayHeight the current display height, the trace is moved if it was recorded on another one
+     * @throws IOException if the stream is no ghost trace
+     */
+    public GhostPlayer(InputStream in, int displayHeight) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        readHeader(header);
+        int level = header.readInt();
+        int recordedHeight = header.readInt();
+        ticks = header.readInt();
+        sampleInterval = header.readUnsignedByte();
+        sampleCount = header.readInt();
+        offsetY = displayHeight - recordedHeight;
+        if (sampleInterval == 0 || sampleCount == 0) {
+            throw new IOException("empty ghost trace of level " + level);
+        }
+
+        body = new BufferedInputStream(new InflaterInputStream(in), 512);
+        toX = readDelta();
+        toY = readDelta();
+        fromX = toX;
+        fromY = toY;
+        update(0);
+    }
+
+    /**
+     * read the number of ticks of a trace without decoding it
+     * @param in the stream of the trace, can be null, is closed afterwards
+     * @return the ticks of the run or Integer.MAX_VALUE if there is no valid trace
+     */
+    public static int readTicks(InputStream in) {
+        if (in == null) return Integer.MAX_VALUE;
+        try (DataInputStream header = new DataInputStream(in)) {
+            readHeader(header);
+            header.readInt(); // level
+            header.readInt(); // display height
+            return header.readInt();
+        } catch (IOException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static void readHeader(DataInputStream header) throws IOException {
+        if (header.readInt() != GhostRecorder.MAGIC) {
+            throw new IOException("not a ghost trace");
+        }
+        int version = header.readUnsignedByte();
+        if (version != GhostRecorder.VERSION) {
+            throw new IOException("unsupported ghost version: " + version);
+        }
+    }
+
+    public int getTicks() { return ticks;}
+    public int getX() { return x;}
+    public int getY() { return y;}
+
+    /**
+     * @return false after the end of the ghost run
+     */
+    public boolean isVisible() { return visible;}
+
+    /**
+     * move the ghost to the given tick, the ticks have to be increasing
+     * @param tick the tick of the simulation
+     */
+    public void update(int tick) {
+        // read the samples up to the tick
+        while (!broken && toSample * sampleInterval < tick && toSample + 1 < sampleCount) {
+            fromX = toX;
+            fromY = toY;
+            try {
+                toX += readDelta();
+                toY += readDelta();
+            } catch (IOException e) {
+                // broken trace, the ghost disappears
+                broken = true;
+                break;
+            }
+            toSample++;
+        }
+
+        visible = !broken && tick <= ticks && toSample * sampleInterval >= tick;
+        if (!visible) return;
+
+        // linear interpolation between the samples
+        int fromTick = (toSample - 1) * sampleInterval;
+        int step = tick - fromTick;
+        if (toSample == 0 || step >= sampleInterval) {
+            x = toX;
+            y = toY + offsetY;
+        } else {
+            x = fromX + (toX - fromX) * step / sampleInterval;
+            y = fromY + (toY - fromY) * step / sampleInterval + offsetY;
+        }
+    }
+
+    private int readDelta() throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = body.read();
+            if (b == -1) throw new IOException("unexpected end of ghost trace");
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
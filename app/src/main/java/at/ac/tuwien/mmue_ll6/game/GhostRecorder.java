@@ -0,0 +1,136 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Records the position of the player as a ghost trace
+ * the position is sampled every SAMPLE_INTERVAL ticks and stored as the difference to the last sample,
+ * so a sample mostly fits into two bytes before compression
+ * <pre>
+ * header: magic, version, level, display height, ticks, sample interval, sample count (uncompressed)
+ * body:   (dx, dy)* as zigzag varints, deflated
+ * </pre>
+ * @author agent
+ */
+public class GhostRecorder {
+
+    static final int MAGIC = 0x4C4C4748; // "LLGH"
+    static final int VERSION = 1;
+    static final int SAMPLE_INTERVAL = 5;
+
+    private byte[] buffer = new byte[512];
+    private int size;
+    private int samples;
+    private int lastX;
+    private int lastY;
+
+    public GhostRecorder() {
+    }
+
+    /**
+     * continue a trace written by writeState()
+     * @param in the snapshot buffer
+     */
+    GhostRecorder(ByteBuffer in) {
+        size = in.getInt();
+        if (size < 0 || size > in.remaining()) throw new BufferUnderflowException();
+        buffer = new byte[Math.max(512, Integer.highestOneBit(size) << 1)];
+        in.get(buffer, 0, size);
+        samples = in.getInt();
+        lastX = in.getInt();
+        lastY = in.getInt();
+    }
+
+    /**
+     * write the unfinished trace into a game state snapshot
+     * @param out the snapshot buffer
+     */
+    void writeState(ByteBuffer out) {
+        out.putInt(size);
+        out.put(buffer, 0, size);
+        out.putInt(samples);
+        out.putInt(lastX);
+        out.putInt(lastY);
+    }
+
+    /**
+     * @return the number of bytes writeState() writes
+     */
+    int getStateSize() {
+        return 16 + size;
+    }
+
+    /**
+     * record the position of the player, only every SAMPLE_INTERVAL ticks are stored
+     * @param tick the tick of the simulation, starting with 0 before the first update
+     * @param x the x coordinate of the player in the level, independent of scrolling
+     * @param y the y coordinate of the top of the player
+     */
+    public void record(int tick, int x, int y) {
+        if (tick % SAMPLE_INTERVAL != 0 || tick / SAMPLE_INTERVAL != samples) return;
+        writeVarint(zigzag(x - lastX));
+        writeVarint(zigzag(y - lastY));
+        lastX = x;
+        lastY = y;
+        samples++;
+    }
+
+    public int getSampleCount() { return samples;}
+
+    /**
+     * create the compressed trace
+     * @param level the played level
+     * @param displayHeight the display height, the levels are aligned to the bottom of the display
+     * @param ticks the ticks the run took, used to compare runs
+     * @return the trace as written to disk
+     */
+    public byte[] toByteArray(int level, int displayHeight, int ticks) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size / 2 + 32);
+        try {
+            DataOutputStream header = new DataOutputStream(bytes);
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+            header.writeInt(level);
+            header.writeInt(displayHeight);
+            header.writeInt(ticks);
+            header.writeByte(SAMPLE_INTERVAL);
+            header.writeInt(samples);
+
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            DeflaterOutputStream body = new DeflaterOutputStream(bytes, deflater);
+            body.write(buffer, 0, size);
+            body.finish();
+            deflater.end();
+        } catch (IOException e) {
+            // can't happen, the stream is in memory
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeByte(int value) {
+        if (size == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        buffer[size++] = (byte) value;
+    }
+}
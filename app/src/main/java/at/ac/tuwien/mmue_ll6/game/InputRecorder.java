@@ -0,0 +1,127 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Records the input of every tick into a compact binary stream
+ * only changes are stored: the number of ticks the previous input lasted (varint) followed by the new input (byte)
+ * <pre>
+ * header: magic (4 bytes), version, level, display width, display height, ticks per second (varints)
+ * body:   (ticks, input)* (ticks, END)
+ * </pre>
+ * @author agent
+ */
+public class InputRecorder {
+
+    static final int MAGIC = 0x4C4C5250; // "LLRP"
+    static final int VERSION = 1;
+    static final int END = 0xFF;
+
+    private byte[] buffer = new byte[1024];
+    private int size;
+
+    private int lastInput;
+    private int ticksSinceChange;
+    private int ticks;
+    private boolean finished;
+
+    /**
+     * constructor for the recorder, writes the header
+     * @param level the played level
+     * @param displayWidth the display width used by the game, the level layout depends on it
+     * @param displayHeight the display height used by the game
+     */
+    public InputRecorder(int level, int displayWidth, int displayHeight) {
+        writeByte(MAGIC >>> 24);
+        writeByte(MAGIC >>> 16);
+        writeByte(MAGIC >>> 8);
+        writeByte(MAGIC);
+        writeVarint(VERSION);
+        writeVarint(level);
+        writeVarint(displayWidth);
+        writeVarint(displayHeight);
+        writeVarint(GameSimulation.TICKS_PER_SECOND);
+    }
+
+    /**
+     * continue a recording written by writeState(), e.g. after the app was killed during a run
+     * @param in the snapshot buffer
+     */
+    InputRecorder(ByteBuffer in) {
+        size = in.getInt();
+        if (size < 0 || size > in.remaining()) throw new BufferUnderflowException();
+        buffer = new byte[Math.max(1024, Integer.highestOneBit(size) << 1)];
+        in.get(buffer, 0, size);
+        lastInput = in.getInt();
+        ticksSinceChange = in.getInt();
+        ticks = in.getInt();
+    }
+
+    /**
+     * write the unfinished recording into a game state snapshot
+     * @param out the snapshot buffer
+     */
+    void writeState(ByteBuffer out) {
+        out.putInt(size);
+        out.put(buffer, 0, size);
+        out.putInt(lastInput);
+        out.putInt(ticksSinceChange);
+        out.putInt(ticks);
+    }
+
+    /**
+     * @return the number of bytes writeState() writes
+     */
+    int getStateSize() {
+        return 16 + size;
+    }
+
+    /**
+     * record the input of one tick
+     * @param input the input bit mask
+     */
+    public void record(int input) {
+        if (finished) return;
+        if (input != lastInput) {
+            writeVarint(ticksSinceChange);
+            writeByte(input);
+            lastInput = input;
+            ticksSinceChange = 0;
+        }
+        ticksSinceChange++;
+        ticks++;
+    }
+
+    /**
+     * end the recording
+     * @return the recorded stream
+     */
+    public byte[] finish() {
+        if (!finished) {
+            writeVarint(ticksSinceChange);
+            writeByte(END);
+            finished = true;
+        }
+        return Arrays.copyOf(buffer, size);
+    }
+
+    public int getTicks() { return ticks;}
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeByte(int value) {
+        if (size == buffer.length) {
+            // only grows every few minutes of play, input changes are rare
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        buffer[size++] = (byte) value;
+    }
+}
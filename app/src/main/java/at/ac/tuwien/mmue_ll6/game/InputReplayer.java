@@ -0,0 +1,110 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.io.IOException;
+
+/**
+ * Plays back a stream written by the InputRecorder, tick by tick
+ * @author agent
+ */
+public class InputReplayer {
+
+    private final byte[] data;
+    private int position;
+
+    // header
+    private final int level;
+    private final int displayWidth;
+    private final int displayHeight;
+
+    // current input and how many ticks it still lasts
+    private int current;
+    private int remaining;
+    private int nextInput;
+    private boolean finished;
+
+    /**
+     * constructor for the replayer, reads the header
+     * @param data the recorded stream
+     * @throws IOException if the stream is no recording or has an unknown version
+     */
+    public InputReplayer(byte[] data) throws IOException {
+        this.data = data;
+        int magic = (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        if (magic != InputRecorder.MAGIC) {
+            throw new IOException("not an input recording");
+        }
+        int version = readVarint();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("unsupported recording version: " + version);
+        }
+        level = readVarint();
+        displayWidth = readVarint();
+        displayHeight = readVarint();
+        int ticksPerSecond = readVarint();
+        if (ticksPerSecond != GameSimulation.TICKS_PER_SECOND) {
+            throw new IOException("recording uses " + ticksPerSecond + " ticks per second");
+        }
+        readChange();
+    }
+
+    public int getLevel() { return level;}
+    public int getDisplayWidth() { return displayWidth;}
+    public int getDisplayHeight() { return displayHeight;}
+
+    /**
+     * @return true if all recorded ticks were played
+     */
+    public boolean isFinished() {
+        return finished || (remaining == 0 && nextInput == InputRecorder.END);
+    }
+
+    /**
+     * get the input of the next tick
+     * @return the input bit mask, 0 after the end of the recording
+     */
+    public int next() {
+        while (remaining == 0) {
+            if (nextInput == InputRecorder.END) {
+                finished = true;
+                return 0;
+            }
+            current = nextInput;
+            readChange();
+        }
+        remaining--;
+        return current;
+    }
+
+    /**
+     * reads how long the current input lasts and which input follows
+     */
+    private void readChange() {
+        try {
+            remaining = readVarint();
+            nextInput = readByte();
+        } catch (IOException e) {
+            // a truncated recording just ends early
+            remaining = 0;
+            nextInput = InputRecorder.END;
+        }
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private int readByte() throws IOException {
+        if (position >= data.length) {
+            throw new IOException("unexpected end of recording");
+        }
+        return data[position++] & 0xFF;
+    }
+}
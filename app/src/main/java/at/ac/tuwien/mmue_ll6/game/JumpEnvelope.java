@@ -0,0 +1,198 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+/**
+ * The jumps the player can make, used to check that a generated level can be solved
+ * the movement per tick is the one of GameSimulation: a jump moves up for JUMP_TICKS ticks, then the player falls
+ * diagonally (holding the button keeps it in the air, but does not change where it lands);
+ * only jumps to the right are checked and the extra step of the right button is left out, so the check is on the safe side
+ * boxes are int arrays {left, top, right, bottom} in level coordinates
+ * @author agent
+ */
+public class JumpEnvelope {
+
+    // movement per tick
+    static final int STEP_X = (int) (GameSimulation.RUN_SPEED * GameSimulation.TICK_SECONDS);
+    static final int JUMP_STEP_Y = (int) (GameSimulation.JUMP_SPEED * GameSimulation.TICK_SECONDS);
+    static final int FALL_STEP_Y = (int) (GameSimulation.FALL_SPEED * GameSimulation.TICK_SECONDS);
+
+    // results of fly() besides a platform index
+    static final int DEAD = -1;
+    static final int GOAL = -2;
+    // result of rise(), the player is at the top of the jump
+    static final int APEX = -3;
+
+    private final int playerWidth;
+    private final int playerHeight;
+    private final int displayHeight;
+
+    /**
+     * @param playerWidth width of the player bitmap
+     * @param playerHeight height of the player bitmap
+     * @param displayHeight the player dies below the display
+     */
+    public JumpEnvelope(int playerWidth, int playerHeight, int displayHeight) {
+        this.playerWidth = playerWidth;
+        this.playerHeight = playerHeight;
+        this.displayHeight = displayHeight;
+    }
+
+    public int getPlayerWidth() { return playerWidth;}
+    public int getPlayerHeight() { return playerHeight;}
+    public int getDisplayHeight() { return displayHeight;}
+
+    /**
+     * @return how high the player gets above the platform it jumps from
+     */
+    public static int getJumpHeight() {
+        return GameSimulation.JUMP_TICKS * JUMP_STEP_Y;
+    }
+
+    /**
+     * checks if the player can jump from one platform onto another without touching an obstacle
+     * every take-off point on the first platform is tried
+     * @param from the platform the player stands on
+     * @param to the platform which should be reached
+     * @param obstacles boxes which must not be touched (enemies), 4 ints per box
+     * @param obstacleCount number of boxes in obstacles
+     * @return true if there is a jump which lands on the second platform
+     */
+    public boolean canReach(int[] from, int[] to, int[] obstacles, int obstacleCount) {
+        // standing on a platform means the player fell into it by one step
+        int standBottom = from[1] + FALL_STEP_Y;
+        int[] platforms = new int[8];
+        System.arraycopy(to, 0, platforms, 0, 4);
+        System.arraycopy(from, 0, platforms, 4, 4);
+
+        // take-off points from right to left, far jumps usually start at the edge
+        for (int takeOff = from[2] - 1; takeOff > from[0] - playerWidth; takeOff -= STEP_X) {
+            if (fly(takeOff, standBottom, 1, true, platforms, 2, obstacles, obstacleCount, null, null) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * follows a jump or a fall tick by tick, in the same order as GameSimulation.update()
+     * @param left left of the player when it leaves the ground
+     * @param bottom bottom of the player when it leaves the ground
+     * @param direction 1 to the right, -1 to the left
+     * @param jump true to jump, false to walk off the platform
+     * @param platforms boxes of the platforms, 4 ints per box
+     * @param platformCount number of boxes in platforms
+     * @param obstacles boxes which must not be touched, 4 ints per box
+     * @param obstacleCount number of boxes in obstacles
+     * @param goal box of the goal, can be null
+     * @param landing receives the ticks in the air and the left and bottom of the player at the end, can be null
+     * @return index of the platform the player landed on, GOAL or DEAD
+     */
+    int fly(int left, int bottom, int direction, boolean jump, int[] platforms, int platformCount,
+            int[] obstacles, int obstacleCount, int[] goal, int[] landing) {
+        int stepX = direction * STEP_X;
+        int ticks = 0;
+        if (jump) {
+            int[] apex = landing != null ? landing : new int[3];
+            int result = rise(left, bottom, stepX, obstacles, obstacleCount, goal, apex);
+            if (result != APEX) return result;
+            ticks = apex[0];
+            left = apex[1];
+            bottom = apex[2];
+        }
+        return fall(left, bottom, stepX, ticks, platforms, platformCount, obstacles, obstacleCount, goal, landing);
+    }
+
+    /**
+     * the part of a jump where the player moves up, platforms are not checked while the jump button is held
+     * @param stepX horizontal movement per tick
+     * @param landing receives the ticks in the air and the left and bottom of the player at the end
+     * @return APEX, GOAL or DEAD
+     */
+    int rise(int left, int bottom, int stepX, int[] obstacles, int obstacleCount, int[] goal, int[] landing) {
+        int ticks = 0;
+        for (int i = 0; i < GameSimulation.JUMP_TICKS; i++) {
+            left += stepX;
+            bottom -= JUMP_STEP_Y;
+            ticks++;
+            if (hits(left, bottom, obstacles, obstacleCount)) return DEAD;
+            if (goal != null && intersects(left, bottom, goal, 0)) return land(GOAL, ticks, left, bottom, landing);
+        }
+        return land(APEX, ticks, left, bottom, landing);
+    }
+
+    /**
+     * fall until a platform is touched or the player is below the display
+     * @param stepX horizontal movement per tick
+     * @param ticks ticks in the air before the fall
+     * @return index of the platform the player landed on, GOAL or DEAD
+     */
+    int fall(int left, int bottom, int stepX, int ticks, int[] platforms, int platformCount,
+             int[] obstacles, int obstacleCount, int[] goal, int[] landing) {
+        // below everything the player can only fall out of the display
+        int lowest = goal != null ? goal[3] : 0;
+        for (int i = 0; i < platformCount; i++) {
+            lowest = Math.max(lowest, platforms[i * 4 + 3]);
+        }
+
+        // only the platforms below the player and within the sideways reach of the fall can be touched,
+        // in the order of their index like touches()
+        int fallTicks = (Math.min(lowest, displayHeight + 1) - (bottom - playerHeight)) / FALL_STEP_Y + 1;
+        int reachLeft = Math.min(left, left + fallTicks * stepX);
+        int reachRight = Math.max(left, left + fallTicks * stepX) + playerWidth;
+        int[] candidates = new int[platformCount];
+        int candidateCount = 0;
+        for (int i = 0; i < platformCount; i++) {
+            if (platforms[i * 4] < reachRight && reachLeft < platforms[i * 4 + 2]
+                    && bottom - playerHeight < platforms[i * 4 + 3]) {
+                candidates[candidateCount++] = i;
+            }
+        }
+
+        while (bottom - playerHeight <= displayHeight && bottom - playerHeight < lowest) {
+            left += stepX;
+            bottom += FALL_STEP_Y;
+            ticks++;
+            if (hits(left, bottom, obstacles, obstacleCount)) return DEAD;
+            if (goal != null && intersects(left, bottom, goal, 0)) return land(GOAL, ticks, left, bottom, landing);
+            for (int i = 0; i < candidateCount; i++) {
+                if (intersects(left, bottom, platforms, candidates[i] * 4)) {
+                    return land(candidates[i], ticks, left, bottom, landing);
+                }
+            }
+        }
+        return DEAD;
+    }
+
+    private static int land(int result, int ticks, int left, int bottom, int[] landing) {
+        if (landing != null) {
+            landing[0] = ticks;
+            landing[1] = left;
+            landing[2] = bottom;
+        }
+        return result;
+    }
+
+    /**
+     * @return index of the first platform the player touches or DEAD
+     */
+    int touches(int left, int bottom, int[] platforms, int platformCount) {
+        for (int i = 0; i < platformCount; i++) {
+            if (intersects(left, bottom, platforms, i * 4)) return i;
+        }
+        return DEAD;
+    }
+
+    boolean hits(int left, int bottom, int[] obstacles, int obstacleCount) {
+        for (int i = 0; i < obstacleCount; i++) {
+            if (intersects(left, bottom, obstacles, i * 4)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * the same check as Rect.intersects() with the player rect
+     */
+    boolean intersects(int left, int bottom, int[] boxes, int offset) {
+        return left < boxes[offset + 2] && boxes[offset] < left + playerWidth
+                && bottom - playerHeight < boxes[offset + 3] && boxes[offset + 1] < bottom;
+    }
+}
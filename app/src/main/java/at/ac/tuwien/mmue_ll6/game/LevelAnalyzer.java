@@ -0,0 +1,276 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import at.ac.tuwien.mmue_ll6.objects.EnemyObject;
+
+/**
+ * Checks a hand-made level without playing it
+ * builds a graph of everywhere the player can stand or hover, connected by walking or hovering one tick,
+ * jumping and falling left or right with and without the button of the direction (gravity is off while the
+ * jump button is held, so the player can hang at the top of a jump); the shortest path to the goal is the
+ * fastest possible run; touching an enemy only costs a life, so a second search where enemies block
+ * everything they can reach tells if the level can also be cleared without getting hit
+ * @author agent
+ */
+public class LevelAnalyzer {
+
+    /**
+     * result of the analysis of one level
+     */
+    public static class Report {
+        public final int level;
+        // the platform the player falls on at the start, -1 if it falls out of the level
+        public final int startPlatform;
+        public final boolean[] reachable;
+        // ticks of the fastest run, -1 if the goal can't be reached
+        public final int clearTicks;
+        // ticks of the fastest run which never gets near an enemy, -1 if there is none
+        public final int safeClearTicks;
+        public final int states;
+
+        Report(int level, int startPlatform, boolean[] reachable, int clearTicks, int safeClearTicks, int states) {
+            this.level = level;
+            this.startPlatform = startPlatform;
+            this.reachable = reachable;
+            this.clearTicks = clearTicks;
+            this.safeClearTicks = safeClearTicks;
+            this.states = states;
+        }
+
+        public boolean isGoalReachable() { return clearTicks >= 0;}
+        public boolean hasSafeRun() { return safeClearTicks >= 0;}
+
+        /**
+         * @return the fastest possible time in seconds, like the time of a score
+         */
+        public double getClearTime() {
+            return (double) clearTicks / GameSimulation.TICKS_PER_SECOND;
+        }
+
+        /**
+         * @return indices of the platforms the player can't get to
+         */
+        public List<Integer> getUnreachablePlatforms() {
+            List<Integer> platforms = new ArrayList<>();
+            for (int i = 0; i < reachable.length; i++) {
+                if (!reachable[i]) platforms.add(i);
+            }
+            return platforms;
+        }
+
+        @Override
+        public String toString() {
+            return "level " + level + ": start on " + startPlatform + ", unreachable " + getUnreachablePlatforms()
+                    + ", goal " + (isGoalReachable() ? "in " + getClearTime() + " s" : "unreachable")
+                    + ", safe run " + (hasSafeRun() ? "in " + (double) safeClearTicks / GameSimulation.TICKS_PER_SECOND + " s" : "none")
+                    + " (" + states + " states)";
+        }
+    }
+
+    // the player stands on a platform, or hangs in the air at the top of a jump while the button is held
+    private static final int STAND = 0;
+    private static final int HOVER = 1;
+    private static final int HOVER_TICKS = 5;
+
+    private final JumpEnvelope envelope;
+    private final int platformWidth;
+    private final int platformHeight;
+    private final int goalWidth;
+    private final int goalHeight;
+    private final int enemyWidth;
+    private final int enemyHeight;
+
+    /**
+     * @param envelope the jumps of the player
+     * @param platformWidth width of the platform bitmap
+     * @param platformHeight height of the platform bitmap
+     * @param goalWidth width of the goal bitmap
+     * @param goalHeight height of the goal bitmap
+     * @param enemyWidth width of the enemy bitmap
+     * @param enemyHeight height of the enemy bitmap
+     */
+    public LevelAnalyzer(JumpEnvelope envelope, int platformWidth, int platformHeight, int goalWidth, int goalHeight,
+                         int enemyWidth, int enemyHeight) {
+        this.envelope = envelope;
+        this.platformWidth = platformWidth;
+        this.platformHeight = platformHeight;
+        this.goalWidth = goalWidth;
+        this.goalHeight = goalHeight;
+        this.enemyWidth = enemyWidth;
+        this.enemyHeight = enemyHeight;
+    }
+
+    /**
+     * @param layout the level
+     * @return reachable platforms and the fastest runs
+     */
+    public Report analyze(LevelLayout layout) {
+        int displayHeight = envelope.getDisplayHeight();
+        int count = layout.platformX.length;
+
+        int[] platforms = new int[count * 4];
+        for (int i = 0; i < count; i++) {
+            int bottom = displayHeight - layout.platformY[i];
+            set(platforms, i, layout.platformX[i], bottom - platformHeight, layout.platformX[i] + platformWidth, bottom);
+        }
+        int goalBottom = displayHeight - layout.goalY;
+        int[] goal = {layout.goalX, goalBottom - goalHeight, layout.goalX + goalWidth, goalBottom};
+
+        // everywhere an enemy can get to
+        int[] enemies = new int[layout.enemyX.length * 4];
+        for (int i = 0; i < layout.enemyX.length; i++) {
+            int reach = EnemyObject.getReach(layout.enemyBehavior[i], layout.enemyRange[i]);
+            int bottom = displayHeight - layout.enemyY[i];
+            set(enemies, i, layout.enemyX[i] - reach, bottom - enemyHeight - EnemyObject.getJumpHeight(layout.enemyBehavior[i]),
+                    layout.enemyX[i] + enemyWidth + reach, bottom);
+        }
+
+        // touching an enemy only costs a life, so reachability is checked without enemies
+        boolean[] reachable = new boolean[count];
+        int[] result = new int[3];
+        search(layout, platforms, goal, enemies, 0, reachable, result);
+        int startPlatform = result[0];
+        int clearTicks = result[1];
+        int states = result[2];
+
+        search(layout, platforms, goal, enemies, layout.enemyX.length, null, result);
+        return new Report(layout.level, startPlatform, reachable, clearTicks, result[1], states + result[2]);
+    }
+
+    /**
+     * shortest path over the positions where the player stands or hovers, in ticks
+     * the whole graph is searched to find all reachable platforms, the goal is found first on the shortest path
+     * @param reachable receives the platforms the player can stand on, can be null
+     * @param result receives the start platform, the ticks to the goal (-1 if unreachable) and the number of states
+     */
+    private void search(LevelLayout layout, int[] platforms, int[] goal, int[] enemies, int enemyCount,
+                        boolean[] reachable, int[] result) {
+        int count = layout.platformX.length;
+
+        // the player falls to the right at the start
+        int[] landing = new int[3];
+        int start = envelope.fly(layout.playerX, envelope.getDisplayHeight() - layout.playerY, 1, false,
+                platforms, count, enemies, enemyCount, goal, landing);
+        result[0] = start;
+        result[1] = start == JumpEnvelope.GOAL ? landing[0] : -1;
+        result[2] = 0;
+        if (start < 0) return;
+
+        int minX = goal[0] - envelope.getPlayerWidth();
+        int maxX = goal[2];
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, platforms[i * 4] - envelope.getPlayerWidth());
+            maxX = Math.max(maxX, platforms[i * 4 + 2]);
+        }
+
+        HashMap<Long, Integer> ticks = new HashMap<>();
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        visit(ticks, queue, landing[0], landing[1], landing[2], STAND);
+
+        while (!queue.isEmpty()) {
+            long[] state = queue.poll();
+            int cost = (int) state[0];
+            int left = (int) state[1];
+            int bottom = (int) state[2];
+            int mode = (int) state[3];
+            if (ticks.get(key(left, bottom, mode)) < cost) continue;
+
+            if (envelope.intersects(left, bottom, goal, 0)) {
+                if (result[1] < 0) result[1] = cost;
+                if (reachable == null) break;
+                continue;
+            }
+
+            if (mode == STAND) {
+                if (reachable != null) reachable[envelope.touches(left, bottom, platforms, count)] = true;
+                for (int direction = -1; direction <= 1; direction += 2) {
+                    // walk one step, or walk off the platform and fall
+                    int next = left + direction * JumpEnvelope.STEP_X;
+                    if (!envelope.hits(next, bottom, enemies, enemyCount)) {
+                        if (envelope.touches(next, bottom, platforms, count) != JumpEnvelope.DEAD) {
+                            visit(ticks, queue, cost + 1, next, bottom, STAND);
+                        } else {
+                            fall(ticks, queue, cost + 1, next, bottom, direction, platforms, count, enemies, enemyCount, goal, landing);
+                        }
+                    }
+                    // jump, with and without holding the button of the direction
+                    for (int speed = 1; speed <= 2; speed++) {
+                        if (envelope.rise(left, bottom, direction * speed * JumpEnvelope.STEP_X,
+                                enemies, enemyCount, goal, landing) != JumpEnvelope.DEAD) {
+                            visit(ticks, queue, cost + landing[0], landing[1], landing[2],
+                                    envelope.intersects(landing[1], landing[2], goal, 0) ? STAND : HOVER);
+                        }
+                    }
+                }
+            } else {
+                // the jump button is still held, the player only moves with the buttons
+                // and hovers a few ticks at once, enemies are wider than that
+                for (int direction = -1; direction <= 1; direction += 2) {
+                    int next = left + direction * HOVER_TICKS * JumpEnvelope.STEP_X;
+                    // nothing to land on outside of the level
+                    if (next < minX || next > maxX) continue;
+                    if (!envelope.hits(next, bottom, enemies, enemyCount)) {
+                        visit(ticks, queue, cost + HOVER_TICKS, next, bottom, HOVER);
+                    }
+                }
+                // letting the button go inside a platform means standing on it
+                if (envelope.touches(left, bottom, platforms, count) != JumpEnvelope.DEAD) {
+                    visit(ticks, queue, cost, left, bottom, STAND);
+                } else {
+                    for (int direction = -1; direction <= 1; direction += 2) {
+                        fall(ticks, queue, cost, left, bottom, direction, platforms, count, enemies, enemyCount, goal, landing);
+                    }
+                }
+            }
+        }
+        result[2] = ticks.size();
+    }
+
+    /**
+     * add the end of a fall to the graph, with and without holding the button of the direction
+     */
+    private void fall(HashMap<Long, Integer> ticks, PriorityQueue<long[]> queue, int cost, int left, int bottom, int direction,
+                      int[] platforms, int count, int[] enemies, int enemyCount, int[] goal, int[] landing) {
+        for (int speed = 1; speed <= 2; speed++) {
+            int result = envelope.fall(left, bottom, direction * speed * JumpEnvelope.STEP_X, 0,
+                    platforms, count, enemies, enemyCount, goal, landing);
+            if (result == JumpEnvelope.DEAD) continue;
+            // the goal is touched in the air, the end position is the last position of the run
+            visit(ticks, queue, cost + landing[0], landing[1], landing[2], STAND);
+        }
+    }
+
+    private static void visit(HashMap<Long, Integer> ticks, PriorityQueue<long[]> queue, int cost, int left, int bottom, int mode) {
+        long key = key(left, bottom, mode);
+        Integer known = ticks.get(key);
+        if (known != null && known <= cost) return;
+        ticks.put(key, cost);
+        queue.add(new long[]{cost, left, bottom, mode});
+    }
+
+    /**
+     * positions within one step to the side and one jump step in height are the same node, this keeps the graph small,
+     * the player can stand at any depth in a platform after touching it from the side;
+     * the player hovers HOVER_TICKS steps at once, so hovering nodes are as wide as that
+     * all parts are in the lower bits, so the hash codes of the nodes of a level are different
+     */
+    private static long key(int left, int bottom, int mode) {
+        int stepX = mode == HOVER ? HOVER_TICKS * JumpEnvelope.STEP_X : JumpEnvelope.STEP_X;
+        return ((long) floorDiv(left, stepX) << 11) | ((floorDiv(bottom, JumpEnvelope.JUMP_STEP_Y) & 0x3FF) << 1) | mode;
+    }
+
+    private static int floorDiv(int value, int divisor) {
+        return (value >= 0 ? value : value - divisor + 1) / divisor;
+    }
+
+    private static void set(int[] boxes, int index, int left, int top, int right, int bottom) {
+        boxes[index * 4] = left;
+        boxes[index * 4 + 1] = top;
+        boxes[index * 4 + 2] = right;
+        boxes[index * 4 + 3] = bottom;
+    }
+}
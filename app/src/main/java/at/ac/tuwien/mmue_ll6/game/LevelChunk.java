@@ -0,0 +1,43 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.util.Arrays;
+
+/**
+ * Objects of one generated part of a level, in level coordinates (the x coordinate before scrolling)
+ * y coordinates are the bottom of the object, like in the constructors of the objects
+ * @author agent
+ */
+public class LevelChunk {
+
+    // marks an enemy slot which is not used in this chunk
+    public static final int UNUSED = Integer.MIN_VALUE;
+
+    public final int index;
+
+    public int platformCount;
+    public final int[] platformX = new int[LevelGenerator.MAX_PLATFORMS];
+    public final int[] platformY = new int[LevelGenerator.MAX_PLATFORMS];
+
+    // one enemy per behavior slot, see LevelGenerator.ENEMY_BEHAVIORS
+    public final int[] enemyX = new int[LevelGenerator.ENEMY_BEHAVIORS.length];
+    public final int[] enemyY = new int[LevelGenerator.ENEMY_BEHAVIORS.length];
+
+    public int fireCount;
+    public final int[] fireX = new int[LevelGenerator.MAX_FIRES];
+    public final int[] fireY = new int[LevelGenerator.MAX_FIRES];
+
+    // only the last chunk of a level has the goal
+    public boolean hasGoal;
+    public int goalX;
+    public int goalY;
+
+    // the last platform, the next chunk continues from it
+    public int exitX;
+    public int exitY;
+
+    LevelChunk(int index) {
+        this.index = index;
+        Arrays.fill(enemyX, UNUSED);
+        Arrays.fill(enemyY, UNUSED);
+    }
+}
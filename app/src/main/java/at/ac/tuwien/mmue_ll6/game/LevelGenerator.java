@@ -0,0 +1,245 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.util.Random;
+import java.util.TimeZone;
+
+import at.ac.tuwien.mmue_ll6.objects.EnemyObject;
+
+/**
+ * Seeded generator for levels which are built chunk by chunk while playing
+ * a chunk only depends on the seed, its index and the last platform of the chunk before,
+ * so it can be generated on any thread and the same level is generated for a replay
+ * every platform is checked against the jump envelope of the player, enemies are only placed
+ * in gaps where the jump over them still works
+ * @author agent
+ */
+public class LevelGenerator {
+
+    // generated levels are identified by their level number, which is also the seed
+    public static final int FIRST_GENERATED_LEVEL = 1000;
+    // number of chunks of the daily level, the last one ends with the goal
+    public static final int DAILY_CHUNKS = 10;
+
+    public static final int CHUNK_WIDTH = 2400;
+    public static final int MAX_PLATFORMS = 6;
+    public static final int MAX_FIRES = 2;
+    // each chunk has one enemy slot per behavior
+    public static final EnemyObject.Behavior[] ENEMY_BEHAVIORS = {
+            EnemyObject.Behavior.PATROL, EnemyObject.Behavior.JUMP, EnemyObject.Behavior.CHASE};
+    public static final int[] ENEMY_RANGES = {100, 50, 60};
+
+    // the first platform is below the spawn point of the player, like in the first level
+    static final int START_X = 100;
+    static final int START_HEIGHT = 150;
+
+    // height of the bottom of the platforms above the bottom of the display
+    private static final int MIN_HEIGHT = 100;
+    private static final int MAX_HEIGHT = 750;
+    // height difference between two platforms
+    private static final int MAX_STEP = 300;
+    private static final int MIN_GAP = 60;
+    private static final int MAX_GAP = 520;
+    // the gaps grow over the first chunks
+    private static final int RAMP_CHUNKS = 8;
+    private static final int ATTEMPTS = 16;
+    private static final int ENEMY_ATTEMPTS = 4;
+
+    private final long seed;
+    private final int chunkCount;
+    private final JumpEnvelope envelope;
+    private final int platformWidth;
+    private final int platformHeight;
+    private final int enemyWidth;
+    private final int enemyHeight;
+
+    /**
+     * @param seed the seed of the level
+     * @param chunkCount number of chunks, the last one ends with the goal
+     * @param envelope the jumps of the player
+     * @param platformWidth width of the platform bitmap
+     * @param platformHeight height of the platform bitmap
+     * @param enemyWidth width of the enemy bitmap
+     * @param enemyHeight height of the enemy bitmap
+     */
+    public LevelGenerator(long seed, int chunkCount, JumpEnvelope envelope, int platformWidth, int platformHeight,
+                          int enemyWidth, int enemyHeight) {
+        this.seed = seed;
+        this.chunkCount = chunkCount;
+        this.envelope = envelope;
+        this.platformWidth = platformWidth;
+        this.platformHeight = platformHeight;
+        this.enemyWidth = enemyWidth;
+        this.enemyHeight = enemyHeight;
+    }
+
+    /**
+     * @param level the level number
+     * @return true if the level is generated instead of hand-made
+     */
+    public static boolean isGenerated(int level) {
+        return level >= FIRST_GENERATED_LEVEL;
+    }
+
+    /**
+     * @param millis the current time
+     * @param timeZone the time zone of the player, the level changes at midnight
+     * @return the generated level of the day
+     */
+    public static int getDailyLevel(long millis, TimeZone timeZone) {
+        long day = (millis + timeZone.getOffset(millis)) / (24 * 60 * 60 * 1000L);
+        return FIRST_GENERATED_LEVEL + (int) day;
+    }
+
+    /**
+     * @param index index of the chunk
+     * @return left end of the chunk in level coordinates
+     */
+    public static int getChunkStart(int index) {
+        return index * CHUNK_WIDTH;
+    }
+
+    public int getChunkCount() { return chunkCount;}
+
+    /**
+     * generate one chunk, does not change the generator and can run on any thread
+     * @param index index of the chunk
+     * @param entryX x coordinate of the last platform of the chunk before, ignored for the first chunk
+     * @param entryY bottom of the last platform of the chunk before, ignored for the first chunk
+     * @return the chunk
+     */
+    public LevelChunk generate(int index, int entryX, int entryY) {
+        Random random = new Random(seed * 7919 + index);
+        LevelChunk chunk = new LevelChunk(index);
+        int displayHeight = envelope.getDisplayHeight();
+
+        boolean last = index == chunkCount - 1;
+        // the goal platform needs a slot in the last chunk
+        int maxPlatforms = last ? MAX_PLATFORMS - 1 : MAX_PLATFORMS;
+        int maxGap = MIN_GAP + (MAX_GAP - MIN_GAP) * Math.min(index + 2, RAMP_CHUNKS) / RAMP_CHUNKS;
+        int chunkEnd = getChunkStart(index + 1);
+
+        int[] previous;
+        if (index == 0) {
+            previous = box(START_X, displayHeight - START_HEIGHT);
+            addPlatform(chunk, previous);
+        } else {
+            previous = box(entryX, entryY);
+        }
+        // the platform the player comes from and all platforms of the chunk, enemies are placed between them
+        int[][] path = new int[MAX_PLATFORMS + 1][];
+        int pathLength = 0;
+        path[pathLength++] = previous;
+
+        while (chunk.platformCount < maxPlatforms) {
+            int[] next = nextPlatform(random, previous, maxGap);
+            if (next[0] >= chunkEnd) break;
+            addPlatform(chunk, next);
+            path[pathLength++] = next;
+            previous = next;
+        }
+        if (last) {
+            int[] goalPlatform = nextPlatform(random, previous, maxGap);
+            addPlatform(chunk, goalPlatform);
+            path[pathLength++] = goalPlatform;
+            previous = goalPlatform;
+            chunk.hasGoal = true;
+            chunk.goalX = goalPlatform[0] + platformWidth / 4;
+            chunk.goalY = goalPlatform[1];
+        }
+        chunk.exitX = previous[0];
+        chunk.exitY = previous[3];
+
+        addEnemies(random, chunk, path, pathLength);
+        addFires(random, chunk);
+        return chunk;
+    }
+
+    /**
+     * find a platform right of the previous one which can be reached with a jump
+     * @return the box of the platform
+     */
+    private int[] nextPlatform(Random random, int[] previous, int maxGap) {
+        int displayHeight = envelope.getDisplayHeight();
+        int highest = Math.max(displayHeight - MAX_HEIGHT, displayHeight / 3);
+        int lowest = displayHeight - MIN_HEIGHT;
+
+        for (int i = 0; i < ATTEMPTS; i++) {
+            int gap = MIN_GAP + random.nextInt(maxGap - MIN_GAP + 1);
+            int y = previous[3] - MAX_STEP + random.nextInt(2 * MAX_STEP + 1);
+            y = Math.max(highest, Math.min(lowest, y));
+            int[] next = box(previous[2] + gap, y);
+            if (envelope.canReach(previous, next, null, 0)) {
+                return next;
+            }
+        }
+        // a short jump on the same height always works
+        int[] next = box(previous[2] + MIN_GAP, previous[3]);
+        if (!envelope.canReach(previous, next, null, 0)) {
+            throw new IllegalStateException("the player can't jump between platforms of this size");
+        }
+        return next;
+    }
+
+    /**
+     * put the enemies into gaps, an enemy is left out if every tried position blocks the jump over the gap
+     */
+    private void addEnemies(Random random, LevelChunk chunk, int[][] path, int pathLength) {
+        int gaps = pathLength - 1;
+        if (gaps <= 0) return;
+        boolean[] taken = new boolean[gaps];
+        int chance = Math.min(30 + 6 * chunk.index, 70);
+
+        for (int slot = 0; slot < ENEMY_BEHAVIORS.length; slot++) {
+            if (random.nextInt(100) >= chance) continue;
+            int gap = random.nextInt(gaps);
+            if (taken[gap]) continue;
+
+            int[] from = path[gap];
+            int[] to = path[gap + 1];
+            int reach = EnemyObject.getReach(ENEMY_BEHAVIORS[slot], ENEMY_RANGES[slot]);
+            int space = to[0] - from[2] - enemyWidth - 2 * reach;
+            if (space < 0) continue;
+
+            int top = Math.min(from[1], to[1]) - 200;
+            for (int i = 0; i < ENEMY_ATTEMPTS && !taken[gap]; i++) {
+                int x = from[2] + reach + random.nextInt(space + 1);
+                int y = top + random.nextInt(Math.max(1, envelope.getDisplayHeight() - top));
+                // everywhere the enemy can get to
+                int[] danger = {x - reach, y - enemyHeight - EnemyObject.getJumpHeight(ENEMY_BEHAVIORS[slot]),
+                        x + enemyWidth + reach, y};
+                if (envelope.canReach(from, to, danger, 1)) {
+                    chunk.enemyX[slot] = x;
+                    chunk.enemyY[slot] = y;
+                    taken[gap] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * fires are only decoration, they burn on top of random platforms
+     */
+    private void addFires(Random random, LevelChunk chunk) {
+        if (chunk.platformCount == 0) return;
+        int count = random.nextInt(MAX_FIRES + 1);
+        for (int i = 0; i < count; i++) {
+            int platform = random.nextInt(chunk.platformCount);
+            chunk.fireX[i] = chunk.platformX[platform] + random.nextInt(platformWidth / 2 + 1);
+            chunk.fireY[i] = chunk.platformY[platform] - platformHeight;
+        }
+        chunk.fireCount = count;
+    }
+
+    private void addPlatform(LevelChunk chunk, int[] box) {
+        chunk.platformX[chunk.platformCount] = box[0];
+        chunk.platformY[chunk.platformCount] = box[3];
+        chunk.platformCount++;
+    }
+
+    /**
+     * @return the box {left, top, right, bottom} of a platform
+     */
+    private int[] box(int x, int y) {
+        return new int[]{x, y - platformHeight, x + platformWidth, y};
+    }
+}
@@ -0,0 +1,193 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import at.ac.tuwien.mmue_ll6.objects.EnemyObject;
+
+/**
+ * Positions of the objects of a hand-made level, without bitmaps, so a level can also be checked on the jvm
+ * the hand-made levels are written in src/main/levels and compiled into the asset pack at build time (LevelSource)
+ * x coordinates are level coordinates, y coordinates are measured from the bottom of the display:
+ * the bottom of an object is at displayHeight - y
+ * a layout is stored in the asset pack as ints, big endian: level, player x/y, goal x/y,
+ * then the number of platforms and x/y of each, the number of enemies and x/y/behavior/range of each,
+ * the number of fires and x/y of each
+ * @author agent
+ */
+public class LevelLayout {
+
+    public final int level;
+
+    public final int playerX;
+    public final int playerY;
+    public final int goalX;
+    public final int goalY;
+
+    // the order of the platforms is the order of draw calls
+    public final int[] platformX;
+    public final int[] platformY;
+
+    public final int[] enemyX;
+    public final int[] enemyY;
+    public final EnemyObject.Behavior[] enemyBehavior;
+    public final int[] enemyRange;
+
+    public final int[] fireX;
+    public final int[] fireY;
+
+    // synthetic map of createCrowded()
+    private static final int CROWDED_START_X = 100;
+    // less than the width of a platform, so the floor has no gaps
+    private static final int CROWDED_PLATFORM_STEP = 500;
+    private static final int CROWDED_FLOOR = 150;
+    private static final int CROWDED_ENEMY_HEIGHT = 1000;
+
+    LevelLayout(int level, int playerX, int playerY, int goalX, int goalY, int[] platformX, int[] platformY,
+                int[] enemyX, int[] enemyY, EnemyObject.Behavior[] enemyBehavior, int[] enemyRange,
+                int[] fireX, int[] fireY) {
+        this.level = level;
+        this.playerX = playerX;
+        this.playerY = playerY;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.platformX = platformX;
+        this.platformY = platformY;
+        this.enemyX = enemyX;
+        this.enemyY = enemyY;
+        this.enemyBehavior = enemyBehavior;
+        this.enemyRange = enemyRange;
+        this.fireX = fireX;
+        this.fireY = fireY;
+    }
+
+    /**
+     * synthetic map with a lot of objects to measure the cost of a tick in the worst case
+     * the platforms form one long floor, the enemies patrol high above it and the fires burn on it,
+     * so a run is long and every object is updated and checked in every tick
+     * @param platformCount number of platforms
+     * @param enemyCount number of enemies
+     * @param fireCount number of fires
+     * @return the layout, its level number is 0 so it is never saved as a score
+     */
+    public static LevelLayout createCrowded(int platformCount, int enemyCount, int fireCount) {
+        int[] platformX = new int[platformCount];
+        int[] platformY = new int[platformCount];
+        for (int i = 0; i < platformCount; i++) {
+            platformX[i] = CROWDED_START_X + i * CROWDED_PLATFORM_STEP;
+            platformY[i] = CROWDED_FLOOR;
+        }
+        int end = CROWDED_START_X + platformCount * CROWDED_PLATFORM_STEP;
+
+        int[] enemyX = new int[enemyCount];
+        int[] enemyY = new int[enemyCount];
+        EnemyObject.Behavior[] enemyBehavior = new EnemyObject.Behavior[enemyCount];
+        int[] enemyRange = new int[enemyCount];
+        for (int i = 0; i < enemyCount; i++) {
+            enemyX[i] = CROWDED_START_X + (int) ((long) i * end / Math.max(1, enemyCount));
+            enemyY[i] = CROWDED_ENEMY_HEIGHT;
+            enemyBehavior[i] = EnemyObject.Behavior.PATROL;
+            enemyRange[i] = 100;
+        }
+
+        int[] fireX = new int[fireCount];
+        int[] fireY = new int[fireCount];
+        for (int i = 0; i < fireCount; i++) {
+            fireX[i] = CROWDED_START_X + (int) ((long) i * end / Math.max(1, fireCount));
+            fireY[i] = CROWDED_FLOOR;
+        }
+        return new LevelLayout(0, 600, 300, end - CROWDED_PLATFORM_STEP / 2, CROWDED_FLOOR, platformX, platformY,
+                enemyX, enemyY, enemyBehavior, enemyRange, fireX, fireY);
+    }
+
+    /**
+     * @return the layout in the format of the asset pack
+     */
+    public byte[] toBytes() {
+        ByteBuffer out = ByteBuffer.allocate(4 * (8 + 2 * platformX.length + 4 * enemyX.length + 2 * fireX.length));
+        out.putInt(level);
+        out.putInt(playerX);
+        out.putInt(playerY);
+        out.putInt(goalX);
+        out.putInt(goalY);
+        out.putInt(platformX.length);
+        for (int i = 0; i < platformX.length; i++) {
+            out.putInt(platformX[i]);
+            out.putInt(platformY[i]);
+        }
+        out.putInt(enemyX.length);
+        for (int i = 0; i < enemyX.length; i++) {
+            out.putInt(enemyX[i]);
+            out.putInt(enemyY[i]);
+            out.putInt(enemyBehavior[i].ordinal());
+            out.putInt(enemyRange[i]);
+        }
+        out.putInt(fireX.length);
+        for (int i = 0; i < fireX.length; i++) {
+            out.putInt(fireX[i]);
+            out.putInt(fireY[i]);
+        }
+        return out.array();
+    }
+
+    /**
+     * read a layout written by toBytes(), e.g. a view of the asset pack
+     * @param in the layout, read from its position
+     * @return the layout
+     * @throws IOException if the data is not a complete layout
+     */
+    public static LevelLayout read(ByteBuffer in) throws IOException {
+        try {
+            int level = in.getInt();
+            int playerX = in.getInt();
+            int playerY = in.getInt();
+            int goalX = in.getInt();
+            int goalY = in.getInt();
+
+            int platforms = readCount(in, 2);
+            int[] platformX = new int[platforms];
+            int[] platformY = new int[platforms];
+            for (int i = 0; i < platforms; i++) {
+                platformX[i] = in.getInt();
+                platformY[i] = in.getInt();
+            }
+
+            int enemies = readCount(in, 4);
+            int[] enemyX = new int[enemies];
+            int[] enemyY = new int[enemies];
+            EnemyObject.Behavior[] enemyBehavior = new EnemyObject.Behavior[enemies];
+            int[] enemyRange = new int[enemies];
+            EnemyObject.Behavior[] behaviors = EnemyObject.Behavior.values();
+            for (int i = 0; i < enemies; i++) {
+                enemyX[i] = in.getInt();
+                enemyY[i] = in.getInt();
+                int behavior = in.getInt();
+                if (behavior < 0 || behavior >= behaviors.length) throw new IOException("unknown enemy behavior " + behavior);
+                enemyBehavior[i] = behaviors[behavior];
+                enemyRange[i] = in.getInt();
+            }
+
+            int fires = readCount(in, 2);
+            int[] fireX = new int[fires];
+            int[] fireY = new int[fires];
+            for (int i = 0; i < fires; i++) {
+                fireX[i] = in.getInt();
+                fireY[i] = in.getInt();
+            }
+            return new LevelLayout(level, playerX, playerY, goalX, goalY, platformX, platformY,
+                    enemyX, enemyY, enemyBehavior, enemyRange, fireX, fireY);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("layout is truncated");
+        }
+    }
+
+    /**
+     * read the number of objects of a kind, checked against the rest of the data before any array is created
+     */
+    private static int readCount(ByteBuffer in, int intsPerObject) throws IOException {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / (4 * intsPerObject)) throw new IOException("broken object count " + count);
+        return count;
+    }
+}
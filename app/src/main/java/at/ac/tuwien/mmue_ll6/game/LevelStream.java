@@ -0,0 +1,179 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+
+import at.ac.tuwien.mmue_ll6.objects.DynamicObject;
+import at.ac.tuwien.mmue_ll6.objects.EnemyObject;
+import at.ac.tuwien.mmue_ll6.objects.ParticleEmitter;
+import at.ac.tuwien.mmue_ll6.objects.SpriteObject;
+import at.ac.tuwien.mmue_ll6.util.Concurrency;
+
+/**
+ * Places the chunks of a generated level just ahead of the camera
+ * the objects are created once and reused: chunk n uses the block n % LIVE_CHUNKS of each object list,
+ * unused objects wait below the display; the next chunk is generated on the cpu lane while the current one
+ * is played, and only generated on the game thread if it is not ready in time; a headless stream (replays checked
+ * in the background, bot sessions) generates every chunk on its own thread and leaves the cpu lane to the game
+ * a chunk is placed when the camera reaches a fixed distance to it, so a replay places it in the same tick
+ * @author agent
+ */
+class LevelStream {
+
+    private static final String TAG = LevelStream.class.getSimpleName();
+
+    // blocks of objects, the oldest block is reused several chunks behind the camera
+    static final int LIVE_CHUNKS = 4;
+    static final int ENEMIES = LevelGenerator.ENEMY_BEHAVIORS.length;
+
+    private final LevelGenerator generator;
+    private final GameGraphic gameGraphic;
+    private final int parkY;
+    private final boolean prefetching;
+
+    // index of the next chunk and the platform it starts from
+    private int next;
+    private int exitX;
+    private int exitY;
+
+    // written by the cpu lane
+    private volatile LevelChunk prefetched;
+
+    /**
+     * @param generator the generator of the level
+     * @param gameGraphic the objects, LIVE_CHUNKS blocks of each kind
+     * @param prefetching true to generate the next chunk on the cpu lane, false to generate it when it is placed
+     */
+    LevelStream(LevelGenerator generator, GameGraphic gameGraphic, boolean prefetching) {
+        this.generator = generator;
+        this.gameGraphic = gameGraphic;
+        this.parkY = getParkY(gameGraphic.displayHeight);
+        this.prefetching = prefetching;
+    }
+
+    /**
+     * @param displayHeight the display height
+     * @return bottom of the objects which are not used, far below the point where the player dies
+     */
+    static int getParkY(int displayHeight) {
+        return displayHeight * 3;
+    }
+
+    /**
+     * place the chunks which are visible at the start, the emitters must be created before
+     */
+    void start() {
+        update(0);
+    }
+
+    /**
+     * place the next chunk if the camera is close to it, called once per tick
+     * @param scrollOffset the scroll offset of the simulation
+     */
+    void update(int scrollOffset) {
+        // the right edge of the camera plus one display
+        int ahead = -scrollOffset + 2 * gameGraphic.displayWidth;
+        while (next < generator.getChunkCount() && LevelGenerator.getChunkStart(next) <= ahead) {
+            LevelChunk chunk = prefetched;
+            if (!prefetching) {
+                chunk = generator.generate(next, exitX, exitY);
+            } else if (chunk == null || chunk.index != next) {
+                Log.w(TAG, "update: chunk " + next + " not ready, generating on the game thread");
+                chunk = generator.generate(next, exitX, exitY);
+            }
+            prefetched = null;
+            place(chunk, scrollOffset);
+            exitX = chunk.exitX;
+            exitY = chunk.exitY;
+            next++;
+            prefetch();
+        }
+    }
+
+    /**
+     * generate the next chunk in the background
+     */
+    private void prefetch() {
+        if (!prefetching || next >= generator.getChunkCount()) return;
+        int index = next;
+        int entryX = exitX;
+        int entryY = exitY;
+        Concurrency.executeAsync(Concurrency.Lane.CPU, Concurrency.PRIORITY_HIGH, null,
+                () -> prefetched = generator.generate(index, entryX, entryY));
+    }
+
+    /**
+     * move the objects of the block of the chunk to their positions
+     */
+    private void place(LevelChunk chunk, int scrollOffset) {
+        int block = chunk.index % LIVE_CHUNKS;
+
+        for (int i = 0; i < LevelGenerator.MAX_PLATFORMS; i++) {
+            DynamicObject platform = gameGraphic.platformObjects.get(block * LevelGenerator.MAX_PLATFORMS + i);
+            if (i < chunk.platformCount) {
+                platform.moveTo(chunk.platformX[i] + scrollOffset, chunk.platformY[i]);
+            } else {
+                platform.moveTo(0, parkY);
+            }
+        }
+        for (int i = 0; i < ENEMIES; i++) {
+            EnemyObject enemy = gameGraphic.enemyObjects.get(block * ENEMIES + i);
+            if (chunk.enemyX[i] != LevelChunk.UNUSED) {
+                enemy.respawn(chunk.enemyX[i] + scrollOffset, chunk.enemyY[i]);
+            } else {
+                enemy.respawn(0, parkY);
+            }
+        }
+        for (int i = 0; i < LevelGenerator.MAX_FIRES; i++) {
+            SpriteObject fire = gameGraphic.spritesObjects.get(block * LevelGenerator.MAX_FIRES + i);
+            if (i < chunk.fireCount) {
+                fire.moveTo(chunk.fireX[i] + scrollOffset, chunk.fireY[i]);
+            } else {
+                fire.moveTo(0, parkY);
+            }
+        }
+        if (chunk.hasGoal) {
+            gameGraphic.goal.moveTo(chunk.goalX + scrollOffset, chunk.goalY);
+        }
+        updateEmitters();
+    }
+
+    /**
+     * only objects which are used emit particles, a headless level has no emitters
+     */
+    private void updateEmitters() {
+        if (gameGraphic.emitters.isEmpty()) return;
+        int sprites = gameGraphic.spritesObjects.size();
+        for (int i = 0; i < sprites; i++) {
+            gameGraphic.emitters.get(i).setEnabled(gameGraphic.spritesObjects.get(i).getY() < parkY);
+        }
+        for (int i = 0; i < gameGraphic.enemyObjects.size(); i++) {
+            ParticleEmitter emitter = gameGraphic.emitters.get(sprites + i);
+            emitter.setEnabled(gameGraphic.enemyObjects.get(i).getRectTarget().bottom < parkY);
+        }
+    }
+
+    /**
+     * write the progress of the stream into a game state snapshot, the objects are written by the simulation
+     * @param out the snapshot buffer
+     */
+    void writeState(ByteBuffer out) {
+        out.putInt(next);
+        out.putInt(exitX);
+        out.putInt(exitY);
+    }
+
+    /**
+     * restore the values written by writeState()
+     * @param in the snapshot buffer
+     */
+    void readState(ByteBuffer in) {
+        next = in.getInt();
+        exitX = in.getInt();
+        exitY = in.getInt();
+        prefetched = null;
+        updateEmitters();
+        prefetch();
+    }
+}
@@ -0,0 +1,264 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.media.MediaPlayer;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.IOException;
+
+import at.ac.tuwien.mmue_ll6.R;
+
+/**
+ * Background music of the levels
+ * all media player calls run on a preparer thread, tracks are prepared asynchronously
+ * and a new track is faded in while the old one is faded out with a second player;
+ * a paused track stays prepared for a while, so resuming continues immediately
+ * @author agent
+ */
+public class MusicStreamer {
+
+    private static final String TAG = MusicStreamer.class.getSimpleName();
+
+    private static final int FADE_MILLIS = 1500;
+    private static final int FADE_STEP_MILLIS = 50;
+    // a paused player is released after this time
+    private static final int RELEASE_DELAY_MILLIS = 60_000;
+
+    private static volatile MusicStreamer INSTANCE;
+
+    private final Context context;
+    private final Handler handler;
+
+    // only used on the preparer thread
+    private MediaPlayer current;
+    private int currentTrack;
+    // player which is prepared for the next track
+    private MediaPlayer preparing;
+    private int preparingTrack;
+    // player of the old track while it is faded out
+    private MediaPlayer fadingOut;
+    private float fade = 1;
+    private int wantedTrack;
+    private boolean wantPlaying;
+
+    private final Runnable fadeStep = this::fadeStep;
+    private final Runnable releaseAll = this::releaseAll;
+
+    private MusicStreamer(Context context) {
+        this.context = context;
+        HandlerThread thread = new HandlerThread("MusicPreparer", Process.THREAD_PRIORITY_AUDIO);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * @param context any context, the application context is used
+     */
+    public static MusicStreamer getInstance(Context context) {
+        MusicStreamer streamer = INSTANCE;
+        if (streamer == null) {
+            synchronized (MusicStreamer.class) {
+                streamer = INSTANCE;
+                if (streamer == null) {
+                    streamer = new MusicStreamer(context.getApplicationContext());
+                    INSTANCE = streamer;
+                }
+            }
+        }
+        return streamer;
+    }
+
+    /**
+     * @param level the level
+     * @return the music of the level
+     */
+    public static int getTrack(int level) {
+        return level == 2 ? R.raw.bgmusic1 : R.raw.bgmusic;
+    }
+
+    /**
+     * play a track, fades over from the playing track, resumes the track if it was paused
+     * returns immediately, the track starts as soon as it is prepared
+     * @param track raw resource of the track
+     */
+    public void play(int track) {
+        handler.post(() -> {
+            wantedTrack = track;
+            wantPlaying = true;
+            handler.removeCallbacks(releaseAll);
+            start();
+        });
+    }
+
+    /**
+     * pause the music, the track stays prepared for a quick resume
+     */
+    public void pause() {
+        handler.post(() -> {
+            wantPlaying = false;
+            finishFade();
+            if (current != null && current.isPlaying()) {
+                current.pause();
+            }
+            handler.removeCallbacks(releaseAll);
+            handler.postDelayed(releaseAll, RELEASE_DELAY_MILLIS);
+        });
+    }
+
+    /**
+     * continue the last track after pause()
+     */
+    public void resume() {
+        handler.post(() -> {
+            if (wantedTrack == 0) return;
+            wantPlaying = true;
+            handler.removeCallbacks(releaseAll);
+            start();
+        });
+    }
+
+    private void start() {
+        if (current != null && currentTrack == wantedTrack) {
+            if (!current.isPlaying()) {
+                current.start();
+            }
+            return;
+        }
+        if (preparing != null && preparingTrack == wantedTrack) {
+            // started when it is prepared
+            return;
+        }
+        if (preparing != null) {
+            preparing.release();
+        }
+        preparing = createPlayer(wantedTrack);
+        preparingTrack = wantedTrack;
+    }
+
+    /**
+     * create a player for a track and prepare it in the background, the callbacks arrive on the preparer thread
+     */
+    private MediaPlayer createPlayer(int track) {
+        MediaPlayer player = new MediaPlayer();
+        setAudioAttributes(player);
+        player.setLooping(true);
+        player.setOnPreparedListener(this::onPrepared);
+        player.setOnErrorListener((mp, what, extra) -> {
+            Log.e(TAG, "error " + what + "/" + extra + " in track " + track);
+            if (mp == preparing) preparing = null;
+            if (mp == current) current = null;
+            if (mp == fadingOut) fadingOut = null;
+            mp.release();
+            return true;
+        });
+
+        try (AssetFileDescriptor fd = context.getResources().openRawResourceFd(track)) {
+            player.setDataSource(fd.getFileDescriptor(), fd.getStartOffset(), fd.getLength());
+        } catch (IOException e) {
+            Log.e(TAG, "createPlayer: " + e.getMessage());
+            player.release();
+            return null;
+        }
+        player.prepareAsync();
+        return player;
+    }
+
+    private void setAudioAttributes(MediaPlayer player) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            setGameAttributes(player);
+        } else {
+            //noinspection deprecation
+            player.setAudioStreamType(AudioManager.STREAM_MUSIC);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static void setGameAttributes(MediaPlayer player) {
+        player.setAudioAttributes(new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_GAME)
+                .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                .build());
+    }
+
+    /**
+     * the next track is ready, fade it in if the music is still wanted
+     */
+    private void onPrepared(MediaPlayer player) {
+        if (player != preparing) return;
+        preparing = null;
+
+        finishFade();
+        fadingOut = current;
+        current = player;
+        currentTrack = preparingTrack;
+
+        if (!wantPlaying) {
+            // prepared while paused, nothing to fade from
+            if (fadingOut != null) fadingOut.release();
+            fadingOut = null;
+            return;
+        }
+        if (fadingOut == null || !fadingOut.isPlaying()) {
+            if (fadingOut != null) fadingOut.release();
+            fadingOut = null;
+            current.setVolume(1, 1);
+            current.start();
+            return;
+        }
+        fade = 0;
+        current.setVolume(0, 0);
+        current.start();
+        handler.post(fadeStep);
+    }
+
+    private void fadeStep() {
+        if (fadingOut == null) return;
+        fade = Math.min(1, fade + (float) FADE_STEP_MILLIS / FADE_MILLIS);
+        current.setVolume(fade, fade);
+        fadingOut.setVolume(1 - fade, 1 - fade);
+        if (fade < 1) {
+            handler.postDelayed(fadeStep, FADE_STEP_MILLIS);
+        } else {
+            finishFade();
+        }
+    }
+
+    /**
+     * end a running crossfade immediately
+     */
+    private void finishFade() {
+        handler.removeCallbacks(fadeStep);
+        if (fadingOut != null) {
+            fadingOut.release();
+            fadingOut = null;
+        }
+        if (current != null) {
+            current.setVolume(1, 1);
+        }
+        fade = 1;
+    }
+
+    /**
+     * free the players after a long pause, play() prepares the track again
+     */
+    private void releaseAll() {
+        finishFade();
+        if (preparing != null) {
+            preparing.release();
+            preparing = null;
+        }
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+        Log.d(TAG, "releaseAll: released paused music");
+    }
+}
@@ -0,0 +1,76 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+/**
+ * Copy of everything the render thread needs to draw one frame
+ * written by the game loop after each update, so drawing never reads objects while they are moved
+ * @author agent
+ */
+public class RenderSnapshot {
+
+    // positions (left, top) of the dynamic objects
+    protected int[] platformX = new int[0];
+    protected int[] platformY = new int[0];
+    protected int[] enemyX = new int[0];
+    protected int[] enemyY = new int[0];
+    protected int platformCount;
+    protected int enemyCount;
+    protected int goalX;
+    protected int goalY;
+    protected int playerX;
+    protected int playerY;
+
+    // ghost of the best run
+    protected boolean ghostVisible;
+    protected int ghostX;
+    protected int ghostY;
+
+    // sprites (x, y and current frame)
+    protected int[] spriteX = new int[0];
+    protected int[] spriteY = new int[0];
+    protected int[] spriteFrame = new int[0];
+    protected int spriteCount;
+
+    // particles
+    protected float[] particleX = new float[0];
+    protected float[] particleY = new float[0];
+    protected int[] particleAlpha = new int[0];
+    protected byte[] particleKind = new byte[0];
+    protected int particleCount;
+
+    // game state
+    protected int lives;
+    protected double currentTime;
+    protected boolean sound;
+    protected boolean paused;
+    protected boolean gameWin;
+    protected boolean gameOver;
+
+    /**
+     * make sure the arrays are big enough, only allocates if the number of objects grows
+     * @param platforms number of platforms
+     * @param enemies number of enemies
+     * @param sprites number of sprites
+     * @param particles maximum number of particles
+     */
+    void ensureCapacity(int platforms, int enemies, int sprites, int particles) {
+        if (platformX.length < platforms) {
+            platformX = new int[platforms];
+            platformY = new int[platforms];
+        }
+        if (enemyX.length < enemies) {
+            enemyX = new int[enemies];
+            enemyY = new int[enemies];
+        }
+        if (spriteX.length < sprites) {
+            spriteX = new int[sprites];
+            spriteY = new int[sprites];
+            spriteFrame = new int[sprites];
+        }
+        if (particleX.length < particles) {
+            particleX = new float[particles];
+            particleY = new float[particles];
+            particleAlpha = new int[particles];
+            particleKind = new byte[particles];
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import at.ac.tuwien.mmue_ll6.util.JobScheduler;
+
+/**
+ * Replays a recorded run without a surface, as fast as possible
+ * @author agent
+ */
+public class ReplayRunner {
+
+    private static final String TAG = ReplayRunner.class.getSimpleName();
+
+    /**
+     * outcome of a replayed run
+     */
+    public static class Result {
+        public final int ticks;
+        public final boolean gameWin;
+        public final boolean gameOver;
+        public final double time;
+        // ticks in which the checkpoints were passed
+        public final int[] splits;
+        public final long nanos;
+
+        Result(int ticks, boolean gameWin, boolean gameOver, double time, int[] splits, long nanos) {
+            this.ticks = ticks;
+            this.gameWin = gameWin;
+            this.gameOver = gameOver;
+            this.time = time;
+            this.splits = splits;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * runs the recorded input through a new simulation until the run ends or the input is used up
+     * the simulation runs on the calling thread, the shared job scheduler belongs to the game loop
+     * @param context to load the level assets
+     * @param data the recorded stream
+     * @return the outcome of the run
+     * @throws IOException if the stream is no valid recording
+     */
+    public static Result runHeadless(Context context, byte[] data) throws IOException {
+        InputReplayer replayer = new InputReplayer(data);
+        GameGraphic gameGraphic = GameGraphic.createHeadless(context, replayer.getLevel(),
+                replayer.getDisplayWidth(), replayer.getDisplayHeight());
+        GameSimulation simulation = new GameSimulation(gameGraphic,
+                new JobScheduler(0, JobScheduler.DEFAULT_THRESHOLD, JobScheduler.DEFAULT_CHUNK_SIZE));
+        return run(simulation, replayer);
+    }
+
+    /**
+     * check a won run by playing its recording again before its score is saved
+     * the simulation is deterministic, so the recording has to win in the same tick with the same splits
+     * @param context to load the level assets
+     * @param data the recording of the run
+     * @param ticks the ticks of the run
+     * @param splits the split ticks of the run
+     * @return true if the recording plays the same run
+     */
+    public static boolean verify(Context context, byte[] data, int ticks, int[] splits) {
+        long start = System.nanoTime();
+        Result result;
+        try {
+            result = runHeadless(context, data);
+        } catch (IOException e) {
+            Log.w(TAG, "verify: " + e.getMessage());
+            return false;
+        }
+        boolean verified = result.gameWin && result.ticks == ticks && Arrays.equals(result.splits, splits);
+        Log.d(TAG, "verify: " + (verified ? "verified" : "rejected") + " run of " + ticks + " ticks, replay "
+                + result.ticks + " ticks in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return verified;
+    }
+
+    /**
+     * runs the recorded input through the given simulation
+     * @param simulation a new simulation of the recorded level
+     * @param replayer the recorded input
+     * @return the outcome of the run
+     */
+    public static Result run(GameSimulation simulation, InputReplayer replayer) {
+        long start = System.nanoTime();
+        while (!simulation.isFinished() && !replayer.isFinished()) {
+            simulation.update(replayer.next());
+        }
+        return new Result(simulation.getTick(), simulation.isGameWin(), simulation.isGameOver(),
+                simulation.getCurrentTime(), simulation.getRunTimer().getSplits(), System.nanoTime() - start);
+    }
+}
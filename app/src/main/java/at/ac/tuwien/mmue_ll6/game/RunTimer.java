@@ -0,0 +1,103 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Time of a run, counted in simulation ticks, with a split time for every checkpoint
+ * the ticks are the exact time of the run, seconds are only calculated from them for showing and saving
+ * a checkpoint is passed the first time the player gets to its x coordinate, dying does not reset it
+ * @author agent
+ */
+public class RunTimer {
+
+    // checkpoints in level coordinates, ascending
+    private final int[] checkpoints;
+    // tick in which each checkpoint was passed
+    private final int[] splits;
+    private int passed;
+    private int ticks;
+
+    /**
+     * @param checkpoints x coordinates of the checkpoints in level coordinates, ascending
+     */
+    public RunTimer(int[] checkpoints) {
+        this.checkpoints = checkpoints;
+        this.splits = new int[checkpoints.length];
+    }
+
+    /**
+     * @param ticks a number of simulation ticks
+     * @return the time in seconds
+     */
+    public static double toSeconds(int ticks) {
+        return (double) ticks / GameSimulation.TICKS_PER_SECOND;
+    }
+
+    /**
+     * count one tick, called at the start of every simulation tick
+     */
+    public void tick() {
+        ticks++;
+    }
+
+    /**
+     * record the checkpoints the player got to in this tick
+     * @param playerX x coordinate of the player in level coordinates
+     */
+    public void pass(int playerX) {
+        while (passed < checkpoints.length && playerX >= checkpoints[passed]) {
+            splits[passed++] = ticks;
+        }
+    }
+
+    public int getTicks() { return ticks;}
+    public double getSeconds() { return toSeconds(ticks);}
+    public int getCheckpointCount() { return checkpoints.length;}
+    public int getPassedCount() { return passed;}
+
+    /**
+     * @param checkpoint index of a passed checkpoint
+     * @return the tick in which the checkpoint was passed
+     */
+    public int getSplit(int checkpoint) {
+        return splits[checkpoint];
+    }
+
+    /**
+     * @return the ticks of all passed checkpoints
+     */
+    public int[] getSplits() {
+        return Arrays.copyOf(splits, passed);
+    }
+
+    /**
+     * write the ticks and splits into a game state snapshot
+     * @param out the snapshot buffer
+     */
+    void writeState(ByteBuffer out) {
+        out.putInt(ticks);
+        out.putInt(passed);
+        for (int i = 0; i < passed; i++) {
+            out.putInt(splits[i]);
+        }
+    }
+
+    /**
+     * restore the values written by writeState()
+     * @param in the snapshot buffer
+     * @throws IOException if the snapshot has more checkpoints than the level
+     */
+    void readState(ByteBuffer in) throws IOException {
+        ticks = in.getInt();
+        int count = in.getInt();
+        if (count < 0 || count > checkpoints.length) {
+            throw new IOException("snapshot has " + count + " splits, the level has " + checkpoints.length + " checkpoints");
+        }
+        passed = count;
+        for (int i = 0; i < passed; i++) {
+            splits[i] = in.getInt();
+        }
+    }
+}
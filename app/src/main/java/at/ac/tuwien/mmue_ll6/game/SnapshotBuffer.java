@@ -0,0 +1,57 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple buffer of render snapshots between the game loop (writer) and the render thread (reader)
+ * the writer always has a free snapshot to fill, the reader always gets the last completed one,
+ * and neither of them ever waits for the other
+ * @author agent
+ */
+class SnapshotBuffer {
+
+    // the shared slot holds the index of the last published snapshot, plus a flag if it was not read yet
+    private static final int INDEX_MASK = 3;
+    private static final int NEW = 4;
+
+    private final RenderSnapshot[] snapshots = {new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot()};
+    private final AtomicInteger shared = new AtomicInteger(2);
+
+    // only used by the writer
+    private int writeIndex = 0;
+    // only used by the reader
+    private int readIndex = 1;
+
+    /**
+     * @return the snapshot the writer can fill, only call from the game loop
+     */
+    RenderSnapshot getWriteSnapshot() {
+        return snapshots[writeIndex];
+    }
+
+    /**
+     * publish the filled snapshot and switch to a free one, only call from the game loop
+     */
+    void publish() {
+        writeIndex = shared.getAndSet(writeIndex | NEW) & INDEX_MASK;
+    }
+
+    /**
+     * @return true if a snapshot was published since the last acquireLatest()
+     */
+    boolean hasNewSnapshot() {
+        return (shared.get() & NEW) != 0;
+    }
+
+    /**
+     * get the last published snapshot, only call from the render thread
+     * the returned snapshot is not touched by the writer until the next call
+     * @return the last completed snapshot
+     */
+    RenderSnapshot acquireLatest() {
+        if (hasNewSnapshot()) {
+            readIndex = shared.getAndSet(readIndex) & INDEX_MASK;
+        }
+        return snapshots[readIndex];
+    }
+}
@@ -0,0 +1,238 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.media.SoundPool;
+import android.os.Build;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+import at.ac.tuwien.mmue_ll6.R;
+import at.ac.tuwien.mmue_ll6.util.CommandQueue;
+
+/**
+ * Sound effects of the game
+ * all effects are loaded once at startup; playing only puts a command into a lock-free queue,
+ * the sounds are started by an audio thread, so the ui and game threads never wait for the sound pool
+ * the number of voices is limited, a new sound replaces the oldest voice of lower or equal priority
+ * @author agent
+ */
+public class SoundBank implements SoundPool.OnLoadCompleteListener {
+
+    private static final String TAG = SoundBank.class.getSimpleName();
+
+    // sound effects, index into the tables below
+    public static final int JUMP = 0;
+
+    private static final int[] RESOURCES = {R.raw.jumpsound};
+    private static final float[] VOLUMES = {0.4f};
+    // higher priorities take the voice of lower ones
+    private static final int[] PRIORITIES = {1};
+    // approximate length, to know when a voice is free again
+    private static final int[] LENGTH_MILLIS = {400};
+
+    private static final int MAX_VOICES = 5;
+
+    // a sound which was requested before it was loaded is played late, but not too late
+    private static final long MAX_LATE_NANOS = 150_000_000L;
+
+    private static final int COMMAND_PLAY = 1 << 16;
+    private static final int COMMAND_LOADED = 2 << 16;
+    private static final int COMMAND_STOP_ALL = 3 << 16;
+    private static final int SOUND_MASK = 0xFFFF;
+
+    private static volatile SoundBank INSTANCE;
+
+    private final SoundPool soundPool;
+    private final CommandQueue commands = new CommandQueue(64);
+    private final Thread audioThread;
+
+    // sound pool id and load state of each sound, written while loading
+    private final int[] soundIds = new int[RESOURCES.length];
+    private final AtomicIntegerArray loaded = new AtomicIntegerArray(RESOURCES.length);
+
+    // only used on the audio thread
+    private final long[] requestedAt = new long[RESOURCES.length];
+    private final int[] voiceStreams = new int[MAX_VOICES];
+    private final int[] voicePriorities = new int[MAX_VOICES];
+    private final long[] voiceEnds = new long[MAX_VOICES];
+
+    private SoundBank(Context context) {
+        soundPool = createSoundPool();
+        soundPool.setOnLoadCompleteListener(this);
+        for (int i = 0; i < RESOURCES.length; i++) {
+            soundIds[i] = soundPool.load(context, RESOURCES[i], PRIORITIES[i]);
+        }
+
+        audioThread = new Thread(this::audioLoop, "AudioThread");
+        audioThread.setDaemon(true);
+        audioThread.start();
+    }
+
+    /**
+     * get the sound bank, the sounds start loading on the first call
+     * first called on the main thread, which also receives the load callbacks
+     * @param context any context, the application context is used
+     */
+    public static SoundBank getInstance(Context context) {
+        SoundBank bank = INSTANCE;
+        if (bank == null) {
+            synchronized (SoundBank.class) {
+                bank = INSTANCE;
+                if (bank == null) {
+                    bank = new SoundBank(context.getApplicationContext());
+                    INSTANCE = bank;
+                }
+            }
+        }
+        return bank;
+    }
+
+    /**
+     * creates a sound pool based on android version
+     */
+    private static SoundPool createSoundPool() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return createNewSoundPool();
+        } else {
+            return new SoundPool(MAX_VOICES, AudioManager.STREAM_MUSIC, 0);
+        }
+    }
+
+    /**
+     * sound pool for android version after lollipop
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static SoundPool createNewSoundPool() {
+        AudioAttributes attributes = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_GAME)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .build();
+
+        return new SoundPool.Builder()
+                .setAudioAttributes(attributes)
+                .setMaxStreams(MAX_VOICES)
+                .build();
+    }
+
+    /**
+     * @return true if all sounds are loaded
+     */
+    public boolean isReady() {
+        for (int i = 0; i < RESOURCES.length; i++) {
+            if (loaded.get(i) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * play a sound, can be called from any thread and returns immediately
+     * @param sound one of the sound constants
+     */
+    public void play(int sound) {
+        send(COMMAND_PLAY | sound);
+    }
+
+    /**
+     * stop all playing sounds, e.g. when the game is left
+     */
+    public void stopAll() {
+        send(COMMAND_STOP_ALL);
+    }
+
+    private void send(int command) {
+        if (!commands.offer(command)) {
+            Log.w(TAG, "send: command queue full");
+            return;
+        }
+        LockSupport.unpark(audioThread);
+    }
+
+    /**
+     * callback when sound pool has finished loading, called on the main thread
+     */
+    @Override
+    public void onLoadComplete(SoundPool soundPool, int sampleId, int status) {
+        for (int i = 0; i < RESOURCES.length; i++) {
+            if (soundIds[i] == sampleId) {
+                if (status != 0) {
+                    Log.e(TAG, "onLoadComplete: sound " + i + " failed with " + status);
+                    return;
+                }
+                loaded.set(i, 1);
+                send(COMMAND_LOADED | i);
+                return;
+            }
+        }
+    }
+
+    private void audioLoop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+        //noinspection InfiniteLoopStatement
+        while (true) {
+            int command;
+            while ((command = commands.poll()) != CommandQueue.EMPTY) {
+                handle(command & ~SOUND_MASK, command & SOUND_MASK);
+            }
+            LockSupport.park(this);
+        }
+    }
+
+    private void handle(int type, int sound) {
+        long now = System.nanoTime();
+        if (type == COMMAND_PLAY) {
+            if (loaded.get(sound) == 1) {
+                startVoice(sound, now);
+            } else {
+                // played as soon as it is loaded
+                requestedAt[sound] = now;
+            }
+        } else if (type == COMMAND_LOADED) {
+            if (requestedAt[sound] != 0 && now - requestedAt[sound] < MAX_LATE_NANOS) {
+                startVoice(sound, now);
+            }
+            requestedAt[sound] = 0;
+        } else if (type == COMMAND_STOP_ALL) {
+            for (int i = 0; i < MAX_VOICES; i++) {
+                if (voiceStreams[i] != 0) soundPool.stop(voiceStreams[i]);
+                voiceStreams[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * start a sound on a free voice, or on the voice of the lowest priority which started first
+     */
+    private void startVoice(int sound, long now) {
+        int priority = PRIORITIES[sound];
+        int slot = -1;
+        for (int i = 0; i < MAX_VOICES; i++) {
+            if (voiceStreams[i] == 0 || voiceEnds[i] <= now) {
+                slot = i;
+                break;
+            }
+            if (voicePriorities[i] <= priority
+                    && (slot == -1 || voicePriorities[i] < voicePriorities[slot]
+                    || (voicePriorities[i] == voicePriorities[slot] && voiceEnds[i] < voiceEnds[slot]))) {
+                slot = i;
+            }
+        }
+        if (slot == -1) {
+            // all voices play more important sounds
+            return;
+        }
+        if (voiceStreams[slot] != 0 && voiceEnds[slot] > now) {
+            soundPool.stop(voiceStreams[slot]);
+        }
+
+        int stream = soundPool.play(soundIds[sound], VOLUMES[sound], VOLUMES[sound], priority, 0, 1.0f);
+        voiceStreams[slot] = stream;
+        voicePriorities[slot] = priority;
+        voiceEnds[slot] = now + LENGTH_MILLIS[sound] * 1_000_000L;
+    }
+}
@@ -2,8 +2,11 @@ package at.ac.tuwien.mmue_ll6.objects;
 
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.graphics.Rect;
 
+import java.nio.ByteBuffer;
+
 /**
  * Encapsulated entity for handling dynamic objects, such as the main character or enemies
  * @author Renate Zhang
@@ -17,6 +20,9 @@ public class DynamicObject{
     private final Rect rectSrc;
     private Rect rectTarget;
 
+    // target rectangle used by the render thread, so drawing does not race with move()
+    private final Rect rectDraw = new Rect();
+
     // coordinates
     private int x;
     private int y;
@@ -64,6 +70,17 @@ public class DynamicObject{
         this.rectTarget.bottom = y;
     }
 
+    /**
+     * put the object to a new position, e.g. to reuse it in a generated level
+     * @param x the x coordinate of the target rect
+     * @param y the y coordinate of the bottom of the target rect
+     */
+    public void moveTo(int x, int y) {
+        this.x = x;
+        this.y = y;
+        this.rectTarget.set(x, y - bitmap.getHeight(), x + bitmap.getWidth(), y);
+    }
+
     /**
      * draws the current frame onto the canvas
      * @param canvas which is drawn on
@@ -74,6 +91,30 @@ public class DynamicObject{
         }
     }
 
+    /**
+     * draws the object at a given position, used to draw a render snapshot
+     * @param canvas which is drawn on
+     * @param left the left coordinate of the target rect
+     * @param top the top coordinate of the target rect
+     */
+    public void drawAt(Canvas canvas, int left, int top) {
+        drawAt(canvas, left, top, null);
+    }
+
+    /**
+     * draws the object at a given position with a paint, e.g. translucent
+     * @param canvas which is drawn on
+     * @param left the left coordinate of the target rect
+     * @param top the top coordinate of the target rect
+     * @param paint the paint used for drawing, can be null
+     */
+    public void drawAt(Canvas canvas, int left, int top, Paint paint) {
+        if (canvas != null) {
+            rectDraw.set(left, top, left + bitmap.getWidth(), top + bitmap.getHeight());
+            canvas.drawBitmap(bitmap, rectSrc, rectDraw, paint);
+        }
+    }
+
     /**
      * reduce the number of this.lives
      */
@@ -89,6 +130,32 @@ public class DynamicObject{
         return lives;
     }
 
+    /**
+     * write the position and lives into a game state snapshot
+     * the target rect is written too, setToStart() does not update it until the next move
+     * @param out the snapshot buffer
+     */
+    public void writeState(ByteBuffer out) {
+        out.putInt(x);
+        out.putInt(y);
+        out.putInt(rectTarget.left);
+        out.putInt(rectTarget.top);
+        out.putInt(lives);
+    }
+
+    /**
+     * restore the values written by writeState()
+     * @param in the snapshot buffer
+     */
+    public void readState(ByteBuffer in) {
+        x = in.getInt();
+        y = in.getInt();
+        int left = in.getInt();
+        int top = in.getInt();
+        rectTarget.set(left, top, left + bitmap.getWidth(), top + bitmap.getHeight());
+        lives = in.getInt();
+    }
+
     /**
      * set the character back to a certain point
      * @param x the x coordinate
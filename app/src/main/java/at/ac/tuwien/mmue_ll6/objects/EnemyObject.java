@@ -0,0 +1,180 @@
+package at.ac.tuwien.mmue_ll6.objects;
+
+import android.graphics.Bitmap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Enemy with a small state machine (patrol, chase, jump)
+ * all movements are relative to the spawn point, so the enemy still scrolls with the scene
+ * @author agent
+ */
+public class EnemyObject extends DynamicObject {
+
+    /**
+     * what the enemy does besides patrolling
+     */
+    public enum Behavior { PATROL, CHASE, JUMP }
+
+    /**
+     * current state of the state machine
+     */
+    public enum State { PATROL, CHASE, JUMP }
+
+    // speeds in pixel/s, ranges in pixel
+    private static final int PATROL_SPEED = 80;
+    private static final int CHASE_SPEED = 160;
+    private static final int CHASE_RANGE = 400;
+    private static final int LOSE_RANGE = 600;
+    private static final int JUMP_RANGE = 250;
+    private static final int JUMP_SPEED = 700;
+    private static final int GRAVITY = 1800;
+
+    private final Behavior behavior;
+    private State state = State.PATROL;
+
+    // how far the enemy may walk away from its spawn point
+    private final int patrolRange;
+    private final int leashRange;
+
+    // offset to the spawn point
+    private double offsetX;
+    private double offsetY;
+    private int direction = 1;
+    private double velocityY;
+
+    /**
+     * constructor for the enemy
+     * @param bitmap the used bitmap
+     * @param x the x coordinate of the target rect
+     * @param y the y coordinate of the target rect
+     * @param behavior what the enemy does besides patrolling
+     * @param patrolRange how far the enemy walks to each side of the spawn point
+     */
+    public EnemyObject(Bitmap bitmap, int x, int y, Behavior behavior, int patrolRange) {
+        super(bitmap, x, y);
+        this.behavior = behavior;
+        this.patrolRange = patrolRange;
+        this.leashRange = patrolRange * 2;
+    }
+
+    public State getState() { return state;}
+
+    /**
+     * how far an enemy can get from its spawn point to each side, including the overshoot of time-sliced steps
+     * @param behavior the behavior of the enemy
+     * @param patrolRange the patrol range of the enemy
+     * @return the distance in pixel
+     */
+    public static int getReach(Behavior behavior, int patrolRange) {
+        int range = behavior == Behavior.CHASE ? patrolRange * 2 : patrolRange;
+        return range + CHASE_SPEED / 10;
+    }
+
+    /**
+     * @param behavior the behavior of the enemy
+     * @return how high the enemy jumps above its spawn point in pixel
+     */
+    public static int getJumpHeight(Behavior behavior) {
+        return behavior == Behavior.JUMP ? JUMP_SPEED * JUMP_SPEED / (2 * GRAVITY) + 1 : 0;
+    }
+
+    /**
+     * start again at a new spawn point in the patrol state, e.g. to reuse the enemy in a generated level
+     * @param x the x coordinate of the target rect
+     * @param y the y coordinate of the bottom of the target rect
+     */
+    public void respawn(int x, int y) {
+        moveTo(x, y);
+        state = State.PATROL;
+        offsetX = 0;
+        offsetY = 0;
+        direction = 1;
+        velocityY = 0;
+    }
+
+    @Override
+    public void writeState(ByteBuffer out) {
+        super.writeState(out);
+        out.put((byte) state.ordinal());
+        out.putDouble(offsetX);
+        out.putDouble(offsetY);
+        out.put((byte) direction);
+        out.putDouble(velocityY);
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        super.readState(in);
+        state = State.values()[in.get()];
+        offsetX = in.getDouble();
+        offsetY = in.getDouble();
+        direction = in.get();
+        velocityY = in.getDouble();
+    }
+
+    /**
+     * runs one step of the state machine
+     * @param deltaTime the delta time in seconds, can be several frames for enemies far from the camera
+     * @param playerX the x coordinate of the center of the player
+     * @param playerY the y coordinate of the bottom of the player
+     */
+    public void think(double deltaTime, int playerX, int playerY) {
+        int distanceX = playerX - (getRectTarget().left + getRectTarget().right) / 2;
+        int distanceY = playerY - getRectTarget().bottom;
+        int distance = Math.abs(distanceX) + Math.abs(distanceY);
+
+        switch (state) {
+            case PATROL:
+                step(direction * PATROL_SPEED * deltaTime, 0);
+                if (Math.abs(offsetX) >= patrolRange) {
+                    // turn around at the end of the patrol range
+                    direction = offsetX > 0 ? -1 : 1;
+                }
+                if (behavior == Behavior.CHASE && distance < CHASE_RANGE) {
+                    state = State.CHASE;
+                } else if (behavior == Behavior.JUMP && distance < JUMP_RANGE) {
+                    state = State.JUMP;
+                    velocityY = -JUMP_SPEED;
+                }
+                break;
+
+            case CHASE:
+                // follow the player, but never further than the leash
+                double deltaX = Math.signum(distanceX) * CHASE_SPEED * deltaTime;
+                if (Math.abs(offsetX + deltaX) > leashRange) {
+                    deltaX = 0;
+                }
+                step(deltaX, 0);
+                if (distance > LOSE_RANGE) {
+                    state = State.PATROL;
+                }
+                break;
+
+            case JUMP:
+                velocityY += GRAVITY * deltaTime;
+                double deltaY = velocityY * deltaTime;
+                if (offsetY + deltaY >= 0) {
+                    // landed on the spawn height again
+                    deltaY = -offsetY;
+                    velocityY = 0;
+                    state = State.PATROL;
+                }
+                step(0, deltaY);
+                break;
+        }
+    }
+
+    /**
+     * moves the enemy and keeps track of the offset to the spawn point
+     * the offset keeps the fraction of a pixel and the enemy is drawn at the rounded offset,
+     * move() would cut off the fraction towards zero and make steps to the left longer than steps to the right
+     */
+    private void step(double deltaX, double deltaY) {
+        double newOffsetX = offsetX + deltaX;
+        double newOffsetY = offsetY + deltaY;
+        move(Math.round(newOffsetX) - Math.round(offsetX), Math.round(newOffsetY) - Math.round(offsetY));
+        offsetX = newOffsetX;
+        offsetY = newOffsetY;
+    }
+}
@@ -0,0 +1,86 @@
+package at.ac.tuwien.mmue_ll6.objects;
+
+/**
+ * Emitter which is attached to a dynamic object or a sprite and spawns particles at its position
+ * @author agent
+ */
+public class ParticleEmitter {
+
+    private final ParticleSystem particleSystem;
+    private final int kind;
+
+    // attached object, only one of them is set
+    private DynamicObject dynamicObject;
+    private SpriteObject spriteObject;
+
+    // particles per second, 0 if the emitter is only used for bursts
+    private float rate;
+    private float pending;
+    private boolean enabled = true;
+
+    /**
+     * constructor for an emitter attached to a dynamic object (player, enemies)
+     * @param particleSystem the system the particles are spawned in
+     * @param kind the particle kind
+     * @param rate particles per second
+     * @param dynamicObject the object the emitter follows
+     */
+    public ParticleEmitter(ParticleSystem particleSystem, int kind, float rate, DynamicObject dynamicObject) {
+        this.particleSystem = particleSystem;
+        this.kind = kind;
+        this.rate = rate;
+        this.dynamicObject = dynamicObject;
+    }
+
+    /**
+     * constructor for an emitter attached to a sprite (fire)
+     * @param particleSystem the system the particles are spawned in
+     * @param kind the particle kind
+     * @param rate particles per second
+     * @param spriteObject the sprite the emitter follows
+     */
+    public ParticleEmitter(ParticleSystem particleSystem, int kind, float rate, SpriteObject spriteObject) {
+        this.particleSystem = particleSystem;
+        this.kind = kind;
+        this.rate = rate;
+        this.spriteObject = spriteObject;
+    }
+
+    public void setRate(float rate) { this.rate = rate;}
+
+    /**
+     * stop the continuous particles, e.g. while the attached object is not used; bursts still work
+     * @param enabled false to stop spawning
+     */
+    public void setEnabled(boolean enabled) { this.enabled = enabled;}
+
+    /**
+     * spawns the particles which are due since the last update
+     * @param deltaTime the delta time in seconds
+     */
+    public void update(double deltaTime) {
+        if (!enabled) return;
+        pending += rate * deltaTime;
+        int amount = (int) pending;
+        if (amount > 0) {
+            pending -= amount;
+            burst(amount);
+        }
+    }
+
+    /**
+     * spawns particles immediately at the position of the attached object
+     * @param amount how many particles are spawned
+     */
+    public void burst(int amount) {
+        if (dynamicObject != null) {
+            // center of the bottom edge
+            particleSystem.emit(kind, (dynamicObject.getRectTarget().left + dynamicObject.getRectTarget().right) / 2f,
+                    dynamicObject.getRectTarget().bottom, amount);
+        } else if (spriteObject != null) {
+            // center of the drawn frame
+            particleSystem.emit(kind, spriteObject.getX() + spriteObject.getWidth() / 2f,
+                    spriteObject.getY() - spriteObject.getHeight() / 2f, amount);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package at.ac.tuwien.mmue_ll6.objects;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.util.Random;
+
+/**
+ * Pooled particle engine for small effects (fire embers, jump dust, death burst)
+ * all particle state is kept in preallocated primitive arrays, so emitting, updating and drawing never allocates
+ * @author agent
+ */
+public class ParticleSystem {
+
+    // particle kinds, each kind has its own bitmap and behaviour
+    public static final int KIND_FIRE = 0;
+    public static final int KIND_DUST = 1;
+    public static final int KIND_DEATH = 2;
+    public static final int KIND_SPARK = 3;
+    public static final int KIND_COUNT = 4;
+
+    // behaviour per kind: lifetime in seconds, speed in pixel/s, gravity in pixel/s^2
+    private static final float[] LIFETIME = {0.8f, 0.4f, 1.0f, 0.6f};
+    private static final float[] SPEED = {60f, 150f, 450f, 40f};
+    private static final float[] GRAVITY = {-120f, 200f, 900f, -30f};
+
+    // bitmap per kind, drawn with a shared paint
+    private final Bitmap[] bitmaps = new Bitmap[KIND_COUNT];
+    private final int[] halfWidth = new int[KIND_COUNT];
+    private final int[] halfHeight = new int[KIND_COUNT];
+    private final Paint paint = new Paint();
+
+    // particle state, structure of arrays
+    private final int capacity;
+    private final float[] x;
+    private final float[] y;
+    private final float[] velocityX;
+    private final float[] velocityY;
+    private final float[] life;
+    private final byte[] kind;
+    private int count;
+
+    private final Random random = new Random();
+
+    // cost of the last update and draw call, draw is called from the render thread
+    private volatile long lastUpdateNanos;
+    private volatile long lastDrawNanos;
+
+    /**
+     * constructor for the particle system
+     * @param capacity the maximum number of particles alive at the same time
+     */
+    public ParticleSystem(int capacity) {
+        this.capacity = capacity;
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.velocityX = new float[capacity];
+        this.velocityY = new float[capacity];
+        this.life = new float[capacity];
+        this.kind = new byte[capacity];
+    }
+
+    /**
+     * make the particles the same in every run, e.g. to compare rendered frames with golden images
+     * @param seed seed of the random spread and lifetime of the particles
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * set the bitmap which is drawn for every particle of a kind
+     * @param kind the particle kind
+     * @param bitmap the used bitmap
+     */
+    public void setBitmap(int kind, Bitmap bitmap) {
+        this.bitmaps[kind] = bitmap;
+        this.halfWidth[kind] = bitmap.getWidth() / 2;
+        this.halfHeight[kind] = bitmap.getHeight() / 2;
+    }
+
+    /**
+     * spawn new particles at a position, if the pool is full the remaining particles are dropped
+     * @param kind the particle kind
+     * @param posX the x coordinate of the origin
+     * @param posY the y coordinate of the origin
+     * @param amount how many particles are spawned
+     */
+    public void emit(int kind, float posX, float posY, int amount) {
+        float speed = SPEED[kind];
+        for (int n = 0; n < amount && count < capacity; n++) {
+            int i = count++;
+            x[i] = posX;
+            y[i] = posY;
+            velocityX[i] = (random.nextFloat() * 2f - 1f) * speed;
+            velocityY[i] = (random.nextFloat() * 2f - 1f) * speed;
+            life[i] = LIFETIME[kind] * (0.5f + random.nextFloat() * 0.5f);
+            this.kind[i] = (byte) kind;
+        }
+    }
+
+    /**
+     * moves and ages all particles, dead particles are replaced with the last alive one
+     * @param deltaTime the delta time in seconds
+     */
+    public void update(double deltaTime) {
+        long start = System.nanoTime();
+        float dt = (float) deltaTime;
+
+        int i = 0;
+        while (i < count) {
+            life[i] -= dt;
+            if (life[i] <= 0) {
+                // swap with the last particle, so the arrays stay packed
+                count--;
+                x[i] = x[count];
+                y[i] = y[count];
+                velocityX[i] = velocityX[count];
+                velocityY[i] = velocityY[count];
+                life[i] = life[count];
+                kind[i] = kind[count];
+                continue;
+            }
+            velocityY[i] += GRAVITY[kind[i]] * dt;
+            x[i] += velocityX[i] * dt;
+            y[i] += velocityY[i] * dt;
+            i++;
+        }
+
+        lastUpdateNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * method to move all particles, needed when the scene is scrolled
+     * @param deltaX how much the x coordinate should be moved
+     * @param deltaY how much the y coordinate should be moved
+     */
+    public void move(double deltaX, double deltaY) {
+        float dx = (float) deltaX;
+        float dy = (float) deltaY;
+        for (int i = 0; i < count; i++) {
+            x[i] += dx;
+            y[i] += dy;
+        }
+    }
+
+    /**
+     * copies the alive particles into the given arrays, used to create a render snapshot
+     * @param outX x coordinates
+     * @param outY y coordinates
+     * @param outAlpha alpha values (0-255), particles fade out at the end of their lifetime
+     * @param outKind particle kinds
+     * @return number of copied particles
+     */
+    public int copyTo(float[] outX, float[] outY, int[] outAlpha, byte[] outKind) {
+        System.arraycopy(x, 0, outX, 0, count);
+        System.arraycopy(y, 0, outY, 0, count);
+        System.arraycopy(kind, 0, outKind, 0, count);
+        for (int i = 0; i < count; i++) {
+            outAlpha[i] = (int) (255 * Math.min(1f, life[i] / LIFETIME[kind[i]] * 2f));
+        }
+        return count;
+    }
+
+    /**
+     * draws particles onto the canvas, batched by kind so the bitmap does not change between calls
+     * @param canvas which is drawn on
+     * @param posX x coordinates
+     * @param posY y coordinates
+     * @param alpha alpha values (0-255)
+     * @param kinds particle kinds
+     * @param amount number of particles
+     */
+    public void draw(Canvas canvas, float[] posX, float[] posY, int[] alpha, byte[] kinds, int amount) {
+        if (canvas == null) return;
+        long start = System.nanoTime();
+
+        for (int k = 0; k < KIND_COUNT; k++) {
+            Bitmap bitmap = bitmaps[k];
+            if (bitmap == null) continue;
+
+            for (int i = 0; i < amount; i++) {
+                if (kinds[i] != k) continue;
+                paint.setAlpha(alpha[i]);
+                canvas.drawBitmap(bitmap, posX[i] - halfWidth[k], posY[i] - halfHeight[k], paint);
+            }
+        }
+        paint.setAlpha(255);
+
+        lastDrawNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * removes all particles, e.g. when the player is reset
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    public int getCount() { return count;}
+    public int getCapacity() { return capacity;}
+    public long getLastUpdateNanos() { return lastUpdateNanos;}
+    public long getLastDrawNanos() { return lastDrawNanos;}
+}
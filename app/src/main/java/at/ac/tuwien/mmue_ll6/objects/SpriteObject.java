@@ -4,6 +4,10 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Rect;
 
+import java.nio.ByteBuffer;
+
+import at.ac.tuwien.mmue_ll6.util.SpriteFrames;
+
 /**
  * Encapsulated entity for handling sprites
  * @author Renate Zhang
@@ -12,13 +16,17 @@ public class SpriteObject {
 
     //Bitmap to get character from image
     Bitmap bitmap;
-    private Rect rectSrc;
-    private Rect rectTarget;
+    private final Rect rectSrc = new Rect();
+    private final Rect rectTarget = new Rect();
 
     //coordinates
     private int x;
     private int y;
-    //to extract the frame out of the bitmap
+    //to extract the frame out of the bitmap, in pixels of the bitmap
+    private final int[] frameLeft;
+    private final int[] frameTop;
+    private final int[] frameRight;
+    private final int[] frameBottom;
     private final int frameWidth;
     private final int frameHeight;
     private int currentFrame;
@@ -29,24 +37,44 @@ public class SpriteObject {
 
     /**
      * constructor for the class Sprite
-     * @param bitmap the used bitmap
-     * @param totalFrames number of total frames of sprite sheet
+     * @param bitmap the sprite sheet packed by the asset pipeline
+     * @param frames the frames of the sheet and how long each one is shown
      * @param x the y coordinate of the target rect
      * @param y the y coordinate of the target rect
      */
-    public SpriteObject(Bitmap bitmap, int totalFrames, int x, int y) {
+    public SpriteObject(Bitmap bitmap, SpriteFrames frames, int x, int y) {
         this.bitmap = bitmap;
         this.currentFrame = 0;
-        this.totalFrames = totalFrames;
+        this.totalFrames = frames.getFrameCount();
 
-        this.frameWidth = bitmap.getWidth() / totalFrames;
-        this.frameHeight = bitmap.getHeight();
+        // the frames are given at the default density, the sheet is scaled to the density of the display
+        float scale = bitmap.getWidth() / (float) frames.sheetWidth;
+        this.frameLeft = new int[totalFrames];
+        this.frameTop = new int[totalFrames];
+        this.frameRight = new int[totalFrames];
+        this.frameBottom = new int[totalFrames];
+        for (int i = 0; i < totalFrames; i++) {
+            frameLeft[i] = Math.round(frames.getLeft(i) * scale);
+            frameTop[i] = Math.round(frames.getTop(i) * scale);
+            frameRight[i] = Math.round((frames.getLeft(i) + frames.getWidth(i)) * scale);
+            frameBottom[i] = Math.round((frames.getTop(i) + frames.getHeight(i)) * scale);
+        }
+        this.frameWidth = frameRight[0] - frameLeft[0];
+        this.frameHeight = frameBottom[0] - frameTop[0];
 
         this.x = x;
         this.y = y;
-        this.frameTime = 150;
+        this.frameTime = frames.frameTime;
     }
 
+    public int getX() { return x;}
+    public int getY() { return y;}
+    public int getCurrentFrame() { return currentFrame;}
+
+    // the frame is drawn with double size
+    public int getWidth() { return frameWidth * 2;}
+    public int getHeight() { return frameHeight * 2;}
+
     /**
      * checks if its time for the next frame
      * @param currentTime the current time to check if its time for the next frame
@@ -59,6 +87,28 @@ public class SpriteObject {
         }
     }
 
+    /**
+     * write the position and animation into a game state snapshot
+     * @param out the snapshot buffer
+     */
+    public void writeState(ByteBuffer out) {
+        out.putInt(x);
+        out.putInt(y);
+        out.putInt(currentFrame);
+        out.putLong(pastTime);
+    }
+
+    /**
+     * restore the values written by writeState()
+     * @param in the snapshot buffer
+     */
+    public void readState(ByteBuffer in) {
+        x = in.getInt();
+        y = in.getInt();
+        currentFrame = in.getInt();
+        pastTime = in.getLong();
+    }
+
     /**
      * method to update x coordinate of character
      * @param deltaX how much the x coordinate should be moved
@@ -67,9 +117,16 @@ public class SpriteObject {
     public void move(double deltaX, double deltaY){
         this.x += deltaX;
         this.y += deltaY;
+    }
 
-        this.rectTarget.left = x;
-        this.rectTarget.right = x + bitmap.getWidth();
+    /**
+     * put the sprite to a new position, e.g. to reuse it in a generated level
+     * @param x the x coordinate of the target rect
+     * @param y the y coordinate of the bottom of the target rect
+     */
+    public void moveTo(int x, int y) {
+        this.x = x;
+        this.y = y;
     }
 
     /**
@@ -77,10 +134,21 @@ public class SpriteObject {
      * @param canvas which is drawn on
      */
     public void draw(Canvas canvas) {
+        drawFrame(canvas, x, y, currentFrame);
+    }
+
+    /**
+     * draws a frame at a given position onto the canvas, used to draw a render snapshot
+     * @param canvas which is drawn on
+     * @param x the x coordinate of the target rect
+     * @param y the y coordinate of the target rect
+     * @param frame the frame of the sprite sheet
+     */
+    public void drawFrame(Canvas canvas, int x, int y, int frame) {
         if (canvas != null) {
-            // source and target rectangle
-            this.rectTarget = new Rect(x, y - frameHeight * 2, x + frameWidth * 2, y);
-            this.rectSrc = new Rect(currentFrame * frameWidth + 2, 0, (currentFrame + 1) * frameWidth, frameHeight);
+            // source and target rectangle, reused so drawing does not allocate
+            this.rectTarget.set(x, y - frameHeight * 2, x + frameWidth * 2, y);
+            this.rectSrc.set(frameLeft[frame], frameTop[frame], frameRight[frame], frameBottom[frame]);
 
             canvas.drawBitmap(bitmap, rectSrc, rectTarget, null);
         }
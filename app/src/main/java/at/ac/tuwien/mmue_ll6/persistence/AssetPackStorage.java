@@ -0,0 +1,163 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.ImageDecoder;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import at.ac.tuwien.mmue_ll6.util.AssetPack;
+import at.ac.tuwien.mmue_ll6.util.Tracing;
+
+/**
+ * Opens the asset pack with the images, sprite sheets and hand-made levels of the game
+ * the pack is written at build time (packAssets in build.gradle) and mapped in place from the apk,
+ * so it has to be stored uncompressed, a compressed pack is copied; if it can't be opened, images are loaded from the resources
+ * @author agent
+ */
+public class AssetPackStorage {
+
+    private static final String TAG = AssetPackStorage.class.getSimpleName();
+    public static final String ASSET_NAME = "game.pack";
+
+    private static volatile AssetPack INSTANCE;
+    // the pack is not tried again after it could not be opened
+    private static volatile boolean unavailable;
+
+    /**
+     * get the pack, it is mapped on the first call
+     * @param context any context, the application context is used
+     * @return the pack or null if there is none
+     */
+    public static AssetPack getPack(Context context) {
+        AssetPack pack = INSTANCE;
+        if (pack == null && !unavailable) {
+            synchronized (AssetPackStorage.class) {
+                pack = INSTANCE;
+                if (pack == null && !unavailable) {
+                    long start = System.nanoTime();
+                    pack = open(context.getApplicationContext());
+                    if (pack != null) {
+                        Log.d(TAG, "opened pack with " + pack.size() + " entries in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                    }
+                    INSTANCE = pack;
+                    unavailable = pack == null;
+                }
+            }
+        }
+        return pack;
+    }
+
+    private static AssetPack open(Context context) {
+        Tracing.begin("AssetPackStorage.open");
+        try {
+            AssetFileDescriptor descriptor = context.getAssets().openFd(ASSET_NAME);
+            // closing the stream also closes the descriptor
+            try (FileInputStream in = descriptor.createInputStream()) {
+                return AssetPack.map(in.getChannel(), descriptor.getStartOffset(), descriptor.getLength());
+            }
+        } catch (FileNotFoundException e) {
+            // a compressed pack has no file descriptor
+            return copy(context);
+        } catch (IOException e) {
+            Log.e(TAG, "open: " + e.getMessage());
+            return null;
+        } finally {
+            Tracing.end();
+        }
+    }
+
+    /**
+     * read a pack which can't be mapped into memory, e.g. in the offscreen render tests on the JVM
+     */
+    private static AssetPack copy(Context context) {
+        try (InputStream in = context.getAssets().open(ASSET_NAME)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            Log.w(TAG, "copy: the pack is compressed, it is copied instead of mapped");
+            return new AssetPack(ByteBuffer.wrap(out.toByteArray()));
+        } catch (IOException e) {
+            // a missing pack is a broken build
+            Log.e(TAG, "copy: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * decode a drawable of the game screen from the pack, or from the resources if it is not packed
+     * the pack has the image scaled for every density bucket, the bucket of the display is decoded without
+     * scaling it again, only on displays between two buckets it is scaled down a little, like a drawable;
+     * from android 9 on it is decoded straight from the mapped pack, before that the encoded image is copied once
+     * @param context to find the pack and the display density
+     * @param id the drawable
+     * @return the bitmap
+     */
+    public static Bitmap decodeBitmap(Context context, int id) {
+        Tracing.begin("AssetPackStorage.decodeBitmap");
+        try {
+            return decode(context, id);
+        } finally {
+            Tracing.end();
+        }
+    }
+
+    private static Bitmap decode(Context context, int id) {
+        Resources resources = context.getResources();
+        int density = resources.getDisplayMetrics().densityDpi;
+        int bucket = AssetPack.getDensityBucket(density);
+        AssetPack pack = getPack(context);
+        ByteBuffer data = pack != null ? pack.get(AssetPack.getImageName(resources.getResourceEntryName(id), bucket)) : null;
+        if (data == null) return BitmapFactory.decodeResource(resources, id);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            try {
+                return decodeMapped(data, bucket, density);
+            } catch (IOException e) {
+                Log.e(TAG, "decode " + resources.getResourceEntryName(id) + ": " + e.getMessage());
+                return BitmapFactory.decodeResource(resources, id);
+            }
+        }
+
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inDensity = bucket;
+        options.inTargetDensity = density;
+        return BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+    }
+
+    @TargetApi(Build.VERSION_CODES.P)
+    private static Bitmap decodeMapped(ByteBuffer data, int bucket, int density) throws IOException {
+        Bitmap bitmap = ImageDecoder.decodeBitmap(ImageDecoder.createSource(data), (decoder, info, source) -> {
+            if (bucket != density) {
+                decoder.setTargetSize(scale(info.getSize().getWidth(), bucket, density), scale(info.getSize().getHeight(), bucket, density));
+            }
+            // the game draws on the software canvas of the surface, which can't draw hardware bitmaps
+            decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
+        });
+        bitmap.setDensity(density);
+        return bitmap;
+    }
+
+    /**
+     * the size of an image of a density bucket on the display, rounded like the resources do it
+     */
+    private static int scale(int size, int bucket, int density) {
+        return Math.max(1, (int) (size * density / (float) bucket + 0.5f));
+    }
+}
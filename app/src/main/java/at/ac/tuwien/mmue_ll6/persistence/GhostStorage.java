@@ -0,0 +1,97 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Stores the ghost trace of the best run of each level in the app files
+ * @author agent
+ */
+public class GhostStorage {
+
+    private static final String TAG = GhostStorage.class.getSimpleName();
+    private static final String DIRECTORY = "ghosts";
+
+    /**
+     * @param context to find the files directory
+     * @param level the level of the ghost
+     * @return the file of the best run of the level
+     */
+    public static File getFile(Context context, int level) {
+        return new File(new File(context.getFilesDir(), DIRECTORY), "level" + level + ".ghost");
+    }
+
+    /**
+     * open the ghost of a level for streaming
+     * @param context to find the files directory
+     * @param level the level of the ghost
+     * @return the stream of the trace or null if there is no ghost
+     */
+    public static InputStream open(Context context, int level) {
+        File file = getFile(context, level);
+        if (!file.isFile()) return null;
+        try {
+            return new BufferedInputStream(new FileInputStream(file), 1024);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * load the whole ghost of a level, it is only a few KB, so the game does not read the file while playing
+     * @param context to find the files directory
+     * @param level the level of the ghost
+     * @return the trace or null if there is no ghost
+     */
+    public static byte[] read(Context context, int level) {
+        File file = getFile(context, level);
+        if (!file.isFile()) return null;
+
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            Log.e(TAG, "read: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * save a ghost, replaces the ghost of the level
+     * written to a temporary file first, so a running game can keep streaming the old ghost
+     * @param context to find the files directory
+     * @param level the level of the ghost
+     * @param data the ghost trace
+     */
+    public static void write(Context context, int level, byte[] data) {
+        File file = getFile(context, level);
+        File tmp = new File(file.getPath() + ".tmp");
+        //noinspection ResultOfMethodCallIgnored
+        file.getParentFile().mkdirs();
+
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        } catch (IOException e) {
+            Log.e(TAG, "write: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "write: could not replace " + file);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import at.ac.tuwien.mmue_ll6.util.Concurrency;
+
+/**
+ * In-memory top scores per level
+ * each level is loaded from the database once, afterwards every saved score is offered to a bounded heap,
+ * so the high score screen never has to wait for the database
+ * @author agent
+ */
+public class LeaderboardCache {
+
+    private static final String TAG = LeaderboardCache.class.getSimpleName();
+
+    // same as the LIMIT of ScoreDao.selectAllScores()
+    public static final int SIZE = 5;
+
+    // slowest time first, so the head is the score which drops out
+    private static final Comparator<Score> SLOWEST_FIRST = (a, b) -> Double.compare(b.time, a.time);
+    private static final Comparator<Score> FASTEST_FIRST = (a, b) -> Double.compare(a.time, b.time);
+
+    /**
+     * listener for changes of the top scores, called on the main thread
+     */
+    public interface Listener {
+        void onLeaderboardChanged(int level, List<Score> scores);
+    }
+
+    private static volatile LeaderboardCache INSTANCE;
+
+    private final ScoreDao scoreDao;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // guarded by this, a level is only in the map after it was loaded
+    private final HashMap<Integer, PriorityQueue<Score>> boards = new HashMap<>();
+    private final HashMap<Integer, Boolean> loading = new HashMap<>();
+
+    private LeaderboardCache(ScoreDao scoreDao) {
+        this.scoreDao = scoreDao;
+    }
+
+    public static LeaderboardCache getInstance(Context context) {
+        LeaderboardCache cache = INSTANCE;
+        if (cache == null) {
+            synchronized (LeaderboardCache.class) {
+                cache = INSTANCE;
+                if (cache == null) {
+                    cache = new LeaderboardCache(ScoreRoomDatabase.getInstance(context).scoreDao());
+                    INSTANCE = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * register a listener and send it the top scores of the levels
+     * levels which are already loaded are delivered immediately, the others after loading
+     * @param listener the listener
+     * @param levels the levels the listener is interested in
+     */
+    public void addListener(Listener listener, int... levels) {
+        listeners.add(listener);
+        for (int level : levels) {
+            List<Score> scores = getTop(level);
+            if (scores != null) {
+                listener.onLeaderboardChanged(level, scores);
+            } else {
+                load(level);
+            }
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * get the top scores of a level, fastest first
+     * @param level the level
+     * @return a copy of the top scores or null if the level is not loaded yet
+     */
+    public synchronized List<Score> getTop(int level) {
+        PriorityQueue<Score> board = boards.get(level);
+        if (board == null) return null;
+        ArrayList<Score> scores = new ArrayList<>(board);
+        Collections.sort(scores, FASTEST_FIRST);
+        return scores;
+    }
+
+    /**
+     * load the levels in the background, e.g. at startup
+     * @param levels the levels to load
+     */
+    public void preload(int... levels) {
+        for (int level : levels) {
+            load(level);
+        }
+    }
+
+    /**
+     * load the top scores of a level from the database, only once per level
+     * runs on the same executor as the score writes, so no insert is missed or counted twice
+     */
+    private void load(int level) {
+        synchronized (this) {
+            if (boards.containsKey(level) || loading.containsKey(level)) return;
+            loading.put(level, Boolean.TRUE);
+        }
+        // someone is waiting for the scores, so they are loaded before other database work
+        Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, null, () -> {
+            List<Score> scores = scoreDao.selectAllScores(level);
+            PriorityQueue<Score> board = new PriorityQueue<>(SIZE + 1, SLOWEST_FIRST);
+            board.addAll(scores);
+            synchronized (this) {
+                boards.put(level, board);
+                loading.remove(level);
+            }
+            Log.d(TAG, "load: level " + level + " with " + scores.size() + " scores");
+            notifyListeners(level);
+        });
+    }
+
+    /**
+     * offer new scores to the loaded levels, called after the scores were written
+     * @param scores the written scores
+     */
+    void onInserted(List<Score> scores) {
+        HashMap<Integer, Boolean> changed = new HashMap<>();
+        synchronized (this) {
+            for (Score score : scores) {
+                PriorityQueue<Score> board = boards.get(score.level);
+                // levels which are not loaded get the score from the database later
+                if (board == null) continue;
+
+                if (board.size() < SIZE) {
+                    board.add(score);
+                } else if (score.time < board.peek().time) {
+                    board.poll();
+                    board.add(score);
+                } else {
+                    continue;
+                }
+                changed.put(score.level, Boolean.TRUE);
+            }
+        }
+        for (int level : changed.keySet()) {
+            notifyListeners(level);
+        }
+    }
+
+    private void notifyListeners(int level) {
+        if (listeners.isEmpty()) return;
+        List<Score> scores = getTop(level);
+        mainHandler.post(() -> {
+            for (Listener listener : listeners) {
+                listener.onLeaderboardChanged(level, scores);
+            }
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Stores the input recording of the last finished run of each level in the app files
+ * @author agent
+ */
+public class ReplayStorage {
+
+    private static final String TAG = ReplayStorage.class.getSimpleName();
+    private static final String DIRECTORY = "replays";
+
+    /**
+     * @param context to find the files directory
+     * @param level the level of the recording
+     * @return the file of the last run of the level
+     */
+    public static File getFile(Context context, int level) {
+        return new File(new File(context.getFilesDir(), DIRECTORY), "level" + level + ".rec");
+    }
+
+    /**
+     * @return true if a recording of the level exists
+     */
+    public static boolean exists(Context context, int level) {
+        return getFile(context, level).isFile();
+    }
+
+    /**
+     * save a recording, replaces the last run of the level
+     * written to a temporary file first, so a crash does not leave a broken recording
+     * @param context to find the files directory
+     * @param level the level of the recording
+     * @param data the recorded stream
+     */
+    public static void write(Context context, int level, byte[] data) {
+        File file = getFile(context, level);
+        File tmp = new File(file.getPath() + ".tmp");
+        //noinspection ResultOfMethodCallIgnored
+        file.getParentFile().mkdirs();
+
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        } catch (IOException e) {
+            Log.e(TAG, "write: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "write: could not replace " + file);
+        }
+    }
+
+    /**
+     * load the recording of the last run
+     * @param context to find the files directory
+     * @param level the level of the recording
+     * @return the recorded stream or null if there is none
+     */
+    public static byte[] read(Context context, int level) {
+        File file = getFile(context, level);
+        if (!file.isFile()) return null;
+
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            Log.e(TAG, "read: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package at.ac.tuwien.mmue_ll6.persistence;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
  * Entity object for score
  * @author Michelle Lau
  */
-@Entity(tableName = "score")
+@Entity(tableName = "score", indices = {@Index(value = {"level", "time"})})
 public class Score {
 
     @PrimaryKey(autoGenerate = true)
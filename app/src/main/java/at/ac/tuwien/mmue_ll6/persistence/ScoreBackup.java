@@ -0,0 +1,385 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import at.ac.tuwien.mmue_ll6.game.GhostPlayer;
+
+/**
+ * Export and import of the player data into one binary file
+ * the file is a header followed by records of [type, length, payload], readers skip unknown types,
+ * so newer versions can add data without breaking older imports
+ * scores are streamed in blocks, so only one block is in memory, and every block is imported in one transaction
+ * @author agent
+ */
+public class ScoreBackup {
+
+    private static final String TAG = ScoreBackup.class.getSimpleName();
+
+    // "LLBK"
+    static final int MAGIC = 0x4C4C424B;
+    static final int VERSION = 1;
+
+    static final byte RECORD_END = 0;
+    static final byte RECORD_SCORES = 1;
+    static final byte RECORD_REPLAY = 2;
+    static final byte RECORD_GHOST = 3;
+
+    // scores per record and per import transaction
+    static final int BLOCK_SIZE = 512;
+    private static final int SCORE_BYTES = 4 + 8;
+    private static final int RECORD_HEADER_BYTES = 1 + 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // replays and ghosts are a few kilobytes, anything bigger is a broken file
+    private static final int MAX_FILE_PAYLOAD = 4 * 1024 * 1024;
+
+    private static final Pattern LEVEL_FILE = Pattern.compile("level(\\d+)\\.\\w+");
+
+    /**
+     * receiver of the imported data
+     */
+    interface Sink {
+        void onScores(List<Score> scores);
+        void onReplay(int level, byte[] data);
+        void onGhost(int level, byte[] data);
+    }
+
+    /**
+     * write all scores, replays and ghosts into a file, has to be called off the main thread
+     * @param context to find the database and the files
+     * @param file the backup file, replaced if it exists
+     * @return the number of exported scores
+     */
+    public static int export(Context context, File file) throws IOException {
+        ScoreDao dao = ScoreRoomDatabase.getInstance(context).scoreDao();
+        File tmp = new File(file.getPath() + ".tmp");
+        int count;
+        boolean written = false;
+        try {
+            try (FileChannel channel = new FileOutputStream(tmp).getChannel()) {
+                ByteBuffer buffer = allocate();
+                writeHeader(channel, buffer);
+                count = writeScores(channel, buffer, dao);
+                for (File replay : listLevelFiles(ReplayStorage.getFile(context, 0).getParentFile())) {
+                    writeFile(channel, buffer, RECORD_REPLAY, getLevel(replay), replay);
+                }
+                for (File ghost : listLevelFiles(GhostStorage.getFile(context, 0).getParentFile())) {
+                    writeFile(channel, buffer, RECORD_GHOST, getLevel(ghost), ghost);
+                }
+                writeEnd(channel, buffer);
+            }
+            if (!tmp.renameTo(file)) {
+                throw new IOException("could not replace " + file);
+            }
+            written = true;
+        } finally {
+            // a half written file is not left behind
+            if (!written && tmp.exists() && !tmp.delete()) {
+                Log.w(TAG, "export: could not delete " + tmp);
+            }
+        }
+        Log.d(TAG, "export: " + count + " scores to " + file);
+        return count;
+    }
+
+    /**
+     * add the scores of a backup to the database and restore its replays and ghosts
+     * the scores are added to the existing ones, scores which are already in the database are skipped (see NewScoreFilter),
+     * so importing a backup twice adds nothing; a replay is only taken if there is no local one,
+     * a ghost only if it is faster than the local one
+     * has to be called off the main thread
+     * @param context to find the database and the files
+     * @param file the backup file
+     * @return the number of imported scores
+     */
+    public static int importFrom(Context context, File file) throws IOException {
+        ScoreRoomDatabase db = ScoreRoomDatabase.getInstance(context);
+        LeaderboardCache leaderboardCache = LeaderboardCache.getInstance(context);
+        NewScoreFilter filter = new NewScoreFilter(db.scoreDao());
+        int[] count = new int[1];
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            read(channel, new Sink() {
+                @Override
+                public void onScores(List<Score> scores) {
+                    List<Score> added = filter.filter(scores);
+                    if (added.isEmpty()) return;
+                    db.insertScores(added);
+                    leaderboardCache.onInserted(added);
+                    count[0] += added.size();
+                }
+
+                @Override
+                public void onReplay(int level, byte[] data) {
+                    // the local replay is the last run on this device
+                    if (!ReplayStorage.exists(context, level)) {
+                        ReplayStorage.write(context, level, data);
+                    }
+                }
+
+                @Override
+                public void onGhost(int level, byte[] data) {
+                    int ticks = GhostPlayer.readTicks(new ByteArrayInputStream(data));
+                    if (ticks < GhostPlayer.readTicks(GhostStorage.open(context, level))) {
+                        GhostStorage.write(context, level, data);
+                    }
+                }
+            });
+        }
+        Log.d(TAG, "import: " + count[0] + " scores from " + file);
+        return count[0];
+    }
+
+    /**
+     * drops the scores of a backup which are already in the database
+     * a score has no id of its run, so scores are compared by level and time: of the scores with the same level and time,
+     * only as many are added as the backup has more than the database had before the import;
+     * backups are written sorted by level and time, so only the counts of the current level and time are kept
+     */
+    static class NewScoreFilter {
+        private final ScoreDao dao;
+        private int level;
+        private double time = Double.NaN;
+        private int seen;
+        private int existing;
+
+        NewScoreFilter(ScoreDao dao) {
+            this.dao = dao;
+        }
+
+        /**
+         * @param scores the next block of the backup
+         * @return the scores which are not in the database yet
+         */
+        List<Score> filter(List<Score> scores) {
+            ArrayList<Score> added = new ArrayList<>();
+            for (Score score : scores) {
+                if (score.level != level || score.time != time) {
+                    level = score.level;
+                    time = score.time;
+                    seen = 0;
+                    existing = dao.countScores(level, time);
+                }
+                if (++seen > existing) {
+                    added.add(score);
+                }
+            }
+            return added;
+        }
+    }
+
+    private static ByteBuffer allocate() {
+        return ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    static void writeHeader(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        ensure(channel, buffer, 5);
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+    }
+
+    /**
+     * write the scores of all levels, one page of the index at a time
+     * @return the number of written scores
+     */
+    static int writeScores(WritableByteChannel channel, ByteBuffer buffer, ScoreDao dao) throws IOException {
+        int count = 0;
+        for (int level : dao.selectLevels()) {
+            List<Score> page = dao.selectFirstPage(level, BLOCK_SIZE);
+            while (!page.isEmpty()) {
+                ensure(channel, buffer, RECORD_HEADER_BYTES + 4 + page.size() * SCORE_BYTES);
+                buffer.put(RECORD_SCORES);
+                buffer.putInt(4 + page.size() * SCORE_BYTES);
+                buffer.putInt(page.size());
+                for (Score score : page) {
+                    buffer.putInt(score.level);
+                    buffer.putDouble(score.time);
+                }
+                count += page.size();
+
+                if (page.size() < BLOCK_SIZE) break;
+                Score last = page.get(page.size() - 1);
+                page = dao.selectPageAfter(level, last.time, last.id, BLOCK_SIZE);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * write a file as record, the content is copied by the channels without going through the buffer
+     */
+    static void writeFile(FileChannel channel, ByteBuffer buffer, byte type, int level, File file) throws IOException {
+        try (FileChannel in = new FileInputStream(file).getChannel()) {
+            long size = in.size();
+            ensure(channel, buffer, RECORD_HEADER_BYTES + 4);
+            buffer.put(type);
+            buffer.putInt((int) (4 + size));
+            buffer.putInt(level);
+            drain(channel, buffer);
+
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, channel);
+            }
+        }
+    }
+
+    static void writeEnd(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        ensure(channel, buffer, RECORD_HEADER_BYTES);
+        buffer.put(RECORD_END);
+        buffer.putInt(0);
+        drain(channel, buffer);
+    }
+
+    /**
+     * make room for the next bytes, the buffer is written out if it is too full
+     */
+    private static void ensure(WritableByteChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * read a backup and pass its records to the sink
+     * @param channel the backup
+     * @param sink receives the scores block by block
+     */
+    static void read(ReadableByteChannel channel, Sink sink) throws IOException {
+        ByteBuffer buffer = allocate();
+        buffer.limit(0);
+
+        fill(channel, buffer, 5);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("not a backup file");
+        }
+        int version = buffer.get() & 0xFF;
+        if (version > VERSION) {
+            throw new IOException("unsupported backup version: " + version);
+        }
+
+        while (true) {
+            fill(channel, buffer, RECORD_HEADER_BYTES);
+            byte type = buffer.get();
+            int length = buffer.getInt();
+            if (length < 0) {
+                throw new IOException("broken record length: " + length);
+            }
+
+            switch (type) {
+                case RECORD_END:
+                    return;
+                case RECORD_SCORES:
+                    fill(channel, buffer, length);
+                    int count = buffer.getInt();
+                    if (count * SCORE_BYTES != length - 4) {
+                        throw new IOException("broken score record");
+                    }
+                    ArrayList<Score> scores = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        int level = buffer.getInt();
+                        scores.add(new Score(buffer.getDouble(), level));
+                    }
+                    sink.onScores(scores);
+                    break;
+                case RECORD_REPLAY:
+                case RECORD_GHOST:
+                    if (length < 4 || length > MAX_FILE_PAYLOAD) {
+                        throw new IOException("broken file record length: " + length);
+                    }
+                    fill(channel, buffer, 4);
+                    int level = buffer.getInt();
+                    byte[] data = new byte[length - 4];
+                    readFully(channel, buffer, data);
+                    if (type == RECORD_REPLAY) {
+                        sink.onReplay(level, data);
+                    } else {
+                        sink.onGhost(level, data);
+                    }
+                    break;
+                default:
+                    // written by a newer version
+                    skip(channel, buffer, length);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * make sure the next bytes are in the buffer, the buffer stays in read mode
+     */
+    private static void fill(ReadableByteChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+        if (bytes > buffer.capacity()) {
+            throw new IOException("record too big: " + bytes);
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("backup ends in the middle of a record");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer, byte[] data) throws IOException {
+        int offset = 0;
+        while (offset < data.length) {
+            fill(channel, buffer, 1);
+            int n = Math.min(buffer.remaining(), data.length - offset);
+            buffer.get(data, offset, n);
+            offset += n;
+        }
+    }
+
+    private static void skip(ReadableByteChannel channel, ByteBuffer buffer, int length) throws IOException {
+        int left = length;
+        while (left > 0) {
+            fill(channel, buffer, 1);
+            int n = Math.min(buffer.remaining(), left);
+            buffer.position(buffer.position() + n);
+            left -= n;
+        }
+    }
+
+    private static List<File> listLevelFiles(File directory) {
+        ArrayList<File> files = new ArrayList<>();
+        File[] list = directory.listFiles();
+        if (list == null) return files;
+        for (File file : list) {
+            if (file.isFile() && LEVEL_FILE.matcher(file.getName()).matches()) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static int getLevel(File file) {
+        Matcher matcher = LEVEL_FILE.matcher(file.getName());
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+}
@@ -14,9 +14,33 @@ public interface ScoreDao {
     @Insert
     void insert(Score score);
 
+    // Room runs the whole list in one transaction
+    @Insert
+    void insertAll(List<Score> scores);
+
     @Query("SELECT * FROM score WHERE level = :level ORDER BY time ASC LIMIT 5")
     List<Score> selectAllScores(int level);
 
+    // keyset pagination over (level, time, id), the index on (level, time) also orders by the row id
+    @Query("SELECT * FROM score WHERE level = :level ORDER BY time ASC, id ASC LIMIT :pageSize")
+    List<Score> selectFirstPage(int level, int pageSize);
+
+    @Query("SELECT * FROM score WHERE level = :level AND time >= :afterTime AND (time > :afterTime OR id > :afterId) "
+            + "ORDER BY time ASC, id ASC LIMIT :pageSize")
+    List<Score> selectPageAfter(int level, double afterTime, int afterId, int pageSize);
+
+    // seek into the list without the key of the page before, from a bucket boundary of the histogram
+    // the offset is at most the number of scores in the bucket, which are stepped through in the index
+    @Query("SELECT * FROM score WHERE level = :level AND time >= :fromTime ORDER BY time ASC, id ASC LIMIT :pageSize OFFSET :offset")
+    List<Score> selectPageFrom(int level, double fromTime, int offset, int pageSize);
+
+    // uses the index on (level, time)
+    @Query("SELECT COUNT(*) FROM score WHERE level = :level AND time = :time")
+    int countScores(int level, double time);
+
+    @Query("SELECT DISTINCT level FROM score ORDER BY level ASC")
+    List<Integer> selectLevels();
+
     @Query("DELETE FROM score")
     void deleteAllScores();
 }
@@ -0,0 +1,21 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import androidx.room.Entity;
+
+/**
+ * Entity object for the number of scores of a level within one time bucket
+ * @author agent
+ */
+@Entity(tableName = "score_histogram", primaryKeys = {"level", "bucket"})
+public class ScoreHistogramBucket {
+
+    public int level;
+    public int bucket;
+    public int bucketCount;
+
+    public ScoreHistogramBucket(int level, int bucket, int bucketCount) {
+        this.level = level;
+        this.bucket = bucket;
+        this.bucketCount = bucketCount;
+    }
+}
@@ -0,0 +1,132 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pages through all scores of a level, fastest first
+ * pages are read with keyset pagination (after the last time and id of the previous page),
+ * so reading a page costs the same everywhere in the list; only a few pages are kept in memory
+ * a page far after the last known key is found through the histogram of the statistics instead of reading the pages in between
+ * @author agent
+ */
+public class ScorePager {
+
+    public static final int PAGE_SIZE = 50;
+    private static final int CACHED_PAGES = 6;
+    // pages up to this distance after a known key are read one after another, further pages are seeked
+    static final int MAX_READ_AHEAD = 8;
+
+    private final ScoreDao scoreDao;
+    private final ScoreStatsDao statsDao;
+    private final int level;
+
+    // guarded by this, last score of every page read so far, page p starts after the key of page p - 1
+    private final TreeMap<Integer, Score> lastKeys = new TreeMap<>();
+
+    // guarded by this, least recently used page first
+    private final LinkedHashMap<Integer, List<Score>> pages = new LinkedHashMap<Integer, List<Score>>(CACHED_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Score>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    /**
+     * constructor for a pager which reads every page before the requested one
+     * @param scoreDao the dao to read the pages
+     * @param level the level of the scores
+     */
+    public ScorePager(ScoreDao scoreDao, int level) {
+        this(scoreDao, null, level);
+    }
+
+    /**
+     * constructor for the pager
+     * @param scoreDao the dao to read the pages
+     * @param statsDao the dao of the histogram to seek far pages, can be null
+     * @param level the level of the scores
+     */
+    public ScorePager(ScoreDao scoreDao, ScoreStatsDao statsDao, int level) {
+        this.scoreDao = scoreDao;
+        this.statsDao = statsDao;
+        this.level = level;
+    }
+
+    /**
+     * get a page if it is in memory
+     * @param page the index of the page
+     * @return the scores of the page or null if it has to be loaded
+     */
+    public synchronized List<Score> getPage(int page) {
+        return pages.get(page);
+    }
+
+    /**
+     * read a page from the database, has to be called off the main thread, by one thread at a time
+     * the pages between the last known key before it and the page are read one after another, only their keys are kept,
+     * unless they are more than MAX_READ_AHEAD pages and the page can be seeked
+     * @param page the index of the page
+     * @return the scores of the page
+     */
+    public List<Score> loadPage(int page) {
+        List<Score> scores = getPage(page);
+        if (scores != null) return scores;
+
+        int p;
+        Score after;
+        synchronized (this) {
+            Map.Entry<Integer, Score> known = lastKeys.floorEntry(page - 1);
+            p = known != null ? known.getKey() + 1 : 0;
+            after = known != null ? known.getValue() : null;
+        }
+
+        if (statsDao != null && page - p > MAX_READ_AHEAD) {
+            scores = seekPage(page);
+            if (!scores.isEmpty()) rememberKey(page, scores.get(scores.size() - 1));
+        } else {
+            for (; p <= page; p++) {
+                scores = after == null
+                        ? scoreDao.selectFirstPage(level, PAGE_SIZE)
+                        : scoreDao.selectPageAfter(level, after.time, after.id, PAGE_SIZE);
+                if (scores.isEmpty()) break;
+                after = scores.get(scores.size() - 1);
+                rememberKey(p, after);
+            }
+        }
+
+        synchronized (this) {
+            pages.put(page, scores);
+        }
+        return scores;
+    }
+
+    /**
+     * read a page from the start of the histogram bucket of its first score
+     * the histogram is updated in the same transaction as the score table, so it counts the same scores
+     */
+    private List<Score> seekPage(int page) {
+        int rank = page * PAGE_SIZE;
+        // the last bucket with at most rank faster scores, the counts grow with the bucket
+        int bucket = 0;
+        int below = 0;
+        int high = ScoreStatistics.MAX_BUCKET;
+        while (bucket < high) {
+            int mid = (bucket + high + 1) >>> 1;
+            int count = statsDao.countBelowBucket(level, mid);
+            if (count <= rank) {
+                bucket = mid;
+                below = count;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return scoreDao.selectPageFrom(level, bucket * ScoreStatistics.BUCKET_SECONDS, rank - below, PAGE_SIZE);
+    }
+
+    private synchronized void rememberKey(int page, Score last) {
+        lastKeys.put(page, last);
+    }
+}
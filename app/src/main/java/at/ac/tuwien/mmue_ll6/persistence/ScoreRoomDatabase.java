@@ -1,29 +1,101 @@
 package at.ac.tuwien.mmue_ll6.persistence;
 
 import android.content.Context;
+import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
-import java.util.HashMap;
+import java.util.List;
+
+import at.ac.tuwien.mmue_ll6.util.Tracing;
 
 /**
  * Database for scores
+ * one instance for the whole app, bound to the application context so no activity is leaked
  * @author Michelle Lau
  */
-@Database(entities = {Score.class}, version = 1)
+@Database(entities = {Score.class, ScoreStats.class, ScoreHistogramBucket.class}, version = 3)
 public abstract class ScoreRoomDatabase extends RoomDatabase {
     public abstract ScoreDao scoreDao();
+    public abstract ScoreStatsDao scoreStatsDao();
+
+    private static final String TAG = ScoreRoomDatabase.class.getSimpleName();
+
+    private static volatile ScoreRoomDatabase INSTANCE;
 
-    private static final HashMap<Context, ScoreRoomDatabase> INSTANCES = new HashMap<>();
+    // version 2: index for the leaderboard queries (WHERE level = ? ORDER BY time)
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_score_level_time` ON `score` (`level`, `time`)");
+        }
+    };
+
+    // version 3: aggregated statistics, filled from the existing scores
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `score_stats` (`level` INTEGER NOT NULL, `scoreCount` INTEGER NOT NULL, "
+                    + "`attempts` INTEGER NOT NULL, `minTime` REAL NOT NULL, `sumTime` REAL NOT NULL, `emaTime` REAL NOT NULL, "
+                    + "`lastTime` REAL NOT NULL, PRIMARY KEY(`level`))");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `score_histogram` (`level` INTEGER NOT NULL, `bucket` INTEGER NOT NULL, "
+                    + "`bucketCount` INTEGER NOT NULL, PRIMARY KEY(`level`, `bucket`))");
+            // the order of the old scores is unknown, so the average is used as starting point of the trend
+            db.execSQL("INSERT INTO score_stats (level, scoreCount, attempts, minTime, sumTime, emaTime, lastTime) "
+                    + "SELECT level, COUNT(*), COUNT(*), MIN(time), SUM(time), AVG(time), AVG(time) FROM score GROUP BY level");
+            db.execSQL("INSERT INTO score_histogram (level, bucket, bucketCount) "
+                    + "SELECT level, MIN(CAST(time / " + ScoreStatistics.BUCKET_SECONDS + " AS INTEGER), " + ScoreStatistics.MAX_BUCKET + ") AS b, COUNT(*) "
+                    + "FROM score GROUP BY level, b");
+        }
+    };
 
     public static ScoreRoomDatabase getInstance(Context context) {
-        ScoreRoomDatabase db = INSTANCES.get(context);
+        ScoreRoomDatabase db = INSTANCE;
         if (db == null) {
-            db = Room.databaseBuilder(context, ScoreRoomDatabase.class, "score_db").build();
-            INSTANCES.put(context, db);
+            synchronized (ScoreRoomDatabase.class) {
+                db = INSTANCE;
+                if (db == null) {
+                    // write-ahead logging lets the high score screen read while a score is written
+                    db = Room.databaseBuilder(context.getApplicationContext(), ScoreRoomDatabase.class, "score_db")
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3)
+                            .build();
+                    INSTANCE = db;
+                }
+            }
         }
         return db;
     }
-}
\ No newline at end of file
+
+    /**
+     * insert scores and update the statistics in one transaction
+     * @param scores the new scores
+     */
+    public void insertScores(List<Score> scores) {
+        Tracing.begin("ScoreRoomDatabase.insertScores");
+        try {
+            runInTransaction(() -> {
+                scoreDao().insertAll(scores);
+                ScoreStatistics.addScores(scoreStatsDao(), scores);
+            });
+        } finally {
+            Tracing.end();
+        }
+    }
+
+    /**
+     * open the database, so the first save or query does not pay for opening and migrating it
+     * has to be called off the main thread
+     * @param context any context, the application context is used
+     */
+    public static void warmUp(Context context) {
+        long start = System.nanoTime();
+        SupportSQLiteDatabase db = getInstance(context).getOpenHelper().getWritableDatabase();
+        Log.d(TAG, "warmUp: opened in " + (System.nanoTime() - start) / 1_000_000 + " ms, wal: " + db.isWriteAheadLoggingEnabled());
+    }
+}
@@ -0,0 +1,128 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import android.content.Context;
+
+import java.util.List;
+
+import at.ac.tuwien.mmue_ll6.util.Concurrency;
+import at.ac.tuwien.mmue_ll6.util.Tracing;
+
+/**
+ * Statistics of the scores of a level: attempts, personal best, average, trend and percentile
+ * the aggregates are updated together with every insert, so reading them never scans the score table
+ * @author agent
+ */
+public class ScoreStatistics {
+
+    // histogram of the times, one bucket per second, everything slower lands in the last bucket
+    static final double BUCKET_SECONDS = 1.0;
+    static final int MAX_BUCKET = 600;
+
+    // weight of a new time in the moving average
+    static final double TREND_WEIGHT = 0.3;
+
+    public final int level;
+    public final int scoreCount;
+    public final int attempts;
+    public final double bestTime;
+    public final double averageTime;
+    // negative if the recent runs are faster than the average
+    public final double trend;
+    public final double lastTime;
+    // percentage of the saved runs which were slower than the last run
+    public final double lastPercentile;
+
+    private ScoreStatistics(int level, ScoreStats stats, double lastPercentile) {
+        this.level = level;
+        this.scoreCount = stats.scoreCount;
+        this.attempts = stats.attempts;
+        this.bestTime = stats.minTime;
+        this.averageTime = stats.scoreCount > 0 ? stats.sumTime / stats.scoreCount : 0;
+        this.trend = stats.scoreCount > 1 ? stats.emaTime - averageTime : 0;
+        this.lastTime = stats.lastTime;
+        this.lastPercentile = lastPercentile;
+    }
+
+    /**
+     * @param time the time of a run
+     * @return the histogram bucket of the time
+     */
+    static int getBucket(double time) {
+        return Math.min((int) (time / BUCKET_SECONDS), MAX_BUCKET);
+    }
+
+    /**
+     * update the aggregates for new scores, called in the transaction which inserts the scores
+     * @param dao the statistics dao
+     * @param scores the inserted scores
+     */
+    static void addScores(ScoreStatsDao dao, List<Score> scores) {
+        for (Score score : scores) {
+            int bucket = getBucket(score.time);
+            dao.insertStatsIfMissing(score.level);
+            dao.addScore(score.level, score.time, TREND_WEIGHT);
+            dao.insertBucketIfMissing(score.level, bucket);
+            dao.addToBucket(score.level, bucket);
+        }
+    }
+
+    /**
+     * count a finished run (won or lost) in the background
+     * with the same priority as the other writes at the end of a run, so they stay in order
+     * @param context to find the database
+     * @param level the played level
+     */
+    public static void recordAttempt(Context context, int level) {
+        ScoreRoomDatabase db = ScoreRoomDatabase.getInstance(context);
+        Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, null, () -> {
+            Tracing.begin("ScoreStatistics.recordAttempt");
+            try {
+                db.runInTransaction(() -> {
+                    db.scoreStatsDao().insertStatsIfMissing(level);
+                    db.scoreStatsDao().addAttempt(level);
+                });
+            } finally {
+                Tracing.end();
+            }
+        });
+    }
+
+    /**
+     * load the statistics of a level, has to be called off the main thread
+     * @param context to find the database
+     * @param level the level
+     * @return the statistics, with zero counts if the level was never played
+     */
+    public static ScoreStatistics load(Context context, int level) {
+        ScoreStatsDao dao = ScoreRoomDatabase.getInstance(context).scoreStatsDao();
+        ScoreStats stats = dao.selectStats(level);
+        if (stats == null) {
+            stats = new ScoreStats(level);
+        }
+        double percentile = stats.scoreCount > 0 ? getPercentile(dao, level, stats.lastTime, stats.scoreCount) : 0;
+        return new ScoreStatistics(level, stats, percentile);
+    }
+
+    /**
+     * percentage of the saved runs of a level which were slower than a time
+     * the runs within the bucket of the time are assumed to be spread evenly
+     * @param dao the statistics dao
+     * @param level the level
+     * @param time the time which is ranked
+     * @param scoreCount the number of saved runs of the level
+     * @return the percentile between 0 and 100
+     */
+    static double getPercentile(ScoreStatsDao dao, int level, double time, int scoreCount) {
+        int bucket = getBucket(time);
+        double faster = dao.countBelowBucket(level, bucket);
+        if (bucket < MAX_BUCKET) {
+            double fraction = (time - bucket * BUCKET_SECONDS) / BUCKET_SECONDS;
+            faster += dao.countInBucket(level, bucket) * fraction;
+        }
+        // the run itself is neither faster nor slower
+        double others = scoreCount - 1;
+        if (others <= 0) return 100;
+        double slower = Math.max(0, others - faster);
+        return 100 * slower / others;
+    }
+}
@@ -0,0 +1,25 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Entity object for the aggregated scores of a level, updated with every saved score
+ * @author agent
+ */
+@Entity(tableName = "score_stats")
+public class ScoreStats {
+
+    @PrimaryKey
+    public int level;
+    public int scoreCount;   // won runs
+    public int attempts;     // won and lost runs
+    public double minTime;
+    public double sumTime;
+    public double emaTime;   // moving average of the recent times, for the trend
+    public double lastTime;
+
+    public ScoreStats(int level) {
+        this.level = level;
+    }
+}
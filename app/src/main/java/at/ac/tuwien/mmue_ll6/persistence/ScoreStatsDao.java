@@ -0,0 +1,42 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+/**
+ * Dao object for the aggregated scores
+ * every query reads one row or the buckets of one level, independent of the number of scores
+ * @author agent
+ */
+@Dao
+public interface ScoreStatsDao {
+
+    @Query("INSERT OR IGNORE INTO score_stats (level, scoreCount, attempts, minTime, sumTime, emaTime, lastTime) VALUES (:level, 0, 0, 0, 0, 0, 0)")
+    void insertStatsIfMissing(int level);
+
+    // the right side of an UPDATE sees the old values, so the first score sets min and average directly
+    @Query("UPDATE score_stats SET scoreCount = scoreCount + 1, sumTime = sumTime + :time, lastTime = :time, "
+            + "minTime = CASE WHEN scoreCount = 0 THEN :time ELSE MIN(minTime, :time) END, "
+            + "emaTime = CASE WHEN scoreCount = 0 THEN :time ELSE emaTime + :weight * (:time - emaTime) END "
+            + "WHERE level = :level")
+    void addScore(int level, double time, double weight);
+
+    @Query("UPDATE score_stats SET attempts = attempts + 1 WHERE level = :level")
+    void addAttempt(int level);
+
+    @Query("INSERT OR IGNORE INTO score_histogram (level, bucket, bucketCount) VALUES (:level, :bucket, 0)")
+    void insertBucketIfMissing(int level, int bucket);
+
+    @Query("UPDATE score_histogram SET bucketCount = bucketCount + 1 WHERE level = :level AND bucket = :bucket")
+    void addToBucket(int level, int bucket);
+
+    @Query("SELECT * FROM score_stats WHERE level = :level")
+    ScoreStats selectStats(int level);
+
+    // at most ScoreStatistics.MAX_BUCKET rows, found through the primary key
+    @Query("SELECT COALESCE(SUM(bucketCount), 0) FROM score_histogram WHERE level = :level AND bucket < :bucket")
+    int countBelowBucket(int level, int bucket);
+
+    @Query("SELECT COALESCE(SUM(bucketCount), 0) FROM score_histogram WHERE level = :level AND bucket = :bucket")
+    int countInBucket(int level, int bucket);
+}
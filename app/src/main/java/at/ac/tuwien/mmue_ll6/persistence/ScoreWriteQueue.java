@@ -0,0 +1,153 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import at.ac.tuwien.mmue_ll6.util.Concurrency;
+
+/**
+ * Write-behind queue for scores
+ * scores are collected per run, so a run is only saved once, and written together with the statistics
+ * in one transaction on the background executor; all scores which arrive until the write starts are batched
+ * @author agent
+ */
+public class ScoreWriteQueue {
+
+    private static final String TAG = ScoreWriteQueue.class.getSimpleName();
+
+    // runs which were already saved, to drop late duplicates
+    private static final int REMEMBERED_RUNS = 32;
+    // how long a flush requested by flushSoon() may take until it is requested again, and how often
+    private static final long FLUSH_TIMEOUT_MILLIS = 500;
+    private static final int FLUSH_RETRIES = 5;
+
+    private static volatile ScoreWriteQueue INSTANCE;
+
+    private final ScoreRoomDatabase db;
+    private final LeaderboardCache leaderboardCache;
+
+    // guarded by this
+    private final LinkedHashMap<Long, Score> pending = new LinkedHashMap<>();
+    private final LinkedHashMap<Long, Boolean> savedRuns = new LinkedHashMap<Long, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > REMEMBERED_RUNS;
+        }
+    };
+    private boolean flushScheduled;
+
+    // checks on the main thread whether a requested flush was written in time
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ScoreWriteQueue(ScoreRoomDatabase db, LeaderboardCache leaderboardCache) {
+        this.db = db;
+        this.leaderboardCache = leaderboardCache;
+    }
+
+    public static ScoreWriteQueue getInstance(Context context) {
+        ScoreWriteQueue queue = INSTANCE;
+        if (queue == null) {
+            synchronized (ScoreWriteQueue.class) {
+                queue = INSTANCE;
+                if (queue == null) {
+                    queue = new ScoreWriteQueue(ScoreRoomDatabase.getInstance(context),
+                            LeaderboardCache.getInstance(context));
+                    INSTANCE = queue;
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * add the score of a run, a second score of the same run is ignored
+     * @param runId id of the run, unique while the app is running
+     * @param score the score of the run
+     */
+    public synchronized void submit(long runId, Score score) {
+        if (savedRuns.containsKey(runId) || pending.containsKey(runId)) {
+            Log.d(TAG, "submit: run " + runId + " already saved");
+            return;
+        }
+        pending.put(runId, score);
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            // the score of a run is submitted by the check of the run on the IO lane with high priority
+            Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, null, this::flush);
+        }
+    }
+
+    /**
+     * @return number of scores which are not written yet
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * write all pending scores in one transaction, runs on the background executor
+     */
+    private void flush() {
+        ArrayList<Score> batch;
+        ArrayList<Long> runs;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) return;
+            batch = new ArrayList<>(pending.values());
+            runs = new ArrayList<>(pending.keySet());
+            pending.clear();
+        }
+
+        try {
+            // scores and statistics are committed together
+            db.insertScores(batch);
+            synchronized (this) {
+                for (Long run : runs) {
+                    savedRuns.put(run, Boolean.TRUE);
+                }
+            }
+            Log.d(TAG, "flush: saved " + batch.size() + " scores");
+            leaderboardCache.onInserted(batch);
+        } catch (RuntimeException e) {
+            // keep the scores for the next flush
+            Log.e(TAG, "flush: " + e.getMessage());
+            synchronized (this) {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!pending.containsKey(runs.get(i))) pending.put(runs.get(i), batch.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * write the pending scores without waiting for them, called when the game is paused or left
+     * the flush runs after the IO tasks of the same priority which are already waiting, e.g. the check of a won run,
+     * scores which are still pending after FLUSH_TIMEOUT_MILLIS (a failed write, a late score) are flushed again
+     */
+    public void flushSoon() {
+        flushSoon(FLUSH_RETRIES);
+    }
+
+    private void flushSoon(int retries) {
+        synchronized (this) {
+            if (pending.isEmpty() && !flushScheduled) return;
+        }
+        Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_HIGH, null, this::flush);
+        if (retries > 0) {
+            mainHandler.postDelayed(() -> {
+                int count = getPendingCount();
+                if (count > 0) {
+                    Log.w(TAG, "flushSoon: " + count + " scores not written yet, flushing again");
+                    flushSoon(retries - 1);
+                }
+            }, FLUSH_TIMEOUT_MILLIS);
+        }
+    }
+}
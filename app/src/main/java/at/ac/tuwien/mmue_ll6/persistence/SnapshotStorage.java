@@ -0,0 +1,92 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Stores the state of an unfinished run of each level, so the run can be continued after the process was killed
+ * the state is deleted when the run is won, lost or left with back
+ * @author agent
+ */
+public class SnapshotStorage {
+
+    private static final String TAG = SnapshotStorage.class.getSimpleName();
+    private static final String DIRECTORY = "snapshots";
+
+    /**
+     * @param context to find the files directory
+     * @param level the level of the run
+     * @return the file of the unfinished run of the level
+     */
+    public static File getFile(Context context, int level) {
+        return new File(new File(context.getFilesDir(), DIRECTORY), "level" + level + ".state");
+    }
+
+    /**
+     * save the state of a run, replaces the last saved state of the level
+     * written to a temporary file first, so a crash does not leave a broken snapshot
+     * @param context to find the files directory
+     * @param level the level of the run
+     * @param data the snapshot
+     */
+    public static void write(Context context, int level, byte[] data) {
+        File file = getFile(context, level);
+        File tmp = new File(file.getPath() + ".tmp");
+        //noinspection ResultOfMethodCallIgnored
+        file.getParentFile().mkdirs();
+
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        } catch (IOException e) {
+            Log.e(TAG, "write: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "write: could not replace " + file);
+        }
+    }
+
+    /**
+     * load the state of the unfinished run
+     * @param context to find the files directory
+     * @param level the level of the run
+     * @return the snapshot or null if there is none
+     */
+    public static byte[] read(Context context, int level) {
+        File file = getFile(context, level);
+        if (!file.isFile()) return null;
+
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            Log.e(TAG, "read: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * forget the unfinished run, e.g. when it was finished
+     * @param context to find the files directory
+     * @param level the level of the run
+     */
+    public static void delete(Context context, int level) {
+        File file = getFile(context, level);
+        if (file.isFile() && !file.delete()) {
+            Log.e(TAG, "delete: could not delete " + file);
+        }
+    }
+}
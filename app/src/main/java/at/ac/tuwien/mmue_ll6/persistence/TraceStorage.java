@@ -0,0 +1,63 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import android.content.Context;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import at.ac.tuwien.mmue_ll6.util.TraceRecorder;
+
+/**
+ * Stores the recorded trace sections as Chrome Trace Event JSON in the external files directory of the app,
+ * get it with adb pull /sdcard/Android/data/(application id)/files/traces/game.json and open it in Perfetto
+ * @author agent
+ */
+public class TraceStorage {
+
+    private static final String TAG = TraceStorage.class.getSimpleName();
+    private static final String DIRECTORY = "traces";
+    private static final String FILE_NAME = "game.json";
+
+    /**
+     * @param context to find the files directory
+     * @return the file of the last written trace
+     */
+    public static File getFile(Context context) {
+        File directory = context.getExternalFilesDir(DIRECTORY);
+        if (directory == null) {
+            // no external storage, only readable with adb on debug builds
+            directory = new File(context.getFilesDir(), DIRECTORY);
+        }
+        return new File(directory, FILE_NAME);
+    }
+
+    /**
+     * write a trace, replaces the last written one
+     * @param context to find the files directory
+     * @param recorder a copy of the recorder, which is not recorded into anymore
+     */
+    public static void write(Context context, TraceRecorder recorder) {
+        File file = getFile(context);
+        File tmp = new File(file.getPath() + ".tmp");
+        //noinspection ResultOfMethodCallIgnored
+        file.getParentFile().mkdirs();
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8"))) {
+            recorder.writeJson(out, Process.myPid());
+        } catch (IOException e) {
+            Log.e(TAG, "write: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "write: could not replace " + file);
+            return;
+        }
+        Log.d(TAG, "write: " + recorder.size() + " events to " + file);
+    }
+}
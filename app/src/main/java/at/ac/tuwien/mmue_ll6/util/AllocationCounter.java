@@ -0,0 +1,50 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+/**
+ * Counts the bytes the calling thread allocates between begin() and end(),
+ * used to keep the hot paths of the game loop free of allocations (and so of GC pauses)
+ * the device uses the allocation counters of the runtime, unit tests use the counters of the JVM
+ * @author agent
+ */
+public interface AllocationCounter {
+
+    // counts nothing, e.g. in release builds
+    AllocationCounter NONE = new AllocationCounter() {
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public long end() {
+            return 0;
+        }
+    };
+
+    /**
+     * enable counting, while it is enabled every allocation of the app may be slower
+     */
+    void start();
+
+    /**
+     * disable counting
+     */
+    void stop();
+
+    /**
+     * start a measurement on the calling thread
+     */
+    void begin();
+
+    /**
+     * @return bytes allocated by the calling thread since its last begin()
+     */
+    long end();
+}
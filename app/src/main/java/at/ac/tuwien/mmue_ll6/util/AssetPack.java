@@ -0,0 +1,184 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * Read-only archive of the images, sprite sheets and levels of the game in one file, read through a memory mapping
+ * the pack is written at build time by the asset pipeline in buildSrc, which shares this class with the app
+ * the index is read once into a hash map, an entry is returned as a view of the mapped file without copying it
+ * layout, all numbers big endian:
+ * header: int magic, int format version, long content version, int entry count
+ * index: for each entry a short name length, the utf-8 name, a byte type, an int offset and an int length
+ * data: the entries, each starts at a multiple of ALIGNMENT from the start of the pack
+ * @author agent
+ */
+public class AssetPack {
+
+    // "LL6P"
+    public static final int MAGIC = 0x4C4C3650;
+    public static final int VERSION = 1;
+    public static final int ALIGNMENT = 4;
+
+    public static final byte TYPE_DATA = 0;
+    public static final byte TYPE_IMAGE = 1;
+    public static final byte TYPE_LEVEL = 2;
+    public static final byte TYPE_SPRITE = 3;
+
+    // density buckets the images are scaled to at build time, in dpi, ascending
+    public static final int[] DENSITIES = {160, 240, 320, 480, 640};
+
+    private static final String IMAGE_PREFIX = "image/";
+    private static final String LEVEL_PREFIX = "level/";
+    private static final String SPRITE_PREFIX = "sprite/";
+
+    private static class Entry {
+        final byte type;
+        final int offset;
+        final int length;
+
+        Entry(byte type, int offset, int length) {
+            this.type = type;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final long contentVersion;
+    private final HashMap<String, Entry> entries = new HashMap<>();
+
+    /**
+     * read the index of a pack
+     * @param buffer the whole pack, usually a mapped file, it is never modified
+     * @throws IOException if the buffer is not a pack of this version or an entry is outside of it
+     */
+    public AssetPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        ByteBuffer in = buffer.duplicate();
+        try {
+            int magic = in.getInt();
+            if (magic != MAGIC) throw new IOException("not an asset pack");
+            int version = in.getInt();
+            if (version != VERSION) throw new IOException("unsupported pack version " + version);
+            contentVersion = in.getLong();
+
+            int count = in.getInt();
+            if (count < 0) throw new IOException("broken index");
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[in.getShort() & 0xFFFF];
+                in.get(name);
+                byte type = in.get();
+                int offset = in.getInt();
+                int length = in.getInt();
+                if (offset < 0 || length < 0 || offset > buffer.limit() - length) {
+                    throw new IOException("entry " + i + " is outside of the pack");
+                }
+                entries.put(new String(name, "UTF-8"), new Entry(type, offset, length));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("pack is truncated");
+        }
+    }
+
+    /**
+     * map a pack file, the mapping stays valid after the file is closed
+     * @param file the pack
+     * @return the pack
+     * @throws IOException if the file can't be read or is not a pack
+     */
+    public static AssetPack map(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            return map(in.getChannel(), 0, in.length());
+        }
+    }
+
+    /**
+     * map a pack which is a part of a file, e.g. an uncompressed asset inside of the apk
+     * @param channel the file
+     * @param offset start of the pack in the file
+     * @param length size of the pack
+     * @return the pack
+     * @throws IOException if the file can't be read or is not a pack
+     */
+    public static AssetPack map(FileChannel channel, long offset, long length) throws IOException {
+        return new AssetPack(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    /**
+     * @param name the resource name of a drawable
+     * @param density one of DENSITIES
+     * @return the name of the image scaled to the density in the pack
+     */
+    public static String getImageName(String name, int density) {
+        return IMAGE_PREFIX + density + "/" + name;
+    }
+
+    /**
+     * @param name the resource name of the drawable of a sprite sheet
+     * @return the name of the frames of the sprite sheet in the pack, see SpriteFrames
+     */
+    public static String getSpriteName(String name) {
+        return SPRITE_PREFIX + name;
+    }
+
+    /**
+     * @param density the density of the display in dpi
+     * @return the smallest density bucket which is not smaller than the display, so images are only scaled down,
+     * the largest bucket for displays above it
+     */
+    public static int getDensityBucket(int density) {
+        for (int bucket : DENSITIES) {
+            if (bucket >= density) return bucket;
+        }
+        return DENSITIES[DENSITIES.length - 1];
+    }
+
+    /**
+     * @param level a hand-made level
+     * @return the name of the level in the pack
+     */
+    public static String getLevelName(int level) {
+        return LEVEL_PREFIX + level;
+    }
+
+    public long getContentVersion() { return contentVersion;}
+    public int size() { return entries.size();}
+    public Set<String> getNames() { return Collections.unmodifiableSet(entries.keySet());}
+
+    public boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * @param name an entry
+     * @return the type of the entry, -1 if there is none
+     */
+    public int getType(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? -1 : entry.type;
+    }
+
+    /**
+     * a view of the data of an entry, it shares the memory of the pack, so nothing is copied
+     * every call returns a new view, so the views can be read on different threads
+     * @param name an entry
+     * @return the data from position 0 to its length, null if there is no such entry
+     */
+    public ByteBuffer get(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) return null;
+
+        ByteBuffer view = buffer.duplicate();
+        view.limit(entry.offset + entry.length);
+        view.position(entry.offset);
+        return view.slice();
+    }
+}
@@ -0,0 +1,96 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Writes an asset pack, see AssetPack for the layout
+ * @author agent
+ */
+public class AssetPackWriter {
+
+    private final ArrayList<String> names = new ArrayList<>();
+    private final ArrayList<Byte> types = new ArrayList<>();
+    private final ArrayList<byte[]> data = new ArrayList<>();
+
+    /**
+     * add an entry, entries are written in the order they are added
+     * @param name unique name of the entry
+     * @param type one of the TYPE constants of AssetPack
+     * @param bytes the data of the entry
+     */
+    public void add(String name, byte type, byte[] bytes) {
+        if (names.contains(name)) throw new IllegalArgumentException("duplicate entry " + name);
+        names.add(name);
+        types.add(type);
+        data.add(bytes);
+    }
+
+    /**
+     * @param contentVersion tells a reader if the pack is still up to date, e.g. the install time of the app
+     * @return the whole pack
+     * @throws IOException if a name is too long
+     */
+    public byte[] toByteArray(long contentVersion) throws IOException {
+        byte[][] encodedNames = new byte[names.size()][];
+        int indexEnd = 4 + 4 + 8 + 4;
+        for (int i = 0; i < names.size(); i++) {
+            encodedNames[i] = names.get(i).getBytes("UTF-8");
+            if (encodedNames[i].length > 0xFFFF) throw new IOException("name too long: " + names.get(i));
+            indexEnd += 2 + encodedNames[i].length + 1 + 4 + 4;
+        }
+
+        int[] offsets = new int[data.size()];
+        int end = align(indexEnd);
+        for (int i = 0; i < data.size(); i++) {
+            offsets[i] = end;
+            end = align(end + data.get(i).length);
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(end);
+        out.putInt(AssetPack.MAGIC);
+        out.putInt(AssetPack.VERSION);
+        out.putLong(contentVersion);
+        out.putInt(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            out.putShort((short) encodedNames[i].length);
+            out.put(encodedNames[i]);
+            out.put(types.get(i));
+            out.putInt(offsets[i]);
+            out.putInt(data.get(i).length);
+        }
+        for (int i = 0; i < data.size(); i++) {
+            out.position(offsets[i]);
+            out.put(data.get(i));
+        }
+        return out.array();
+    }
+
+    /**
+     * write the pack to a temporary file first, so a crash does not leave a broken pack
+     * @param file the pack file
+     * @param contentVersion see toByteArray()
+     * @throws IOException if the file can't be written
+     */
+    public void write(File file, long contentVersion) throws IOException {
+        byte[] pack = toByteArray(contentVersion);
+        File tmp = new File(file.getPath() + ".tmp");
+        //noinspection ResultOfMethodCallIgnored
+        file.getAbsoluteFile().getParentFile().mkdirs();
+
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(pack);
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("could not replace " + file);
+        }
+    }
+
+    private static int align(int offset) {
+        return (offset + AssetPack.ALIGNMENT - 1) / AssetPack.ALIGNMENT * AssetPack.ALIGNMENT;
+    }
+}
@@ -0,0 +1,74 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of int commands, any thread can offer, one thread polls
+ * every slot has a sequence number which tells whether it can be written or read (Vyukov's bounded queue),
+ * so offering never blocks and never allocates
+ * @author agent
+ */
+public class CommandQueue {
+
+    // returned by poll() if the queue is empty, so it can't be used as command
+    public static final int EMPTY = Integer.MIN_VALUE;
+
+    private final int mask;
+    private final int[] commands;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // only used by the polling thread
+    private long head;
+
+    /**
+     * @param capacity maximum number of waiting commands, rounded up to a power of two
+     */
+    public CommandQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        commands = new int[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * add a command, can be called from any thread
+     * @param command the command, not EMPTY
+     * @return false if the queue is full
+     */
+    public boolean offer(int command) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+        commands[index] = command;
+        // publishes the command to the polling thread
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * take the oldest command, only called by the one consuming thread
+     * @return the command or EMPTY
+     */
+    public int poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) return EMPTY;
+        int command = commands[index];
+        // the slot can be written again in the next round
+        sequences.lazySet(index, head + mask + 1);
+        head++;
+        return command;
+    }
+}
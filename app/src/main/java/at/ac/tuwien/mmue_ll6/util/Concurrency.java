@@ -1,16 +1,74 @@
 package at.ac.tuwien.mmue_ll6.util;
 
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import android.util.Log;
+
+import java.util.concurrent.Future;
 
 /**
- * Concurrency class to handle several threads for saving scores
+ * Concurrency class to run work in the background, e.g. saving scores
+ * the work is split into lanes, so database work never delays the loading of assets:
+ * IO has one thread (database and file writes never run at the same time), CPU and ASSET have their own threads
+ * within a lane tasks run by priority, so a task can overtake waiting tasks of a lower priority;
+ * only tasks of the same priority run in the order they were submitted, writes which depend on each other need the same priority
+ * tasks of an activity are cancelled when the activity is destroyed
  * @author Michelle Lau
  */
 public class Concurrency {
-    private static final Executor executor = Executors.newSingleThreadExecutor();
 
-    public static void executeAsync(Runnable task) {
-        executor.execute(task);
+    private static final String TAG = Concurrency.class.getSimpleName();
+
+    public enum Lane { IO, CPU, ASSET }
+
+    // lower values run first
+    public static final int PRIORITY_CRITICAL = 0;
+    public static final int PRIORITY_HIGH = 1;
+    public static final int PRIORITY_NORMAL = 2;
+    public static final int PRIORITY_LOW = 3;
+
+    private static final LaneExecutor[] lanes = {
+            new LaneExecutor("io", 1, Thread.NORM_PRIORITY - 1),
+            new LaneExecutor("cpu", Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4)), Thread.NORM_PRIORITY - 1),
+            // assets are needed to start playing, so they get the higher thread priority
+            new LaneExecutor("asset", 2, Thread.NORM_PRIORITY),
+    };
+
+    /**
+     * run a task in the background
+     * @param lane the lane of the task
+     * @param priority one of the PRIORITY constants
+     * @param owner the activity which waits for the result, its waiting tasks are dropped when it is destroyed; can be null
+     * @param task the task
+     * @return future to wait for or cancel the task
+     */
+    public static Future<?> executeAsync(Lane lane, int priority, Object owner, Runnable task) {
+        return lanes[lane.ordinal()].execute(task, priority, owner);
+    }
+
+    /**
+     * drop the waiting tasks of an owner in all lanes, running tasks finish
+     * @param owner the owner given to executeAsync()
+     */
+    public static void cancelAll(Object owner) {
+        int count = 0;
+        for (LaneExecutor lane : lanes) {
+            count += lane.cancelAll(owner);
+        }
+        if (count > 0) {
+            Log.d(TAG, "cancelAll: dropped " + count + " tasks of " + owner.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * @param lane the lane
+     * @return queue depth, task counts and latencies of the lane
+     */
+    public static TaskMetrics getMetrics(Lane lane) {
+        return lanes[lane.ordinal()].getMetrics();
+    }
+
+    public static void logMetrics() {
+        for (LaneExecutor lane : lanes) {
+            Log.d(TAG, lane.getMetrics().toString());
+        }
     }
 }
@@ -0,0 +1,32 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import android.os.Debug;
+
+/**
+ * Counts allocations with the thread allocation counters of the runtime, only meant for debug builds
+ * the counters are per thread, so one counter can be shared by the game loop and the render thread
+ * @author agent
+ */
+@SuppressWarnings("deprecation")
+public class DebugAllocationCounter implements AllocationCounter {
+
+    @Override
+    public void start() {
+        Debug.startAllocCounting();
+    }
+
+    @Override
+    public void stop() {
+        Debug.stopAllocCounting();
+    }
+
+    @Override
+    public void begin() {
+        Debug.resetThreadAllocSize();
+    }
+
+    @Override
+    public long end() {
+        return Debug.getThreadAllocSize();
+    }
+}
@@ -0,0 +1,208 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Job system which splits a loop over many entities into chunks and runs them on a fixed pool of workers
+ * the calling thread works on chunks as well, small loops run serially on the calling thread
+ * chunk boundaries only depend on the number of entities, so per-chunk results can be merged in a fixed order
+ * @author agent
+ */
+public class JobScheduler {
+
+    // below this number of entities the loop runs serially
+    // JobSchedulerTest.benchmark_crossover prints the crossover point for the machine it runs on
+    public static final int DEFAULT_THRESHOLD = 512;
+    public static final int DEFAULT_CHUNK_SIZE = 128;
+
+    private static JobScheduler instance;
+
+    /**
+     * job which is executed for a range of entities
+     */
+    public interface RangeJob {
+        /**
+         * @param chunk index of the chunk, chunks are numbered in ascending order of their range
+         * @param from first index (inclusive)
+         * @param to last index (exclusive)
+         */
+        void run(int chunk, int from, int to);
+    }
+
+    private final Thread[] workers;
+    private final int threshold;
+    private final int chunkSize;
+
+    // current job, guarded by this
+    private RangeJob job;
+    private int count;
+    private int chunks;
+    private int generation;
+    private boolean shutdown;
+    // first exception of a chunk of the current loop, thrown by parallelFor when all chunks are finished
+    private Throwable failure;
+
+    private final AtomicInteger nextChunk = new AtomicInteger();
+    private final AtomicInteger remainingChunks = new AtomicInteger();
+    // workers which joined the current loop, the loop only returns when all of them left again
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    /**
+     * constructor for the job scheduler
+     * @param workerCount number of worker threads, the calling thread is not counted
+     * @param threshold minimum number of entities to run in parallel
+     * @param chunkSize number of entities per chunk
+     */
+    public JobScheduler(int workerCount, int threshold, int chunkSize) {
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::workerLoop, "JobWorker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * get the shared scheduler, with one worker less than available cores
+     * @return the shared scheduler
+     */
+    public static synchronized JobScheduler getInstance() {
+        if (instance == null) {
+            int workerCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            instance = new JobScheduler(workerCount, DEFAULT_THRESHOLD, DEFAULT_CHUNK_SIZE);
+        }
+        return instance;
+    }
+
+    /**
+     * @param count number of entities
+     * @return the number of chunks a loop over count entities is split into
+     */
+    public int getChunkCount(int count) {
+        return count < threshold ? 1 : (count + chunkSize - 1) / chunkSize;
+    }
+
+    /**
+     * run the job for the range [0, count) and wait until all chunks are finished
+     * only one loop can run at a time, it must not be called from inside a job
+     * if a chunk throws, the other chunks still run and the first exception is thrown afterwards;
+     * an interrupt does not end the wait, the workers must not change the entities after the loop returned
+     * @param count number of entities
+     * @param job the job which is executed for every chunk
+     */
+    public void parallelFor(int count, RangeJob job) {
+        if (count <= 0) return;
+        if (count < threshold || workers.length == 0) {
+            // serial fallback, not worth waking up the workers
+            job.run(0, 0, count);
+            return;
+        }
+
+        int chunks = getChunkCount(count);
+        synchronized (this) {
+            this.job = job;
+            this.count = count;
+            this.chunks = chunks;
+            nextChunk.set(0);
+            remainingChunks.set(chunks);
+            generation++;
+            notifyAll();
+        }
+
+        // the calling thread helps instead of waiting idle
+        runChunks(job, count, chunks);
+
+        boolean interrupted = false;
+        Throwable thrown;
+        synchronized (this) {
+            while (remainingChunks.get() > 0 || activeWorkers.get() > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            this.job = null;
+            thrown = failure;
+            failure = null;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (thrown instanceof RuntimeException) throw (RuntimeException) thrown;
+        if (thrown instanceof Error) throw (Error) thrown;
+        if (thrown != null) throw new RuntimeException(thrown);
+    }
+
+    /**
+     * stop all workers
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * claims and runs chunks until all chunks of the current loop are taken
+     * a chunk which throws still counts as finished, otherwise parallelFor would wait forever
+     */
+    private void runChunks(RangeJob job, int count, int chunks) {
+        int chunk;
+        while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+            int from = chunk * chunkSize;
+            try {
+                job.run(chunk, from, Math.min(count, from + chunkSize));
+            } catch (Throwable t) {
+                synchronized (this) {
+                    if (failure == null) failure = t;
+                }
+            } finally {
+                if (remainingChunks.decrementAndGet() == 0) {
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * loop of the worker threads, waits for a new loop and helps running its chunks
+     */
+    private void workerLoop() {
+        int seenGeneration = 0;
+        while (true) {
+            RangeJob currentJob;
+            int currentCount;
+            int currentChunks;
+            synchronized (this) {
+                while (!shutdown && (generation == seenGeneration || job == null)) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (shutdown) return;
+                seenGeneration = generation;
+                currentJob = job;
+                currentCount = count;
+                currentChunks = chunks;
+                activeWorkers.incrementAndGet();
+            }
+            try {
+                runChunks(currentJob, currentCount, currentChunks);
+            } finally {
+                if (activeWorkers.decrementAndGet() == 0) {
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                }
+            }
+        }
+    }
+}
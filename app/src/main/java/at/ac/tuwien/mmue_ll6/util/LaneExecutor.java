@@ -0,0 +1,160 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import android.util.Log;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One lane of the background executor: a fixed number of named threads taking tasks by priority
+ * tasks with the same priority run in the order they were submitted, so a lane with one thread stays sequential
+ * @author agent
+ */
+class LaneExecutor {
+
+    private static final String TAG = LaneExecutor.class.getSimpleName();
+
+    // idle threads are stopped, so a lane without work costs nothing
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final String name;
+    private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+
+    /**
+     * task with its priority, owner and the time it was submitted
+     */
+    private class Task extends FutureTask<Void> implements Comparable<Task> {
+        final int priority;
+        final long order;
+        final Object owner;
+        final long submitNanos = System.nanoTime();
+
+        Task(Runnable runnable, int priority, Object owner) {
+            super(runnable, null);
+            this.priority = priority;
+            this.order = sequence.getAndIncrement();
+            this.owner = owner;
+        }
+
+        @Override
+        public void run() {
+            if (isCancelled()) return;
+            long start = System.nanoTime();
+            long wait = start - submitNanos;
+            totalWaitNanos.addAndGet(wait);
+            long max;
+            while (wait > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, wait)) {
+                // retry
+            }
+
+            running.incrementAndGet();
+            try {
+                super.run();
+            } finally {
+                running.decrementAndGet();
+                totalRunNanos.addAndGet(System.nanoTime() - start);
+                completed.incrementAndGet();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) return;
+            try {
+                get();
+            } catch (ExecutionException e) {
+                // the future keeps the exception, which would hide errors of fire and forget tasks
+                Log.e(TAG, name + ": task failed", e.getCause());
+            } catch (InterruptedException | CancellationException e) {
+                // not possible after done
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) return Integer.compare(priority, other.priority);
+            return Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * @param name name of the lane, used for the threads and the metrics
+     * @param threads number of threads
+     * @param threadPriority java thread priority of the threads
+     */
+    LaneExecutor(String name, int threads, int threadPriority) {
+        this.name = name;
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setPriority(threadPriority);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param task the task
+     * @param priority lower values run first
+     * @param owner the tasks of an owner can be cancelled together, can be null
+     * @return future to wait for or cancel the task
+     */
+    Future<?> execute(Runnable task, int priority, Object owner) {
+        Task entry = new Task(task, priority, owner);
+        submitted.incrementAndGet();
+        executor.execute(entry);
+        return entry;
+    }
+
+    /**
+     * remove the waiting tasks of an owner, running tasks finish
+     * @param owner the owner given to execute()
+     * @return number of removed tasks
+     */
+    int cancelAll(Object owner) {
+        int count = 0;
+        for (Runnable runnable : queue) {
+            Task task = (Task) runnable;
+            if (task.owner == owner && queue.remove(task)) {
+                task.cancel(false);
+                count++;
+            }
+        }
+        cancelled.addAndGet(count);
+        return count;
+    }
+
+    TaskMetrics getMetrics() {
+        return new TaskMetrics(name, queue.size(), running.get(), submitted.get(), completed.get(), cancelled.get(),
+                totalWaitNanos.get(), maxWaitNanos.get(), totalRunNanos.get());
+    }
+
+    /**
+     * stop accepting tasks, waiting tasks still run
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+        return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
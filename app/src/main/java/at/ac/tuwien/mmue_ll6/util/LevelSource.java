@@ -0,0 +1,100 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Compiles a level file of src/main/levels into the binary format of LevelLayout in the asset pack
+ * one object per line, a word and its numbers, y measured from the bottom of the display:
+ * level n, player x y, goal x y, platform x y, enemy x y behavior range, fire x y
+ * platforms are drawn in the order of the file, everything after a # is a comment
+ * @author agent
+ */
+public class LevelSource {
+
+    // names of the enemy behaviors, the index is stored, in the order of EnemyObject.Behavior
+    public static final String[] BEHAVIORS = {"PATROL", "CHASE", "JUMP"};
+
+    /**
+     * @param source the text of a level file
+     * @return the level in the format of the asset pack
+     * @throws IOException with the line number if the file has an error
+     */
+    public static byte[] compile(String source) throws IOException {
+        int[] header = null;
+        int[] player = null;
+        int[] goal = null;
+        ArrayList<int[]> platforms = new ArrayList<>();
+        ArrayList<int[]> enemies = new ArrayList<>();
+        ArrayList<int[]> fires = new ArrayList<>();
+
+        String[] lines = source.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            String[] words = line.split("\\s+");
+            try {
+                switch (words[0]) {
+                    case "level": header = numbers(words, 1); break;
+                    case "player": player = numbers(words, 2); break;
+                    case "goal": goal = numbers(words, 2); break;
+                    case "platform": platforms.add(numbers(words, 2)); break;
+                    case "fire": fires.add(numbers(words, 2)); break;
+                    case "enemy":
+                        if (words.length != 5) throw new IOException("enemy needs x, y, behavior and range");
+                        enemies.add(new int[]{number(words[1]), number(words[2]), behavior(words[3]), number(words[4])});
+                        break;
+                    default: throw new IOException("unknown object " + words[0]);
+                }
+            } catch (IOException e) {
+                throw new IOException("line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        if (header == null || player == null || goal == null) throw new IOException("level, player and goal are needed");
+
+        ByteBuffer out = ByteBuffer.allocate(4 * (8 + 2 * platforms.size() + 4 * enemies.size() + 2 * fires.size()));
+        out.putInt(header[0]);
+        put(out, player);
+        put(out, goal);
+        out.putInt(platforms.size());
+        for (int[] platform : platforms) put(out, platform);
+        out.putInt(enemies.size());
+        for (int[] enemy : enemies) put(out, enemy);
+        out.putInt(fires.size());
+        for (int[] fire : fires) put(out, fire);
+        return out.array();
+    }
+
+    private static int[] numbers(String[] words, int count) throws IOException {
+        if (words.length != count + 1) throw new IOException(words[0] + " needs " + count + " numbers");
+        int[] numbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = number(words[i + 1]);
+        }
+        return numbers;
+    }
+
+    private static int number(String word) throws IOException {
+        try {
+            return Integer.parseInt(word);
+        } catch (NumberFormatException e) {
+            throw new IOException("not a number: " + word);
+        }
+    }
+
+    private static int behavior(String word) throws IOException {
+        for (int i = 0; i < BEHAVIORS.length; i++) {
+            if (BEHAVIORS[i].equalsIgnoreCase(word)) return i;
+        }
+        throw new IOException("unknown behavior " + word);
+    }
+
+    private static void put(ByteBuffer out, int[] values) {
+        for (int value : values) out.putInt(value);
+    }
+}
@@ -0,0 +1,91 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Frames of a sprite sheet packed by the asset pipeline, stored next to the sheet image in the asset pack
+ * positions are pixels of the sheet at the default density, the sheet image of a density bucket is scaled
+ * layout, all ints big endian: sheet width, sheet height, frame time in ms, frame count,
+ * then left, top, width and height of each frame
+ * @author agent
+ */
+public class SpriteFrames {
+
+    public final int sheetWidth;
+    public final int sheetHeight;
+    // how long each frame is shown in ms
+    public final int frameTime;
+    // left, top, width, height of each frame
+    private final int[] rects;
+
+    /**
+     * @param sheetWidth width of the sheet at the default density
+     * @param sheetHeight height of the sheet at the default density
+     * @param frameTime how long each frame is shown in ms
+     * @param rects left, top, width and height of each frame
+     */
+    public SpriteFrames(int sheetWidth, int sheetHeight, int frameTime, int[] rects) {
+        if (rects.length == 0 || rects.length % 4 != 0) throw new IllegalArgumentException("frames need 4 values each");
+        this.sheetWidth = sheetWidth;
+        this.sheetHeight = sheetHeight;
+        this.frameTime = frameTime;
+        this.rects = rects;
+    }
+
+    public int getFrameCount() { return rects.length / 4;}
+    public int getLeft(int frame) { return rects[frame * 4];}
+    public int getTop(int frame) { return rects[frame * 4 + 1];}
+    public int getWidth(int frame) { return rects[frame * 4 + 2];}
+    public int getHeight(int frame) { return rects[frame * 4 + 3];}
+
+    /**
+     * @return the frames in the format of the asset pack
+     */
+    public byte[] toBytes() {
+        ByteBuffer out = ByteBuffer.allocate(4 * (4 + rects.length));
+        out.putInt(sheetWidth);
+        out.putInt(sheetHeight);
+        out.putInt(frameTime);
+        out.putInt(getFrameCount());
+        for (int value : rects) {
+            out.putInt(value);
+        }
+        return out.array();
+    }
+
+    /**
+     * read frames written by toBytes()
+     * @param in the frames, read from its position
+     * @return the frames
+     * @throws IOException if the data is not complete or a frame is outside of the sheet
+     */
+    public static SpriteFrames read(ByteBuffer in) throws IOException {
+        try {
+            int sheetWidth = in.getInt();
+            int sheetHeight = in.getInt();
+            int frameTime = in.getInt();
+            int count = in.getInt();
+            if (count <= 0 || count > in.remaining() / 16) throw new IOException("broken frame count " + count);
+
+            int[] rects = new int[count * 4];
+            for (int i = 0; i < count; i++) {
+                int left = in.getInt();
+                int top = in.getInt();
+                int width = in.getInt();
+                int height = in.getInt();
+                if (left < 0 || top < 0 || width <= 0 || height <= 0 || left + width > sheetWidth || top + height > sheetHeight) {
+                    throw new IOException("frame " + i + " is outside of the sheet");
+                }
+                rects[i * 4] = left;
+                rects[i * 4 + 1] = top;
+                rects[i * 4 + 2] = width;
+                rects[i * 4 + 3] = height;
+            }
+            return new SpriteFrames(sheetWidth, sheetHeight, frameTime, rects);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("sprite frames are truncated");
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import java.util.Locale;
+
+/**
+ * Snapshot of the counters of one lane of the background executor
+ * @author agent
+ */
+public class TaskMetrics {
+
+    public final String lane;
+    // tasks waiting in the queue
+    public final int queueDepth;
+    public final int running;
+    public final long submitted;
+    public final long completed;
+    public final long cancelled;
+    // time between submitting and starting a task
+    public final double averageWaitMillis;
+    public final double maxWaitMillis;
+    public final double averageRunMillis;
+
+    TaskMetrics(String lane, int queueDepth, int running, long submitted, long completed, long cancelled,
+                long totalWaitNanos, long maxWaitNanos, long totalRunNanos) {
+        this.lane = lane;
+        this.queueDepth = queueDepth;
+        this.running = running;
+        this.submitted = submitted;
+        this.completed = completed;
+        this.cancelled = cancelled;
+        this.averageWaitMillis = completed > 0 ? totalWaitNanos / 1e6 / completed : 0;
+        this.maxWaitMillis = maxWaitNanos / 1e6;
+        this.averageRunMillis = completed > 0 ? totalRunNanos / 1e6 / completed : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s: queued %d, running %d, done %d/%d, cancelled %d, wait avg %.1f ms max %.1f ms, run avg %.1f ms",
+                lane, queueDepth, running, completed, submitted, cancelled, averageWaitMillis, maxWaitMillis, averageRunMillis);
+    }
+}
@@ -0,0 +1,101 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+/**
+ * Text which is built in a fixed char array, so text which is drawn every frame does not create Strings
+ * draw it with Canvas.drawText(getChars(), 0, length(), x, y, paint), text beyond the capacity is cut off
+ * @author agent
+ */
+public class TextBuffer {
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private final char[] chars;
+    private int length;
+
+    /**
+     * @param capacity maximal number of chars
+     */
+    public TextBuffer(int capacity) {
+        this.chars = new char[capacity];
+    }
+
+    public char[] getChars() { return chars;}
+    public int length() { return length;}
+
+    /**
+     * remove all chars, to build the text of the next frame
+     * @return this buffer
+     */
+    public TextBuffer clear() {
+        length = 0;
+        return this;
+    }
+
+    public TextBuffer append(char c) {
+        if (length < chars.length) {
+            chars[length++] = c;
+        }
+        return this;
+    }
+
+    public TextBuffer append(String text) {
+        int count = Math.min(text.length(), chars.length - length);
+        text.getChars(0, count, chars, length);
+        length += count;
+        return this;
+    }
+
+    public TextBuffer append(long value) {
+        // the digits are taken from the negative value, so Long.MIN_VALUE fits too
+        if (value < 0) {
+            append('-');
+        } else {
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        // written from the last digit, the digits beyond the capacity are skipped
+        int end = length + digits;
+        for (int i = end - 1; i >= length; i--) {
+            if (i < chars.length) {
+                chars[i] = (char) ('0' - value % 10);
+            }
+            value /= 10;
+        }
+        length = Math.min(end, chars.length);
+        return this;
+    }
+
+    /**
+     * append a number with a fixed number of decimals, e.g. 12.50
+     * @param value the number
+     * @param decimals number of decimals (0-6), the value is rounded
+     * @return this buffer
+     */
+    public TextBuffer append(double value, int decimals) {
+        if (decimals < 0 || decimals >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("unsupported number of decimals: " + decimals);
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            append('-');
+        }
+        append(scaled / scale);
+        if (decimals > 0) {
+            append('.');
+            long fraction = scaled % scale;
+            for (long digit = scale / 10; digit > 0; digit /= 10) {
+                append((char) ('0' + fraction / digit % 10));
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,172 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the last trace events of all threads in a ring buffer and writes them as Chrome Trace Event JSON,
+ * which can be opened in Perfetto or chrome://tracing
+ * recording an event does not allocate and does not lock, the section names have to be constants;
+ * the timestamps are System.nanoTime(), on a device the same clock as android.os.Trace
+ * @author agent
+ */
+public class TraceRecorder {
+
+    private static final byte BEGIN = 'B';
+    private static final byte END = 'E';
+    private static final byte INSTANT = 'i';
+
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    // one event per slot, the sequence of a slot is the index of its event plus one, written after the event
+    private final AtomicLongArray sequences;
+    private final byte[] phases;
+    private final String[] names;
+    private final Thread[] threads;
+    private final long[] timestamps;
+
+    /**
+     * @param capacity number of events which are kept, a power of two
+     */
+    public TraceRecorder(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        this.phases = new byte[capacity];
+        this.names = new String[capacity];
+        this.threads = new Thread[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    /**
+     * start a section on the calling thread, sections of a thread are nested
+     * @param name constant name of the section
+     */
+    public void begin(String name) {
+        record(BEGIN, name);
+    }
+
+    /**
+     * end the last section which was started on the calling thread
+     */
+    public void end() {
+        record(END, null);
+    }
+
+    /**
+     * mark a point in time on the calling thread, e.g. a slow frame
+     * @param name constant name of the mark
+     */
+    public void instant(String name) {
+        record(INSTANT, name);
+    }
+
+    private void record(byte phase, String name) {
+        long timestamp = System.nanoTime();
+        long index = next.getAndIncrement();
+        int slot = (int) (index & mask);
+        // an event which is read while the slot is overwritten is dropped, see copy()
+        sequences.set(slot, 0);
+        phases[slot] = phase;
+        names[slot] = name;
+        threads[slot] = Thread.currentThread();
+        timestamps[slot] = timestamp;
+        sequences.lazySet(slot, index + 1);
+    }
+
+    /**
+     * @return number of events in the buffer
+     */
+    public int size() {
+        return (int) Math.min(next.get(), mask + 1);
+    }
+
+    /**
+     * copy the events, e.g. to write them on another thread while the recording goes on
+     * events which are written while they are copied are left out
+     * @return a recorder with the consistent events of this one
+     */
+    public TraceRecorder copy() {
+        TraceRecorder copy = new TraceRecorder(mask + 1);
+        long last = next.get();
+        for (long index = Math.max(0, last - mask - 1); index < last; index++) {
+            int slot = (int) (index & mask);
+            if (sequences.get(slot) != index + 1) continue;
+            byte phase = phases[slot];
+            String name = names[slot];
+            Thread thread = threads[slot];
+            long timestamp = timestamps[slot];
+            if (sequences.get(slot) != index + 1) continue;
+
+            long copyIndex = copy.next.getAndIncrement();
+            int to = (int) (copyIndex & copy.mask);
+            copy.phases[to] = phase;
+            copy.names[to] = name;
+            copy.threads[to] = thread;
+            copy.timestamps[to] = timestamp;
+            copy.sequences.set(to, copyIndex + 1);
+        }
+        return copy;
+    }
+
+    /**
+     * write the events as Chrome Trace Event JSON, must not run while events are recorded, see copy()
+     * the oldest sections may have lost their begin, their ends are left out
+     * @param out the JSON is written to it
+     * @param pid id of the process
+     */
+    public void writeJson(Writer out, int pid) throws IOException {
+        HashMap<Thread, Integer> depths = new HashMap<>();
+        long last = next.get();
+        long origin = -1;
+
+        out.write("{\"traceEvents\":[");
+        String separator = "\n";
+        for (long index = Math.max(0, last - mask - 1); index < last; index++) {
+            int slot = (int) (index & mask);
+            Thread thread = threads[slot];
+            Integer depth = depths.get(thread);
+            if (depth == null) {
+                depth = 0;
+                // the name of the thread, shown instead of its id
+                out.write(separator + "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + pid + ",\"tid\":" + thread.getId()
+                        + ",\"args\":{\"name\":\"" + escape(thread.getName()) + "\"}}");
+                separator = ",\n";
+            }
+            depths.put(thread, depth + (phases[slot] == BEGIN ? 1 : phases[slot] == END && depth > 0 ? -1 : 0));
+            // the begin of this end was overwritten
+            if (phases[slot] == END && depth == 0) continue;
+
+            if (origin < 0) origin = timestamps[slot];
+            long micros = (timestamps[slot] - origin) / 1000;
+            long nanos = (timestamps[slot] - origin) % 1000;
+            out.write(separator + "{\"ph\":\"" + (char) phases[slot] + "\"");
+            if (names[slot] != null) out.write(",\"name\":\"" + escape(names[slot]) + "\"");
+            if (phases[slot] == INSTANT) out.write(",\"s\":\"t\"");
+            out.write(",\"ts\":" + micros + "." + (nanos < 10 ? "00" : nanos < 100 ? "0" : "") + nanos
+                    + ",\"pid\":" + pid + ",\"tid\":" + thread.getId() + "}");
+        }
+        out.write("\n],\"displayTimeUnit\":\"ms\"}\n");
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < ' ') {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import android.os.Trace;
+
+/**
+ * Named trace sections around the expensive parts of the app (game loop, collisions, asset loads, database writes)
+ * a section goes to android.os.Trace for systrace and Perfetto on the device, and while recording
+ * also to the in-memory TraceRecorder, which is written as JSON to look at slow frames offline
+ * sections are nested per thread and have to end on the thread which started them
+ * @author agent
+ */
+public final class Tracing {
+
+    private static volatile TraceRecorder recorder;
+
+    private Tracing() {
+    }
+
+    /**
+     * keep the last events in memory from now on, e.g. in debug builds
+     * @param capacity number of events which are kept, a power of two
+     */
+    public static void startRecording(int capacity) {
+        recorder = new TraceRecorder(capacity);
+    }
+
+    /**
+     * @return the recorder or null if nothing is recorded
+     */
+    public static TraceRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * @param name constant name of the section, at most 127 chars
+     */
+    public static void begin(String name) {
+        Trace.beginSection(name);
+        TraceRecorder r = recorder;
+        if (r != null) r.begin(name);
+    }
+
+    public static void end() {
+        TraceRecorder r = recorder;
+        if (r != null) r.end();
+        Trace.endSection();
+    }
+
+    /**
+     * mark a point in time in the recording, e.g. a slow frame
+     * @param name constant name of the mark
+     */
+    public static void instant(String name) {
+        TraceRecorder r = recorder;
+        if (r != null) r.instant(name);
+    }
+}
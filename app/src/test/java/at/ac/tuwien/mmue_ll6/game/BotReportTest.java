@@ -0,0 +1,89 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the summary of the bot sessions
+ * @author agent
+ */
+public class BotReportTest {
+
+    @Test
+    public void add_countsOutcomesAndDeaths() {
+        BotReport report = new BotReport(1);
+        report.add(won(400, 1050));
+        report.add(won(300));
+        report.add(lost(1010, 1090, 2500, 1099));
+        BotReport.Session stuck = session();
+        stuck.stuck = true;
+        stuck.stuckX = 3150;
+        report.add(stuck);
+
+        assertEquals(4, report.getSessions());
+        assertEquals(2, report.getWins());
+        assertEquals(1, report.getGameOvers());
+        assertEquals(1, report.getStuck());
+
+        // deaths are counted per bucket of 100 pixel, also deaths of won runs
+        assertEquals(4, (int) report.getDeaths().get(1000));
+        assertEquals(1, (int) report.getDeaths().get(2500));
+        assertEquals(1000, report.getDeadliestBucket());
+        assertEquals(1, (int) report.getStuckPositions().get(3100));
+    }
+
+    @Test
+    public void getClearTicks_percentilesOfWonRuns() {
+        BotReport report = new BotReport(1);
+        assertEquals(-1, report.getClearTicks(50));
+        assertEquals(-1, report.getDeadliestBucket());
+
+        for (int ticks = 1000; ticks >= 100; ticks -= 100) {
+            report.add(won(ticks));
+        }
+        report.add(lost());
+        assertEquals(100, report.getClearTicks(0));
+        assertEquals(500, report.getClearTicks(50));
+        assertEquals(900, report.getClearTicks(90));
+        assertEquals(1000, report.getClearTicks(100));
+    }
+
+    @Test
+    public void add_sumsTickCost() {
+        BotReport report = new BotReport(0);
+        BotReport.Session a = session();
+        a.addTick(100);
+        a.addTick(300);
+        BotReport.Session b = session();
+        b.addTick(1000);
+        b.addTick(600);
+        report.add(a);
+        report.add(b);
+
+        assertEquals(4, report.getTicks());
+        assertEquals(500, report.getMeanTickNanos());
+        assertEquals(1000, report.getMaxTickNanos());
+    }
+
+    private static BotReport.Session won(int ticks, int... deaths) {
+        BotReport.Session session = session(deaths);
+        session.gameWin = true;
+        session.ticks = ticks;
+        return session;
+    }
+
+    private static BotReport.Session lost(int... deaths) {
+        BotReport.Session session = session(deaths);
+        session.gameOver = true;
+        return session;
+    }
+
+    private static BotReport.Session session(int... deaths) {
+        BotReport.Session session = new BotReport.Session();
+        for (int x : deaths) {
+            session.addDeath(x);
+        }
+        return session;
+    }
+}
@@ -0,0 +1,83 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.app.Application;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import at.ac.tuwien.mmue_ll6.util.AllocationTests;
+import at.ac.tuwien.mmue_ll6.util.JobScheduler;
+import at.ac.tuwien.mmue_ll6.util.JvmAllocationCounter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fails if the steady state of the game loop allocates: update, snapshot and draw of a level on an offscreen canvas,
+ * the JVM version of GameRendererAllocationTest with the native graphics of Robolectric
+ * @author agent
+ */
+@Category(AllocationTests.class)
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = 30, application = Application.class, qualifiers = "xhdpi")
+public class GameLoopAllocationTest {
+
+    private static final int DISPLAY_WIDTH = 1920;
+    private static final int DISPLAY_HEIGHT = 1080;
+    private static final int TICKS = 50;
+
+    private JobScheduler scheduler;
+    private JvmAllocationCounter counter;
+    private Bitmap bitmap;
+
+    @Before
+    public void setUp() {
+        scheduler = new JobScheduler(0, 1, 1);
+        counter = new JvmAllocationCounter();
+        bitmap = Bitmap.createBitmap(DISPLAY_WIDTH, DISPLAY_HEIGHT, Bitmap.Config.ARGB_8888);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void runningRight_doesNotAllocate() {
+        assertTicksDoNotAllocate(GameInput.RIGHT);
+    }
+
+    @Test
+    public void standingStill_doesNotAllocate() {
+        assertTicksDoNotAllocate(0);
+    }
+
+    private void assertTicksDoNotAllocate(int input) {
+        Context context = ApplicationProvider.getApplicationContext();
+        for (int level = 1; level <= 2; level++) {
+            GameGraphic gameGraphic = new GameGraphic(context, level, DISPLAY_WIDTH, DISPLAY_HEIGHT);
+            GameSimulation simulation = new GameSimulation(gameGraphic, scheduler);
+            GameRenderer renderer = new GameRenderer(gameGraphic);
+            RenderSnapshot snapshot = new RenderSnapshot();
+            Canvas canvas = new Canvas(bitmap);
+
+            long bytes = counter.measure(() -> {
+                simulation.update(input);
+                simulation.writeSnapshot(snapshot, true);
+                renderer.draw(canvas, snapshot);
+            }, TICKS);
+            assertEquals("bytes allocated in level " + level, 0, bytes);
+        }
+    }
+}
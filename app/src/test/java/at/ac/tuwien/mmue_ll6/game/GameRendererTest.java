@@ -0,0 +1,179 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.app.Application;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import at.ac.tuwien.mmue_ll6.objects.ParticleSystem;
+import at.ac.tuwien.mmue_ll6.util.JobScheduler;
+
+import static org.junit.Assert.*;
+
+/**
+ * Renders frames of the levels into an offscreen bitmap with the native graphics of Robolectric,
+ * compares them with golden images and measures the cost of drawing a frame with many objects (with -Pbenchmark)
+ * the plain application is used, so the app does not open its database and sounds
+ * @author agent
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = 30, application = Application.class, qualifiers = "xhdpi")
+public class GameRendererTest {
+
+    private static final int DISPLAY_WIDTH = 1920;
+    private static final int DISPLAY_HEIGHT = 1080;
+    private static final long PARTICLE_SEED = 42;
+    private static final int RUN_TICKS = 100;
+
+    private Context context;
+    private JobScheduler scheduler;
+    private Bitmap frame;
+    private Canvas canvas;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        scheduler = new JobScheduler(0, 1, 1);
+        frame = Bitmap.createBitmap(DISPLAY_WIDTH, DISPLAY_HEIGHT, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(frame);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Ignore("golden images level1/level2-start, -running and -paused are not recorded yet, remove this and record them with -PrecordGolden")
+    @Test
+    public void levels_matchGoldenImages() throws IOException {
+        for (int level = 1; level <= 2; level++) {
+            Scene scene = new Scene(new GameGraphic(context, level, DISPLAY_WIDTH, DISPLAY_HEIGHT));
+            scene.draw(true);
+            GoldenImage.assertMatches("level" + level + "-start", frame);
+
+            // scrolled, with animated fires, moving enemies and particles
+            scene.tick(GameInput.RIGHT, RUN_TICKS);
+            scene.draw(true);
+            GoldenImage.assertMatches("level" + level + "-running", frame);
+
+            // overlay, play button and pause image
+            scene.draw(false);
+            GoldenImage.assertMatches("level" + level + "-paused", frame);
+        }
+    }
+
+    @Test
+    public void draw_sameSnapshotSamePixels() {
+        // otherwise comparing with golden images would be flaky
+        int[][] pixels = new int[2][];
+        for (int run = 0; run < 2; run++) {
+            Scene scene = new Scene(new GameGraphic(context, 1, DISPLAY_WIDTH, DISPLAY_HEIGHT));
+            scene.tick(GameInput.RIGHT, RUN_TICKS);
+            scene.draw(true);
+            pixels[run] = new int[DISPLAY_WIDTH * DISPLAY_HEIGHT];
+            frame.getPixels(pixels[run], 0, DISPLAY_WIDTH, 0, 0, DISPLAY_WIDTH, DISPLAY_HEIGHT);
+        }
+        assertArrayEquals(pixels[0], pixels[1]);
+    }
+
+    /**
+     * only runs with -Pbenchmark
+     */
+    @Test
+    public void benchmark_drawManyObjects() {
+        Assume.assumeTrue("benchmark, run it with -Pbenchmark", Boolean.getBoolean("benchmark"));
+
+        System.out.println("objects  particles  mean(us)  p95(us)");
+        for (int count = 10; count <= 1000; count *= 10) {
+            Scene scene = new Scene(GameGraphic.create(context, LevelLayout.createCrowded(count, count, count),
+                    DISPLAY_WIDTH, DISPLAY_HEIGHT));
+            scene.simulation.writeSnapshot(scene.snapshot, true);
+            int particles = Math.min(count * 4, scene.snapshot.particleX.length);
+            spreadOnScreen(scene.snapshot, particles);
+
+            long[] nanos = new long[50];
+            for (int i = 0; i < 10; i++) {
+                scene.renderer.draw(canvas, scene.snapshot);
+            }
+            for (int i = 0; i < nanos.length; i++) {
+                long start = System.nanoTime();
+                scene.renderer.draw(canvas, scene.snapshot);
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            long mean = 0;
+            for (long n : nanos) mean += n / nanos.length;
+            System.out.printf("%7d  %9d  %8.1f  %7.1f%n", 3 * count, particles, mean / 1000.0, nanos[nanos.length * 95 / 100] / 1000.0);
+            assertTrue(mean > 0);
+        }
+    }
+
+    /**
+     * move every object of the snapshot onto the screen, a synthetic map is mostly outside of it
+     */
+    private static void spreadOnScreen(RenderSnapshot snapshot, int particles) {
+        for (int i = 0; i < snapshot.platformCount; i++) {
+            snapshot.platformX[i] = i * 97 % DISPLAY_WIDTH;
+            snapshot.platformY[i] = i * 53 % DISPLAY_HEIGHT;
+        }
+        for (int i = 0; i < snapshot.enemyCount; i++) {
+            snapshot.enemyX[i] = i * 131 % DISPLAY_WIDTH;
+            snapshot.enemyY[i] = i * 71 % DISPLAY_HEIGHT;
+        }
+        for (int i = 0; i < snapshot.spriteCount; i++) {
+            snapshot.spriteX[i] = i * 113 % DISPLAY_WIDTH;
+            snapshot.spriteY[i] = i * 89 % DISPLAY_HEIGHT;
+        }
+        for (int i = 0; i < particles; i++) {
+            snapshot.particleX[i] = i * 37 % DISPLAY_WIDTH;
+            snapshot.particleY[i] = i * 29 % DISPLAY_HEIGHT;
+            snapshot.particleAlpha[i] = 255;
+            snapshot.particleKind[i] = (byte) (i % ParticleSystem.KIND_COUNT);
+        }
+        snapshot.particleCount = particles;
+    }
+
+    /**
+     * a level with its simulation and renderer, the particles are seeded so the frames are the same in every run
+     */
+    private class Scene {
+        final GameSimulation simulation;
+        final GameRenderer renderer;
+        final RenderSnapshot snapshot = new RenderSnapshot();
+
+        Scene(GameGraphic gameGraphic) {
+            gameGraphic.particleSystem.setSeed(PARTICLE_SEED);
+            simulation = new GameSimulation(gameGraphic, scheduler);
+            renderer = new GameRenderer(gameGraphic);
+        }
+
+        void tick(int input, int ticks) {
+            for (int i = 0; i < ticks; i++) {
+                simulation.update(input);
+            }
+        }
+
+        void draw(boolean running) {
+            simulation.writeSnapshot(snapshot, running);
+            frame.eraseColor(Color.BLACK);
+            renderer.draw(canvas, snapshot);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.app.Application;
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import at.ac.tuwien.mmue_ll6.util.JobScheduler;
+
+import static org.junit.Assert.*;
+
+/**
+ * Continues a run from a snapshot in a newly created level, like after the process was killed,
+ * and compares it with the run which was not interrupted
+ * @author agent
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 30, application = Application.class, qualifiers = "xhdpi")
+public class GameStateSnapshotTest {
+
+    private static final int DISPLAY_WIDTH = 1920;
+    private static final int DISPLAY_HEIGHT = 1080;
+    private static final int SNAPSHOT_TICK = 150;
+    private static final int RUN_TICKS = 600;
+
+    private Context context;
+    private JobScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        scheduler = new JobScheduler(0, 1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void restoredRun_continuesTickForTick() throws IOException {
+        for (int level = 1; level <= 2; level++) {
+            GameSimulation original = new GameSimulation(new GameGraphic(context, level, DISPLAY_WIDTH, DISPLAY_HEIGHT), scheduler);
+            InputRecorder recorder = new InputRecorder(level, DISPLAY_WIDTH, DISPLAY_HEIGHT);
+            for (int tick = 0; tick < SNAPSHOT_TICK; tick++) {
+                recorder.record(getInput(tick));
+                original.update(getInput(tick));
+            }
+            byte[] data = GameStateSnapshot.capture(original, recorder, new GhostRecorder());
+
+            GameStateSnapshot snapshot = GameStateSnapshot.read(data);
+            assertEquals(level, snapshot.level);
+            GameSimulation restored = new GameSimulation(new GameGraphic(context, snapshot.level,
+                    snapshot.displayWidth, snapshot.displayHeight), scheduler);
+            snapshot.restore(restored);
+            assertEquals(SNAPSHOT_TICK, restored.getTick());
+            assertArrayEquals(getState(original), getState(restored));
+
+            InputRecorder restoredRecorder = snapshot.getInputRecorder();
+            for (int tick = SNAPSHOT_TICK; tick < RUN_TICKS && !original.isFinished(); tick++) {
+                recorder.record(getInput(tick));
+                original.update(getInput(tick));
+                restoredRecorder.record(getInput(tick));
+                restored.update(getInput(tick));
+                assertArrayEquals("level " + level + " tick " + tick, getState(original), getState(restored));
+            }
+            assertEquals(original.getTick(), restored.getTick());
+            assertEquals(original.isFinished(), restored.isFinished());
+            // the continued recording plays the whole run
+            assertArrayEquals(recorder.finish(), restoredRecorder.finish());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsOtherVersion() throws IOException {
+        byte[] data = ByteBuffer.allocate(32).putInt(GameStateSnapshot.MAGIC).put((byte) (GameStateSnapshot.VERSION + 1)).array();
+        GameStateSnapshot.read(data);
+    }
+
+    /**
+     * run to the right and jump every second, so the player leaves the ground and the level scrolls
+     */
+    private static int getInput(int tick) {
+        int jumpTick = tick % GameSimulation.TICKS_PER_SECOND;
+        if (jumpTick == 0) return GameInput.RIGHT | GameInput.JUMP | GameInput.JUMP_PRESSED;
+        if (jumpTick < 15) return GameInput.RIGHT | GameInput.JUMP;
+        return GameInput.RIGHT;
+    }
+
+    private static byte[] getState(GameSimulation simulation) {
+        ByteBuffer out = ByteBuffer.allocate(1 << 16);
+        simulation.writeState(out);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+}
@@ -0,0 +1,76 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trip tests for the ghost trace
+ * @author agent
+ */
+public class GhostRecorderTest {
+
+    @Test
+    public void ghost_followsRecordedPositions() throws IOException {
+        int ticks = 3000;
+        GhostRecorder recorder = new GhostRecorder();
+        for (int tick = 0; tick <= ticks; tick++) {
+            recorder.record(tick, 600 + tick * 6, 800 - (tick % 40) * 3);
+        }
+        byte[] data = recorder.toByteArray(1, 1080, ticks);
+
+        // about one sample per 5 ticks, each well below the 8 bytes of two ints
+        assertEquals(ticks / GhostRecorder.SAMPLE_INTERVAL + 1, recorder.getSampleCount());
+        assertTrue("size " + data.length, data.length < recorder.getSampleCount() * 2);
+        assertEquals(ticks, GhostPlayer.readTicks(new ByteArrayInputStream(data)));
+
+        // recorded on a display 100 pixel higher, so the ghost is moved up
+        GhostPlayer player = new GhostPlayer(new ByteArrayInputStream(data), 980);
+        for (int tick = 0; tick <= ticks; tick++) {
+            player.update(tick);
+            assertTrue(player.isVisible());
+            assertEquals("tick " + tick, 600 + tick * 6, player.getX());
+            if (tick % GhostRecorder.SAMPLE_INTERVAL == 0) {
+                assertEquals("tick " + tick, 700 - (tick % 40) * 3, player.getY());
+            }
+        }
+        player.update(ticks + 1);
+        assertFalse(player.isVisible());
+        player.close();
+    }
+
+    @Test
+    public void readTicks_withoutGhost() {
+        assertEquals(Integer.MAX_VALUE, GhostPlayer.readTicks(null));
+        assertEquals(Integer.MAX_VALUE, GhostPlayer.readTicks(new ByteArrayInputStream(new byte[]{1, 2})));
+    }
+
+    @Test
+    public void writeState_continuedTraceEqualsUninterrupted() {
+        int ticks = 500;
+        GhostRecorder uninterrupted = new GhostRecorder();
+        GhostRecorder first = new GhostRecorder();
+        for (int tick = 0; tick <= ticks; tick++) {
+            uninterrupted.record(tick, 600 + tick * 6, 800 - (tick % 40) * 3);
+            if (tick < 213) {
+                first.record(tick, 600 + tick * 6, 800 - (tick % 40) * 3);
+            }
+        }
+
+        ByteBuffer state = ByteBuffer.allocate(first.getStateSize());
+        first.writeState(state);
+        state.flip();
+        GhostRecorder continued = new GhostRecorder(state);
+        for (int tick = 213; tick <= ticks; tick++) {
+            continued.record(tick, 600 + tick * 6, 800 - (tick % 40) * 3);
+        }
+
+        assertEquals(uninterrupted.getSampleCount(), continued.getSampleCount());
+        assertTrue(Arrays.equals(uninterrupted.toByteArray(1, 1080, ticks), continued.toByteArray(1, 1080, ticks)));
+    }
+}
@@ -0,0 +1,97 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.graphics.Bitmap;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares rendered frames with the golden images in src/test/golden, pixel by pixel
+ * run the unit tests with -PrecordGolden to write the golden images, e.g. after a wanted change of the look;
+ * a missing golden image fails like a different one, a frame which does not match is written to build/golden
+ * together with an image of the differences; the golden images are stored with Git LFS like all png files (.gitattributes)
+ * @author agent
+ */
+class GoldenImage {
+
+    // unit tests run in the app directory
+    private static final File GOLDEN_DIR = new File("src/test/golden");
+    private static final File OUTPUT_DIR = new File("build/golden");
+
+    // anti-aliased edges of text and scaled bitmaps may differ a little between platforms
+    private static final int CHANNEL_TOLERANCE = 8;
+    private static final double MAX_DIFFERENT_PIXELS = 0.001;
+
+    static boolean isRecording() {
+        return Boolean.getBoolean("golden.record");
+    }
+
+    /**
+     * @param name name of the golden image without extension
+     * @param frame the rendered frame
+     */
+    static void assertMatches(String name, Bitmap frame) throws IOException {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int[] actual = new int[width * height];
+        frame.getPixels(actual, 0, width, 0, 0, width, height);
+
+        File golden = new File(GOLDEN_DIR, name + ".png");
+        if (isRecording()) {
+            write(golden, actual, width, height);
+            return;
+        }
+        if (!golden.isFile()) {
+            write(new File(OUTPUT_DIR, name + ".png"), actual, width, height);
+            fail("no golden image " + golden + ", record it with -PrecordGolden, the frame is in " + OUTPUT_DIR);
+        }
+
+        BufferedImage expected = ImageIO.read(golden);
+        assertEquals(name + " width", expected.getWidth(), width);
+        assertEquals(name + " height", expected.getHeight(), height);
+
+        int[] differences = new int[width * height];
+        int different = 0;
+        int maxDifference = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int difference = difference(expected.getRGB(x, y), actual[y * width + x]);
+                maxDifference = Math.max(maxDifference, difference);
+                if (difference > CHANNEL_TOLERANCE) {
+                    different++;
+                    differences[y * width + x] = 0xFFFF0000;
+                }
+            }
+        }
+        if (different > MAX_DIFFERENT_PIXELS * width * height) {
+            write(new File(OUTPUT_DIR, name + ".png"), actual, width, height);
+            write(new File(OUTPUT_DIR, name + "-diff.png"), differences, width, height);
+            fail(name + ": " + different + " pixels differ from the golden image (max channel difference " + maxDifference
+                    + "), see " + OUTPUT_DIR);
+        }
+    }
+
+    /**
+     * @return the largest difference of a channel (alpha, red, green, blue) of two ARGB pixels
+     */
+    static int difference(int expected, int actual) {
+        int max = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            max = Math.max(max, Math.abs((expected >>> shift & 0xFF) - (actual >>> shift & 0xFF)));
+        }
+        return max;
+    }
+
+    private static void write(File file, int[] pixels, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        //noinspection ResultOfMethodCallIgnored
+        file.getParentFile().mkdirs();
+        ImageIO.write(image, "png", file);
+    }
+}
@@ -0,0 +1,92 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trip tests for the input recording format
+ * @author agent
+ */
+public class InputRecorderTest {
+
+    @Test
+    public void replay_returnsRecordedInputPerTick() throws IOException {
+        int[] inputs = new int[20_000];
+        Random random = new Random(42);
+        int held = 0;
+        for (int i = 0; i < inputs.length; i++) {
+            // inputs change rarely, like a finger on the buttons
+            if (random.nextInt(40) == 0) {
+                held = random.nextInt(4) == 0 ? (GameInput.JUMP | GameInput.JUMP_PRESSED) : random.nextInt(3);
+            } else {
+                held &= ~GameInput.JUMP_PRESSED;
+            }
+            inputs[i] = held;
+        }
+
+        InputRecorder recorder = new InputRecorder(2, 2344, 1080);
+        for (int input : inputs) {
+            recorder.record(input);
+        }
+        byte[] data = recorder.finish();
+
+        InputReplayer replayer = new InputReplayer(data);
+        assertEquals(2, replayer.getLevel());
+        assertEquals(2344, replayer.getDisplayWidth());
+        assertEquals(1080, replayer.getDisplayHeight());
+        for (int i = 0; i < inputs.length; i++) {
+            assertFalse(replayer.isFinished());
+            assertEquals("tick " + i, inputs[i], replayer.next());
+        }
+        assertTrue(replayer.isFinished());
+        assertEquals(0, replayer.next());
+
+        // a few bytes per input change instead of one per tick
+        assertTrue("size " + data.length, data.length < inputs.length / 4);
+    }
+
+    @Test
+    public void replay_ofEmptyRecordingIsFinished() throws IOException {
+        InputReplayer replayer = new InputReplayer(new InputRecorder(1, 100, 100).finish());
+        assertTrue(replayer.isFinished());
+        assertEquals(0, replayer.next());
+    }
+
+    @Test(expected = IOException.class)
+    public void replay_rejectsOtherData() throws IOException {
+        new InputReplayer(new byte[]{1, 2, 3, 4, 5});
+    }
+
+    @Test
+    public void writeState_continuedRecordingEqualsUninterrupted() {
+        int[] inputs = {0, 0, GameInput.RIGHT, GameInput.RIGHT, GameInput.JUMP | GameInput.JUMP_PRESSED, GameInput.JUMP, 0, 0, GameInput.LEFT};
+
+        InputRecorder uninterrupted = new InputRecorder(1, 1920, 1080);
+        for (int input : inputs) {
+            uninterrupted.record(input);
+        }
+
+        // interrupted in the middle of a held button
+        InputRecorder first = new InputRecorder(1, 1920, 1080);
+        for (int i = 0; i < 4; i++) {
+            first.record(inputs[i]);
+        }
+        ByteBuffer state = ByteBuffer.allocate(first.getStateSize());
+        first.writeState(state);
+        assertEquals(first.getStateSize(), state.position());
+        state.flip();
+
+        InputRecorder continued = new InputRecorder(state);
+        for (int i = 4; i < inputs.length; i++) {
+            continued.record(inputs[i]);
+        }
+        assertEquals(inputs.length, continued.getTicks());
+        assertTrue(Arrays.equals(uninterrupted.finish(), continued.finish()));
+    }
+}
@@ -0,0 +1,123 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import at.ac.tuwien.mmue_ll6.objects.EnemyObject;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the hand-made levels with the reachability analysis, so a broken level change fails here
+ * @author agent
+ */
+public class LevelAnalyzerTest {
+
+    // bitmap sizes used for the analysis, about the decoded sizes of the assets
+    private static final int DISPLAY_HEIGHT = 1080;
+    private static final int PLAYER_WIDTH = 100;
+    private static final int PLAYER_HEIGHT = 150;
+    private static final int PLATFORM_WIDTH = 800;
+    private static final int PLATFORM_HEIGHT = 100;
+    private static final int GOAL_WIDTH = 150;
+    private static final int GOAL_HEIGHT = 250;
+    private static final int ENEMY_WIDTH = 100;
+    private static final int ENEMY_HEIGHT = 100;
+    // the hand-made levels need about 10000 and 18000 states, a change of the graph which makes it much larger fails
+    private static final int MAX_STATES = 25_000;
+
+    private final LevelAnalyzer analyzer = new LevelAnalyzer(new JumpEnvelope(PLAYER_WIDTH, PLAYER_HEIGHT, DISPLAY_HEIGHT),
+            PLATFORM_WIDTH, PLATFORM_HEIGHT, GOAL_WIDTH, GOAL_HEIGHT, ENEMY_WIDTH, ENEMY_HEIGHT);
+
+    @Test
+    public void handMadeLevels_canBeCleared() throws IOException {
+        LevelLayout layout;
+        for (int level = 1; (layout = LevelLayoutTest.loadLevel(level)) != null; level++) {
+            LevelAnalyzer.Report report = analyzer.analyze(layout);
+
+            assertTrue(report.toString(), report.states <= MAX_STATES);
+            assertTrue(report.toString(), report.startPlatform >= 0);
+            assertTrue(report.toString(), report.isGoalReachable());
+            assertTrue(report.toString(), report.getUnreachablePlatforms().isEmpty());
+        }
+    }
+
+    @Test
+    public void analyze_findsBrokenLevel() {
+        // the third platform is too high, the goal is on it
+        int high = 150 + JumpEnvelope.getJumpHeight() + PLAYER_HEIGHT + 100;
+        LevelLayout layout = new LevelLayout(99, 600, 300, 1900, high + PLATFORM_HEIGHT,
+                new int[]{100, 1000, 1900},
+                new int[]{150, 150, high},
+                new int[0], new int[0], new EnemyObject.Behavior[0], new int[0], new int[0], new int[0]);
+        LevelAnalyzer.Report report = analyzer.analyze(layout);
+
+        assertEquals(0, report.startPlatform);
+        assertFalse(report.isGoalReachable());
+        assertEquals(1, report.getUnreachablePlatforms().size());
+        assertEquals(2, (int) report.getUnreachablePlatforms().get(0));
+    }
+
+    @Test
+    public void analyze_clearTimeFollowsDistance() {
+        // flat level, the player walks and jumps over small gaps to the goal 2000 pixel further
+        LevelLayout layout = new LevelLayout(99, 600, 300, 2700, 150 + PLATFORM_HEIGHT,
+                new int[]{100, 1000, 1900},
+                new int[]{150, 150, 150},
+                new int[0], new int[0], new EnemyObject.Behavior[0], new int[0], new int[0], new int[0]);
+        LevelAnalyzer.Report report = analyzer.analyze(layout);
+
+        assertTrue(report.isGoalReachable());
+        assertTrue(report.getUnreachablePlatforms().isEmpty());
+        // at most two steps per tick in the air, walking is always possible here
+        int distance = 2700 - (600 + PLAYER_WIDTH);
+        assertTrue(report.toString(), report.clearTicks >= distance / (2 * JumpEnvelope.STEP_X));
+        assertTrue(report.toString(), report.clearTicks <= distance / JumpEnvelope.STEP_X + 10);
+
+        assertTrue(report.hasSafeRun());
+        assertEquals(report.clearTicks, report.safeClearTicks);
+
+        // a wall of enemies from the bottom to the top of the display in the last gap can't be passed without getting hit
+        int[] wallX = new int[DISPLAY_HEIGHT / ENEMY_HEIGHT + 1];
+        int[] wallY = new int[wallX.length];
+        EnemyObject.Behavior[] wallBehavior = new EnemyObject.Behavior[wallX.length];
+        for (int i = 0; i < wallX.length; i++) {
+            wallX[i] = 1800;
+            wallY[i] = i * ENEMY_HEIGHT;
+            wallBehavior[i] = EnemyObject.Behavior.PATROL;
+        }
+        LevelLayout blocked = new LevelLayout(99, 600, 300, 2700, 150 + PLATFORM_HEIGHT,
+                new int[]{100, 1000, 1900},
+                new int[]{150, 150, 150},
+                wallX, wallY, wallBehavior, new int[wallX.length], new int[0], new int[0]);
+        LevelAnalyzer.Report blockedReport = analyzer.analyze(blocked);
+        assertTrue(blockedReport.isGoalReachable());
+        assertFalse(blockedReport.hasSafeRun());
+    }
+
+    /**
+     * prints the time of the analysis of each hand-made level, cold and after the JIT compiled the search
+     * only runs with -Pbenchmark
+     */
+    @Test
+    public void benchmark_handMadeLevels() throws IOException {
+        Assume.assumeTrue("benchmark, run it with -Pbenchmark", Boolean.getBoolean("benchmark"));
+
+        System.out.println("level  states  cold(ms)  warm(ms)");
+        LevelLayout layout;
+        for (int level = 1; (layout = LevelLayoutTest.loadLevel(level)) != null; level++) {
+            long start = System.nanoTime();
+            LevelAnalyzer.Report report = analyzer.analyze(layout);
+            double cold = (System.nanoTime() - start) / 1e6;
+            for (int i = 0; i < 10; i++) {
+                analyzer.analyze(layout);
+            }
+            start = System.nanoTime();
+            analyzer.analyze(layout);
+            double warm = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%5d  %6d  %8.1f  %8.1f%n", level, report.states, cold, warm);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import at.ac.tuwien.mmue_ll6.objects.EnemyObject;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the jump envelope and the generated levels
+ * @author agent
+ */
+public class LevelGeneratorTest {
+
+    private static final int DISPLAY_HEIGHT = 1080;
+    private static final int PLAYER_WIDTH = 100;
+    private static final int PLAYER_HEIGHT = 130;
+    private static final int PLATFORM_WIDTH = 500;
+    private static final int PLATFORM_HEIGHT = 60;
+    private static final int ENEMY_WIDTH = 90;
+    private static final int ENEMY_HEIGHT = 90;
+
+    private final JumpEnvelope envelope = new JumpEnvelope(PLAYER_WIDTH, PLAYER_HEIGHT, DISPLAY_HEIGHT);
+
+    @Test
+    public void canReach_followsTheJump() {
+        int[] from = platform(0, 900);
+
+        // the jump ends 400 pixel higher and falls diagonally, so far or high platforms can't be reached
+        // touching a platform from the side or from below stops the fall too
+        assertTrue(envelope.canReach(from, platform(PLATFORM_WIDTH + 60, 900), null, 0));
+        assertTrue(envelope.canReach(from, platform(PLATFORM_WIDTH + 500, 900), null, 0));
+        assertFalse(envelope.canReach(from, platform(PLATFORM_WIDTH + 800, 900), null, 0));
+        assertTrue(envelope.canReach(from, platform(PLATFORM_WIDTH + 60, 600), null, 0));
+        assertFalse(envelope.canReach(from, platform(PLATFORM_WIDTH + 60, 900 - JumpEnvelope.getJumpHeight() - PLAYER_HEIGHT - 100), null, 0));
+
+        // an enemy in the gap blocks the jump, an enemy deep in the gap does not
+        int[] to = platform(PLATFORM_WIDTH + 300, 900);
+        assertFalse(envelope.canReach(from, to, new int[]{PLATFORM_WIDTH + 50, 0, PLATFORM_WIDTH + 250, 1080}, 1));
+        assertTrue(envelope.canReach(from, to, new int[]{PLATFORM_WIDTH + 50, 1000, PLATFORM_WIDTH + 250, 1080}, 1));
+    }
+
+    @Test
+    public void generate_sameSeedSameLevel() {
+        LevelChunk[] a = generateLevel(1234);
+        LevelChunk[] b = generateLevel(1234);
+        LevelChunk[] c = generateLevel(1235);
+
+        boolean differs = false;
+        for (int i = 0; i < a.length; i++) {
+            assertTrue(Arrays.equals(a[i].platformX, b[i].platformX));
+            assertTrue(Arrays.equals(a[i].platformY, b[i].platformY));
+            assertTrue(Arrays.equals(a[i].enemyX, b[i].enemyX));
+            assertTrue(Arrays.equals(a[i].fireX, b[i].fireX));
+            differs |= !Arrays.equals(a[i].platformY, c[i].platformY);
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    public void generate_everyJumpCanBeMade() {
+        int enemies = 0;
+        for (int seed = LevelGenerator.FIRST_GENERATED_LEVEL; seed < LevelGenerator.FIRST_GENERATED_LEVEL + 50; seed++) {
+            LevelChunk[] chunks = generateLevel(seed);
+            int[] previous = null;
+
+            for (LevelChunk chunk : chunks) {
+                assertEquals(chunk.index == chunks.length - 1, chunk.hasGoal);
+
+                // all enemies of the chunk are obstacles for every jump in it
+                int[] obstacles = new int[LevelStream.ENEMIES * 4];
+                int obstacleCount = 0;
+                for (int i = 0; i < LevelStream.ENEMIES; i++) {
+                    if (chunk.enemyX[i] == LevelChunk.UNUSED) continue;
+                    EnemyObject.Behavior behavior = LevelGenerator.ENEMY_BEHAVIORS[i];
+                    int reach = EnemyObject.getReach(behavior, LevelGenerator.ENEMY_RANGES[i]);
+                    obstacles[obstacleCount * 4] = chunk.enemyX[i] - reach;
+                    obstacles[obstacleCount * 4 + 1] = chunk.enemyY[i] - ENEMY_HEIGHT - EnemyObject.getJumpHeight(behavior);
+                    obstacles[obstacleCount * 4 + 2] = chunk.enemyX[i] + ENEMY_WIDTH + reach;
+                    obstacles[obstacleCount * 4 + 3] = chunk.enemyY[i];
+                    obstacleCount++;
+                }
+                enemies += obstacleCount;
+
+                for (int i = 0; i < chunk.platformCount; i++) {
+                    int[] platform = platform(chunk.platformX[i], chunk.platformY[i]);
+                    assertTrue(platform[1] > 0 && platform[3] < DISPLAY_HEIGHT);
+                    if (previous != null) {
+                        assertTrue("seed " + seed + " chunk " + chunk.index + " platform " + i,
+                                envelope.canReach(previous, platform, obstacles, obstacleCount));
+                    }
+                    previous = platform;
+                }
+            }
+        }
+        // several enemies per level
+        assertTrue("enemies " + enemies, enemies > 50 * 3);
+    }
+
+    @Test
+    public void getDailyLevel_changesAtMidnight() {
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        long day = 24 * 60 * 60 * 1000L;
+        int level = LevelGenerator.getDailyLevel(20000 * day, utc);
+
+        assertTrue(LevelGenerator.isGenerated(level));
+        assertFalse(LevelGenerator.isGenerated(2));
+        assertEquals(level, LevelGenerator.getDailyLevel(20001 * day - 1, utc));
+        assertEquals(level + 1, LevelGenerator.getDailyLevel(20001 * day, utc));
+    }
+
+    /**
+     * generate all chunks of a level in order, like the level stream
+     */
+    private LevelChunk[] generateLevel(int seed) {
+        LevelGenerator generator = new LevelGenerator(seed, LevelGenerator.DAILY_CHUNKS, envelope,
+                PLATFORM_WIDTH, PLATFORM_HEIGHT, ENEMY_WIDTH, ENEMY_HEIGHT);
+        LevelChunk[] chunks = new LevelChunk[generator.getChunkCount()];
+        int exitX = 0;
+        int exitY = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = generator.generate(i, exitX, exitY);
+            exitX = chunks[i].exitX;
+            exitY = chunks[i].exitY;
+        }
+        return chunks;
+    }
+
+    private static int[] platform(int x, int y) {
+        return new int[]{x, y - PLATFORM_HEIGHT, x + PLATFORM_WIDTH, y};
+    }
+}
@@ -0,0 +1,88 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import at.ac.tuwien.mmue_ll6.util.LevelSource;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the format of the levels in the asset pack
+ * @author agent
+ */
+public class LevelLayoutTest {
+
+    // unit tests run in the app directory
+    private static final File LEVEL_DIR = new File("src/main/levels");
+
+    /**
+     * compile a level file like the asset pipeline and read it like the game
+     * @param level a hand-made level
+     * @return the layout or null if there is no such level file
+     */
+    static LevelLayout loadLevel(int level) throws IOException {
+        File file = new File(LEVEL_DIR, "level" + level + ".lvl");
+        if (!file.isFile()) return null;
+        return LevelLayout.read(ByteBuffer.wrap(LevelSource.compile(new String(Files.readAllBytes(file.toPath()), "UTF-8"))));
+    }
+
+    @Test
+    public void levelFiles_exist() throws IOException {
+        assertNotNull(loadLevel(1));
+        assertNotNull(loadLevel(2));
+        assertEquals(2, loadLevel(2).level);
+    }
+
+    @Test
+    public void read_returnsWrittenLayout() throws IOException {
+        for (int level = 1; loadLevel(level) != null; level++) {
+            assertSameLayout(loadLevel(level), LevelLayout.read(ByteBuffer.wrap(loadLevel(level).toBytes())));
+        }
+        LevelLayout crowded = LevelLayout.createCrowded(20, 10, 5);
+        assertSameLayout(crowded, LevelLayout.read(ByteBuffer.wrap(crowded.toBytes())));
+    }
+
+    @Test
+    public void read_rejectsBrokenData() throws IOException {
+        byte[] data = loadLevel(2).toBytes();
+
+        byte[] truncated = new byte[data.length - 4];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        assertRejected(truncated);
+
+        // a huge platform count must not allocate arrays
+        ByteBuffer count = ByteBuffer.wrap(data.clone());
+        count.putInt(5 * 4, Integer.MAX_VALUE);
+        assertRejected(count.array());
+    }
+
+    private static void assertRejected(byte[] data) {
+        try {
+            LevelLayout.read(ByteBuffer.wrap(data));
+            fail("broken layout was accepted");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    private static void assertSameLayout(LevelLayout expected, LevelLayout actual) {
+        assertEquals(expected.level, actual.level);
+        assertEquals(expected.playerX, actual.playerX);
+        assertEquals(expected.playerY, actual.playerY);
+        assertEquals(expected.goalX, actual.goalX);
+        assertEquals(expected.goalY, actual.goalY);
+        assertArrayEquals(expected.platformX, actual.platformX);
+        assertArrayEquals(expected.platformY, actual.platformY);
+        assertArrayEquals(expected.enemyX, actual.enemyX);
+        assertArrayEquals(expected.enemyY, actual.enemyY);
+        assertArrayEquals(expected.enemyBehavior, actual.enemyBehavior);
+        assertArrayEquals(expected.enemyRange, actual.enemyRange);
+        assertArrayEquals(expected.fireX, actual.fireX);
+        assertArrayEquals(expected.fireY, actual.fireY);
+    }
+}
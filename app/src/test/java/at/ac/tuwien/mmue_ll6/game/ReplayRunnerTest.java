@@ -0,0 +1,137 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.app.Application;
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+
+import at.ac.tuwien.mmue_ll6.util.Concurrency;
+import at.ac.tuwien.mmue_ll6.util.JobScheduler;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the verification of a won run by its recording, like before a score is saved
+ * @author agent
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 30, application = Application.class, qualifiers = "xhdpi")
+public class ReplayRunnerTest {
+
+    private static final int LEVEL = 1;
+    private static final int DISPLAY_WIDTH = 1920;
+    private static final int DISPLAY_HEIGHT = 1080;
+    private static final int MAX_TICKS = 5000;
+    // the score is saved after the verification, the player should not notice it
+    private static final long MAX_VERIFY_MILLIS = 100;
+
+    private Context context;
+    private JobScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        scheduler = new JobScheduler(0, 1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void verify_acceptsRunContinuedFromSnapshot() throws IOException {
+        int[] inputs = findWinningInputs();
+
+        // the run of the game, interrupted in the middle and continued in a new level like after the process was killed
+        GameSimulation simulation = new GameSimulation(new GameGraphic(context, LEVEL, DISPLAY_WIDTH, DISPLAY_HEIGHT), scheduler);
+        InputRecorder recorder = new InputRecorder(LEVEL, DISPLAY_WIDTH, DISPLAY_HEIGHT);
+        while (simulation.getTick() < 200) {
+            int input = inputs[simulation.getTick() % inputs.length];
+            recorder.record(input);
+            simulation.update(input);
+        }
+        assertFalse(simulation.isFinished());
+        GameStateSnapshot snapshot = GameStateSnapshot.read(GameStateSnapshot.capture(simulation, recorder, new GhostRecorder()));
+        simulation = new GameSimulation(new GameGraphic(context, snapshot.level, snapshot.displayWidth, snapshot.displayHeight), scheduler);
+        snapshot.restore(simulation);
+        recorder = snapshot.getInputRecorder();
+        while (!simulation.isFinished() && simulation.getTick() < MAX_TICKS) {
+            int input = inputs[simulation.getTick() % inputs.length];
+            recorder.record(input);
+            simulation.update(input);
+        }
+        assertTrue(simulation.isGameWin());
+
+        byte[] recording = recorder.finish();
+        int ticks = simulation.getTick();
+        int[] splits = simulation.getRunTimer().getSplits();
+
+        // the first verification also decodes the shared bitmaps, like the level was played before in the game
+        assertTrue(ReplayRunner.verify(context, recording, ticks, splits));
+        long start = System.nanoTime();
+        assertTrue(ReplayRunner.verify(context, recording, ticks, splits));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(ticks + " ticks verified in " + millis + " ms", millis < MAX_VERIFY_MILLIS);
+
+        // another run with the same recording is rejected
+        assertFalse(ReplayRunner.verify(context, recording, ticks + 1, splits));
+        int[] otherSplits = splits.clone();
+        if (otherSplits.length > 0) {
+            otherSplits[0]++;
+            assertFalse(ReplayRunner.verify(context, recording, ticks, otherSplits));
+        }
+    }
+
+    @Test
+    public void runHeadless_leavesCpuLaneToGame() throws IOException {
+        // a generated level, its chunks are placed while the player runs to the right
+        int level = LevelGenerator.FIRST_GENERATED_LEVEL + 7;
+        InputRecorder recorder = new InputRecorder(level, DISPLAY_WIDTH, DISPLAY_HEIGHT);
+        for (int tick = 0; tick < 3000; tick++) {
+            recorder.record(GameInput.RIGHT);
+        }
+        long submitted = Concurrency.getMetrics(Concurrency.Lane.CPU).submitted;
+        ReplayRunner.runHeadless(context, recorder.finish());
+        assertEquals(submitted, Concurrency.getMetrics(Concurrency.Lane.CPU).submitted);
+
+        // a headless level has no particles
+        assertNull(GameGraphic.createHeadless(context, level, DISPLAY_WIDTH, DISPLAY_HEIGHT).particleSystem);
+    }
+
+    @Test
+    public void verify_rejectsBrokenRecording() {
+        assertFalse(ReplayRunner.verify(context, new byte[]{1, 2, 3}, 100, new int[0]));
+    }
+
+    /**
+     * run to the right and jump again and again, the sizes of the bitmaps decide which jump length clears the level
+     * @return the inputs of one jump, repeated for the whole run
+     */
+    private int[] findWinningInputs() {
+        int period = 10;
+        for (int hold = period - 1; hold > 0; hold--) {
+            int[] inputs = new int[period];
+            inputs[0] = GameInput.RIGHT | GameInput.JUMP | GameInput.JUMP_PRESSED;
+            for (int i = 1; i < period; i++) {
+                inputs[i] = i < hold ? GameInput.RIGHT | GameInput.JUMP : GameInput.RIGHT;
+            }
+            GameSimulation simulation = new GameSimulation(GameGraphic.createHeadless(context, LEVEL, DISPLAY_WIDTH, DISPLAY_HEIGHT), scheduler);
+            while (!simulation.isFinished() && simulation.getTick() < MAX_TICKS) {
+                simulation.update(inputs[simulation.getTick() % inputs.length]);
+            }
+            if (simulation.isGameWin()) return inputs;
+        }
+        fail("no jump length clears level " + LEVEL);
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the tick-counted run timer and its splits
+ * @author agent
+ */
+public class RunTimerTest {
+
+    @Test
+    public void getSeconds_doesNotDrift() {
+        RunTimer timer = new RunTimer(new int[0]);
+        // one hour of ticks, adding up 0.02 would be off by now
+        for (int i = 0; i < 60 * 60 * GameSimulation.TICKS_PER_SECOND; i++) {
+            timer.tick();
+        }
+        assertEquals(3600.0, timer.getSeconds(), 0.0);
+        assertEquals(12.34, RunTimer.toSeconds(617), 0.0);
+    }
+
+    @Test
+    public void pass_recordsEveryCheckpointOnce() {
+        RunTimer timer = new RunTimer(new int[]{1000, 2000, 2100});
+        advance(timer, 10, 500);
+        advance(timer, 10, 1000);
+        // going back after dying does not pass the checkpoint again
+        advance(timer, 10, 600);
+        advance(timer, 10, 1500);
+        // two checkpoints in the same tick
+        advance(timer, 5, 2200);
+
+        assertEquals(45, timer.getTicks());
+        assertEquals(3, timer.getPassedCount());
+        assertArrayEquals(new int[]{11, 41, 41}, timer.getSplits());
+    }
+
+    @Test
+    public void writeState_roundTrip() throws IOException {
+        int[] checkpoints = {1000, 2000, 3000};
+        RunTimer timer = new RunTimer(checkpoints);
+        advance(timer, 30, 1200);
+        advance(timer, 7, 2500);
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        timer.writeState(buffer);
+        buffer.flip();
+        RunTimer restored = new RunTimer(checkpoints);
+        restored.readState(buffer);
+
+        assertEquals(timer.getTicks(), restored.getTicks());
+        assertArrayEquals(timer.getSplits(), restored.getSplits());
+        // the restored timer goes on like the original
+        advance(timer, 3, 3000);
+        advance(restored, 3, 3000);
+        assertArrayEquals(timer.getSplits(), restored.getSplits());
+    }
+
+    @Test(expected = IOException.class)
+    public void readState_rejectsTooManySplits() throws IOException {
+        RunTimer timer = new RunTimer(new int[]{1000, 2000});
+        advance(timer, 1, 5000);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        timer.writeState(buffer);
+        buffer.flip();
+
+        new RunTimer(new int[]{1000}).readState(buffer);
+    }
+
+    private static void advance(RunTimer timer, int ticks, int playerX) {
+        for (int i = 0; i < ticks; i++) {
+            timer.tick();
+            timer.pass(playerX);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.ExecutionException;
+
+import at.ac.tuwien.mmue_ll6.R;
+import at.ac.tuwien.mmue_ll6.activities.GameActivity;
+import at.ac.tuwien.mmue_ll6.persistence.SnapshotStorage;
+import at.ac.tuwien.mmue_ll6.util.Concurrency;
+import at.ac.tuwien.mmue_ll6.util.JobScheduler;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks when the game activity keeps the snapshot of a run: home and a killed process continue the run,
+ * back starts the level from the beginning
+ * @author agent
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 30, application = Application.class, qualifiers = "xhdpi")
+public class SnapshotLifecycleTest {
+
+    private static final int LEVEL = 1;
+
+    private Context context;
+
+    @Before
+    public void setUp() throws Exception {
+        context = ApplicationProvider.getApplicationContext();
+        // the last pause of a run which was interrupted
+        JobScheduler scheduler = new JobScheduler(0, 1, 1);
+        GameSimulation simulation = new GameSimulation(new GameGraphic(context, LEVEL, 1920, 1080), scheduler);
+        InputRecorder recorder = new InputRecorder(LEVEL, 1920, 1080);
+        for (int tick = 0; tick < 100; tick++) {
+            recorder.record(GameInput.RIGHT);
+            simulation.update(GameInput.RIGHT);
+        }
+        SnapshotStorage.write(context, LEVEL, GameStateSnapshot.capture(simulation, recorder, new GhostRecorder()));
+        scheduler.shutdown();
+    }
+
+    @After
+    public void tearDown() {
+        SnapshotStorage.delete(context, LEVEL);
+    }
+
+    @Test
+    public void leftWithHome_processKilled_runContinues() throws Exception {
+        ActivityController<GameActivity> controller = start();
+        assertTrue(getView(controller).isRestoringRun());
+
+        // home: paused and stopped, then finished because the activity keeps no history
+        controller.pause().stop();
+        controller.get().finish();
+        controller.destroy();
+        waitForIo();
+        assertNotNull(SnapshotStorage.read(context, LEVEL));
+
+        // the process was killed, the level is started again without a saved instance state
+        assertTrue(getView(start()).isRestoringRun());
+    }
+
+    @Test
+    public void leftWithBack_levelStartsFromTheBeginning() throws Exception {
+        ActivityController<GameActivity> controller = start();
+        assertTrue(getView(controller).isRestoringRun());
+
+        controller.get().onBackPressed();
+        controller.pause().stop().destroy();
+        waitForIo();
+        assertNull(SnapshotStorage.read(context, LEVEL));
+
+        assertFalse(getView(start()).isRestoringRun());
+    }
+
+    private ActivityController<GameActivity> start() {
+        Intent intent = new Intent(context, GameActivity.class).putExtra("level", LEVEL);
+        return Robolectric.buildActivity(GameActivity.class, intent).setup();
+    }
+
+    private static GameSurfaceView getView(ActivityController<GameActivity> controller) {
+        return controller.get().findViewById(R.id.gameSurfaceView);
+    }
+
+    /**
+     * the IO lane has one thread and runs a lower priority after the snapshot writes and deletes
+     */
+    private static void waitForIo() throws ExecutionException, InterruptedException {
+        Concurrency.executeAsync(Concurrency.Lane.IO, Concurrency.PRIORITY_LOW, null, () -> { }).get();
+    }
+}
@@ -0,0 +1,82 @@
+package at.ac.tuwien.mmue_ll6.game;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import at.ac.tuwien.mmue_ll6.util.AllocationTests;
+import at.ac.tuwien.mmue_ll6.util.JobScheduler;
+import at.ac.tuwien.mmue_ll6.util.JvmAllocationCounter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fails if the parts of a game loop tick which run without a level allocate in the steady state,
+ * the whole update and draw is checked by GameLoopAllocationTest and on a device by GameRendererAllocationTest
+ * @author agent
+ */
+@Category(AllocationTests.class)
+public class SteadyStateAllocationTest {
+
+    private static final int TICKS = 2000;
+
+    private JobScheduler scheduler;
+    private JvmAllocationCounter counter;
+
+    @Before
+    public void setUp() {
+        scheduler = new JobScheduler(2, 64, 64);
+        counter = new JvmAllocationCounter();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void tick_doesNotAllocate() {
+        GameInput input = new GameInput();
+        InputRecorder recorder = new InputRecorder(1, 1920, 1080);
+        RunTimer timer = new RunTimer(new int[]{1000, 2000, 3000});
+        int[] playerX = {0};
+
+        input.press(GameInput.RIGHT);
+        long bytes = counter.measure(() -> {
+            recorder.record(input.sample());
+            timer.tick();
+            timer.pass(playerX[0]++);
+        }, TICKS);
+        assertEquals(0, bytes);
+    }
+
+    @Test
+    public void snapshotHandover_doesNotAllocate() {
+        SnapshotBuffer buffer = new SnapshotBuffer();
+        long bytes = counter.measure(() -> {
+            RenderSnapshot snapshot = buffer.getWriteSnapshot();
+            snapshot.ensureCapacity(100, 50, 20, 4096);
+            snapshot.platformCount = 100;
+            snapshot.currentTime += GameSimulation.TICK_SECONDS;
+            buffer.publish();
+            assertTrue(buffer.hasNewSnapshot());
+            buffer.acquireLatest();
+        }, TICKS);
+        assertEquals(0, bytes);
+    }
+
+    @Test
+    public void parallelFor_doesNotAllocate() {
+        double[] x = new double[1000];
+        // created once like the jobs of the simulation
+        JobScheduler.RangeJob job = (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                x[i] += 1;
+            }
+        };
+        long bytes = counter.measure(() -> scheduler.parallelFor(x.length, job), TICKS);
+        assertEquals(0, bytes);
+        assertTrue(x[999] > TICKS);
+    }
+}
@@ -0,0 +1,68 @@
+package at.ac.tuwien.mmue_ll6.objects;
+
+import android.app.Application;
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import at.ac.tuwien.mmue_ll6.game.GameSimulation;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the movement of the enemies, Robolectric provides the bitmap
+ * @author agent
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 30, application = Application.class)
+public class EnemyObjectTest {
+
+    private static final int SPAWN_X = 1000;
+    private static final int SPAWN_Y = 800;
+    // far away, so the enemy only patrols
+    private static final int PLAYER_X = -100_000;
+
+    private static EnemyObject createEnemy(EnemyObject.Behavior behavior, int patrolRange) {
+        return new EnemyObject(Bitmap.createBitmap(40, 60, Bitmap.Config.ARGB_8888), SPAWN_X, SPAWN_Y, behavior, patrolRange);
+    }
+
+    @Test
+    public void patrol_walksAsFarLeftAsRight() {
+        // 80 pixel/s are 1.6 pixel per tick, the fraction must not be lost to one side
+        EnemyObject enemy = createEnemy(EnemyObject.Behavior.PATROL, 100);
+        int minLeft = SPAWN_X;
+        int maxLeft = SPAWN_X;
+        for (int tick = 0; tick < 10 * GameSimulation.TICKS_PER_SECOND; tick++) {
+            enemy.think(GameSimulation.TICK_SECONDS, PLAYER_X, SPAWN_Y);
+            minLeft = Math.min(minLeft, enemy.getRectTarget().left);
+            maxLeft = Math.max(maxLeft, enemy.getRectTarget().left);
+        }
+        assertEquals(maxLeft - SPAWN_X, SPAWN_X - minLeft);
+        assertTrue(maxLeft - SPAWN_X >= 100);
+        assertTrue(maxLeft - SPAWN_X <= 102);
+    }
+
+    @Test
+    public void patrol_walksAsFastLeftAsRight() {
+        EnemyObject enemy = createEnemy(EnemyObject.Behavior.PATROL, 100);
+        int[] pixels = new int[2];
+        int[] ticks = new int[2];
+        for (int tick = 0; tick < 10 * GameSimulation.TICKS_PER_SECOND; tick++) {
+            int left = enemy.getRectTarget().left;
+            enemy.think(GameSimulation.TICK_SECONDS, PLAYER_X, SPAWN_Y);
+            int delta = enemy.getRectTarget().left - left;
+            if (delta != 0) {
+                int side = delta > 0 ? 1 : 0;
+                pixels[side] += Math.abs(delta);
+                ticks[side]++;
+            }
+            assertEquals(SPAWN_Y, enemy.getRectTarget().bottom);
+        }
+        double speed = 80.0 / GameSimulation.TICKS_PER_SECOND;
+        assertEquals(speed, pixels[0] / (double) ticks[0], 0.05);
+        assertEquals(speed, pixels[1] / (double) ticks[1], 0.05);
+    }
+}
@@ -0,0 +1,101 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Score table in memory for the unit tests, sorted by level, time and id like the index
+ * ids are generated like the auto-generated primary key
+ * @author agent
+ */
+class InMemoryScoreDao implements ScoreDao {
+
+    final ArrayList<Score> scores = new ArrayList<>();
+    // number of page queries, to check how many pages were read
+    int queries;
+    private int lastId;
+
+    @Override
+    public void insert(Score score) {
+        if (score.id == 0) {
+            score.id = ++lastId;
+        }
+        lastId = Math.max(lastId, score.id);
+
+        int i = scores.size();
+        while (i > 0 && compare(scores.get(i - 1), score) > 0) i--;
+        scores.add(i, score);
+    }
+
+    @Override
+    public void insertAll(List<Score> scores) {
+        for (Score score : scores) insert(score);
+    }
+
+    @Override
+    public List<Score> selectAllScores(int level) {
+        return selectFirstPage(level, 5);
+    }
+
+    @Override
+    public List<Score> selectFirstPage(int level, int pageSize) {
+        return selectPageAfter(level, Double.NEGATIVE_INFINITY, 0, pageSize);
+    }
+
+    @Override
+    public List<Score> selectPageAfter(int level, double afterTime, int afterId, int pageSize) {
+        queries++;
+        ArrayList<Score> page = new ArrayList<>();
+        for (Score s : scores) {
+            if (page.size() == pageSize) break;
+            if (s.level != level) continue;
+            if (s.time > afterTime || (s.time == afterTime && s.id > afterId)) page.add(s);
+        }
+        return page;
+    }
+
+    @Override
+    public List<Score> selectPageFrom(int level, double fromTime, int offset, int pageSize) {
+        queries++;
+        ArrayList<Score> page = new ArrayList<>();
+        for (Score s : scores) {
+            if (page.size() == pageSize) break;
+            if (s.level != level || s.time < fromTime) continue;
+            if (offset > 0) {
+                offset--;
+            } else {
+                page.add(s);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public int countScores(int level, double time) {
+        int count = 0;
+        for (Score s : scores) {
+            if (s.level == level && s.time == time) count++;
+        }
+        return count;
+    }
+
+    @Override
+    public List<Integer> selectLevels() {
+        ArrayList<Integer> levels = new ArrayList<>();
+        for (Score s : scores) {
+            if (!levels.contains(s.level)) levels.add(s.level);
+        }
+        return levels;
+    }
+
+    @Override
+    public void deleteAllScores() {
+        scores.clear();
+    }
+
+    private static int compare(Score a, Score b) {
+        if (a.level != b.level) return Integer.compare(a.level, b.level);
+        if (a.time != b.time) return Double.compare(a.time, b.time);
+        return Integer.compare(a.id, b.id);
+    }
+}
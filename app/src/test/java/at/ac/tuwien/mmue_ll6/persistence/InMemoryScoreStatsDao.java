@@ -0,0 +1,66 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import java.util.HashMap;
+
+/**
+ * Aggregate tables in memory for the unit tests, with the same updates as the queries of ScoreStatsDao
+ * @author agent
+ */
+class InMemoryScoreStatsDao implements ScoreStatsDao {
+
+    final HashMap<Integer, ScoreStats> stats = new HashMap<>();
+    // bucket counts per level, a missing row counts as 0
+    final HashMap<Integer, int[]> histograms = new HashMap<>();
+
+    @Override
+    public void insertStatsIfMissing(int level) {
+        if (!stats.containsKey(level)) stats.put(level, new ScoreStats(level));
+    }
+
+    @Override
+    public void addScore(int level, double time, double weight) {
+        ScoreStats s = stats.get(level);
+        if (s == null) return;
+        s.minTime = s.scoreCount == 0 ? time : Math.min(s.minTime, time);
+        s.emaTime = s.scoreCount == 0 ? time : s.emaTime + weight * (time - s.emaTime);
+        s.scoreCount++;
+        s.sumTime += time;
+        s.lastTime = time;
+    }
+
+    @Override
+    public void addAttempt(int level) {
+        ScoreStats s = stats.get(level);
+        if (s != null) s.attempts++;
+    }
+
+    @Override
+    public void insertBucketIfMissing(int level, int bucket) {
+        if (!histograms.containsKey(level)) histograms.put(level, new int[ScoreStatistics.MAX_BUCKET + 1]);
+    }
+
+    @Override
+    public void addToBucket(int level, int bucket) {
+        int[] buckets = histograms.get(level);
+        if (buckets != null) buckets[bucket]++;
+    }
+
+    @Override
+    public ScoreStats selectStats(int level) {
+        return stats.get(level);
+    }
+
+    @Override
+    public int countBelowBucket(int level, int bucket) {
+        int[] buckets = histograms.get(level);
+        int count = 0;
+        for (int i = 0; buckets != null && i < bucket; i++) count += buckets[i];
+        return count;
+    }
+
+    @Override
+    public int countInBucket(int level, int bucket) {
+        int[] buckets = histograms.get(level);
+        return buckets != null ? buckets[bucket] : 0;
+    }
+}
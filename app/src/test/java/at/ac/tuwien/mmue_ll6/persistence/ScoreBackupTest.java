@@ -0,0 +1,177 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the binary backup format
+ * @author agent
+ */
+public class ScoreBackupTest {
+
+    private static class CollectingSink implements ScoreBackup.Sink {
+        final ArrayList<Score> scores = new ArrayList<>();
+        int blocks;
+        int largestBlock;
+        int replayLevel;
+        byte[] replay;
+
+        @Override public void onScores(List<Score> block) {
+            blocks++;
+            largestBlock = Math.max(largestBlock, block.size());
+            scores.addAll(block);
+        }
+        @Override public void onReplay(int level, byte[] data) {
+            replayLevel = level;
+            replay = data;
+        }
+        @Override public void onGhost(int level, byte[] data) { fail("no ghost was written");}
+    }
+
+    private static CollectingSink read(File file) throws IOException {
+        CollectingSink sink = new CollectingSink();
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            ScoreBackup.read(channel, sink);
+        }
+        return sink;
+    }
+
+    @Test
+    public void roundTrip_keepsAllScoresInBlocks() throws IOException {
+        InMemoryScoreDao dao = new InMemoryScoreDao();
+        for (int level = 1; level <= 2; level++) {
+            for (int i = 0; i < ScoreBackup.BLOCK_SIZE * 3 + 7; i++) {
+                dao.insert(new Score(20 + i / 5 * 0.25, level));
+            }
+        }
+
+        File file = File.createTempFile("scores", ".llbk");
+        file.deleteOnExit();
+        int written;
+        try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(1024 * 16);
+            ScoreBackup.writeHeader(channel, buffer);
+            written = ScoreBackup.writeScores(channel, buffer, dao);
+            ScoreBackup.writeEnd(channel, buffer);
+        }
+        assertEquals(dao.scores.size(), written);
+
+        CollectingSink sink = read(file);
+        assertEquals(dao.scores.size(), sink.scores.size());
+        assertEquals(ScoreBackup.BLOCK_SIZE, sink.largestBlock);
+        assertEquals(8, sink.blocks);
+        for (int i = 0; i < dao.scores.size(); i++) {
+            assertEquals(dao.scores.get(i).level, sink.scores.get(i).level);
+            assertEquals(dao.scores.get(i).time, sink.scores.get(i).time, 0);
+        }
+    }
+
+    @Test
+    public void importTwice_addsScoresOnce() throws IOException {
+        InMemoryScoreDao dao = new InMemoryScoreDao();
+        // three runs with the same time each, the scores with the slowest time span the end of the first block
+        int slowest = 30 + (ScoreBackup.BLOCK_SIZE - 10) / 3;
+        for (int i = 0; i < ScoreBackup.BLOCK_SIZE + 20; i++) {
+            dao.insert(new Score(Math.min(30 + i / 3, slowest), 1));
+        }
+        dao.insert(new Score(25, 2));
+        File file = writeBackup(dao);
+
+        InMemoryScoreDao imported = new InMemoryScoreDao();
+        imported.insert(new Score(25, 2));
+        assertEquals(dao.scores.size() - 1, importScores(file, imported));
+        assertEquals(dao.scores.size(), imported.scores.size());
+        assertEquals(dao.countScores(1, slowest), imported.countScores(1, slowest));
+
+        assertEquals(0, importScores(file, imported));
+        assertEquals(dao.scores.size(), imported.scores.size());
+    }
+
+    private static File writeBackup(ScoreDao dao) throws IOException {
+        File file = File.createTempFile("scores", ".llbk");
+        file.deleteOnExit();
+        try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(1024 * 16);
+            ScoreBackup.writeHeader(channel, buffer);
+            ScoreBackup.writeScores(channel, buffer, dao);
+            ScoreBackup.writeEnd(channel, buffer);
+        }
+        return file;
+    }
+
+    /**
+     * import the scores of a backup like ScoreBackup.importFrom()
+     * @return the number of added scores
+     */
+    private static int importScores(File file, ScoreDao dao) throws IOException {
+        ScoreBackup.NewScoreFilter filter = new ScoreBackup.NewScoreFilter(dao);
+        int[] count = new int[1];
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            ScoreBackup.read(channel, new CollectingSink() {
+                @Override public void onScores(List<Score> block) {
+                    List<Score> added = filter.filter(block);
+                    dao.insertAll(added);
+                    count[0] += added.size();
+                }
+            });
+        }
+        return count[0];
+    }
+
+    @Test
+    public void read_skipsUnknownRecordsAndCopiesFiles() throws IOException {
+        File replay = File.createTempFile("level2", ".rec");
+        replay.deleteOnExit();
+        byte[] recording = new byte[100_000];
+        for (int i = 0; i < recording.length; i++) recording[i] = (byte) (i * 31);
+        try (FileOutputStream out = new FileOutputStream(replay)) {
+            out.write(recording);
+        }
+
+        File file = File.createTempFile("files", ".llbk");
+        file.deleteOnExit();
+        try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(1024);
+            ScoreBackup.writeHeader(channel, buffer);
+            // a record of a newer version
+            buffer.put((byte) 42);
+            buffer.putInt(3);
+            buffer.put(new byte[] {1, 2, 3});
+            ScoreBackup.writeFile(channel, buffer, ScoreBackup.RECORD_REPLAY, 2, replay);
+            ScoreBackup.writeEnd(channel, buffer);
+        }
+
+        CollectingSink sink = read(file);
+        assertTrue(sink.scores.isEmpty());
+        assertEquals(2, sink.replayLevel);
+        assertTrue(Arrays.equals(recording, sink.replay));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsTruncatedFile() throws IOException {
+        File file = File.createTempFile("truncated", ".llbk");
+        file.deleteOnExit();
+        try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(1024);
+            ScoreBackup.writeHeader(channel, buffer);
+            buffer.put(ScoreBackup.RECORD_SCORES);
+            buffer.putInt(4 + 12);
+            buffer.putInt(1);
+            buffer.putInt(1);
+            buffer.flip();
+            channel.write(buffer);
+        }
+        read(file);
+    }
+}
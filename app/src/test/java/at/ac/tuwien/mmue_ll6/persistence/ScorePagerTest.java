@@ -0,0 +1,106 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the keyset pagination of the scores
+ * @author agent
+ */
+public class ScorePagerTest {
+
+    private static InMemoryScoreDao createDao(int count) {
+        InMemoryScoreDao dao = new InMemoryScoreDao();
+        // many equal times, so the id has to break the ties
+        for (int i = 0; i < count; i++) {
+            dao.insert(new Score(20 + i / 7, 1));
+        }
+        return dao;
+    }
+
+    @Test
+    public void loadPage_visitsEveryScoreOnceInOrder() {
+        int count = ScorePager.PAGE_SIZE * 9 + 13;
+        InMemoryScoreDao dao = createDao(count);
+        ScorePager pager = new ScorePager(dao, 1);
+
+        int expectedId = 1;
+        for (int page = 0; page * ScorePager.PAGE_SIZE < count; page++) {
+            for (Score score : pager.loadPage(page)) {
+                assertEquals(expectedId++, score.id);
+            }
+        }
+        assertEquals(count + 1, expectedId);
+    }
+
+    @Test
+    public void loadPage_jumpReadsPagesInBetweenOnce() {
+        InMemoryScoreDao dao = createDao(ScorePager.PAGE_SIZE * 20);
+        ScorePager pager = new ScorePager(dao, 1);
+
+        List<Score> page12 = pager.loadPage(12);
+        assertEquals(12 * ScorePager.PAGE_SIZE + 1, page12.get(0).id);
+        assertEquals(13, dao.queries);
+
+        // the keys of the pages before are known now
+        dao.queries = 0;
+        List<Score> page5 = pager.loadPage(5);
+        assertEquals(5 * ScorePager.PAGE_SIZE + 1, page5.get(0).id);
+        assertEquals(1, dao.queries);
+
+        // cached
+        assertSame(page5, pager.getPage(5));
+        pager.loadPage(5);
+        assertEquals(1, dao.queries);
+    }
+
+    @Test
+    public void loadPage_deepJumpSeeksThroughHistogram() {
+        // 100000 scores over 300 seconds, ties within the buckets and on their boundaries
+        int count = ScorePager.PAGE_SIZE * 2000;
+        InMemoryScoreDao dao = new InMemoryScoreDao();
+        InMemoryScoreStatsDao statsDao = new InMemoryScoreStatsDao();
+        ArrayList<Score> scores = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            scores.add(new Score(20 + (i / 7) * 0.02, 1));
+        }
+        dao.insertAll(scores);
+        ScoreStatistics.addScores(statsDao, scores);
+        ScorePager pager = new ScorePager(dao, statsDao, 1);
+
+        // one query of the score table instead of 1001
+        List<Score> page1000 = pager.loadPage(1000);
+        assertEquals(ScorePager.PAGE_SIZE, page1000.size());
+        assertEquals(1000 * ScorePager.PAGE_SIZE + 1, page1000.get(0).id);
+        assertEquals(1, dao.queries);
+
+        // the next page continues after the key of the seeked one, the page before is seeked again
+        dao.queries = 0;
+        assertEquals(1001 * ScorePager.PAGE_SIZE + 1, pager.loadPage(1001).get(0).id);
+        assertEquals(999 * ScorePager.PAGE_SIZE + 1, pager.loadPage(999).get(0).id);
+        assertEquals(2, dao.queries);
+
+        // every seeked page is the same as the page read with the keys of all pages before
+        for (int page = 1; page < 2000; page += 37) {
+            List<Score> seeked = new ScorePager(dao, statsDao, 1).loadPage(page);
+            assertEquals(page * ScorePager.PAGE_SIZE + 1, seeked.get(0).id);
+            assertEquals((page + 1) * ScorePager.PAGE_SIZE, seeked.get(seeked.size() - 1).id);
+        }
+        assertTrue(new ScorePager(dao, statsDao, 1).loadPage(2000).isEmpty());
+    }
+
+    @Test
+    public void getPage_keepsOnlyFewPages() {
+        InMemoryScoreDao dao = createDao(ScorePager.PAGE_SIZE * 40);
+        ScorePager pager = new ScorePager(dao, 1);
+        for (int page = 0; page < 40; page++) {
+            pager.loadPage(page);
+        }
+        assertNull(pager.getPage(0));
+        assertNotNull(pager.getPage(39));
+    }
+}
@@ -0,0 +1,52 @@
+package at.ac.tuwien.mmue_ll6.persistence;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the percentile calculation on the score histogram
+ * @author agent
+ */
+public class ScoreStatisticsTest {
+
+    private static InMemoryScoreStatsDao createDao(double... times) {
+        InMemoryScoreStatsDao dao = new InMemoryScoreStatsDao();
+        ArrayList<Score> scores = new ArrayList<>();
+        for (double time : times) {
+            scores.add(new Score(time, 1));
+        }
+        ScoreStatistics.addScores(dao, scores);
+        return dao;
+    }
+
+    @Test
+    public void getBucket_capsSlowTimes() {
+        assertEquals(0, ScoreStatistics.getBucket(0.5));
+        assertEquals(12, ScoreStatistics.getBucket(12.99));
+        assertEquals(ScoreStatistics.MAX_BUCKET, ScoreStatistics.getBucket(10_000));
+    }
+
+    @Test
+    public void getPercentile_matchesSortedRank() {
+        // 1001 runs spread evenly from 20 to 70 seconds
+        int count = 1001;
+        double[] times = new double[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = 20 + i * 0.05;
+        }
+        InMemoryScoreStatsDao dao = createDao(times);
+
+        assertEquals(100, ScoreStatistics.getPercentile(dao, 1, 20, count), 0.5);
+        assertEquals(50, ScoreStatistics.getPercentile(dao, 1, 45, count), 0.5);
+        assertEquals(0, ScoreStatistics.getPercentile(dao, 1, 70, count), 0.5);
+    }
+
+    @Test
+    public void getPercentile_singleRun() {
+        InMemoryScoreStatsDao dao = createDao(33.3);
+        assertEquals(100, ScoreStatistics.getPercentile(dao, 1, 33.3, 1), 0);
+    }
+}
@@ -0,0 +1,9 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+/**
+ * JUnit category of the tests which count allocations with the JvmAllocationCounter
+ * they run in the allocationTest task without escape analysis, the other unit tests run without them
+ * @author agent
+ */
+public interface AllocationTests {
+}
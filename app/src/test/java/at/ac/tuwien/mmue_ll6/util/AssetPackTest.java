@@ -0,0 +1,105 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for writing and mapping the asset pack
+ * @author agent
+ */
+public class AssetPackTest {
+
+    @Test
+    public void map_returnsEntriesWithoutCopying() throws IOException {
+        AssetPackWriter writer = new AssetPackWriter();
+        writer.add(AssetPack.getImageName("player", 320), AssetPack.TYPE_IMAGE, new byte[]{1, 2, 3});
+        writer.add(AssetPack.getLevelName(1), AssetPack.TYPE_LEVEL, new byte[]{4, 5, 6, 7, 8});
+        writer.add("empty", AssetPack.TYPE_DATA, new byte[0]);
+
+        File file = File.createTempFile("assets", ".pack");
+        try {
+            writer.write(file, 42);
+            AssetPack pack = AssetPack.map(file);
+
+            assertEquals(42, pack.getContentVersion());
+            assertEquals(3, pack.size());
+            assertEquals(AssetPack.TYPE_IMAGE, pack.getType("image/320/player"));
+            assertEquals(-1, pack.getType("image/320/enemy"));
+            assertNull(pack.get("image/320/enemy"));
+
+            ByteBuffer level = pack.get("level/1");
+            assertEquals(5, level.remaining());
+            assertTrue(level.isDirect());
+            assertTrue(level.isReadOnly());
+            // reading one view does not move the others
+            assertEquals(4, level.get());
+            assertEquals(4, pack.get("level/1").get(0));
+            byte[] image = new byte[3];
+            pack.get("image/320/player").get(image);
+            assertArrayEquals(new byte[]{1, 2, 3}, image);
+            assertEquals(0, pack.get("empty").remaining());
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    @Test
+    public void toByteArray_alignsEntries() throws IOException {
+        AssetPackWriter writer = new AssetPackWriter();
+        writer.add("a", AssetPack.TYPE_DATA, new byte[]{1});
+        writer.add("bc", AssetPack.TYPE_DATA, new byte[]{2, 3});
+        byte[] data = writer.toByteArray(0);
+
+        assertEquals(0, data.length % AssetPack.ALIGNMENT);
+        AssetPack pack = new AssetPack(ByteBuffer.wrap(data));
+        assertEquals(1, pack.get("a").get(0));
+        assertEquals(3, pack.get("bc").get(1));
+    }
+
+    @Test
+    public void constructor_rejectsBrokenPacks() throws IOException {
+        AssetPackWriter writer = new AssetPackWriter();
+        writer.add("a", AssetPack.TYPE_DATA, new byte[16]);
+        byte[] data = writer.toByteArray(0);
+
+        assertRejected(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        byte[] truncated = new byte[data.length - 20];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        assertRejected(truncated);
+
+        byte[] version = data.clone();
+        version[7] = 99;
+        assertRejected(version);
+    }
+
+    @Test
+    public void getDensityBucket_neverScalesUp() {
+        assertEquals(160, AssetPack.getDensityBucket(120));
+        assertEquals(320, AssetPack.getDensityBucket(320));
+        assertEquals(480, AssetPack.getDensityBucket(420));
+        assertEquals(640, AssetPack.getDensityBucket(800));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_rejectsDuplicateNames() {
+        AssetPackWriter writer = new AssetPackWriter();
+        writer.add("a", AssetPack.TYPE_DATA, new byte[1]);
+        writer.add("a", AssetPack.TYPE_DATA, new byte[1]);
+    }
+
+    private static void assertRejected(byte[] data) {
+        try {
+            new AssetPack(ByteBuffer.wrap(data));
+            fail("broken pack was accepted");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+}
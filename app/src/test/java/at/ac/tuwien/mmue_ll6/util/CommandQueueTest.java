@@ -0,0 +1,63 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the lock-free command queue of the audio thread
+ * @author agent
+ */
+public class CommandQueueTest {
+
+    @Test
+    public void offer_failsWhenFullAndKeepsOrder() {
+        CommandQueue queue = new CommandQueue(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+
+        assertEquals(0, queue.poll());
+        assertTrue(queue.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, queue.poll());
+        }
+        assertEquals(CommandQueue.EMPTY, queue.poll());
+    }
+
+    @Test
+    public void offer_manyProducersLoseNothing() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 100_000;
+        CommandQueue queue = new CommandQueue(64);
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!queue.offer(producer << 20 | i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        // every producer's commands arrive in the order it sent them
+        int[] next = new int[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            int command = queue.poll();
+            if (command == CommandQueue.EMPTY) continue;
+            int producer = command >> 20;
+            assertEquals(next[producer]++, command & 0xFFFFF);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(CommandQueue.EMPTY, queue.poll());
+    }
+}
@@ -0,0 +1,190 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests and crossover benchmark for the JobScheduler
+ * @author agent
+ */
+public class JobSchedulerTest {
+
+    private static final int WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    private JobScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new JobScheduler(WORKERS, JobScheduler.DEFAULT_THRESHOLD, JobScheduler.DEFAULT_CHUNK_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void parallelFor_visitsEveryIndexOnce() {
+        int[] visits = new int[100_000];
+        for (int run = 0; run < 20; run++) {
+            scheduler.parallelFor(visits.length, (chunk, from, to) -> {
+                for (int i = from; i < to; i++) {
+                    visits[i]++;
+                }
+            });
+        }
+        for (int v : visits) {
+            assertEquals(20, v);
+        }
+    }
+
+    @Test
+    public void parallelFor_belowThresholdRunsOnCallingThread() {
+        Thread caller = Thread.currentThread();
+        boolean[] sameThread = {true};
+        scheduler.parallelFor(JobScheduler.DEFAULT_THRESHOLD - 1, (chunk, from, to) -> {
+            sameThread[0] &= Thread.currentThread() == caller;
+            assertEquals(0, chunk);
+        });
+        assertTrue(sameThread[0]);
+    }
+
+    @Test
+    public void parallelFor_mergeInChunkOrderIsDeterministic() {
+        int count = 50_000;
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Math.sin(i) * 1e-3 + 1.0 / (i + 1);
+        }
+
+        double reference = 0;
+        for (int run = 0; run < 20; run++) {
+            double[] partial = new double[scheduler.getChunkCount(count)];
+            scheduler.parallelFor(count, (chunk, from, to) -> {
+                double sum = 0;
+                for (int i = from; i < to; i++) {
+                    sum += values[i];
+                }
+                partial[chunk] = sum;
+            });
+
+            // floating point sums depend on the order, merging by chunk index keeps them bit-identical
+            double merged = 0;
+            for (double p : partial) {
+                merged += p;
+            }
+            if (run == 0) {
+                reference = merged;
+            }
+            assertEquals(Double.doubleToLongBits(reference), Double.doubleToLongBits(merged));
+        }
+    }
+
+    @Test
+    public void parallelFor_throwsFailureOfChunkAfterAllChunks() {
+        int count = 100_000;
+        int[] visits = new int[count];
+        int failingChunk = scheduler.getChunkCount(count) / 2;
+        try {
+            scheduler.parallelFor(count, (chunk, from, to) -> {
+                if (chunk == failingChunk) throw new IllegalStateException("chunk " + chunk);
+                for (int i = from; i < to; i++) {
+                    visits[i]++;
+                }
+            });
+            fail("the failure of the chunk was lost");
+        } catch (IllegalStateException e) {
+            assertEquals("chunk " + failingChunk, e.getMessage());
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals(i / JobScheduler.DEFAULT_CHUNK_SIZE == failingChunk ? 0 : 1, visits[i]);
+        }
+
+        // the workers survived the failure
+        scheduler.parallelFor(count, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                visits[i]++;
+            }
+        });
+        assertEquals(2, visits[count - 1]);
+    }
+
+    @Test
+    public void parallelFor_interruptedWaitsForAllChunks() {
+        int count = 100_000;
+        AtomicInteger finished = new AtomicInteger();
+        Thread.currentThread().interrupt();
+        scheduler.parallelFor(count, (chunk, from, to) -> {
+            long end = System.nanoTime() + 200_000;
+            while (System.nanoTime() < end) {
+                // busy, a sleep would end with the interrupt of the calling thread
+            }
+            finished.incrementAndGet();
+        });
+        assertEquals(scheduler.getChunkCount(count), finished.get());
+        // the interrupt is kept for the caller
+        assertTrue(Thread.interrupted());
+    }
+
+    /**
+     * compares the serial loop with the parallel loop for growing entity counts
+     * the printed table shows where parallel execution starts to pay off, DEFAULT_THRESHOLD is based on it;
+     * only runs with -Pbenchmark
+     */
+    @Test
+    public void benchmark_crossover() {
+        Assume.assumeTrue("benchmark, run it with -Pbenchmark", Boolean.getBoolean("benchmark"));
+
+        // the parallel path is forced for every size, so both variants can be compared
+        JobScheduler alwaysParallel = new JobScheduler(WORKERS, 0, JobScheduler.DEFAULT_CHUNK_SIZE);
+        JobScheduler serial = new JobScheduler(0, Integer.MAX_VALUE, JobScheduler.DEFAULT_CHUNK_SIZE);
+
+        System.out.println("entities  serial(us)  parallel(us)  workers=" + WORKERS);
+        for (int count = 32; count <= 65_536; count *= 2) {
+            float[] x = new float[count];
+            float[] velocity = new float[count];
+            for (int i = 0; i < count; i++) {
+                velocity[i] = i % 7;
+            }
+            JobScheduler.RangeJob job = (chunk, from, to) -> {
+                // roughly the work of one entity update: move, clamp and a bit of math
+                for (int i = from; i < to; i++) {
+                    x[i] += velocity[i] * 0.02f;
+                    if (x[i] > 10_000f) x[i] -= 10_000f;
+                    velocity[i] = (float) Math.sqrt(velocity[i] * velocity[i] + 1f) - 0.5f;
+                }
+            };
+
+            long serialNanos = measure(serial, count, job);
+            long parallelNanos = measure(alwaysParallel, count, job);
+            System.out.printf("%8d  %10.1f  %12.1f%s%n", count, serialNanos / 1000.0, parallelNanos / 1000.0,
+                    parallelNanos < serialNanos ? "  <- parallel faster" : "");
+        }
+
+        alwaysParallel.shutdown();
+        serial.shutdown();
+    }
+
+    /**
+     * @return median time of one loop in nanoseconds, after warming up
+     */
+    private static long measure(JobScheduler scheduler, int count, JobScheduler.RangeJob job) {
+        for (int i = 0; i < 200; i++) {
+            scheduler.parallelFor(count, job);
+        }
+        long[] samples = new long[101];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            scheduler.parallelFor(count, job);
+            samples[i] = System.nanoTime() - start;
+        }
+        java.util.Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+}
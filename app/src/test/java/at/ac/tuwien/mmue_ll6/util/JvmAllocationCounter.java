@@ -0,0 +1,77 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts allocations with the thread allocation counters of the JVM, the unit test version of DebugAllocationCounter
+ * a counter keeps the start of its measurement, so every thread needs its own counter
+ * @author agent
+ */
+public class JvmAllocationCounter implements AllocationCounter {
+
+    // the warm up loads the classes and fills lazy fields, the JVM itself allocates a little while it
+    // compiles the code, so the result is the best of some rounds, an allocation of the code shows up in every round
+    // the tests of the AllocationTests category run without escape analysis (the allocationTest task in build.gradle),
+    // it would hide allocations which ART does not remove
+    private static final int WARM_UP_RUNS = 100;
+    private static final int ROUNDS = 5;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private long startBytes;
+    // bytes allocated by reading the counter itself
+    private final long overhead;
+
+    public JvmAllocationCounter() {
+        start();
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            begin();
+            min = Math.min(min, read() - startBytes);
+        }
+        overhead = min;
+    }
+
+    @Override
+    public void start() {
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public void begin() {
+        startBytes = read();
+    }
+
+    @Override
+    public long end() {
+        return Math.max(0, read() - startBytes - overhead);
+    }
+
+    /**
+     * @param task the code which is measured, created before so calling it does not allocate
+     * @param runs number of measured runs per round
+     * @return bytes allocated by the runs of the best round
+     */
+    public long measure(Runnable task, int runs) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            task.run();
+        }
+        long min = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            begin();
+            for (int i = 0; i < runs; i++) {
+                task.run();
+            }
+            min = Math.min(min, end());
+        }
+        return min;
+    }
+
+    private long read() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
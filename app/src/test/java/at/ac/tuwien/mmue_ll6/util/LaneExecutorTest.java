@@ -0,0 +1,83 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the priority lanes of the background executor
+ * @author agent
+ */
+public class LaneExecutorTest {
+
+    /**
+     * occupy the only thread of the lane, so the next tasks have to wait in the queue
+     */
+    private static CountDownLatch block(LaneExecutor lane) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        lane.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, Concurrency.PRIORITY_NORMAL, null);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        return release;
+    }
+
+    @Test
+    public void execute_runsByPriorityThenInOrder() throws Exception {
+        LaneExecutor lane = new LaneExecutor("test", 1, Thread.NORM_PRIORITY);
+        CountDownLatch release = block(lane);
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        lane.execute(() -> order.add("low"), Concurrency.PRIORITY_LOW, null);
+        lane.execute(() -> order.add("normal 1"), Concurrency.PRIORITY_NORMAL, null);
+        lane.execute(() -> order.add("critical"), Concurrency.PRIORITY_CRITICAL, null);
+        lane.execute(() -> order.add("normal 2"), Concurrency.PRIORITY_NORMAL, null);
+        assertEquals(4, lane.getMetrics().queueDepth);
+
+        release.countDown();
+        lane.shutdown();
+        assertTrue(lane.awaitTermination(1000));
+        assertEquals(Arrays.asList("critical", "normal 1", "normal 2", "low"), order);
+    }
+
+    @Test
+    public void cancelAll_dropsOnlyWaitingTasksOfOwner() throws Exception {
+        LaneExecutor lane = new LaneExecutor("test", 1, Thread.NORM_PRIORITY);
+        CountDownLatch release = block(lane);
+
+        Object activity = new Object();
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        Future<?> owned = lane.execute(() -> ran.add("owned"), Concurrency.PRIORITY_HIGH, activity);
+        lane.execute(() -> ran.add("other"), Concurrency.PRIORITY_HIGH, new Object());
+        lane.execute(() -> ran.add("unowned"), Concurrency.PRIORITY_HIGH, null);
+
+        assertEquals(1, lane.cancelAll(activity));
+        assertTrue(owned.isCancelled());
+
+        release.countDown();
+        lane.shutdown();
+        assertTrue(lane.awaitTermination(1000));
+        assertEquals(Arrays.asList("other", "unowned"), ran);
+
+        TaskMetrics metrics = lane.getMetrics();
+        assertEquals(4, metrics.submitted);
+        assertEquals(3, metrics.completed);
+        assertEquals(1, metrics.cancelled);
+        assertEquals(0, metrics.queueDepth);
+        assertTrue(metrics.maxWaitMillis > 0);
+    }
+}
@@ -0,0 +1,55 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import at.ac.tuwien.mmue_ll6.objects.EnemyObject;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the compiler of the level files
+ * @author agent
+ */
+public class LevelSourceTest {
+
+    @Test
+    public void behaviors_matchEnemyObject() {
+        EnemyObject.Behavior[] behaviors = EnemyObject.Behavior.values();
+        assertEquals(behaviors.length, LevelSource.BEHAVIORS.length);
+        for (int i = 0; i < behaviors.length; i++) {
+            assertEquals(behaviors[i].name(), LevelSource.BEHAVIORS[i]);
+        }
+    }
+
+    @Test
+    public void compile_writesObjectsInOrder() throws IOException {
+        ByteBuffer level = ByteBuffer.wrap(LevelSource.compile(
+                "# comment\nlevel 7\nplayer 1 2\ngoal 3 4\n\nplatform 5 6  # first\nplatform 7 8\nenemy 9 10 chase 11\nfire 12 13\n"));
+
+        int[] expected = {7, 1, 2, 3, 4, 2, 5, 6, 7, 8, 1, 9, 10, 1, 11, 1, 12, 13};
+        for (int value : expected) {
+            assertEquals(value, level.getInt());
+        }
+        assertFalse(level.hasRemaining());
+    }
+
+    @Test
+    public void compile_reportsLineOfError() {
+        assertError("level 1\nplayer 1 2\ngoal 3 4\nenemy 1 2 FLY 3\n", "line 4");
+        assertError("level 1\nplayer 1\n", "line 2");
+        assertError("level 1\nplayer 1 2\nbox 1 2\n", "line 3");
+        assertError("level 1\nplayer 1 2\n", "goal");
+    }
+
+    private static void assertError(String source, String message) {
+        try {
+            LevelSource.compile(source);
+            fail("broken level was compiled");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the frames of a packed sprite sheet
+ * @author agent
+ */
+public class SpriteFramesTest {
+
+    @Test
+    public void read_returnsWrittenFrames() throws IOException {
+        SpriteFrames frames = new SpriteFrames(106, 126, 150, new int[]{2, 2, 50, 60, 54, 2, 50, 60, 2, 64, 50, 60});
+        SpriteFrames read = SpriteFrames.read(ByteBuffer.wrap(frames.toBytes()));
+
+        assertEquals(106, read.sheetWidth);
+        assertEquals(126, read.sheetHeight);
+        assertEquals(150, read.frameTime);
+        assertEquals(3, read.getFrameCount());
+        assertEquals(54, read.getLeft(1));
+        assertEquals(64, read.getTop(2));
+        assertEquals(50, read.getWidth(2));
+        assertEquals(60, read.getHeight(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsFrameOutsideOfSheet() throws IOException {
+        SpriteFrames frames = new SpriteFrames(100, 60, 150, new int[]{60, 0, 50, 60});
+        SpriteFrames.read(ByteBuffer.wrap(frames.toBytes()));
+    }
+}
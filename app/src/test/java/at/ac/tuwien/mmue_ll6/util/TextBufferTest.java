@@ -0,0 +1,52 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the text which is drawn without creating Strings
+ * @author agent
+ */
+public class TextBufferTest {
+
+    @Test
+    public void append_formatsNumbers() {
+        TextBuffer text = new TextBuffer(64);
+        assertEquals("0 -7 1234", text.append(0L).append(' ').append(-7L).append(' ').append(1234L).toString());
+        assertEquals(String.valueOf(Long.MIN_VALUE), text.clear().append(Long.MIN_VALUE).toString());
+        assertEquals(String.valueOf(Long.MAX_VALUE), text.clear().append(Long.MAX_VALUE).toString());
+    }
+
+    @Test
+    public void append_formatsDecimals() {
+        TextBuffer text = new TextBuffer(64);
+        assertEquals("Time: 12.34", text.append("Time: ").append(12.34, 2).toString());
+        assertEquals("3.00", text.clear().append(3.0, 2).toString());
+        assertEquals("0.05", text.clear().append(0.049, 2).toString());
+        assertEquals("-1.5", text.clear().append(-1.5, 1).toString());
+        assertEquals("0.0", text.clear().append(-0.01, 1).toString());
+        assertEquals("8", text.clear().append(7.6, 0).toString());
+    }
+
+    @Test
+    public void append_cutsAtCapacity() {
+        TextBuffer text = new TextBuffer(8);
+        text.append("Time: ").append(1234.5, 1);
+        assertEquals(8, text.length());
+        assertEquals("Time: 12", text.toString());
+    }
+
+    @Test
+    @Category(AllocationTests.class)
+    public void append_doesNotAllocate() {
+        TextBuffer text = new TextBuffer(32);
+        double[] seconds = {0};
+        long bytes = new JvmAllocationCounter().measure(() -> {
+            seconds[0] += 0.02;
+            text.clear().append("Time: ").append(seconds[0], 2);
+        }, 1000);
+        assertEquals(0, bytes);
+    }
+}
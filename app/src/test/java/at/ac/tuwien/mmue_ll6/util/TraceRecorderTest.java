@@ -0,0 +1,108 @@
+package at.ac.tuwien.mmue_ll6.util;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the in-memory trace and its Chrome Trace Event JSON
+ * @author agent
+ */
+public class TraceRecorderTest {
+
+    @Test
+    public void writeJson_writesSectionsOfAllThreads() throws Exception {
+        TraceRecorder recorder = new TraceRecorder(64);
+        recorder.begin("GameLoop.update");
+        recorder.begin("GameSimulation.collideEnemies");
+        recorder.end();
+        recorder.end();
+        recorder.instant("slow frame");
+
+        Thread render = new Thread(() -> {
+            recorder.begin("GameLoop.render");
+            recorder.end();
+        }, "RenderThread");
+        render.start();
+        render.join();
+
+        assertEquals(7, recorder.size());
+        String json = toJson(recorder);
+        assertTrue(json.startsWith("{\"traceEvents\":["));
+        assertTrue(json.endsWith("],\"displayTimeUnit\":\"ms\"}\n"));
+        assertTrue(json.contains("\"args\":{\"name\":\"RenderThread\"}"));
+        assertTrue(json.contains("\"name\":\"GameSimulation.collideEnemies\""));
+        assertTrue(json.contains("\"name\":\"slow frame\",\"s\":\"t\""));
+        assertEquals(3, count(json, "\"ph\":\"B\""));
+        assertEquals(3, count(json, "\"ph\":\"E\""));
+        assertEquals(2, count(json, "\"ph\":\"M\""));
+        assertFalse(json.contains(",,"));
+    }
+
+    @Test
+    public void writeJson_dropsEndsOfOverwrittenSections() throws IOException {
+        TraceRecorder recorder = new TraceRecorder(4);
+        recorder.begin("a");
+        recorder.begin("b");
+        recorder.begin("c");
+        recorder.end();
+        recorder.end();
+        recorder.end();
+
+        // the ends of b and a lost their begin
+        String json = toJson(recorder);
+        assertEquals(4, recorder.size());
+        assertEquals(1, count(json, "\"ph\":\"B\""));
+        assertEquals(1, count(json, "\"ph\":\"E\""));
+    }
+
+    @Test
+    public void copy_keepsTheLastEvents() throws IOException {
+        TraceRecorder recorder = new TraceRecorder(8);
+        for (int i = 0; i < 10; i++) {
+            recorder.begin("tick");
+            recorder.end();
+        }
+        TraceRecorder copy = recorder.copy();
+        recorder.begin("after the copy");
+
+        assertEquals(8, copy.size());
+        assertFalse(toJson(copy).contains("after the copy"));
+        assertEquals(4, count(toJson(copy), "\"ph\":\"B\""));
+    }
+
+    @Test
+    @Category(AllocationTests.class)
+    public void record_doesNotAllocate() {
+        TraceRecorder recorder = new TraceRecorder(1 << 10);
+        long bytes = new JvmAllocationCounter().measure(() -> {
+            recorder.begin("GameLoop.update");
+            recorder.instant("slow frame");
+            recorder.end();
+        }, 5000);
+        assertEquals(0, bytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsCapacityWhichIsNoPowerOfTwo() {
+        new TraceRecorder(1000);
+    }
+
+    private static String toJson(TraceRecorder recorder) throws IOException {
+        StringWriter out = new StringWriter();
+        recorder.writeJson(out, 1);
+        return out.toString();
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
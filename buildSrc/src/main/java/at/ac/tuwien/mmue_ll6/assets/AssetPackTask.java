@@ -0,0 +1,183 @@
+package at.ac.tuwien.mmue_ll6.assets;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import at.ac.tuwien.mmue_ll6.util.AssetPack;
+import at.ac.tuwien.mmue_ll6.util.AssetPackWriter;
+import at.ac.tuwien.mmue_ll6.util.LevelSource;
+import at.ac.tuwien.mmue_ll6.util.SpriteFrames;
+
+/**
+ * Writes the asset pack of the app at build time, so loading an image or level on the device is a straight read
+ * images are scaled to every density bucket, sprite strips are packed into sheets with their frames,
+ * level files are compiled into the binary format of LevelLayout
+ * @author agent
+ */
+public class AssetPackTask extends DefaultTask {
+
+    // drawables without a density qualifier are mdpi
+    private static final int SOURCE_DENSITY = 160;
+
+    private File resourceDir;
+    private File levelDir;
+    private File outputDir;
+    private long contentVersion;
+    private List<String> images = new ArrayList<>();
+    private final Map<String, Integer> spriteFrameCounts = new LinkedHashMap<>();
+    private final Map<String, Integer> spriteFrameTimes = new LinkedHashMap<>();
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public File getResourceDir() { return resourceDir;}
+    public void setResourceDir(File resourceDir) { this.resourceDir = resourceDir;}
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public File getLevelDir() { return levelDir;}
+    public void setLevelDir(File levelDir) { this.levelDir = levelDir;}
+
+    @OutputDirectory
+    public File getOutputDir() { return outputDir;}
+    public void setOutputDir(File outputDir) { this.outputDir = outputDir;}
+
+    @Input
+    public long getContentVersion() { return contentVersion;}
+    public void setContentVersion(long contentVersion) { this.contentVersion = contentVersion;}
+
+    // drawables which are packed as they are
+    @Input
+    public List<String> getImages() { return images;}
+    public void setImages(List<String> images) { this.images = new ArrayList<>(images);}
+
+    @Input
+    public Map<String, Integer> getSpriteFrameCounts() { return spriteFrameCounts;}
+
+    @Input
+    public Map<String, Integer> getSpriteFrameTimes() { return spriteFrameTimes;}
+
+    /**
+     * pack a drawable which is a strip of frames as a sprite sheet
+     * @param name the drawable
+     * @param frameCount number of frames of equal width in the strip
+     * @param frameTime how long each frame is shown in ms
+     */
+    public void sprite(String name, int frameCount, int frameTime) {
+        spriteFrameCounts.put(name, frameCount);
+        spriteFrameTimes.put(name, frameTime);
+    }
+
+    @TaskAction
+    public void pack() throws IOException {
+        AssetPackWriter writer = new AssetPackWriter();
+
+        for (String name : images) {
+            File source = findDrawable(name);
+            addScaled(writer, name, readImage(source), source.getName().endsWith(".jpg") ? "jpg" : "png");
+        }
+
+        for (String name : spriteFrameCounts.keySet()) {
+            SpriteSheetPacker.Sheet sheet;
+            try {
+                sheet = SpriteSheetPacker.pack(readImage(findDrawable(name)), spriteFrameCounts.get(name));
+            } catch (IllegalArgumentException e) {
+                throw new GradleException("sprite " + name + ": " + e.getMessage());
+            }
+            // the sheet replaces the strip under the name of the drawable
+            addScaled(writer, name, sheet.image, "png");
+            SpriteFrames frames = sheet.getFrames(spriteFrameTimes.get(name));
+            writer.add(AssetPack.getSpriteName(name), AssetPack.TYPE_SPRITE, frames.toBytes());
+        }
+
+        File[] levels = levelDir.listFiles((dir, file) -> file.endsWith(".lvl"));
+        if (levels == null) levels = new File[0];
+        Arrays.sort(levels);
+        for (File file : levels) {
+            byte[] level;
+            try {
+                level = LevelSource.compile(new String(Files.readAllBytes(file.toPath()), "UTF-8"));
+            } catch (IOException e) {
+                throw new GradleException(file.getName() + ", " + e.getMessage());
+            }
+            writer.add(AssetPack.getLevelName(ByteBuffer.wrap(level).getInt()), AssetPack.TYPE_LEVEL, level);
+        }
+
+        File pack = new File(outputDir, "game.pack");
+        writer.write(pack, contentVersion);
+        getLogger().lifecycle("asset pack: " + images.size() + " images, " + spriteFrameCounts.size() + " sprites, "
+                + levels.length + " levels, " + pack.length() / 1024 + " KB");
+    }
+
+    /**
+     * add an image scaled to every density bucket
+     */
+    private static void addScaled(AssetPackWriter writer, String name, BufferedImage image, String format) throws IOException {
+        for (int density : AssetPack.DENSITIES) {
+            BufferedImage scaled = scale(image, density, format.equals("png"));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (!ImageIO.write(scaled, format, out)) throw new GradleException("no writer for " + format);
+            writer.add(AssetPack.getImageName(name, density), AssetPack.TYPE_IMAGE, out.toByteArray());
+        }
+    }
+
+    /**
+     * scale and round the size like the resources scale a drawable of the default density
+     */
+    private static BufferedImage scale(BufferedImage image, int density, boolean alpha) {
+        int width = Math.max(1, (int) (image.getWidth() * density / (float) SOURCE_DENSITY + 0.5f));
+        int height = Math.max(1, (int) (image.getHeight() * density / (float) SOURCE_DENSITY + 0.5f));
+
+        BufferedImage scaled = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaled;
+    }
+
+    /**
+     * @return the png or jpg of a drawable in any drawable directory of the resources
+     */
+    private File findDrawable(String name) {
+        File[] directories = resourceDir.listFiles((dir, file) -> file.startsWith("drawable"));
+        if (directories != null) {
+            Arrays.sort(directories);
+            for (File directory : directories) {
+                for (String extension : new String[]{".png", ".jpg"}) {
+                    File file = new File(directory, name + extension);
+                    if (file.isFile()) return file;
+                }
+            }
+        }
+        throw new GradleException("drawable " + name + " not found in " + resourceDir);
+    }
+
+    private static BufferedImage readImage(File file) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) throw new GradleException(file + " is not an image");
+        return image;
+    }
+}
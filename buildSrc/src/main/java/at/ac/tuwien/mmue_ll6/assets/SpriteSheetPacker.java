@@ -0,0 +1,64 @@
+package at.ac.tuwien.mmue_ll6.assets;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import at.ac.tuwien.mmue_ll6.util.SpriteFrames;
+
+/**
+ * Lays the frames of a sprite strip out in a grid, with transparent padding around every frame,
+ * so no frame bleeds into its neighbour when the sheet is scaled to a density bucket
+ * @author agent
+ */
+class SpriteSheetPacker {
+
+    static final int PADDING = 2;
+
+    /**
+     * the packed image and the positions of its frames
+     */
+    static class Sheet {
+        final BufferedImage image;
+        final int[] rects;
+
+        Sheet(BufferedImage image, int[] rects) {
+            this.image = image;
+            this.rects = rects;
+        }
+
+        SpriteFrames getFrames(int frameTime) {
+            return new SpriteFrames(image.getWidth(), image.getHeight(), frameTime, rects);
+        }
+    }
+
+    /**
+     * @param strip frames of equal width next to each other
+     * @param frameCount number of frames in the strip
+     * @return the sheet, as square as possible
+     */
+    static Sheet pack(BufferedImage strip, int frameCount) {
+        if (frameCount <= 0 || strip.getWidth() % frameCount != 0) {
+            throw new IllegalArgumentException("a strip of " + strip.getWidth() + " pixel can't have " + frameCount + " frames");
+        }
+        int frameWidth = strip.getWidth() / frameCount;
+        int frameHeight = strip.getHeight();
+        int columns = (int) Math.ceil(Math.sqrt(frameCount));
+        int rows = (frameCount + columns - 1) / columns;
+
+        BufferedImage sheet = new BufferedImage(columns * (frameWidth + PADDING) + PADDING,
+                rows * (frameHeight + PADDING) + PADDING, BufferedImage.TYPE_INT_ARGB);
+        int[] rects = new int[frameCount * 4];
+        Graphics2D graphics = sheet.createGraphics();
+        for (int i = 0; i < frameCount; i++) {
+            int left = PADDING + i % columns * (frameWidth + PADDING);
+            int top = PADDING + i / columns * (frameHeight + PADDING);
+            graphics.drawImage(strip.getSubimage(i * frameWidth, 0, frameWidth, frameHeight), left, top, null);
+            rects[i * 4] = left;
+            rects[i * 4 + 1] = top;
+            rects[i * 4 + 2] = frameWidth;
+            rects[i * 4 + 3] = frameHeight;
+        }
+        graphics.dispose();
+        return new Sheet(sheet, rects);
+    }
+}